@@ -0,0 +1,425 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.benchmark;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.google.protobuf.ByteString;
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.collection.ArrayUtils;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.generate.GenerateOperation;
+import com.zfoo.protocol.packet.*;
+import com.zfoo.protocol.registration.ProtocolRegistration;
+import com.zfoo.protocol.util.ClassUtils;
+import com.zfoo.protocol.util.DomUtils;
+import com.zfoo.protocol.xml.XmlProtocols;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 基准测试用的测试数据，和protocol模块的SpeedTest保持一致，方便对比结果
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class BenchmarkPackets {
+
+    /**
+     * 使用javassist字节码增强的序列化方式
+     */
+    public static final String ENHANCE = "enhance";
+    /**
+     * 使用反射的序列化方式，对应协议xml中的enhance="false"
+     */
+    public static final String REFLECT = "reflect";
+
+    public static final String SIMPLE = "simple";
+    public static final String NORMAL = "normal";
+    public static final String COMPLEX = "complex";
+
+    private static final String REFLECT_PROTOCOL_LOCATION = "benchmark-reflect-protocol.xml";
+
+    /**
+     * ProtocolManager在一个JVM中只能初始化一次，所以JMH的每一个fork只能测试一种序列化方式，@Fork不能为0
+     */
+    public static synchronized void initProtocol(String serializer) {
+        var registration = ProtocolManager.protocols[SimpleObject.PROTOCOL_ID];
+        if (registration != null) {
+            var reflect = registration instanceof ProtocolRegistration;
+            if (reflect != REFLECT.equals(serializer)) {
+                throw new RunException("ProtocolManager已经使用其它序列化方式初始化，请使用@Fork在新的JVM中运行[serializer:{}]", serializer);
+            }
+            return;
+        }
+
+        switch (serializer) {
+            case ENHANCE:
+                ProtocolManager.initProtocol(Set.of(ComplexObject.class, NormalObject.class, SimpleObject.class, ObjectA.class, ObjectB.class), GenerateOperation.NO_OPERATION);
+                break;
+            case REFLECT:
+                try (var inputStream = ClassUtils.getFileFromClassPath(REFLECT_PROTOCOL_LOCATION)) {
+                    var xmlProtocols = DomUtils.inputStream2Object(inputStream, XmlProtocols.class);
+                    ProtocolManager.initProtocol(xmlProtocols, GenerateOperation.NO_OPERATION);
+                } catch (IOException e) {
+                    throw new RunException(e);
+                }
+                break;
+            default:
+                throw new RunException("未知的序列化方式[serializer:{}]", serializer);
+        }
+    }
+
+    public static IPacket packet(String type) {
+        switch (type) {
+            case SIMPLE:
+                return simpleObject;
+            case NORMAL:
+                return normalObject;
+            case COMPLEX:
+                return complexObject;
+            default:
+                throw new RunException("未知的测试对象[type:{}]", type);
+        }
+    }
+
+    public static com.google.protobuf.GeneratedMessageV3 protobufPacket(String type) {
+        switch (type) {
+            case SIMPLE:
+                return protobufSimpleObject;
+            case NORMAL:
+                return protobufNormalObject;
+            case COMPLEX:
+                return protobufComplexObject;
+            default:
+                throw new RunException("未知的测试对象[type:{}]", type);
+        }
+    }
+
+    /**
+     * kryo的注册信息，和SpeedTest保持一致，关闭循环引用
+     */
+    public static Kryo newKryo() {
+        var kryo = new Kryo();
+        kryo.register(ComplexObject.class);
+        kryo.register(NormalObject.class);
+        kryo.register(SimpleObject.class);
+        kryo.register(ObjectA.class);
+        kryo.register(ObjectB.class);
+        kryo.register(byte[].class);
+        kryo.register(Byte[].class);
+        kryo.register(short[].class);
+        kryo.register(Short[].class);
+        kryo.register(int[].class);
+        kryo.register(Integer[].class);
+        kryo.register(long[].class);
+        kryo.register(Long[].class);
+        kryo.register(float[].class);
+        kryo.register(Float[].class);
+        kryo.register(double[].class);
+        kryo.register(Double[].class);
+        kryo.register(boolean[].class);
+        kryo.register(Boolean[].class);
+        kryo.register(char[].class);
+        kryo.register(Character[].class);
+        kryo.register(String[].class);
+        kryo.register(ObjectA[].class);
+        kryo.register(ArrayList.class);
+        kryo.register(HashSet.class);
+        kryo.register(HashMap.class);
+        kryo.setReferences(false);
+        return kryo;
+    }
+
+
+    // -------------------------------------------以下为测试用例---------------------------------------------------------------
+    private static final byte byteValue = 99;
+    private static final short shortValue = 9999;
+    private static final int intValue = 99999999;
+    private static final long longValue = 9999999999999999L;
+    private static final float floatValue = 99999999.9F;
+    private static final double doubleValue = 99999999.9D;
+    private static final char charValue = 'c';
+    private static final String charValueString = "c";
+    private static final String stringValue = "hello";
+
+
+    private static final boolean[] booleanArray = new boolean[]{true, false, true, false, true};
+    private static final byte[] byteArray = new byte[]{Byte.MIN_VALUE, -99, 0, 99, Byte.MAX_VALUE};
+    private static final short[] shortArray = new short[]{Short.MIN_VALUE, -99, 0, 99, Short.MAX_VALUE};
+    private static final int[] intArray = new int[]{Integer.MIN_VALUE, -99999999, -99, 0, 99, 99999999, Integer.MAX_VALUE};
+    private static final int[] intArray1 = new int[]{Integer.MIN_VALUE, -99999999, -99, 0, 99, 99999999, Integer.MAX_VALUE - 1};
+    private static final int[] intArray2 = new int[]{Integer.MIN_VALUE, -99999999, -99, 0, 99, 99999999, Integer.MAX_VALUE - 2};
+    private static final long[] longArray = new long[]{Long.MIN_VALUE, -9999999999999999L, -99999999L, -99L, 0L, 99L, 99999999L, 9999999999999999L, Long.MAX_VALUE};
+    private static final float[] floatArray = new float[]{Float.MIN_VALUE, -99999999.9F, -99.9F, 0F, 99.9F, 99999999.9F, Float.MAX_VALUE};
+    private static final double[] doubleArray = new double[]{Double.MIN_VALUE, -99999999.9F, -99.9D, 0D, 99.9D, 99999999.9F, Double.MAX_VALUE};
+    private static final char[] charArray = new char[]{'a', 'b', 'c', 'd', 'e'};
+    private static final String[] stringArray = new String[]{"a", "b", "c", "d", "e"};
+
+    private static final ObjectA objectA = new ObjectA();
+    private static final ObjectB objectB = new ObjectB();
+    private static final Map<Integer, String> mapWithInteger = new HashMap<>(Map.of(Integer.MIN_VALUE, "a", -99, "b", 0, "c", 99, "d", Integer.MAX_VALUE, "e"));
+    private static final List<Integer> listWithInteger = new ArrayList<>(ArrayUtils.toList(intArray));
+    private static final List<Integer> listWithInteger1 = new ArrayList<>(ArrayUtils.toList(intArray1));
+    private static final List<Integer> listWithInteger2 = new ArrayList<>(ArrayUtils.toList(intArray2));
+    private static final List<ObjectA> listWithObject = new ArrayList<>(List.of(objectA, objectA, objectA));
+    private static final List<List<ObjectA>> listListWithObject = new ArrayList<>(List.of(listWithObject, listWithObject, listWithObject));
+    private static final List<List<Integer>> listListWithInteger = new ArrayList<>(List.of(listWithInteger, listWithInteger, listWithInteger));
+    private static final List<List<List<Integer>>> listListListWithInteger = new ArrayList<>(List.of(listListWithInteger, listListWithInteger, listListWithInteger));
+    private static final List<String> listWithString = new ArrayList<>(ArrayUtils.toList(stringArray));
+    private static final Set<Integer> setWithInteger = new HashSet<>(ArrayUtils.toList(intArray));
+    private static final Set<Set<List<Integer>>> setSetListWithInteger = new HashSet<>(Set.of(new HashSet<>(Set.of(listWithInteger)), new HashSet<>(Set.of(listWithInteger1)), new HashSet<>(Set.of(listWithInteger2))));
+    private static final Set<Set<ObjectA>> setSetWithObject = new HashSet<>(Set.of(new HashSet<>(Set.of(objectA))));
+    private static final Set<String> setWithString = new HashSet<>(ArrayUtils.toList(stringArray));
+    private static final Map<Integer, ObjectA> mapWithObject = new HashMap<>(Map.of(1, objectA, 2, objectA, 3, objectA));
+    private static final Map<ObjectA, List<Integer>> mapWithList = new HashMap<>(Map.of(objectA, listWithInteger));
+    private static final Map<List<List<ObjectA>>, List<List<List<Integer>>>> mapWithListList = new HashMap<>(Map.of(new ArrayList<>(List.of(listWithObject, listWithObject, listWithObject)), listListListWithInteger));
+    private static final List<Map<Integer, String>> listMap = new ArrayList<>(List.of(mapWithInteger, mapWithInteger, mapWithInteger));
+    private static final Set<Map<Integer, String>> setMapWithInteger = new HashSet<>(Set.of(mapWithInteger));
+    private static final Map<List<Map<Integer, String>>, Set<Map<Integer, String>>> mapListSet = new HashMap<>(Map.of(listMap, setMapWithInteger));
+    private static final Byte[] byteBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(byteArray), Byte.class);
+    private static final Short[] shortBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(shortArray), Short.class);
+    private static final Integer[] integerArray = ArrayUtils.listToArray(ArrayUtils.toList(intArray), Integer.class);
+    private static final Long[] longBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(longArray), Long.class);
+    private static final List<Long> listWithLong = ArrayUtils.toList(longArray);
+    private static final Float[] floatBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(floatArray), Float.class);
+    private static final List<Float> listWithFloat = ArrayUtils.toList(floatArray);
+    private static final Double[] doubleBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(doubleArray), Double.class);
+    private static final List<Double> listWithDouble = ArrayUtils.toList(doubleArray);
+    private static final Boolean[] booleanBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(booleanArray), Boolean.class);
+    private static final List<Boolean> listWithBoolean = ArrayUtils.toList(booleanArray);
+    private static final Character[] charBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(charArray), Character.class);
+    private static final ComplexObject complexObject = new ComplexObject();
+    private static final NormalObject normalObject = new NormalObject();
+    private static final SimpleObject simpleObject = new SimpleObject();
+    private static ProtobufObject.ProtobufComplexObject protobufComplexObject = null;
+    private static ProtobufObject.ProtobufNormalObject protobufNormalObject = null;
+    private static ProtobufObject.ProtobufSimpleObject protobufSimpleObject = null;
+
+    static {
+        objectA.setA(Integer.MAX_VALUE);
+        objectA.setM(mapWithInteger);
+        objectA.setObjectB(objectB);
+        objectB.setFlag(false);
+    }
+
+    static {
+        complexObject.setA(byteValue);
+        complexObject.setAa(byteValue);
+        complexObject.setAaa(byteArray);
+        complexObject.setAaaa(byteBoxArray);
+        complexObject.setB(shortValue);
+        complexObject.setBb(shortValue);
+        complexObject.setBbb(shortArray);
+        complexObject.setBbbb(shortBoxArray);
+        complexObject.setC(intValue);
+        complexObject.setCc(intValue);
+        complexObject.setCcc(intArray);
+        complexObject.setCccc(integerArray);
+        complexObject.setD(longValue);
+        complexObject.setDd(longValue);
+        complexObject.setDdd(longArray);
+        complexObject.setDddd(longBoxArray);
+        complexObject.setE(floatValue);
+        complexObject.setEe(floatValue);
+        complexObject.setEee(floatArray);
+        complexObject.setEeee(floatBoxArray);
+        complexObject.setF(doubleValue);
+        complexObject.setFf(doubleValue);
+        complexObject.setFff(doubleArray);
+        complexObject.setFfff(doubleBoxArray);
+        complexObject.setG(true);
+        complexObject.setGg(true);
+        complexObject.setGgg(booleanArray);
+        complexObject.setGggg(booleanBoxArray);
+        complexObject.setH(charValue);
+        complexObject.setHh(charValue);
+        complexObject.setHhh(charArray);
+        complexObject.setHhhh(charBoxArray);
+        complexObject.setJj(stringValue);
+        complexObject.setJjj(stringArray);
+        complexObject.setKk(objectA);
+        complexObject.setKkk(new ObjectA[]{objectA, objectA});
+
+        complexObject.setL(listWithInteger);
+        complexObject.setLl(listListListWithInteger);
+        complexObject.setLll(listListWithObject);
+        complexObject.setLlll(listWithString);
+        complexObject.setLllll(listMap);
+
+        complexObject.setM(mapWithInteger);
+        complexObject.setMm(mapWithObject);
+        complexObject.setMmm(mapWithList);
+        complexObject.setMmmm(mapWithListList);
+        complexObject.setMmmmm(mapListSet);
+
+        complexObject.setS(setWithInteger);
+        complexObject.setSs(setSetListWithInteger);
+        complexObject.setSss(setSetWithObject);
+        complexObject.setSsss(setWithString);
+        complexObject.setSssss(setMapWithInteger);
+
+        normalObject.setA(byteValue);
+        normalObject.setAaa(byteArray);
+        normalObject.setB(shortValue);
+        normalObject.setC(intValue);
+        normalObject.setD(longValue);
+        normalObject.setE(floatValue);
+        normalObject.setF(doubleValue);
+        normalObject.setG(true);
+        normalObject.setJj(stringValue);
+        normalObject.setKk(objectA);
+
+        normalObject.setL(listWithInteger);
+        normalObject.setLl(listWithLong);
+        normalObject.setLll(listWithObject);
+        normalObject.setLlll(listWithString);
+
+        normalObject.setM(mapWithInteger);
+        normalObject.setMm(mapWithObject);
+
+        normalObject.setS(setWithInteger);
+        normalObject.setSsss(setWithString);
+
+        simpleObject.setC(intValue);
+        simpleObject.setG(true);
+
+        // protobuf相关
+        var protobufObjectB = ProtobufObject.ObjectB.newBuilder().setFlag(false).build();
+        var protobufObjectA = ProtobufObject.ObjectA.newBuilder()
+                .setA(Integer.MAX_VALUE)
+                .putAllM(mapWithInteger)
+                .setObjectB(protobufObjectB)
+                .build();
+        var protobufListInteger = ProtobufObject.ListInteger.newBuilder().addAllA(listWithInteger).build();
+        var protobufListListInteger = ProtobufObject.ListListInteger.newBuilder()
+                .addAllA(List.of(protobufListInteger, protobufListInteger, protobufListInteger))
+                .build();
+        var protobufListListListInteger = ProtobufObject.ListListListInteger.newBuilder()
+                .addAllA(List.of(protobufListListInteger, protobufListListInteger, protobufListListInteger))
+                .build();
+        var protobufListObjectA = ProtobufObject.ListObjectA.newBuilder()
+                .addAllA(List.of(protobufObjectA, protobufObjectA, protobufObjectA))
+                .build();
+        var protobufListListObjectA = ProtobufObject.ListListObjectA.newBuilder()
+                .addAllA(List.of(protobufListObjectA, protobufListObjectA, protobufListObjectA))
+                .build();
+        var rawProtobufListListObjectA = List.of(protobufListObjectA, protobufListObjectA, protobufListObjectA);
+        var rawProtobufListListListInteger = List.of(protobufListListInteger, protobufListListInteger, protobufListListInteger);
+        var rawProtobufListWithObject = new ArrayList<>(List.of(protobufObjectA, protobufObjectA, protobufObjectA));
+        var protobufMapIntegerString = ProtobufObject.MapIntegerString.newBuilder().putAllA(mapWithInteger).build();
+        var rawProtobufListMapIntegerString = List.of(protobufMapIntegerString, protobufMapIntegerString, protobufMapIntegerString);
+        var protobufMapObjectA = ProtobufObject.MapObjectA.newBuilder()
+                .setKey(protobufObjectA)
+                .setValue(protobufListInteger)
+                .build();
+        var protobufMapListListObjectA = ProtobufObject.MapListListObjectA.newBuilder()
+                .setKey(protobufListListObjectA)
+                .setValue(protobufListListListInteger)
+                .build();
+        var protobufListMapIntegerStringKey = ProtobufObject.ListMapIntegerString.newBuilder()
+                .addAllA(rawProtobufListMapIntegerString)
+                .build();
+        var protobufListMapIntegerStringValue = ProtobufObject.ListMapIntegerString.newBuilder()
+                .addAllA(List.of(protobufMapIntegerString))
+                .build();
+        var protobufMapListMapInteger = ProtobufObject.MapListMapInteger.newBuilder()
+                .setKey(protobufListMapIntegerStringKey)
+                .setValue(protobufListMapIntegerStringValue)
+                .build();
+
+
+        var protobufComplexBuilder = ProtobufObject.ProtobufComplexObject.newBuilder();
+        var protobufNormalBuilder = ProtobufObject.ProtobufNormalObject.newBuilder();
+        var protobufSimpleBuilder = ProtobufObject.ProtobufSimpleObject.newBuilder();
+        protobufComplexBuilder.setA(byteValue);
+        protobufComplexBuilder.setAa(byteValue);
+        protobufComplexBuilder.setAaa(ByteString.copyFrom(byteArray));
+        protobufComplexBuilder.setAaaa(ByteString.copyFrom(byteArray));
+        protobufComplexBuilder.setB(shortValue);
+        protobufComplexBuilder.setBb(shortValue);
+        protobufComplexBuilder.setBbb(ByteString.copyFrom(byteArray));
+        protobufComplexBuilder.setBbbb(ByteString.copyFrom(byteArray));
+        protobufComplexBuilder.setC(intValue);
+        protobufComplexBuilder.setCc(intValue);
+        protobufComplexBuilder.addAllCcc(listWithInteger);
+        protobufComplexBuilder.addAllCccc(listWithInteger);
+        protobufComplexBuilder.setD(longValue);
+        protobufComplexBuilder.setDd(longValue);
+        protobufComplexBuilder.addAllDdd(listWithLong);
+        protobufComplexBuilder.addAllDddd(listWithLong);
+        protobufComplexBuilder.setE(floatValue);
+        protobufComplexBuilder.setEe(floatValue);
+        protobufComplexBuilder.addAllEee(listWithFloat);
+        protobufComplexBuilder.addAllEeee(listWithFloat);
+        protobufComplexBuilder.setF(doubleValue);
+        protobufComplexBuilder.setFf(doubleValue);
+        protobufComplexBuilder.addAllFff(listWithDouble);
+        protobufComplexBuilder.addAllFfff(listWithDouble);
+        protobufComplexBuilder.setG(true);
+        protobufComplexBuilder.setGg(true);
+        protobufComplexBuilder.addAllGgg(listWithBoolean);
+        protobufComplexBuilder.addAllGggg(listWithBoolean);
+        protobufComplexBuilder.setH(charValueString);
+        protobufComplexBuilder.setHh(charValueString);
+        protobufComplexBuilder.addAllHhh(listWithString);
+        protobufComplexBuilder.addAllHhhh(listWithString);
+        protobufComplexBuilder.setJj(stringValue);
+        protobufComplexBuilder.addAllJjj(listWithString);
+        protobufComplexBuilder.setKk(protobufObjectA);
+        protobufComplexBuilder.addAllKkk(rawProtobufListWithObject);
+        protobufComplexBuilder.addAllL(listWithInteger);
+        protobufComplexBuilder.addAllLl(rawProtobufListListListInteger);
+        protobufComplexBuilder.addAllLll(rawProtobufListListObjectA);
+        protobufComplexBuilder.addAllLlll(listWithString);
+        protobufComplexBuilder.addAllLllll(rawProtobufListMapIntegerString);
+        protobufComplexBuilder.putAllM(mapWithInteger);
+        protobufComplexBuilder.putAllMm(Map.of(1, protobufObjectA, 2, protobufObjectA, 3, protobufObjectA));
+        protobufComplexBuilder.addMmm(protobufMapObjectA);
+        protobufComplexBuilder.addMmmm(protobufMapListListObjectA);
+        protobufComplexBuilder.addMmmmm(protobufMapListMapInteger);
+        protobufComplexBuilder.addAllS(listWithInteger);
+        protobufComplexBuilder.addAllSs(rawProtobufListListListInteger);
+        protobufComplexBuilder.addAllSss(rawProtobufListListObjectA);
+        protobufComplexBuilder.addAllSsss(listWithString);
+        protobufComplexBuilder.addAllSssss(rawProtobufListMapIntegerString);
+        protobufComplexObject = protobufComplexBuilder.build();
+
+        protobufNormalBuilder.setA(byteValue);
+        protobufNormalBuilder.setAaa(ByteString.copyFrom(byteArray));
+        protobufNormalBuilder.setB(shortValue);
+        protobufNormalBuilder.setC(intValue);
+        protobufNormalBuilder.setD(intValue);
+        protobufNormalBuilder.setE(longValue);
+        protobufNormalBuilder.setF(doubleValue);
+        protobufNormalBuilder.setG(true);
+        protobufNormalBuilder.setJj(stringValue);
+        protobufNormalBuilder.setKk(protobufObjectA);
+        protobufNormalBuilder.addAllL(listWithInteger);
+        protobufNormalBuilder.addAllLl(listWithLong);
+        protobufNormalBuilder.addAllLll(rawProtobufListWithObject);
+        protobufNormalBuilder.addAllLlll(listWithString);
+        protobufNormalBuilder.putAllM(mapWithInteger);
+        protobufNormalBuilder.putAllMm(Map.of(1, protobufObjectA, 2, protobufObjectA, 3, protobufObjectA));
+        protobufNormalBuilder.addAllS(listWithInteger);
+        protobufNormalBuilder.addAllSsss(listWithString);
+        protobufNormalObject = protobufNormalBuilder.build();
+
+        protobufSimpleBuilder.setC(intValue);
+        protobufSimpleBuilder.setG(true);
+        protobufSimpleObject = protobufSimpleBuilder.build();
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.benchmark;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.unsafe.UnsafeInput;
+import com.esotericsoftware.kryo.unsafe.UnsafeOutput;
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.util.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * kryo的序列化和反序列化基准测试，作为zfoo protocol的对照组
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+// kryo的unsafe读写需要访问jdk的内部类
+@Fork(value = 1, jvmArgsAppend = {"--add-exports=java.base/sun.nio.ch=ALL-UNNAMED", "--add-opens=java.base/java.nio=ALL-UNNAMED"})
+public class KryoBenchmark {
+
+    @Param({BenchmarkPackets.SIMPLE, BenchmarkPackets.NORMAL, BenchmarkPackets.COMPLEX})
+    private String packetType;
+
+    private IPacket packet;
+
+    private Class<? extends IPacket> packetClass;
+
+    private Kryo kryo;
+
+    private UnsafeOutput writeOutput;
+
+    private UnsafeInput readInput;
+
+    private UnsafeInput writeAndReadInput;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        packet = BenchmarkPackets.packet(packetType);
+        packetClass = packet.getClass();
+        kryo = BenchmarkPackets.newKryo();
+
+        writeOutput = new UnsafeOutput(1024 * 8);
+        writeAndReadInput = new UnsafeInput(writeOutput.getBuffer());
+
+        var output = new UnsafeOutput(1024 * 8);
+        kryo.writeObject(output, packet);
+        readInput = new UnsafeInput(output.toBytes());
+
+        System.out.println(StringUtils.format("[kryo] [packet:{}] [size:{}]", packetType, output.position()));
+    }
+
+    @Benchmark
+    public UnsafeOutput write() {
+        writeOutput.reset();
+        kryo.writeObject(writeOutput, packet);
+        return writeOutput;
+    }
+
+    @Benchmark
+    public Object read() {
+        readInput.reset();
+        return kryo.readObject(readInput, packetClass);
+    }
+
+    @Benchmark
+    public Object writeAndRead() {
+        writeOutput.reset();
+        writeAndReadInput.reset();
+        kryo.writeObject(writeOutput, packet);
+        return kryo.readObject(writeAndReadInput, packetClass);
+    }
+
+}
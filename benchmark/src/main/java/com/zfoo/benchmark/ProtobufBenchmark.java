@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.benchmark;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.GeneratedMessageV3;
+import com.google.protobuf.Parser;
+import com.zfoo.protocol.util.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * protobuf的序列化和反序列化基准测试，作为zfoo protocol的对照组
+ * <p>
+ * 使用的是jprotobuf依赖的protobuf-java，测试对象为protoc通过speed.proto生成的ProtobufObject，和zfoo的测试对象数据一致
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ProtobufBenchmark {
+
+    @Param({BenchmarkPackets.SIMPLE, BenchmarkPackets.NORMAL, BenchmarkPackets.COMPLEX})
+    private String packetType;
+
+    private GeneratedMessageV3 packet;
+
+    private Parser<? extends GeneratedMessageV3> parser;
+
+    private byte[] writeBuffer;
+
+    private byte[] readBuffer;
+
+    private int readLength;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        packet = BenchmarkPackets.protobufPacket(packetType);
+        parser = packet.getParserForType();
+
+        writeBuffer = new byte[1024 * 8];
+        readBuffer = new byte[1024 * 8];
+        var codedOutputStream = CodedOutputStream.newInstance(readBuffer);
+        packet.writeTo(codedOutputStream);
+        readLength = codedOutputStream.getTotalBytesWritten();
+
+        System.out.println(StringUtils.format("[protobuf] [packet:{}] [size:{}]", packetType, readLength));
+    }
+
+    @Benchmark
+    public CodedOutputStream write() throws IOException {
+        var codedOutputStream = CodedOutputStream.newInstance(writeBuffer);
+        packet.writeTo(codedOutputStream);
+        return codedOutputStream;
+    }
+
+    @Benchmark
+    public Object read() throws IOException {
+        var codedInputStream = CodedInputStream.newInstance(readBuffer, 0, readLength);
+        return parser.parseFrom(codedInputStream);
+    }
+
+    @Benchmark
+    public Object writeAndRead() throws IOException {
+        var codedOutputStream = CodedOutputStream.newInstance(writeBuffer);
+        packet.writeTo(codedOutputStream);
+        var codedInputStream = CodedInputStream.newInstance(writeBuffer, 0, codedOutputStream.getTotalBytesWritten());
+        return parser.parseFrom(codedInputStream);
+    }
+
+}
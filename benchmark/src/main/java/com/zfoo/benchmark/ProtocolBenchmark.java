@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.benchmark;
+
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledUnsafeHeapByteBuf;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * zfoo protocol的序列化和反序列化基准测试，分别测试javassist字节码增强和反射两种方式
+ * <p>
+ * ProtocolManager在一个JVM中只能初始化一次，JMH对每一组@Param都会fork一个新的JVM，所以@Fork不能为0
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ProtocolBenchmark {
+
+    @Param({BenchmarkPackets.ENHANCE, BenchmarkPackets.REFLECT})
+    private String serializer;
+
+    @Param({BenchmarkPackets.SIMPLE, BenchmarkPackets.NORMAL, BenchmarkPackets.COMPLEX})
+    private String packetType;
+
+    private IPacket packet;
+
+    /**
+     * 序列化使用的buffer
+     */
+    private ByteBuf writeBuffer;
+
+    /**
+     * 已经序列化好的数据，用于反序列化测试
+     */
+    private ByteBuf readBuffer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // 和SpeedTest保持一致，去掉netty中不需要的安全检测
+        System.setProperty("io.netty.buffer.checkAccessible", "false");
+        System.setProperty("io.netty.buffer.checkBounds", "false");
+
+        BenchmarkPackets.initProtocol(serializer);
+        packet = BenchmarkPackets.packet(packetType);
+
+        writeBuffer = new UnpooledUnsafeHeapByteBuf(ByteBufAllocator.DEFAULT, 100, 1_0000);
+        readBuffer = new UnpooledUnsafeHeapByteBuf(ByteBufAllocator.DEFAULT, 100, 1_0000);
+        ProtocolManager.write(readBuffer, packet);
+
+        System.out.println(StringUtils.format("[zfoo] [serializer:{}] [packet:{}] [size:{}]", serializer, packetType, readBuffer.readableBytes()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        writeBuffer.release();
+        readBuffer.release();
+    }
+
+    @Benchmark
+    public ByteBuf write() {
+        writeBuffer.clear();
+        ProtocolManager.write(writeBuffer, packet);
+        return writeBuffer;
+    }
+
+    @Benchmark
+    public IPacket read() {
+        readBuffer.readerIndex(0);
+        return ProtocolManager.read(readBuffer);
+    }
+
+    @Benchmark
+    public IPacket writeAndRead() {
+        writeBuffer.clear();
+        ProtocolManager.write(writeBuffer, packet);
+        return ProtocolManager.read(writeBuffer);
+    }
+
+}
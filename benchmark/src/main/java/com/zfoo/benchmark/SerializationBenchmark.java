@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 序列化基准测试的启动入口，同时运行zfoo（enhance和reflect），kryo，protobuf
+ * <p>
+ * 吞吐量为ops/ms，gc profiler的gc.alloc.rate.norm为每次操作分配的字节数，包体大小在每个fork的setup中打印
+ * <p>
+ * 打包后也可以直接运行：java -jar benchmark/target/benchmarks.jar -prof gc
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class SerializationBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(ProtocolBenchmark.class.getSimpleName())
+                .include(KryoBenchmark.class.getSimpleName())
+                .include(ProtobufBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.benchmark;
+
+import com.zfoo.net.task.executor.MpscExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TaskBus的任务线程池基准测试，多个生产者线程同时向同一个单线程执行器提交任务，
+ * 对比Executors.newSingleThreadExecutor()（LinkedBlockingQueue）和MpscExecutor（无锁MPSC队列）
+ * <p>
+ * 每次操作提交BATCH_SIZE个任务，等待这些任务全部执行完，吞吐量为每毫秒执行的任务数量
+ * <p>
+ * java -jar benchmark/target/benchmarks.jar TaskExecutorBenchmark -prof gc
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@Threads(4)
+public class TaskExecutorBenchmark {
+
+    public static final String SINGLE_THREAD = "single-thread";
+    public static final String MPSC = "mpsc";
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({SINGLE_THREAD, MPSC})
+    private String executorType;
+
+    private ExecutorService executor;
+
+    /**
+     * 每个生产者线程自己的计数器，任务在执行器中累加，生产者等待的时候让出cpu，避免和执行器的线程抢占cpu
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+        private final AtomicLong done = new AtomicLong(0);
+        private final Runnable task = done::incrementAndGet;
+        private long submitted;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = MPSC.equals(executorType)
+                ? new MpscExecutor(Executors.defaultThreadFactory())
+                : Executors.newSingleThreadExecutor(Executors.defaultThreadFactory());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long submit(Producer producer) {
+        for (var i = 0; i < BATCH_SIZE; i++) {
+            executor.execute(producer.task);
+        }
+        producer.submitted += BATCH_SIZE;
+        while (producer.done.get() < producer.submitted) {
+            Thread.yield();
+        }
+        return producer.submitted;
+    }
+
+}
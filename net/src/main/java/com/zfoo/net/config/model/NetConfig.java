@@ -43,6 +43,42 @@ public class NetConfig {
     private boolean cppProtocol;
     private boolean protobufProtocol;
 
+    /**
+     * 作为消费者连接服务提供者的时候是否使用v2协议，服务提供者可以同时接收v1和v2的连接
+     */
+    private boolean wireV2;
+
+    /**
+     * 合并写，PacketReceiverTask中发送的消息在任务结束的时候统一flush，其它线程发送的消息在EventLoop的下一次tick中flush
+     */
+    private boolean writeCoalescing;
+
+    /**
+     * 包体压缩的阈值（字节），包体大于等于这个值的时候使用zlib压缩，0为不压缩
+     */
+    private int compressionThreshold;
+
+    /**
+     * 延迟解码，v2的包体不在netty的IO线程中解码，派发到TaskBus的线程之后才解码
+     */
+    private boolean lazyDecode;
+
+    /**
+     * v1的网关附加包写在包体的前面，网关不需要解码包体就可以转发，需要所有的网关和服务提供者都已经升级之后才能开启
+     */
+    private boolean gatewayAttachmentFirst;
+
+    /**
+     * http返回的json使用协议注册时生成的json序列化，只输出协议的字段，字段的顺序和jackson不一样；
+     * 使用了jackson注解的协议仍然使用jackson序列化
+     */
+    private boolean httpProtocolJson;
+
+    /**
+     * 按照协议号统计序列化的次数，字节数，耗时和包大小的直方图，可以通过JMX查看，see: ProtocolProfiler
+     */
+    private boolean protocolProfile;
+
     private RegistryConfig registry;
     private MonitorConfig monitor;
 
@@ -118,6 +154,62 @@ public class NetConfig {
         this.luaProtocol = luaProtocol;
     }
 
+    public boolean isWireV2() {
+        return wireV2;
+    }
+
+    public void setWireV2(boolean wireV2) {
+        this.wireV2 = wireV2;
+    }
+
+    public boolean isWriteCoalescing() {
+        return writeCoalescing;
+    }
+
+    public void setWriteCoalescing(boolean writeCoalescing) {
+        this.writeCoalescing = writeCoalescing;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public boolean isLazyDecode() {
+        return lazyDecode;
+    }
+
+    public void setLazyDecode(boolean lazyDecode) {
+        this.lazyDecode = lazyDecode;
+    }
+
+    public boolean isGatewayAttachmentFirst() {
+        return gatewayAttachmentFirst;
+    }
+
+    public void setGatewayAttachmentFirst(boolean gatewayAttachmentFirst) {
+        this.gatewayAttachmentFirst = gatewayAttachmentFirst;
+    }
+
+    public boolean isHttpProtocolJson() {
+        return httpProtocolJson;
+    }
+
+    public void setHttpProtocolJson(boolean httpProtocolJson) {
+        this.httpProtocolJson = httpProtocolJson;
+    }
+
+    public boolean isProtocolProfile() {
+        return protocolProfile;
+    }
+
+    public void setProtocolProfile(boolean protocolProfile) {
+        this.protocolProfile = protocolProfile;
+    }
+
     public RegistryConfig getRegistry() {
         return registry;
     }
@@ -36,6 +36,12 @@ public class ProviderConfig {
 
     private String thread;
 
+    /**
+     * TaskBus的任务线程池的实现，single-thread为Executors.newSingleThreadExecutor（默认），mpsc为无锁队列的MpscExecutor，
+     * actor为每个executorConsistentHash一个邮箱，所有的邮箱共享一个ForkJoinPool
+     */
+    private String executor;
+
     private String address;
 
     private List<ProtocolModule> modules;
@@ -72,6 +78,14 @@ public class ProviderConfig {
         this.thread = thread;
     }
 
+    public String getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(String executor) {
+        this.executor = executor;
+    }
+
     public String getAddress() {
         return address;
     }
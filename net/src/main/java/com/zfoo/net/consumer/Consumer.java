@@ -24,6 +24,8 @@ import com.zfoo.net.router.exception.ErrorResponseException;
 import com.zfoo.net.router.exception.NetTimeOutException;
 import com.zfoo.net.router.exception.UnexpectedProtocolException;
 import com.zfoo.net.router.route.SignalBridge;
+import com.zfoo.net.router.route.WriteCoalescing;
+import com.zfoo.net.task.TaskBus;
 import com.zfoo.protocol.IPacket;
 import com.zfoo.protocol.util.JsonUtils;
 import com.zfoo.protocol.util.StringUtils;
@@ -35,6 +37,7 @@ import org.slf4j.LoggerFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+
 /**
  * 服务调度和负载均衡，两个关键点：摘除故障节点，负载均衡
  * <p>
@@ -53,7 +56,7 @@ public class Consumer implements IConsumer {
         try {
             var loadBalancer = NetContext.getConfigManager().consumerLoadBalancer();
             var session = loadBalancer.loadBalancer(packet, argument);
-            var executorConsistentHash = (argument == null) ? RandomUtils.randomInt() : HashUtils.fnvHash(argument);
+            var executorConsistentHash = (argument == null) ? RandomUtils.randomInt(TaskBus.RANDOM_EXECUTOR_HASH_BOUND) : HashUtils.fnvHash(argument);
             NetContext.getRouter().send(session, packet, NoAnswerAttachment.valueOf(executorConsistentHash));
         } catch (Throwable t) {
             logger.error("consumer发送未知异常", t);
@@ -68,18 +71,26 @@ public class Consumer implements IConsumer {
 
         // 下面的代码逻辑同Router的syncAsk，如果修改的话，记得一起修改
         var clientSignalAttachment = new SignalAttachment();
-        var executorConsistentHash = (argument == null) ? RandomUtils.randomInt() : HashUtils.fnvHash(argument);
+        var executorConsistentHash = (argument == null) ? RandomUtils.randomInt(TaskBus.RANDOM_EXECUTOR_HASH_BOUND) : HashUtils.fnvHash(argument);
         clientSignalAttachment.setExecutorConsistentHash(executorConsistentHash);
 
+        // load balancer之前调用，在try之外调用，保证和finally中的completeLoadBalancer成对出现
+        loadBalancer.beforeLoadBalancer(session, packet, clientSignalAttachment);
+
+        IPacket responsePacket = null;
         try {
             SignalBridge.addSignalAttachment(clientSignalAttachment);
 
-            // load balancer之前调用
-            loadBalancer.beforeLoadBalancer(session, packet, clientSignalAttachment);
-
             NetContext.getRouter().send(session, packet, clientSignalAttachment);
-
-            IPacket responsePacket = clientSignalAttachment.getResponseFuture().get(Router.DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+            // 在PacketReceiverTask中同步请求的时候，合并写的请求需要在阻塞之前发送出去
+            WriteCoalescing.flushTask();
+
+            // 超时由SignalBridge的时间轮控制，超时的时候返回null；有界的等待只是兜底
+            responsePacket = clientSignalAttachment.getResponseFuture().get(Router.DEFAULT_TIMEOUT + Router.SYNC_ASK_TIMEOUT_MARGIN, TimeUnit.MILLISECONDS);
+            if (responsePacket == null) {
+                throw new NetTimeOutException(StringUtils.format("syncAsk timeout exception, ask:[{}], attachment:[{}]"
+                        , JsonUtils.object2String(packet), JsonUtils.object2String(clientSignalAttachment)));
+            }
 
             if (responsePacket.protocolId() == Error.errorProtocolId()) {
                 throw new ErrorResponseException((Error) responsePacket);
@@ -98,6 +109,9 @@ public class Consumer implements IConsumer {
                     , JsonUtils.object2String(packet), JsonUtils.object2String(clientSignalAttachment)));
         } finally {
             SignalBridge.removeSignalAttachment(clientSignalAttachment);
+
+            // 请求结束的时候调用，超时和失败也会调用
+            loadBalancer.completeLoadBalancer(session, packet, clientSignalAttachment, responsePacket);
         }
     }
 
@@ -106,12 +120,22 @@ public class Consumer implements IConsumer {
         var loadBalancer = NetContext.getConfigManager().consumerLoadBalancer();
         var session = loadBalancer.loadBalancer(packet, argument);
         var asyncAnswer = NetContext.getRouter().asyncAsk(session, packet, answerClass, argument);
-
-        // load balancer之前调用
-        loadBalancer.beforeLoadBalancer(session, packet, asyncAnswer.getSignalAttachment());
+        var clientSignalAttachment = asyncAnswer.getSignalAttachment();
 
         // load balancer之后调用
-        asyncAnswer.thenAccept(responsePacket -> loadBalancer.afterLoadBalancer(session, packet, asyncAnswer.getSignalAttachment()));
+        asyncAnswer.thenAccept(responsePacket -> loadBalancer.afterLoadBalancer(session, packet, clientSignalAttachment));
+
+        // 等到上层调用whenComplete才会发送消息，和syncAsk一样在发送之前调用beforeLoadBalancer，之后才注册completeLoadBalancer，保证两者成对出现
+        var askCallback = asyncAnswer.getAskCallback();
+        asyncAnswer.setAskCallback(() -> {
+            // load balancer之前调用
+            loadBalancer.beforeLoadBalancer(session, packet, clientSignalAttachment);
+
+            // 请求结束的时候调用，超时和失败也会调用
+            clientSignalAttachment.getResponseFuture().whenComplete((responsePacket, throwable) -> loadBalancer.completeLoadBalancer(session, packet, clientSignalAttachment, responsePacket));
+
+            askCallback.run();
+        });
         return asyncAnswer;
     }
 
@@ -65,7 +65,13 @@ public class ConsistentHashConsumerLoadBalancer extends AbstractConsumerLoadBala
         if (argument == null) {
             return RandomConsumerLoadBalancer.getInstance().loadBalancer(packet, argument);
         }
+        return loadBalancer(packet.protocolId(), argument);
+    }
 
+    /**
+     * 网关原始字节转发的时候没有解码包体，只能通过协议号计算服务提供者
+     */
+    public Session loadBalancer(short protocolId, Object argument) {
         // 如果更新时间不匹配，则更新到最新的服务提供者
         var currentClientSessionChangeId = NetContext.getSessionManager().getClientSessionChangeId();
         if (currentClientSessionChangeId != lastClientSessionChangeId) {
@@ -78,13 +84,13 @@ public class ConsistentHashConsumerLoadBalancer extends AbstractConsumerLoadBala
             lastClientSessionChangeId = currentClientSessionChangeId;
         }
 
-        var module = ProtocolManager.moduleByProtocolId(packet.protocolId());
+        var module = ProtocolManager.moduleByProtocolId(protocolId);
         var consistentHash = consistentHashMap.get(module);
         if (consistentHash == null) {
             consistentHash = updateModuleToConsistentHash(module);
         }
         if (consistentHash == null) {
-            throw new RunException("一致性hash负载均衡[protocolId:{}]参数[argument:{}],没有服务提供者提供服务[module:{}]", packet.protocolId(), argument, module);
+            throw new RunException("一致性hash负载均衡[protocolId:{}]参数[argument:{}],没有服务提供者提供服务[module:{}]", protocolId, argument, module);
         }
         var sid = consistentHash.getRealNode(argument).getValue();
         return NetContext.getSessionManager().getClientSession(sid);
@@ -92,21 +98,43 @@ public class ConsistentHashConsumerLoadBalancer extends AbstractConsumerLoadBala
     }
 
 
+    /**
+     * 只增加新上线的服务提供者和删除下线的服务提供者，不需要重新构建整个哈希环
+     */
     @Nullable
     private ConsistentHash<String, Long> updateModuleToConsistentHash(ProtocolModule module) {
-        var sessionStringList = getSessionsByModule(module)
+        var sessionMap = getSessionsByModule(module)
                 .stream()
-                .map(session -> new Pair<>(session.getAttribute(AttributeType.CONSUMER).toString(), session.getSid()))
-                .sorted((a, b) -> a.getKey().compareTo(b.getKey()))
-                .collect(Collectors.toList());
+                .collect(Collectors.toMap(session -> session.getAttribute(AttributeType.CONSUMER).toString(), session -> session.getSid(), (a, b) -> a));
 
-        if (CollectionUtils.isEmpty(sessionStringList) && !consistentHashMap.containsKey(module)) {
+        if (CollectionUtils.isEmpty(sessionMap)) {
             consistentHashMap.remove(module);
             return null;
         }
 
-        var consistentHash = new ConsistentHash<>(sessionStringList, VIRTUAL_NODE_NUMS);
-        consistentHashMap.put(module, consistentHash);
+        var consistentHash = consistentHashMap.get(module);
+        if (consistentHash == null) {
+            var sessionStringList = sessionMap.entrySet()
+                    .stream()
+                    .map(it -> new Pair<>(it.getKey(), it.getValue()))
+                    .sorted((a, b) -> a.getKey().compareTo(b.getKey()))
+                    .collect(Collectors.toList());
+            consistentHash = new ConsistentHash<>(sessionStringList, VIRTUAL_NODE_NUMS);
+            consistentHashMap.put(module, consistentHash);
+            return consistentHash;
+        }
+
+        for (var realNode : consistentHash.getRealNodes()) {
+            if (!realNode.getValue().equals(sessionMap.get(realNode.getKey()))) {
+                consistentHash.removeNode(realNode.getKey());
+            }
+        }
+        for (var entry : sessionMap.entrySet()) {
+            var realNode = new Pair<>(entry.getKey(), entry.getValue());
+            if (!consistentHash.getRealNodes().contains(realNode)) {
+                consistentHash.addNode(realNode);
+            }
+        }
         return consistentHash;
     }
 
@@ -39,4 +39,12 @@ public interface IConsumerLoadBalancer {
     default void afterLoadBalancer(Session session, IPacket packet, SignalAttachment attachment) {
     }
 
+    /**
+     * 请求结束的时候调用，和afterLoadBalancer不同，收到错误，超时也会调用
+     *
+     * @param answer 服务提供者的回复，超时或者没有发送成功的时候为null
+     */
+    default void completeLoadBalancer(Session session, IPacket packet, SignalAttachment attachment, @Nullable IPacket answer) {
+    }
+
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.consumer.balancer;
+
+import com.zfoo.net.router.Router;
+import com.zfoo.net.router.attachment.SignalAttachment;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.scheduler.util.TimeUtils;
+import com.zfoo.util.math.RandomUtils;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 最少请求负载均衡器，随机选择两个服务提供者，再选择其中负载更小的那个（power of two choices）
+ * <p>
+ * 负载 = (响应时间的指数加权移动平均 + 1) * (正在等待回复的请求数量 + 1)，选择的时间复杂度为O(1)；
+ * 和总是选择最快的服务提供者相比，随机的两个候选者避免了所有的消费者同时涌向同一个服务提供者
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class LeastRequestConsumerLoadBalancer extends AbstractConsumerLoadBalancer {
+
+    private static final LeastRequestConsumerLoadBalancer INSTANCE = new LeastRequestConsumerLoadBalancer();
+
+    /**
+     * 指数加权移动平均中最新的一次响应时间的权重
+     */
+    private static final double EWMA_ALPHA = 0.3;
+
+    /**
+     * 每个服务提供者的负载，session断开的时候移除
+     */
+    private final Map<Session, SessionLoad> sessionLoadMap = new ConcurrentHashMap<>();
+
+    private static class SessionLoad {
+        private final AtomicInteger inflight = new AtomicInteger(0);
+
+        /**
+         * 响应时间的指数加权移动平均，单位毫秒，使用Double.doubleToRawLongBits存储，小于0表示还没有响应
+         */
+        private final AtomicLong ewmaBits = new AtomicLong(Double.doubleToRawLongBits(-1D));
+
+        private double ewma() {
+            return Double.longBitsToDouble(ewmaBits.get());
+        }
+
+        private void record(double latency) {
+            while (true) {
+                var bits = ewmaBits.get();
+                var ewma = Double.longBitsToDouble(bits);
+                var newEwma = ewma < 0 ? latency : ewma + EWMA_ALPHA * (latency - ewma);
+                if (ewmaBits.compareAndSet(bits, Double.doubleToRawLongBits(newEwma))) {
+                    return;
+                }
+            }
+        }
+
+        private double cost() {
+            return (Math.max(ewma(), 0) + 1) * (inflight.get() + 1);
+        }
+    }
+
+    LeastRequestConsumerLoadBalancer() {
+    }
+
+    public static LeastRequestConsumerLoadBalancer getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public Session loadBalancer(IPacket packet, Object argument) {
+        var module = ProtocolManager.moduleByProtocolId(packet.protocolId());
+        var sessions = getSessionsByModule(module);
+
+        if (sessions.isEmpty()) {
+            throw new RunException("最少请求负载均衡[protocolId:{}]参数[argument:{}],没有服务提供者提供服务[module:{}]", packet.protocolId(), argument, module);
+        }
+
+        return select(sessions, RandomUtils.getRandom());
+    }
+
+    Session select(List<Session> sessions, Random random) {
+        var size = sessions.size();
+        if (size == 1) {
+            return sessions.get(0);
+        }
+        var first = random.nextInt(size);
+        var second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        var a = sessions.get(first);
+        var b = sessions.get(second);
+        return sessionLoad(a).cost() <= sessionLoad(b).cost() ? a : b;
+    }
+
+    @Override
+    public void beforeLoadBalancer(Session session, IPacket packet, SignalAttachment attachment) {
+        attachment.setTimestamp(TimeUtils.currentTimeMillis());
+        start(session);
+    }
+
+    /**
+     * 超时的请求按照超时时间计算响应时间，没有回复的服务提供者的负载会迅速变大
+     */
+    @Override
+    public void completeLoadBalancer(Session session, IPacket packet, SignalAttachment attachment, @Nullable IPacket answer) {
+        var latency = answer == null ? Router.DEFAULT_TIMEOUT : TimeUtils.currentTimeMillis() - attachment.getTimestamp();
+        complete(session, latency);
+    }
+
+    void start(Session session) {
+        sessionLoad(session).inflight.incrementAndGet();
+    }
+
+    void complete(Session session, long latency) {
+        var sessionLoad = sessionLoadMap.get(session);
+        if (sessionLoad == null) {
+            return;
+        }
+        sessionLoad.inflight.decrementAndGet();
+        sessionLoad.record(latency);
+    }
+
+    public int inflight(Session session) {
+        var sessionLoad = sessionLoadMap.get(session);
+        return sessionLoad == null ? 0 : sessionLoad.inflight.get();
+    }
+
+    public double latency(Session session) {
+        var sessionLoad = sessionLoadMap.get(session);
+        return sessionLoad == null ? 0 : Math.max(sessionLoad.ewma(), 0);
+    }
+
+    private SessionLoad sessionLoad(Session session) {
+        var sessionLoad = sessionLoadMap.get(session);
+        if (sessionLoad != null) {
+            return sessionLoad;
+        }
+        var newSessionLoad = new SessionLoad();
+        sessionLoad = sessionLoadMap.putIfAbsent(session, newSessionLoad);
+        if (sessionLoad != null) {
+            return sessionLoad;
+        }
+
+        // 在map的更新之外注册关闭的监听，已经关闭的channel会在当前线程中立刻回调
+        var channel = session.getChannel();
+        channel.closeFuture().addListener(future -> sessionLoadMap.remove(session, newSessionLoad));
+        if (!channel.isActive()) {
+            sessionLoadMap.remove(session, newSessionLoad);
+        }
+        return newSessionLoad;
+    }
+
+}
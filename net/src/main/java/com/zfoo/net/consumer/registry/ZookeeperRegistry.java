@@ -418,7 +418,7 @@ public class ZookeeperRegistry implements IRegistry {
                 continue;
             }
 
-            var client = new TcpClient(HostAndPort.valueOf(providerCache.getProviderConfig().getAddress()));
+            var client = new TcpClient(HostAndPort.valueOf(providerCache.getProviderConfig().getAddress()), NetContext.getConfigManager().getLocalConfig().isWireV2());
             var session = client.start();
             if (Objects.isNull(session)) {
                 logger.error("[consumer:{}]启动失败，等待[{}]秒，重新检查consumer", providerCache, RETRY_SECONDS);
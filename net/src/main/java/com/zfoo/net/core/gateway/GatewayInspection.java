@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.core.gateway;
+
+import java.lang.annotation.*;
+
+/**
+ * 网关开启原始字节转发的时候，只有被这个注解标注的协议才会在网关被完整的解码，其它的协议网关只读取协议号然后直接转发原始字节
+ * <p>
+ * 继承了IGatewayLoadBalancer的协议，Heartbeat，Ping，网关授权的协议默认都需要在网关解码，不需要再标注这个注解
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface GatewayInspection {
+}
@@ -35,14 +35,24 @@ public class GatewayServer extends AbstractServer {
 
     private BiFunction<Session, IPacket, Boolean> packetFilter;
 
+    /**
+     * 网关原始字节转发，只有被GatewayInspection标注的协议才会在网关解码，packetFilter也只会过滤这些解码的协议
+     */
+    private boolean forwarding;
+
     public GatewayServer(HostAndPort host, @Nullable BiFunction<Session, IPacket, Boolean> packetFilter) {
+        this(host, packetFilter, false);
+    }
+
+    public GatewayServer(HostAndPort host, @Nullable BiFunction<Session, IPacket, Boolean> packetFilter, boolean forwarding) {
         super(host);
         this.packetFilter = packetFilter;
+        this.forwarding = forwarding;
     }
 
     @Override
     public ChannelInitializer<SocketChannel> channelChannelInitializer() {
-        return new ChannelHandlerInitializer(packetFilter);
+        return new ChannelHandlerInitializer(packetFilter, forwarding);
     }
 
 
@@ -50,15 +60,18 @@ public class GatewayServer extends AbstractServer {
 
         private BiFunction<Session, IPacket, Boolean> packetFilter;
 
-        public ChannelHandlerInitializer(BiFunction<Session, IPacket, Boolean> packetFilter) {
+        private boolean forwarding;
+
+        public ChannelHandlerInitializer(BiFunction<Session, IPacket, Boolean> packetFilter, boolean forwarding) {
             this.packetFilter = packetFilter;
+            this.forwarding = forwarding;
         }
 
         @Override
         protected void initChannel(SocketChannel channel) {
             channel.pipeline().addLast(new IdleStateHandler(0, 0, 180));
             channel.pipeline().addLast(new ServerIdleHandler());
-            channel.pipeline().addLast(new TcpCodecHandler());
+            channel.pipeline().addLast(new TcpCodecHandler(forwarding));
             channel.pipeline().addLast(new GatewayRouteHandler(packetFilter));
         }
     }
@@ -13,6 +13,7 @@
 
 package com.zfoo.net.core.http;
 
+import com.zfoo.net.NetContext;
 import com.zfoo.net.core.AbstractServer;
 import com.zfoo.net.handler.ServerRouteHandler;
 import com.zfoo.net.handler.codec.http.HttpCodecHandler;
@@ -56,7 +57,7 @@ public class HttpServer extends AbstractServer {
             channel.pipeline().addLast(new HttpServerCodec(8 * IOUtils.BYTES_PER_KB, 16 * IOUtils.BYTES_PER_KB, 16 * IOUtils.BYTES_PER_KB));
             channel.pipeline().addLast(new HttpObjectAggregator(16 * IOUtils.BYTES_PER_MB));
             channel.pipeline().addLast(new ChunkedWriteHandler());
-            channel.pipeline().addLast(new HttpCodecHandler(uriResolver));
+            channel.pipeline().addLast(new HttpCodecHandler(uriResolver, NetContext.getConfigManager().getLocalConfig().isHttpProtocolJson()));
             channel.pipeline().addLast(new ServerRouteHandler());
         }
     }
@@ -29,22 +29,39 @@ import io.netty.handler.timeout.IdleStateHandler;
  */
 public class TcpClient extends AbstractClient {
 
+    /**
+     * 是否使用v2协议，服务器需要先升级到支持v2的版本
+     */
+    private boolean wireV2;
+
     public TcpClient(HostAndPort host) {
+        this(host, false);
+    }
+
+    public TcpClient(HostAndPort host, boolean wireV2) {
         super(host);
+        this.wireV2 = wireV2;
     }
 
     @Override
     public ChannelInitializer<? extends Channel> channelChannelInitializer() {
-        return new ChannelHandlerInitializer();
+        return new ChannelHandlerInitializer(wireV2);
     }
 
 
     private static class ChannelHandlerInitializer extends ChannelInitializer<SocketChannel> {
+
+        private boolean wireV2;
+
+        public ChannelHandlerInitializer(boolean wireV2) {
+            this.wireV2 = wireV2;
+        }
+
         @Override
         protected void initChannel(SocketChannel channel) {
             channel.pipeline().addLast(new IdleStateHandler(0, 0, 60));
             channel.pipeline().addLast(new ClientIdleHandler());
-            channel.pipeline().addLast(new TcpCodecHandler());
+            channel.pipeline().addLast(new TcpCodecHandler(false, wireV2));
             channel.pipeline().addLast(new ClientRouteHandler());
         }
     }
@@ -15,6 +15,7 @@ package com.zfoo.net.handler;
 
 import com.zfoo.net.NetContext;
 import com.zfoo.net.packet.model.DecodedPacketInfo;
+import com.zfoo.net.packet.model.ForwardPacketInfo;
 import com.zfoo.net.session.model.AttributeType;
 import com.zfoo.net.session.model.Session;
 import com.zfoo.net.util.SessionUtils;
@@ -24,6 +25,7 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +64,12 @@ public class BaseRouteHandler extends ChannelInboundHandlerAdapter {
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
         var session = SessionUtils.getSession(ctx);
         if (session == null) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        // 网关收到服务提供者返回的原始字节的包
+        if (msg instanceof ForwardPacketInfo) {
+            NetContext.getRouter().forward(session, (ForwardPacketInfo) msg);
             return;
         }
         DecodedPacketInfo decodedPacketInfo = (DecodedPacketInfo) msg;
@@ -22,9 +22,12 @@ import com.zfoo.net.packet.common.Heartbeat;
 import com.zfoo.net.packet.common.Ping;
 import com.zfoo.net.packet.common.Pong;
 import com.zfoo.net.packet.model.DecodedPacketInfo;
+import com.zfoo.net.packet.model.ForwardPacketInfo;
+import com.zfoo.net.packet.model.RawPacketInfo;
 import com.zfoo.net.router.attachment.GatewayAttachment;
 import com.zfoo.net.router.attachment.IAttachment;
 import com.zfoo.net.router.attachment.SignalAttachment;
+import com.zfoo.net.router.route.WriteCoalescing;
 import com.zfoo.net.session.model.AttributeType;
 import com.zfoo.net.session.model.Session;
 import com.zfoo.net.util.SessionUtils;
@@ -34,6 +37,7 @@ import com.zfoo.protocol.util.StringUtils;
 import com.zfoo.scheduler.util.TimeUtils;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +63,13 @@ public class GatewayRouteHandler extends ServerRouteHandler {
         // 请求者的session，一般是serverSession
         var session = SessionUtils.getSession(ctx);
         if (session == null) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+
+        // 不需要在网关检查的包，直接转发原始字节
+        if (msg instanceof ForwardPacketInfo) {
+            forwardingPacket(session, (ForwardPacketInfo) msg);
             return;
         }
 
@@ -115,6 +126,28 @@ public class GatewayRouteHandler extends ServerRouteHandler {
         }
     }
 
+    /**
+     * 转发网关收到的原始字节的包，包体不需要解码和重新编码，只需要在前面加上网关附加包
+     */
+    private void forwardingPacket(Session session, ForwardPacketInfo packetInfo) {
+        try {
+            // 和解码之后的转发一样，优先使用用户的uid做一致性hash，然后再使用session的sid
+            var uid = (Long) session.getAttribute(AttributeType.UID);
+            Object argument = uid != null ? uid : session.getSid();
+            var consumerSession = ConsistentHashConsumerLoadBalancer.getInstance().loadBalancer(packetInfo.getProtocolId(), argument);
+
+            // 包体的引用计数转移给服务提供者的channel的codec
+            var gatewayAttachment = new GatewayAttachment(session, packetInfo.getSignalAttachment());
+            WriteCoalescing.writeAndFlush(consumerSession.getChannel(), RawPacketInfo.valueOf(packetInfo.getPacketBuffer().retain(), gatewayAttachment, packetInfo.isTrailingAttachment()));
+        } catch (Exception e) {
+            logger.error("网关发生异常", e);
+        } catch (Throwable t) {
+            logger.error("网关发生错误", t);
+        } finally {
+            packetInfo.release();
+        }
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         var session = SessionUtils.getSession(ctx);
@@ -17,6 +17,7 @@ import com.zfoo.net.packet.model.DecodedPacketInfo;
 import com.zfoo.net.packet.model.EncodedPacketInfo;
 import com.zfoo.net.router.attachment.HttpAttachment;
 import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.ProtocolManager;
 import com.zfoo.protocol.util.JsonUtils;
 import com.zfoo.protocol.util.StringUtils;
 import io.netty.channel.ChannelHandlerContext;
@@ -25,7 +26,13 @@ import io.netty.handler.codec.http.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 
 
@@ -37,11 +44,31 @@ public class HttpCodecHandler extends MessageToMessageCodec<FullHttpRequest, Enc
 
     private static final Logger logger = LoggerFactory.getLogger(HttpCodecHandler.class);
 
+    /**
+     * 协议类或者嵌套的协议类使用了jackson的注解，生成的json序列化不认识这些注解，只能使用jackson序列化
+     */
+    private static final ClassValue<Boolean> JACKSON_ANNOTATED = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return jacksonAnnotated(type, new HashSet<>());
+        }
+    };
+
     private final Function<FullHttpRequest, DecodedPacketInfo> uriResolver;
 
+    /**
+     * true为使用协议注册时生成的json序列化，只输出协议的字段，字段的顺序和jackson不一样，也不会输出额外的getter
+     */
+    private final boolean protocolJson;
+
     public HttpCodecHandler(Function<FullHttpRequest, DecodedPacketInfo> uriResolver) {
+        this(uriResolver, false);
+    }
+
+    public HttpCodecHandler(Function<FullHttpRequest, DecodedPacketInfo> uriResolver, boolean protocolJson) {
         super();
         this.uriResolver = uriResolver;
+        this.protocolJson = protocolJson;
     }
 
     @Override
@@ -90,8 +117,13 @@ public class HttpCodecHandler extends MessageToMessageCodec<FullHttpRequest, Enc
                 }
             } else {
                 var byteBuf = channelHandlerContext.alloc().ioBuffer();
-                var jsonStr = JsonUtils.object2String(packet);
-                byteBuf.writeBytes(StringUtils.bytes(jsonStr));
+                if (protocolJson && !JACKSON_ANNOTATED.get(packet.getClass())) {
+                    // 使用协议注册时生成的json序列化，直接写入UTF-8字节，没有反射和中间的String
+                    ProtocolManager.writeJson(byteBuf, packet);
+                } else {
+                    var jsonStr = JsonUtils.object2String(packet);
+                    byteBuf.writeBytes(StringUtils.bytes(jsonStr));
+                }
                 var fullHttpResponse = new DefaultFullHttpResponse(protocolVersion, httpResponseStatus, byteBuf);
 
                 fullHttpResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
@@ -109,4 +141,60 @@ public class HttpCodecHandler extends MessageToMessageCodec<FullHttpRequest, Enc
             throw t;
         }
     }
+
+    private static boolean jacksonAnnotated(Class<?> clazz, Set<Class<?>> visited) {
+        for (var type = clazz; type != null && type != Object.class; type = type.getSuperclass()) {
+            if (!visited.add(type)) {
+                return false;
+            }
+            if (jacksonAnnotated(type)) {
+                return true;
+            }
+            for (var method : type.getDeclaredMethods()) {
+                if (jacksonAnnotated(method)) {
+                    return true;
+                }
+            }
+            for (var field : type.getDeclaredFields()) {
+                if (jacksonAnnotated(field) || jacksonAnnotated(field.getGenericType(), visited)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 字段的类型，集合的泛型和数组的元素中嵌套的协议类
+     */
+    private static boolean jacksonAnnotated(Type type, Set<Class<?>> visited) {
+        if (type instanceof Class) {
+            var clazz = (Class<?>) type;
+            if (clazz.isArray()) {
+                return jacksonAnnotated(clazz.getComponentType(), visited);
+            }
+            return IPacket.class.isAssignableFrom(clazz) && jacksonAnnotated(clazz, visited);
+        }
+        if (type instanceof ParameterizedType) {
+            for (var argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                if (jacksonAnnotated(argument, visited)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (type instanceof GenericArrayType) {
+            return jacksonAnnotated(((GenericArrayType) type).getGenericComponentType(), visited);
+        }
+        return false;
+    }
+
+    private static boolean jacksonAnnotated(AnnotatedElement element) {
+        for (var annotation : element.getDeclaredAnnotations()) {
+            if (annotation.annotationType().getName().startsWith("com.fasterxml.jackson.")) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
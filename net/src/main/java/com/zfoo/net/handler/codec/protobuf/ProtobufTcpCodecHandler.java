@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.handler.codec.protobuf;
+
+import com.zfoo.net.packet.model.DecodedPacketInfo;
+import com.zfoo.net.packet.model.EncodedPacketInfo;
+import com.zfoo.net.packet.service.PacketService;
+import com.zfoo.net.util.SessionUtils;
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageCodec;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * header(4byte) + protocolId(2byte) + packet
+ * header = body(bytes.length) + protocolId.length(2byte)
+ * <p>
+ * 和JProtobufTcpCodecHandler的格式一样，包体为标准的protobuf编码，第三方的protobuf客户端可以直接解析；
+ * 包体使用字节码增强生成的protobuf读写方法，直接读写ByteBuf，没有jprotobuf中间的byte[]
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ProtobufTcpCodecHandler extends ByteToMessageCodec<EncodedPacketInfo> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProtobufTcpCodecHandler.class);
+
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        // 不够读一个int
+        if (in.readableBytes() <= PacketService.PACKET_HEAD_LENGTH) {
+            return;
+        }
+        in.markReaderIndex();
+        var length = in.readInt();
+
+        // 如果长度非法，则抛出异常断开连接
+        if (length < 0) {
+            throw new IllegalArgumentException(StringUtils.format("[session:{}]的包头长度[length:{}]非法"
+                    , SessionUtils.sessionInfo(ctx), length));
+        }
+
+        // ByteBuf里的数据太小
+        if (in.readableBytes() < length) {
+            in.resetReaderIndex();
+            return;
+        }
+
+        ByteBuf tmpByteBuf = null;
+        try {
+            tmpByteBuf = in.readRetainedSlice(length);
+            DecodedPacketInfo packetInfo = read(tmpByteBuf);
+            out.add(packetInfo);
+        } catch (Exception e) {
+            logger.error("[session:{}]解码exception异常", SessionUtils.sessionInfo(ctx), e);
+        } catch (Throwable t) {
+            logger.error("[session:{}]解码throwable错误", SessionUtils.sessionInfo(ctx), t);
+        } finally {
+            ReferenceCountUtil.release(tmpByteBuf);
+        }
+    }
+
+    /**
+     * 编码失败的时候抛出异常，不会发送只写了一半的包，否则对方按照错误的包头读取，之后这个连接上所有的包都会错位
+     */
+    @Override
+    protected void encode(ChannelHandlerContext ctx, EncodedPacketInfo packetInfo, ByteBuf out) {
+        try {
+            write(out, packetInfo.getPacket());
+        } catch (Exception e) {
+            logger.error("[session:{}][{}]编码exception异常", SessionUtils.sessionInfo(ctx), packetInfo.getPacket().getClass().getSimpleName(), e);
+            throw e;
+        } catch (Throwable t) {
+            logger.error("[session:{}][{}]编码throwable错误", SessionUtils.sessionInfo(ctx), packetInfo.getPacket().getClass().getSimpleName(), t);
+            throw t;
+        }
+    }
+
+    public static DecodedPacketInfo read(ByteBuf buffer) {
+        var packet = ProtocolManager.readProtobuf(buffer);
+        return DecodedPacketInfo.valueOf(packet, null);
+    }
+
+    public static void write(ByteBuf buffer, IPacket packet) {
+        if (packet == null) {
+            logger.error("packet is null and can not be sent.");
+            return;
+        }
+
+        // 预留写入包的长度，一个int字节大小
+        var headIndex = buffer.writerIndex();
+        buffer.writeInt(PacketService.PACKET_HEAD_LENGTH);
+
+        // 写入协议号和protobuf格式的包体，不支持protobuf格式的协议会抛出异常，丢弃已经写入的包头和部分包体
+        try {
+            ProtocolManager.writeProtobuf(buffer, packet);
+        } catch (Throwable t) {
+            buffer.writerIndex(headIndex);
+            throw t;
+        }
+
+        buffer.setInt(headIndex, buffer.writerIndex() - headIndex - PacketService.PACKET_HEAD_LENGTH);
+    }
+}
@@ -16,11 +16,15 @@ package com.zfoo.net.handler.codec.tcp;
 import com.zfoo.net.NetContext;
 import com.zfoo.net.packet.model.DecodedPacketInfo;
 import com.zfoo.net.packet.model.EncodedPacketInfo;
+import com.zfoo.net.packet.model.ForwardPacketInfo;
+import com.zfoo.net.packet.model.RawPacketInfo;
 import com.zfoo.net.packet.service.PacketService;
 import com.zfoo.net.util.SessionUtils;
+import com.zfoo.protocol.buffer.ByteBufUtils;
 import com.zfoo.protocol.util.StringUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.ByteToMessageCodec;
 import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
@@ -29,8 +33,13 @@ import org.slf4j.LoggerFactory;
 import java.util.List;
 
 /**
- * header(4byte) + protocolId(2byte) + packet
+ * v1：header(4byte) + protocolId(2byte) + packet + 是否有附加包(1byte) + attachment
  * header = body(bytes.length) + protocolId.length(2byte)
+ * <p>
+ * v2：varint(body.length) + flag(1byte) + 固定格式的附加包字段 + protocolId(2byte) + packet
+ * <p>
+ * 每个方向的协议版本独立协商：发送方切换到v2之前先发送WIRE_V2_MAGIC，接收方读到魔数之后开始按照v2解码，
+ * 同时自己的发送方向也切换到v2；所以只要服务器先升级，客户端就可以逐个开启v2
  *
  * @author jaysunxiao
  * @version 3.0
@@ -39,8 +48,70 @@ public class TcpCodecHandler extends ByteToMessageCodec<EncodedPacketInfo> {
 
     private static final Logger logger = LoggerFactory.getLogger(TcpCodecHandler.class);
 
+    /**
+     * 网关原始字节转发，true的时候只读取客户端包的协议号，不需要在网关检查的包直接转发原始字节
+     */
+    private final boolean gatewayForwarding;
+
+    /**
+     * true为连接建立的时候主动使用v2发送，一般是客户端
+     */
+    private final boolean wireV2;
+
+    /**
+     * true为允许延迟解码v2的包体，网关需要检查解码之后的包，所以网关不能延迟解码
+     */
+    private final boolean lazyDecode;
+
+    /**
+     * 接收和发送方向的协议版本，只在channel的EventLoop中修改
+     */
+    private boolean inboundV2;
+    private boolean outboundV2;
+
+    public TcpCodecHandler() {
+        this(false, false, true);
+    }
+
+    /**
+     * 网关使用的codec
+     */
+    public TcpCodecHandler(boolean gatewayForwarding) {
+        this(gatewayForwarding, false, false);
+    }
+
+    public TcpCodecHandler(boolean gatewayForwarding, boolean wireV2) {
+        this(gatewayForwarding, wireV2, true);
+    }
+
+    public TcpCodecHandler(boolean gatewayForwarding, boolean wireV2, boolean lazyDecode) {
+        this.gatewayForwarding = gatewayForwarding;
+        this.wireV2 = wireV2;
+        this.lazyDecode = lazyDecode;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if (wireV2) {
+            upgradeOutbound(ctx);
+        }
+        super.channelActive(ctx);
+    }
+
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        // v1的包头长度不可能为负数，读到魔数说明对方切换到了v2
+        if (!inboundV2 && in.readableBytes() >= PacketService.PACKET_HEAD_LENGTH && in.getInt(in.readerIndex()) == PacketService.WIRE_V2_MAGIC) {
+            in.skipBytes(PacketService.PACKET_HEAD_LENGTH);
+            inboundV2 = true;
+            upgradeOutbound(ctx);
+        }
+
+        if (inboundV2) {
+            decodeV2(ctx, in, out);
+            return;
+        }
+
         // 不够读一个int
         if (in.readableBytes() <= PacketService.PACKET_HEAD_LENGTH) {
             return;
@@ -60,11 +131,43 @@ public class TcpCodecHandler extends ByteToMessageCodec<EncodedPacketInfo> {
             return;
         }
 
+        decodePacket(ctx, in, length, out, false);
+    }
+
+    private void decodeV2(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        // 不够读一个varint
+        if (!varintReadable(ctx, in)) {
+            return;
+        }
+        in.markReaderIndex();
+        var length = ByteBufUtils.readInt(in);
+
+        if (length <= 0) {
+            throw new IllegalArgumentException(StringUtils.format("[session:{}]的v2包头长度[length:{}]非法"
+                    , SessionUtils.sessionInfo(ctx), length));
+        }
+
+        if (in.readableBytes() < length) {
+            in.resetReaderIndex();
+            return;
+        }
+
+        decodePacket(ctx, in, length, out, true);
+    }
+
+    private void decodePacket(ChannelHandlerContext ctx, ByteBuf in, int length, List<Object> out, boolean v2) {
         ByteBuf tmpByteBuf = null;
         try {
             // readRetainedSlice和byte[]数组相比，readRetainedSlice减少了垃圾回收
             tmpByteBuf = in.readRetainedSlice(length);
-            DecodedPacketInfo packetInfo = NetContext.getPacketService().read(tmpByteBuf);
+            var packetService = NetContext.getPacketService();
+            // 网关直接转发的包不需要解码，服务提供者返回给网关的包也会直接转发
+            ForwardPacketInfo forwardPacketInfo = v2 ? packetService.readForwardV2(tmpByteBuf, gatewayForwarding) : packetService.readForward(tmpByteBuf, gatewayForwarding);
+            if (forwardPacketInfo != null) {
+                out.add(forwardPacketInfo);
+                return;
+            }
+            DecodedPacketInfo packetInfo = v2 ? packetService.readV2(tmpByteBuf, lazyDecode) : packetService.read(tmpByteBuf);
             out.add(packetInfo);
         } catch (Exception e) {
             logger.error("[session:{}]解码exception异常", SessionUtils.sessionInfo(ctx), e);
@@ -77,17 +180,64 @@ public class TcpCodecHandler extends ByteToMessageCodec<EncodedPacketInfo> {
         }
     }
 
+    /**
+     * varint最多5个字节，最后一个字节的最高位为0
+     */
+    private boolean varintReadable(ChannelHandlerContext ctx, ByteBuf in) {
+        var readerIndex = in.readerIndex();
+        var maxLength = Math.min(in.readableBytes(), 5);
+        for (var i = 0; i < maxLength; i++) {
+            if ((in.getByte(readerIndex + i) & 0x80) == 0) {
+                return true;
+            }
+        }
+        if (maxLength >= 5) {
+            throw new IllegalArgumentException(StringUtils.format("[session:{}]的v2包头长度非法", SessionUtils.sessionInfo(ctx)));
+        }
+        return false;
+    }
+
+    private void upgradeOutbound(ChannelHandlerContext ctx) {
+        if (outboundV2) {
+            return;
+        }
+        outboundV2 = true;
+        var magic = ctx.alloc().ioBuffer(PacketService.PACKET_HEAD_LENGTH);
+        magic.writeInt(PacketService.WIRE_V2_MAGIC);
+        ctx.writeAndFlush(magic);
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, EncodedPacketInfo packetInfo, ByteBuf out) {
         try {
-            NetContext.getPacketService().write(out, packetInfo.getPacket(), packetInfo.getAttachment());
+            if (outboundV2) {
+                NetContext.getPacketService().writeV2(out, packetInfo.getPacket(), packetInfo.getAttachment());
+            } else {
+                NetContext.getPacketService().write(out, packetInfo.getPacket(), packetInfo.getAttachment());
+            }
         } catch (Exception e) {
             logger.error("[session:{}][{}]编码exception异常", SessionUtils.sessionInfo(ctx), packetInfo.getPacket().getClass().getSimpleName(), e);
             throw e;
         } catch (Throwable t) {
             logger.error("[session:{}][{}]编码throwable错误", SessionUtils.sessionInfo(ctx), packetInfo.getPacket().getClass().getSimpleName(), t);
             throw t;
+        } finally {
+            packetInfo.recycle();
+        }
+    }
+
+    /**
+     * 已经序列化好的包体只需要加上包头和附加包，包体不会再拷贝
+     */
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof RawPacketInfo) {
+            var packetInfo = (RawPacketInfo) msg;
+            var packetService = NetContext.getPacketService();
+            ctx.write(outboundV2 ? packetService.writeForwardV2(ctx.alloc(), packetInfo) : packetService.writeForward(ctx.alloc(), packetInfo), promise);
+            return;
         }
+        super.write(ctx, msg, promise);
     }
 
 }
@@ -84,10 +84,12 @@ public class UdpCodecHandler extends MessageToMessageCodec<DatagramPacket, Encod
     @Override
     protected void encode(ChannelHandlerContext channelHandlerContext, EncodedPacketInfo out, List<Object> list) {
         try {
-            var byteBuf = channelHandlerContext.alloc().ioBuffer();
+            var packetService = NetContext.getPacketService();
+            var packetLength = packetService.packetLength(out.getPacket(), out.getAttachment());
+            var byteBuf = channelHandlerContext.alloc().ioBuffer(PacketService.PACKET_HEAD_LENGTH + packetLength);
             var udpAttachment = (UdpAttachment) out.getAttachment();
 
-            NetContext.getPacketService().write(byteBuf, out.getPacket(), out.getAttachment());
+            packetService.write(byteBuf, out.getPacket(), out.getAttachment(), packetLength);
             list.add(new DatagramPacket(byteBuf, new InetSocketAddress(udpAttachment.getHost(), udpAttachment.getPort())));
         } catch (Exception e) {
             logger.error("[{}]编码exception异常", JsonUtils.object2String(out), e);
@@ -16,6 +16,7 @@ package com.zfoo.net.handler.codec.websocket;
 import com.zfoo.net.NetContext;
 import com.zfoo.net.packet.model.DecodedPacketInfo;
 import com.zfoo.net.packet.model.EncodedPacketInfo;
+import com.zfoo.net.packet.model.RawPacketInfo;
 import com.zfoo.net.packet.service.PacketService;
 import com.zfoo.net.util.SessionUtils;
 import com.zfoo.protocol.util.JsonUtils;
@@ -38,7 +39,7 @@ import java.util.List;
  * @author jaysunxiao
  * @version 3.0
  */
-public class WebSocketCodecHandler extends MessageToMessageCodec<WebSocketFrame, EncodedPacketInfo> {
+public class WebSocketCodecHandler extends MessageToMessageCodec<WebSocketFrame, Object> {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketCodecHandler.class);
 
@@ -82,12 +83,31 @@ public class WebSocketCodecHandler extends MessageToMessageCodec<WebSocketFrame,
         }
     }
 
+    /**
+     * 除了EncodedPacketInfo，还接收广播和网关转发的已经序列化好的包体RawPacketInfo，websocket只使用v1
+     */
     @Override
-    protected void encode(ChannelHandlerContext channelHandlerContext, EncodedPacketInfo out, List<Object> list) {
+    public boolean acceptOutboundMessage(Object msg) {
+        return msg instanceof EncodedPacketInfo || msg instanceof RawPacketInfo;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext channelHandlerContext, Object msg, List<Object> list) {
+        if (msg instanceof RawPacketInfo) {
+            // 编码完成过后msg会被release，包体的引用计数转移给writeForward返回的ByteBuf，所以需要retain
+            var packetInfo = (RawPacketInfo) msg;
+            packetInfo.retain();
+            list.add(new BinaryWebSocketFrame(NetContext.getPacketService().writeForward(channelHandlerContext.alloc(), packetInfo)));
+            return;
+        }
+
+        var out = (EncodedPacketInfo) msg;
         try {
-            var byteBuf = channelHandlerContext.alloc().ioBuffer();
+            var packetService = NetContext.getPacketService();
+            var packetLength = packetService.packetLength(out.getPacket(), out.getAttachment());
+            var byteBuf = channelHandlerContext.alloc().ioBuffer(PacketService.PACKET_HEAD_LENGTH + packetLength);
 
-            NetContext.getPacketService().write(byteBuf, out.getPacket(), out.getAttachment());
+            packetService.write(byteBuf, out.getPacket(), out.getAttachment(), packetLength);
             list.add(new BinaryWebSocketFrame(byteBuf));
         } catch (Exception e) {
             logger.error("[{}]编码exception异常", JsonUtils.object2String(out), e);
@@ -95,6 +115,8 @@ public class WebSocketCodecHandler extends MessageToMessageCodec<WebSocketFrame,
         } catch (Throwable t) {
             logger.error("[{}]编码throwable错误", JsonUtils.object2String(out), t);
             throw t;
+        } finally {
+            out.recycle();
         }
     }
 
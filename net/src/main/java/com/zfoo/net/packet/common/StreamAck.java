@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.packet.common;
+
+import com.baidu.bjf.remoting.protobuf.annotation.Ignore;
+import com.baidu.bjf.remoting.protobuf.annotation.Protobuf;
+import com.baidu.bjf.remoting.protobuf.annotation.ProtobufClass;
+import com.zfoo.protocol.IPacket;
+
+/**
+ * 接收方对流的分块的确认，发送方收到确认之后才会继续发送窗口之外的分块
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@ProtobufClass
+public class StreamAck implements IPacket {
+
+    @Ignore
+    public static final transient short PROTOCOL_ID = 106;
+
+    @Protobuf(order = 1)
+    private long streamId;
+
+    /**
+     * 已经连续收到的最大的分块序号；为-1的时候表示接收方放弃了这个流
+     */
+    @Protobuf(order = 2)
+    private int index;
+
+    public static StreamAck valueOf(long streamId, int index) {
+        var ack = new StreamAck();
+        ack.streamId = streamId;
+        ack.index = index;
+        return ack;
+    }
+
+    @Override
+    public short protocolId() {
+        return PROTOCOL_ID;
+    }
+
+    public long getStreamId() {
+        return streamId;
+    }
+
+    public void setStreamId(long streamId) {
+        this.streamId = streamId;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.packet.common;
+
+import com.baidu.bjf.remoting.protobuf.annotation.Ignore;
+import com.baidu.bjf.remoting.protobuf.annotation.Protobuf;
+import com.baidu.bjf.remoting.protobuf.annotation.ProtobufClass;
+import com.zfoo.protocol.IPacket;
+
+/**
+ * 大数据流的分块，一个流被切分成固定大小的分块，每个分块都是一个独立的包，可以和其它的包交错发送
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@ProtobufClass
+public class StreamChunk implements IPacket {
+
+    @Ignore
+    public static final transient short PROTOCOL_ID = 105;
+
+    /**
+     * 发送方生成的流的唯一id
+     */
+    @Protobuf(order = 1)
+    private long streamId;
+
+    /**
+     * 分块的序号，从0开始
+     */
+    @Protobuf(order = 2)
+    private int index;
+
+    /**
+     * 流的总字节数
+     */
+    @Protobuf(order = 3)
+    private long totalSize;
+
+    /**
+     * 流的名称，只有第一个分块才会携带
+     */
+    @Protobuf(order = 4)
+    private String name;
+
+    @Protobuf(order = 5)
+    private byte[] data;
+
+    public static StreamChunk valueOf(long streamId, int index, long totalSize, String name, byte[] data) {
+        var chunk = new StreamChunk();
+        chunk.streamId = streamId;
+        chunk.index = index;
+        chunk.totalSize = totalSize;
+        chunk.name = name;
+        chunk.data = data;
+        return chunk;
+    }
+
+    @Override
+    public short protocolId() {
+        return PROTOCOL_ID;
+    }
+
+    public long getStreamId() {
+        return streamId;
+    }
+
+    public void setStreamId(long streamId) {
+        this.streamId = streamId;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public void setTotalSize(long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+}
@@ -15,6 +15,7 @@ package com.zfoo.net.packet.model;
 
 import com.zfoo.net.router.attachment.IAttachment;
 import com.zfoo.protocol.IPacket;
+import io.netty.util.Recycler;
 import org.springframework.lang.Nullable;
 
 /**
@@ -25,6 +26,20 @@ import org.springframework.lang.Nullable;
  */
 public class EncodedPacketInfo {
 
+    private static final Recycler<EncodedPacketInfo> RECYCLER = new Recycler<>() {
+        @Override
+        protected EncodedPacketInfo newObject(Handle<EncodedPacketInfo> handle) {
+            var packetInfo = new EncodedPacketInfo();
+            packetInfo.handle = handle;
+            return packetInfo;
+        }
+    };
+
+    /**
+     * 通过valueOf创建的不会被回收，可以被多次发送
+     */
+    private Recycler.Handle<EncodedPacketInfo> handle;
+
     /**
      * 解码后的包
      */
@@ -51,6 +66,27 @@ public class EncodedPacketInfo {
         return packetInfo;
     }
 
+    /**
+     * 从对象池中获取，只能被发送一次，codec编码完成之后回收
+     */
+    public static EncodedPacketInfo recyclable(IPacket packet, @Nullable IAttachment attachment) {
+        EncodedPacketInfo packetInfo = RECYCLER.get();
+        packetInfo.packet = packet;
+        packetInfo.attachment = attachment;
+        return packetInfo;
+    }
+
+    public void recycle() {
+        if (handle == null) {
+            return;
+        }
+        packet = null;
+        attachment = null;
+        length = 0;
+        encodedTime = 0;
+        handle.recycle(this);
+    }
+
     public IPacket getPacket() {
         return packet;
     }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.packet.model;
+
+import com.zfoo.net.router.attachment.GatewayAttachment;
+import com.zfoo.net.router.attachment.SignalAttachment;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import org.springframework.lang.Nullable;
+
+/**
+ * 网关原始字节转发的包，没有解码包体，只读取了协议号
+ * <p>
+ * 客户端发到网关：v1的packetBuffer为客户端发过来的完整包体，包括协议号，包，客户端的附加包；v2的packetBuffer为协议号和包，客户端的附加包为signalAttachment
+ * <p>
+ * 服务提供者返回网关：packetBuffer为协议号和包，gatewayAttachment为服务提供者返回的网关附加包
+ * <p>
+ * packetBuffer为retainedSlice，使用完必须release
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ForwardPacketInfo extends DefaultByteBufHolder {
+
+    private short protocolId;
+
+    private GatewayAttachment gatewayAttachment;
+
+    private SignalAttachment signalAttachment;
+
+    /**
+     * 包体的后面是否可能还有v1格式的客户端的附加包
+     */
+    private boolean trailingAttachment;
+
+
+    private ForwardPacketInfo(ByteBuf packetBuffer) {
+        super(packetBuffer);
+    }
+
+    public static ForwardPacketInfo valueOf(short protocolId, ByteBuf packetBuffer, @Nullable GatewayAttachment gatewayAttachment
+            , @Nullable SignalAttachment signalAttachment, boolean trailingAttachment) {
+        ForwardPacketInfo packetInfo = new ForwardPacketInfo(packetBuffer);
+        packetInfo.protocolId = protocolId;
+        packetInfo.gatewayAttachment = gatewayAttachment;
+        packetInfo.signalAttachment = signalAttachment;
+        packetInfo.trailingAttachment = trailingAttachment;
+        return packetInfo;
+    }
+
+
+    public short getProtocolId() {
+        return protocolId;
+    }
+
+    public void setProtocolId(short protocolId) {
+        this.protocolId = protocolId;
+    }
+
+    public ByteBuf getPacketBuffer() {
+        return content();
+    }
+
+    public GatewayAttachment getGatewayAttachment() {
+        return gatewayAttachment;
+    }
+
+    public void setGatewayAttachment(GatewayAttachment gatewayAttachment) {
+        this.gatewayAttachment = gatewayAttachment;
+    }
+
+    public SignalAttachment getSignalAttachment() {
+        return signalAttachment;
+    }
+
+    public void setSignalAttachment(SignalAttachment signalAttachment) {
+        this.signalAttachment = signalAttachment;
+    }
+
+    public boolean isTrailingAttachment() {
+        return trailingAttachment;
+    }
+
+    public void setTrailingAttachment(boolean trailingAttachment) {
+        this.trailingAttachment = trailingAttachment;
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.zfoo.net.packet.model;
+
+import com.zfoo.net.router.attachment.GatewayAttachment;
+import com.zfoo.protocol.IPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import org.springframework.lang.Nullable;
+
+/**
+ * 延迟解码的包，codec只读取了协议号和附加包，包体在TaskBus的线程中派发给协议接收器之前才通过IPacketService.readLazy()解码
+ * <p>
+ * packetBuffer为协议号和包的retainedSlice，解码之后自动release；没有解码的包必须release
+ * <p>
+ * 只会出现在IRouter.receive()到PacketReceiverTask之间，协议接收器收到的永远是解码后的包
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class LazyPacket extends DefaultByteBufHolder implements IPacket {
+
+    private short protocolId;
+
+    /**
+     * 网关转发过来的v1客户端的原始字节，包体的后面可能还有客户端的附加包，解码之后设置到这个网关附加包中
+     */
+    private GatewayAttachment trailingAttachment;
+
+
+    private LazyPacket(ByteBuf packetBuffer) {
+        super(packetBuffer);
+    }
+
+    public static LazyPacket valueOf(ByteBuf packetBuffer, @Nullable GatewayAttachment trailingAttachment) {
+        LazyPacket packet = new LazyPacket(packetBuffer);
+        packet.protocolId = packetBuffer.getShort(packetBuffer.readerIndex());
+        packet.trailingAttachment = trailingAttachment;
+        return packet;
+    }
+
+    @Override
+    public short protocolId() {
+        return protocolId;
+    }
+
+    public ByteBuf getPacketBuffer() {
+        return content();
+    }
+
+    public GatewayAttachment getTrailingAttachment() {
+        return trailingAttachment;
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.packet.model;
+
+import com.zfoo.net.router.attachment.IAttachment;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import org.springframework.lang.Nullable;
+
+/**
+ * 已经序列化好的包体（协议号 + 包），由codec根据连接的协议版本加上包头和附加包，用于广播和网关的原始字节转发
+ * <p>
+ * packetBuffer的引用计数转移给codec，写入之后由codec释放
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class RawPacketInfo extends DefaultByteBufHolder {
+
+    private IAttachment attachment;
+
+    /**
+     * 包体的后面是否可能还有v1格式的附加包，网关转发v1客户端的原始字节的时候为true
+     */
+    private boolean trailingAttachment;
+
+
+    private RawPacketInfo(ByteBuf packetBuffer) {
+        super(packetBuffer);
+    }
+
+    public static RawPacketInfo valueOf(ByteBuf packetBuffer, @Nullable IAttachment attachment, boolean trailingAttachment) {
+        RawPacketInfo packetInfo = new RawPacketInfo(packetBuffer);
+        packetInfo.attachment = attachment;
+        packetInfo.trailingAttachment = trailingAttachment;
+        return packetInfo;
+    }
+
+
+    public ByteBuf getPacketBuffer() {
+        return content();
+    }
+
+    public IAttachment getAttachment() {
+        return attachment;
+    }
+
+    public void setAttachment(IAttachment attachment) {
+        this.attachment = attachment;
+    }
+
+    public boolean isTrailingAttachment() {
+        return trailingAttachment;
+    }
+
+    public void setTrailingAttachment(boolean trailingAttachment) {
+        this.trailingAttachment = trailingAttachment;
+    }
+
+}
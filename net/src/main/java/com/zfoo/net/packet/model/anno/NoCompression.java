@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.zfoo.net.packet.model.anno;
+
+import java.lang.annotation.*;
+
+/**
+ * 开启压缩之后，包体超过压缩阈值的协议都会被压缩，被这个注解标注的协议不会被压缩
+ * <p>
+ * 已经压缩过的数据（图片，音频等）或者对延迟非常敏感的协议可以使用这个注解；需要在网关解码的协议默认不会被压缩
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface NoCompression {
+}
@@ -14,9 +14,13 @@
 package com.zfoo.net.packet.service;
 
 import com.zfoo.net.packet.model.DecodedPacketInfo;
+import com.zfoo.net.packet.model.ForwardPacketInfo;
+import com.zfoo.net.packet.model.LazyPacket;
+import com.zfoo.net.packet.model.RawPacketInfo;
 import com.zfoo.net.router.attachment.IAttachment;
 import com.zfoo.protocol.IPacket;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import org.springframework.lang.Nullable;
 
 /**
@@ -29,6 +33,66 @@ public interface IPacketService {
 
     DecodedPacketInfo read(ByteBuf buffer);
 
+    /**
+     * 包体序列化之后准确的字节数，不包括包头的长度，可以用来预先分配准确大小的ByteBuf
+     */
+    int packetLength(IPacket packet, @Nullable IAttachment attachment);
+
     void write(ByteBuf buffer, IPacket packet, @Nullable IAttachment attachment);
 
+    /**
+     * @param packetLength 通过packetLength()预先计算好的包体长度，直接写入包头，不需要再回写包头
+     */
+    void write(ByteBuf buffer, IPacket packet, @Nullable IAttachment attachment, int packetLength);
+
+    /**
+     * 只序列化protocolId + packet，包体超过压缩阈值的时候返回压缩之后的包体，广播的时候只需要序列化和压缩一次
+     */
+    ByteBuf encodePacket(ByteBufAllocator allocator, IPacket packet);
+
+    /**
+     * 网关原始字节转发，只读取协议号和网关附加包，不解码包体
+     * <p>
+     * 不能直接转发的包返回null，buffer的readerIndex不会改变，需要再调用read()完整的解码
+     *
+     * @param gateway true为网关接收客户端的包；false只会转发服务提供者返回给网关的包
+     */
+    @Nullable
+    ForwardPacketInfo readForward(ByteBuf buffer, boolean gateway);
+
+    /**
+     * 使用已经序列化好的包体和附加包组装成一个完整的v1包，只序列化附加包，包体的引用计数转移到返回的ByteBuf
+     */
+    ByteBuf writeForward(ByteBufAllocator allocator, RawPacketInfo packetInfo);
+
+    //---------------------------------------------v2-------------------------------------------------
+    // v2：varint的包体长度 + flag + 固定格式的附加包字段 + protocolId + packet，连接建立的时候通过WIRE_V2_MAGIC协商
+
+    /**
+     * 包体长度在上一层已经解析过，buffer从flag开始
+     */
+    DecodedPacketInfo readV2(ByteBuf buffer);
+
+    /**
+     * lazy为true并且开启了延迟解码的时候，发给协议接收器的包只解码附加包，包体为LazyPacket，由TaskBus的线程调用readLazy()解码
+     * <p>
+     * 压缩的包体，心跳包，同步和异步请求的应答，服务提供者返回给网关的包仍然立即解码
+     */
+    DecodedPacketInfo readV2(ByteBuf buffer, boolean lazy);
+
+    /**
+     * 解码LazyPacket的包体，无论解码是否成功都会release包体
+     */
+    IPacket readLazy(LazyPacket packet);
+
+    /**
+     * 写入一个完整的v2包，包括varint的包体长度
+     */
+    void writeV2(ByteBuf buffer, IPacket packet, @Nullable IAttachment attachment);
+
+    @Nullable
+    ForwardPacketInfo readForwardV2(ByteBuf buffer, boolean gateway);
+
+    ByteBuf writeForwardV2(ByteBufAllocator allocator, RawPacketInfo packetInfo);
+
 }
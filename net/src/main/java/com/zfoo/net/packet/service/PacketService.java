@@ -14,26 +14,51 @@
 package com.zfoo.net.packet.service;
 
 import com.zfoo.net.NetContext;
+import com.zfoo.net.core.gateway.GatewayInspection;
+import com.zfoo.net.core.gateway.IGatewayLoadBalancer;
+import com.zfoo.net.core.gateway.model.AuthUidToGatewayCheck;
+import com.zfoo.net.packet.common.Heartbeat;
+import com.zfoo.net.packet.common.Ping;
+import com.zfoo.net.packet.common.StreamAck;
+import com.zfoo.net.packet.common.StreamChunk;
 import com.zfoo.net.packet.model.DecodedPacketInfo;
+import com.zfoo.net.packet.model.ForwardPacketInfo;
+import com.zfoo.net.packet.model.LazyPacket;
+import com.zfoo.net.packet.model.RawPacketInfo;
+import com.zfoo.net.packet.model.anno.NoCompression;
+import com.zfoo.net.router.attachment.AttachmentType;
+import com.zfoo.net.router.attachment.GatewayAttachment;
 import com.zfoo.net.router.attachment.IAttachment;
+import com.zfoo.net.router.attachment.NoAnswerAttachment;
+import com.zfoo.net.router.attachment.SignalAttachment;
 import com.zfoo.net.router.route.PacketBus;
+import com.zfoo.net.router.route.WriteCoalescing;
 import com.zfoo.protocol.IPacket;
 import com.zfoo.protocol.ProtocolManager;
 import com.zfoo.protocol.buffer.ByteBufUtils;
 import com.zfoo.protocol.exception.ExceptionUtils;
 import com.zfoo.protocol.generate.GenerateOperation;
 import com.zfoo.protocol.generate.GenerateProtocolFile;
+import com.zfoo.protocol.profile.ProtocolProfiler;
 import com.zfoo.protocol.registration.IProtocolRegistration;
 import com.zfoo.protocol.serializer.CodeLanguage;
 import com.zfoo.protocol.util.DomUtils;
+import com.zfoo.protocol.util.IOUtils;
+import com.zfoo.protocol.util.StringUtils;
 import com.zfoo.protocol.xml.XmlProtocols;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FastThreadLocal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.ResourceUtils;
 
 import java.io.IOException;
 import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * @author jaysunxiao
@@ -48,6 +73,63 @@ public class PacketService implements IPacketService {
      */
     public static final int PACKET_HEAD_LENGTH = 4;
 
+    /**
+     * v2协议的前导魔数，连接的一端切换到v2之前先发送这个魔数；v1的包头长度不可能为负数，所以不会和v1的包冲突
+     */
+    public static final int WIRE_V2_MAGIC = 0xF00F0002;
+
+    /**
+     * v2的flag，低3位为附加包的类型，高位为附加包的标识
+     */
+    private static final int V2_ATTACHMENT_MASK = 0x07;
+    private static final int V2_NONE = 0;
+    private static final int V2_SIGNAL = 1;
+    private static final int V2_GATEWAY = 2;
+    private static final int V2_NO_ANSWER = 3;
+    private static final int V2_PROTOCOL = 4;
+    private static final int V2_CLIENT = 0x08;
+    private static final int V2_GATEWAY_SIGNAL = 0x10;
+    private static final int V2_GATEWAY_SIGNAL_CLIENT = 0x20;
+    private static final int V2_GATEWAY_EXECUTOR_HASH = 0x40;
+    private static final int V2_TRAILING_ATTACHMENT = 0x80;
+
+    /**
+     * 压缩包体的标识，写在协议号的位置上，v1和v2都一样，客户端的ProtocolManager.read()读到这个协议号的时候先解压再读取包体
+     * <p>
+     * 压缩之后的包体：COMPRESSED_PROTOCOL_ID(2byte) + varint(解压之后的长度) + varint(压缩之后的长度) + zlib(protocolId + packet)
+     */
+    public static final short COMPRESSED_PROTOCOL_ID = Short.MIN_VALUE;
+
+    /**
+     * 解压之后包体的最大长度，防止恶意构造的压缩包耗尽内存
+     */
+    public static final int MAX_DECOMPRESSED_LENGTH = 16 * IOUtils.BYTES_PER_MB;
+
+    private static final FastThreadLocal<Deflater> DEFLATER = new FastThreadLocal<>() {
+        @Override
+        protected Deflater initialValue() {
+            // 游戏的包一般都不大，压缩速度比压缩率更重要
+            return new Deflater(Deflater.BEST_SPEED);
+        }
+
+        @Override
+        protected void onRemoval(Deflater deflater) {
+            deflater.end();
+        }
+    };
+
+    private static final FastThreadLocal<Inflater> INFLATER = new FastThreadLocal<>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+
+        @Override
+        protected void onRemoval(Inflater inflater) {
+            inflater.end();
+        }
+    };
+
     /**
      * 网络包的约定规则如下：
      * 1. 客户端的请求约定以Request结尾，服务器的响应约定以Response结尾
@@ -72,6 +154,35 @@ public class PacketService implements IPacketService {
             || registration.protocolConstructor().getDeclaringClass().getSimpleName().endsWith(NET_RESPONSE_SUFFIX)
             || registration.protocolConstructor().getDeclaringClass().getSimpleName().endsWith(NET_NOTICE_SUFFIX);
 
+    /**
+     * 网关转发的时候协议是否需要完整的解码，0为还没有计算，1为直接转发原始字节，2为需要解码
+     */
+    private static final byte GATEWAY_FORWARD = 1;
+    private static final byte GATEWAY_INSPECTION = 2;
+    private final byte[] gatewayInspections = new byte[ProtocolManager.MAX_PROTOCOL_NUM];
+
+    /**
+     * 包体压缩的阈值，包体的字节数大于等于这个值才会被压缩，小于等于0为不压缩
+     */
+    private volatile int compressionThreshold;
+
+    /**
+     * 协议是否可以被压缩，0为还没有计算，1为可以压缩，2为不能压缩
+     */
+    private static final byte COMPRESSION_ENABLE = 1;
+    private static final byte COMPRESSION_DISABLE = 2;
+    private final byte[] compressions = new byte[ProtocolManager.MAX_PROTOCOL_NUM];
+
+    /**
+     * 延迟解码，v2的包体在TaskBus的线程中才解码，减少netty的IO线程的反序列化开销
+     */
+    private volatile boolean lazyDecode;
+
+    /**
+     * v1的网关附加包写在包体的前面，默认关闭，写在包体的后面和旧版本的网关兼容；v2的网关附加包总是在包体的前面
+     */
+    private volatile boolean gatewayAttachmentFirst;
+
     public PacketService() {
 
     }
@@ -82,6 +193,14 @@ public class PacketService implements IPacketService {
 
         var netConfig = NetContext.getConfigManager().getLocalConfig();
         var protocolLocation = netConfig.getProtocolLocation();
+        compressionThreshold = netConfig.getCompressionThreshold();
+        lazyDecode = netConfig.isLazyDecode();
+        gatewayAttachmentFirst = netConfig.isGatewayAttachmentFirst();
+        WriteCoalescing.setEnable(netConfig.isWriteCoalescing());
+        if (netConfig.isProtocolProfile()) {
+            ProtocolProfiler.setEnable(true);
+            ProtocolProfiler.registerMBean();
+        }
 
         var generateOperation = new GenerateOperation();
         generateOperation.setFoldProtocol(netConfig.isFoldProtocol());
@@ -133,46 +252,677 @@ public class PacketService implements IPacketService {
     @Override
     public DecodedPacketInfo read(ByteBuf buffer) {
         // 包的长度在上一层已经解析过
+        var wireBytes = PACKET_HEAD_LENGTH + buffer.readableBytes();
+
+        // 网关附加包在包的前面，后面可能还有网关转发过来的客户端的附加包
+        if (buffer.getShort(buffer.readerIndex()) == GatewayAttachment.PROTOCOL_ID) {
+            var gatewayAttachment = (GatewayAttachment) ProtocolManager.read(buffer);
+            var packet = readPacket(buffer);
+            readTrailingAttachment(buffer, packet, gatewayAttachment);
+            profileWire(packet, wireBytes);
+            return DecodedPacketInfo.valueOf(packet, gatewayAttachment);
+        }
 
         // 解析包体
-        var packet = ProtocolManager.read(buffer);
+        var packet = readPacket(buffer);
         // 解析包的附加包
         var hasAttachment = ByteBufUtils.tryReadBoolean(buffer);
         var attachment = hasAttachment ? ((IAttachment) ProtocolManager.read(buffer)) : null;
+        profileWire(packet, wireBytes);
         return DecodedPacketInfo.valueOf(packet, attachment);
     }
 
+    /**
+     * 统计网络上实际的字节数，包括包头，附加包和压缩，see: ProtocolProfiler
+     */
+    private void profileWire(IPacket packet, int wireBytes) {
+        if (ProtocolProfiler.isEnable()) {
+            ProtocolProfiler.recordWire(packet.protocolId(), wireBytes);
+        }
+    }
+
+    @Override
+    public int packetLength(IPacket packet, IAttachment attachment) {
+        if (packet == null) {
+            return 0;
+        }
+        // 包packet + 是否有附加包的标识 + 附加包attachment
+        return ProtocolManager.serializedSize(packet) + attachmentLength(attachment);
+    }
+
     @Override
     public void write(ByteBuf buffer, IPacket packet, IAttachment attachment) {
+        write(buffer, packet, attachment, packetLength(packet, attachment));
+    }
+
+    @Override
+    public void write(ByteBuf buffer, IPacket packet, IAttachment attachment, int packetLength) {
 
         if (packet == null) {
             logger.error("packet is null and can not be sent.");
             return;
         }
 
-        // 预留写入包的长度，一个int字节大小
-        buffer.writeInt(PACKET_HEAD_LENGTH);
+        // 超过压缩阈值的包体先序列化再压缩，包的长度需要重新计算
+        var packetBuffer = compressPacket(buffer.alloc(), packet, packetLength);
+        try {
+            if (packetBuffer != null) {
+                packetLength = packetBuffer.readableBytes() + attachmentLength(attachment);
+            }
+
+            // 包的长度已经提前计算好，一次性扩容到位，直接写入包头，序列化的过程中不会再扩容
+            buffer.ensureWritable(PACKET_HEAD_LENGTH + packetLength);
+            buffer.writeInt(packetLength);
+            profileWire(packet, PACKET_HEAD_LENGTH + packetLength);
+            var bodyIndex = buffer.writerIndex();
+
+            if (attachmentFirst(attachment)) {
+                // 网关附加包写在包的前面，网关收到服务提供者的返回只需要解码网关附加包，包体直接转发给客户端
+                ProtocolManager.write(buffer, attachment);
+                writePacket(buffer, packet, packetBuffer);
+            } else {
+                // 写入包packet
+                writePacket(buffer, packet, packetBuffer);
+
+                // 写入包的附加包attachment
+                if (attachment == null) {
+                    ByteBufUtils.writeBoolean(buffer, false);
+                } else {
+                    ByteBufUtils.writeBoolean(buffer, true);
+                    // 写入包的附加包attachment
+                    ProtocolManager.write(buffer, attachment);
+                }
+            }
+
+            checkPacketLength(packet, packetLength, buffer.writerIndex() - bodyIndex);
+        } finally {
+            ReferenceCountUtil.release(packetBuffer);
+        }
+    }
 
-        // 写入包packet
-        ProtocolManager.write(buffer, packet);
+    @Override
+    public ByteBuf encodePacket(ByteBufAllocator allocator, IPacket packet) {
+        var packetSize = ProtocolManager.serializedSize(packet);
+        var buffer = allocator.ioBuffer(packetSize);
+        try {
+            ProtocolManager.write(buffer, packet);
+        } catch (Throwable t) {
+            buffer.release();
+            throw t;
+        }
+
+        if (!compressible(packet, packetSize)) {
+            return buffer;
+        }
+
+        ByteBuf compressedBuffer;
+        try {
+            compressedBuffer = compress(allocator, buffer);
+        } catch (Throwable t) {
+            buffer.release();
+            throw t;
+        }
+        if (compressedBuffer == null) {
+            return buffer;
+        }
+        buffer.release();
+        return compressedBuffer;
+    }
+
+    @Override
+    public ForwardPacketInfo readForward(ByteBuf buffer, boolean gateway) {
+        var readerIndex = buffer.readerIndex();
+        var protocolId = buffer.getShort(readerIndex);
+
+        if (gateway) {
+            // 客户端不能发送网关附加包
+            if (protocolId == GatewayAttachment.PROTOCOL_ID || gatewayInspection(protocolId)) {
+                return null;
+            }
+            return ForwardPacketInfo.valueOf(protocolId, buffer.readRetainedSlice(buffer.readableBytes()), null, null, true);
+        }
+
+        if (protocolId != GatewayAttachment.PROTOCOL_ID) {
+            return null;
+        }
+
+        // 服务提供者返回给网关的包，只解码网关附加包，网关发给服务提供者的包则需要完整的解码
+        var gatewayAttachment = (GatewayAttachment) ProtocolManager.read(buffer);
+        var packetProtocolId = buffer.getShort(buffer.readerIndex());
+        // 需要在网关解码的协议不会被压缩，压缩过的包体直接转发给客户端解压
+        if (gatewayAttachment.isClient() || (packetProtocolId != COMPRESSED_PROTOCOL_ID && gatewayInspection(packetProtocolId))) {
+            buffer.readerIndex(readerIndex);
+            return null;
+        }
+        return ForwardPacketInfo.valueOf(packetProtocolId, buffer.readRetainedSlice(buffer.readableBytes()), gatewayAttachment, null, false);
+    }
+
+    @Override
+    public ByteBuf writeForward(ByteBufAllocator allocator, RawPacketInfo packetInfo) {
+        var packetBuffer = packetInfo.getPacketBuffer();
+        var attachment = packetInfo.getAttachment();
+        // v1的客户端的原始字节后面还有客户端的附加包，网关附加包不能直接写在后面，只能解码之后重新编码
+        if (packetInfo.isTrailingAttachment() && !attachmentFirst(attachment)) {
+            return rewriteTrailingAttachment(allocator, packetBuffer, (GatewayAttachment) attachment);
+        }
+
+        ByteBuf headBuffer = null;
+        ByteBuf attachmentBuffer = null;
+        try {
+            if (attachmentFirst(attachment)) {
+                // 包头 + 网关附加包 + 原始字节的包体
+                var attachmentLength = ProtocolManager.serializedSize(attachment);
+                headBuffer = allocator.ioBuffer(PACKET_HEAD_LENGTH + attachmentLength);
+                headBuffer.writeInt(attachmentLength + packetBuffer.readableBytes());
+                ProtocolManager.write(headBuffer, attachment);
+                return allocator.compositeDirectBuffer(2).addComponents(true, headBuffer, packetBuffer);
+            }
+
+            // 包头 + 原始字节的包体 + 是否有附加包的标识 + 附加包
+            var attachmentLength = attachmentLength(attachment);
+            headBuffer = allocator.ioBuffer(PACKET_HEAD_LENGTH);
+            headBuffer.writeInt(packetBuffer.readableBytes() + attachmentLength);
+            attachmentBuffer = allocator.ioBuffer(attachmentLength);
+            if (attachment == null) {
+                ByteBufUtils.writeBoolean(attachmentBuffer, false);
+            } else {
+                ByteBufUtils.writeBoolean(attachmentBuffer, true);
+                ProtocolManager.write(attachmentBuffer, attachment);
+            }
+            return allocator.compositeDirectBuffer(3).addComponents(true, headBuffer, packetBuffer, attachmentBuffer);
+        } catch (Throwable t) {
+            ReferenceCountUtil.release(headBuffer);
+            ReferenceCountUtil.release(attachmentBuffer);
+            ReferenceCountUtil.release(packetBuffer);
+            throw t;
+        }
+    }
+
+    //---------------------------------------------v2-------------------------------------------------
+    @Override
+    public DecodedPacketInfo readV2(ByteBuf buffer) {
+        return readV2(buffer, false);
+    }
 
-        // 写入包的附加包attachment
+    @Override
+    public DecodedPacketInfo readV2(ByteBuf buffer, boolean lazy) {
+        var wireBytes = ByteBufUtils.writeIntCount(buffer.readableBytes()) + buffer.readableBytes();
+        var flag = buffer.readByte();
+        var attachment = readAttachmentV2(buffer, flag);
+        var trailingAttachment = (flag & V2_TRAILING_ATTACHMENT) != 0;
+
+        // v2的附加包在包体的前面，包体就是剩下的所有字节，可以不解码直接保留
+        if (lazy && lazyDecode && lazyDecodable(buffer, attachment)) {
+            var packet = LazyPacket.valueOf(buffer.readRetainedSlice(buffer.readableBytes()), trailingAttachment ? (GatewayAttachment) attachment : null);
+            profileWire(packet, wireBytes);
+            return DecodedPacketInfo.valueOf(packet, attachment);
+        }
+
+        var packet = readPacket(buffer);
+        // 网关转发过来的v1客户端的原始字节，后面可能还有客户端的附加包
+        if (trailingAttachment) {
+            readTrailingAttachment(buffer, packet, (GatewayAttachment) attachment);
+        }
+        profileWire(packet, wireBytes);
+        return DecodedPacketInfo.valueOf(packet, attachment);
+    }
+
+    @Override
+    public IPacket readLazy(LazyPacket lazyPacket) {
+        var buffer = lazyPacket.getPacketBuffer();
+        try {
+            var packet = ProtocolManager.read(buffer);
+            var gatewayAttachment = lazyPacket.getTrailingAttachment();
+            if (gatewayAttachment != null) {
+                readTrailingAttachment(buffer, packet, gatewayAttachment);
+            }
+            return packet;
+        } finally {
+            lazyPacket.release();
+        }
+    }
+
+    /**
+     * 只有最终会派发给PacketReceiverTask的包才可以延迟解码，Router.receive()中需要直接使用的包必须立即解码
+     */
+    private boolean lazyDecodable(ByteBuf buffer, IAttachment attachment) {
+        var protocolId = buffer.getShort(buffer.readerIndex());
+        // 压缩的包体需要解压之后才能知道协议号，心跳包在Router.receive()中直接丢弃，大数据流的分块和确认在Router.receive()中直接交给StreamBus
+        if (protocolId == COMPRESSED_PROTOCOL_ID || protocolId == Heartbeat.PROTOCOL_ID
+                || protocolId == StreamChunk.PROTOCOL_ID || protocolId == StreamAck.PROTOCOL_ID) {
+            return false;
+        }
         if (attachment == null) {
-            ByteBufUtils.writeBoolean(buffer, false);
+            return true;
+        }
+        switch (attachment.packetType()) {
+            case SIGNAL_PACKET:
+                // 应答的包用来完成发送者的CompletableFuture
+                return ((SignalAttachment) attachment).isClient();
+            case GATEWAY_PACKET:
+                // 服务提供者返回给网关的包需要发送给客户端
+                return ((GatewayAttachment) attachment).isClient();
+            case NO_ANSWER_PACKET:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public boolean isLazyDecode() {
+        return lazyDecode;
+    }
+
+    public void setLazyDecode(boolean lazyDecode) {
+        this.lazyDecode = lazyDecode;
+    }
+
+    public boolean isGatewayAttachmentFirst() {
+        return gatewayAttachmentFirst;
+    }
+
+    public void setGatewayAttachmentFirst(boolean gatewayAttachmentFirst) {
+        this.gatewayAttachmentFirst = gatewayAttachmentFirst;
+    }
+
+    @Override
+    public void writeV2(ByteBuf buffer, IPacket packet, IAttachment attachment) {
+        if (packet == null) {
+            logger.error("packet is null and can not be sent.");
+            return;
+        }
+
+        var attachmentLength = attachmentLengthV2(attachment);
+        var packetLength = attachmentLength + ProtocolManager.serializedSize(packet);
+        var packetBuffer = compressPacket(buffer.alloc(), packet, packetLength);
+        try {
+            if (packetBuffer != null) {
+                packetLength = attachmentLength + packetBuffer.readableBytes();
+            }
+            buffer.ensureWritable(ByteBufUtils.writeIntCount(packetLength) + packetLength);
+            ByteBufUtils.writeInt(buffer, packetLength);
+            profileWire(packet, ByteBufUtils.writeIntCount(packetLength) + packetLength);
+            var bodyIndex = buffer.writerIndex();
+            writeAttachmentV2(buffer, attachment, false);
+            writePacket(buffer, packet, packetBuffer);
+            checkPacketLength(packet, packetLength, buffer.writerIndex() - bodyIndex);
+        } finally {
+            ReferenceCountUtil.release(packetBuffer);
+        }
+    }
+
+    @Override
+    public ForwardPacketInfo readForwardV2(ByteBuf buffer, boolean gateway) {
+        var readerIndex = buffer.readerIndex();
+        var flag = buffer.getByte(readerIndex);
+        var attachmentType = flag & V2_ATTACHMENT_MASK;
+
+        if (gateway) {
+            // 客户端只能发送signalAttachment
+            if (attachmentType != V2_NONE && attachmentType != V2_SIGNAL) {
+                return null;
+            }
+        } else if (attachmentType != V2_GATEWAY) {
+            return null;
+        }
+
+        buffer.skipBytes(1);
+        var attachment = readAttachmentV2(buffer, flag);
+        var protocolId = buffer.getShort(buffer.readerIndex());
+        // 服务提供者返回的压缩包体直接转发给客户端解压，客户端发过来的压缩包体需要解码才能知道协议号
+        if ((gateway || protocolId != COMPRESSED_PROTOCOL_ID) && gatewayInspection(protocolId)) {
+            buffer.readerIndex(readerIndex);
+            return null;
+        }
+
+        if (gateway) {
+            return ForwardPacketInfo.valueOf(protocolId, buffer.readRetainedSlice(buffer.readableBytes()), null, (SignalAttachment) attachment, false);
+        }
+
+        // 服务提供者返回给网关的包才直接转发，网关发给服务提供者的包需要完整的解码
+        var gatewayAttachment = (GatewayAttachment) attachment;
+        if (gatewayAttachment.isClient()) {
+            buffer.readerIndex(readerIndex);
+            return null;
+        }
+        return ForwardPacketInfo.valueOf(protocolId, buffer.readRetainedSlice(buffer.readableBytes()), gatewayAttachment, null, false);
+    }
+
+    @Override
+    public ByteBuf writeForwardV2(ByteBufAllocator allocator, RawPacketInfo packetInfo) {
+        var packetBuffer = packetInfo.getPacketBuffer();
+        var attachment = packetInfo.getAttachment();
+        ByteBuf headBuffer = null;
+        try {
+            var attachmentLength = attachmentLengthV2(attachment);
+            var packetLength = attachmentLength + packetBuffer.readableBytes();
+            headBuffer = allocator.ioBuffer(ByteBufUtils.writeIntCount(packetLength) + attachmentLength);
+            ByteBufUtils.writeInt(headBuffer, packetLength);
+            writeAttachmentV2(headBuffer, attachment, packetInfo.isTrailingAttachment());
+            return allocator.compositeDirectBuffer(2).addComponents(true, headBuffer, packetBuffer);
+        } catch (Throwable t) {
+            ReferenceCountUtil.release(headBuffer);
+            ReferenceCountUtil.release(packetBuffer);
+            throw t;
+        }
+    }
+
+    private ByteBuf rewriteTrailingAttachment(ByteBufAllocator allocator, ByteBuf packetBuffer, GatewayAttachment gatewayAttachment) {
+        IPacket packet;
+        try {
+            packet = readPacket(packetBuffer);
+            readTrailingAttachment(packetBuffer, packet, gatewayAttachment);
+        } finally {
+            packetBuffer.release();
+        }
+        var buffer = allocator.ioBuffer();
+        try {
+            write(buffer, packet, gatewayAttachment);
+        } catch (Throwable t) {
+            buffer.release();
+            throw t;
+        }
+        return buffer;
+    }
+
+    /**
+     * 包头的长度是序列化之前计算的，实际写入的长度不一致的时候对方会按照错误的包头读取，之后这个连接上所有的包都会错位；
+     * 抛出异常之后codec会丢弃这个包，不会发送出去
+     */
+    private void checkPacketLength(IPacket packet, int packetLength, int writtenLength) {
+        if (writtenLength != packetLength) {
+            throw new IllegalStateException(StringUtils.format("协议[{}][protocolId:{}]计算的包长度[{}]和实际写入的长度[{}]不一致"
+                    , packet.getClass().getSimpleName(), packet.protocolId(), packetLength, writtenLength));
+        }
+    }
+
+    /**
+     * v1的网关附加包是否写在包体的前面
+     */
+    private boolean attachmentFirst(IAttachment attachment) {
+        return gatewayAttachmentFirst && attachment != null && attachment.packetType() == AttachmentType.GATEWAY_PACKET;
+    }
+
+    /**
+     * v1的附加包的长度，网关附加包写在包的前面的时候没有是否有附加包的标识
+     */
+    private int attachmentLength(IAttachment attachment) {
+        if (attachment == null) {
+            return 1;
+        }
+        if (attachmentFirst(attachment)) {
+            return ProtocolManager.serializedSize(attachment);
+        }
+        return 1 + ProtocolManager.serializedSize(attachment);
+    }
+
+    /**
+     * v2的附加包的长度，包括flag
+     */
+    private int attachmentLengthV2(IAttachment attachment) {
+        if (attachment == null) {
+            return 1;
+        }
+        switch (attachment.packetType()) {
+            case SIGNAL_PACKET:
+                var signalAttachment = (SignalAttachment) attachment;
+                return 1 + ByteBufUtils.writeIntCount(signalAttachment.getSignalId()) + ByteBufUtils.writeIntCount(signalAttachment.getExecutorConsistentHash());
+            case GATEWAY_PACKET:
+                var gatewayAttachment = (GatewayAttachment) attachment;
+                var length = 1 + ByteBufUtils.writeLongCount(gatewayAttachment.getSid()) + ByteBufUtils.writeLongCount(gatewayAttachment.getUid());
+                if (gatewayAttachment.isUseExecutorConsistentHash()) {
+                    length += ByteBufUtils.writeIntCount(gatewayAttachment.getExecutorConsistentHash());
+                }
+                var signalAttachmentInGateway = gatewayAttachment.getSignalAttachment();
+                if (signalAttachmentInGateway != null) {
+                    length += ByteBufUtils.writeIntCount(signalAttachmentInGateway.getSignalId()) + ByteBufUtils.writeIntCount(signalAttachmentInGateway.getExecutorConsistentHash());
+                }
+                return length;
+            case NO_ANSWER_PACKET:
+                return 1 + ByteBufUtils.writeIntCount(attachment.executorConsistentHash());
+            default:
+                return 1 + ProtocolManager.serializedSize(attachment);
+        }
+    }
+
+    private void writeAttachmentV2(ByteBuf buffer, IAttachment attachment, boolean trailingAttachment) {
+        var trailingFlag = trailingAttachment ? V2_TRAILING_ATTACHMENT : 0;
+        if (attachment == null) {
+            buffer.writeByte(V2_NONE | trailingFlag);
+            return;
+        }
+        switch (attachment.packetType()) {
+            case SIGNAL_PACKET:
+                var signalAttachment = (SignalAttachment) attachment;
+                buffer.writeByte(V2_SIGNAL | (signalAttachment.isClient() ? V2_CLIENT : 0) | trailingFlag);
+                ByteBufUtils.writeInt(buffer, signalAttachment.getSignalId());
+                ByteBufUtils.writeInt(buffer, signalAttachment.getExecutorConsistentHash());
+                break;
+            case GATEWAY_PACKET:
+                var gatewayAttachment = (GatewayAttachment) attachment;
+                var signalAttachmentInGateway = gatewayAttachment.getSignalAttachment();
+                var flag = V2_GATEWAY | trailingFlag;
+                if (gatewayAttachment.isClient()) {
+                    flag |= V2_CLIENT;
+                }
+                if (gatewayAttachment.isUseExecutorConsistentHash()) {
+                    flag |= V2_GATEWAY_EXECUTOR_HASH;
+                }
+                if (signalAttachmentInGateway != null) {
+                    flag |= signalAttachmentInGateway.isClient() ? V2_GATEWAY_SIGNAL | V2_GATEWAY_SIGNAL_CLIENT : V2_GATEWAY_SIGNAL;
+                }
+                buffer.writeByte(flag);
+                ByteBufUtils.writeLong(buffer, gatewayAttachment.getSid());
+                ByteBufUtils.writeLong(buffer, gatewayAttachment.getUid());
+                if (gatewayAttachment.isUseExecutorConsistentHash()) {
+                    ByteBufUtils.writeInt(buffer, gatewayAttachment.getExecutorConsistentHash());
+                }
+                if (signalAttachmentInGateway != null) {
+                    ByteBufUtils.writeInt(buffer, signalAttachmentInGateway.getSignalId());
+                    ByteBufUtils.writeInt(buffer, signalAttachmentInGateway.getExecutorConsistentHash());
+                }
+                break;
+            case NO_ANSWER_PACKET:
+                buffer.writeByte(V2_NO_ANSWER | trailingFlag);
+                ByteBufUtils.writeInt(buffer, attachment.executorConsistentHash());
+                break;
+            default:
+                // udp和http的附加包不会出现在tcp连接中，仍然使用协议序列化
+                buffer.writeByte(V2_PROTOCOL | trailingFlag);
+                ProtocolManager.write(buffer, attachment);
+        }
+    }
+
+    private IAttachment readAttachmentV2(ByteBuf buffer, byte flag) {
+        switch (flag & V2_ATTACHMENT_MASK) {
+            case V2_NONE:
+                return null;
+            case V2_SIGNAL:
+                var signalAttachment = new SignalAttachment();
+                signalAttachment.setSignalId(ByteBufUtils.readInt(buffer));
+                signalAttachment.setExecutorConsistentHash(ByteBufUtils.readInt(buffer));
+                signalAttachment.setClient((flag & V2_CLIENT) != 0);
+                return signalAttachment;
+            case V2_GATEWAY:
+                var gatewayAttachment = new GatewayAttachment(ByteBufUtils.readLong(buffer), ByteBufUtils.readLong(buffer));
+                gatewayAttachment.setClient((flag & V2_CLIENT) != 0);
+                if ((flag & V2_GATEWAY_EXECUTOR_HASH) != 0) {
+                    gatewayAttachment.setUseExecutorConsistentHash(true);
+                    gatewayAttachment.setExecutorConsistentHash(ByteBufUtils.readInt(buffer));
+                }
+                if ((flag & V2_GATEWAY_SIGNAL) != 0) {
+                    var signalAttachmentInGateway = new SignalAttachment();
+                    signalAttachmentInGateway.setSignalId(ByteBufUtils.readInt(buffer));
+                    signalAttachmentInGateway.setExecutorConsistentHash(ByteBufUtils.readInt(buffer));
+                    signalAttachmentInGateway.setClient((flag & V2_GATEWAY_SIGNAL_CLIENT) != 0);
+                    gatewayAttachment.setSignalAttachment(signalAttachmentInGateway);
+                }
+                return gatewayAttachment;
+            case V2_NO_ANSWER:
+                return NoAnswerAttachment.valueOf(ByteBufUtils.readInt(buffer));
+            case V2_PROTOCOL:
+                return (IAttachment) ProtocolManager.read(buffer);
+            default:
+                throw new IllegalArgumentException(StringUtils.format("v2包的附加包类型[flag:{}]非法", flag));
+        }
+    }
+
+    /**
+     * 网关转发的v1客户端的原始字节，包的后面可能还有客户端的附加包
+     */
+    private void readTrailingAttachment(ByteBuf buffer, IPacket packet, GatewayAttachment gatewayAttachment) {
+        if (!ByteBufUtils.tryReadBoolean(buffer)) {
+            return;
+        }
+        var clientAttachment = ProtocolManager.read(buffer);
+        if (clientAttachment instanceof SignalAttachment) {
+            gatewayAttachment.setSignalAttachment((SignalAttachment) clientAttachment);
         } else {
-            ByteBufUtils.writeBoolean(buffer, true);
-            // 写入包的附加包attachment
-            ProtocolManager.write(buffer, attachment);
+            logger.error("gateway forwards packet:[{}] with illegal client attachment:[{}]", packet.protocolId(), clientAttachment.protocolId());
         }
+    }
 
-        int length = buffer.readableBytes();
+    //---------------------------------------------压缩-------------------------------------------------
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
 
-        int packetLength = length - PACKET_HEAD_LENGTH;
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
 
-        buffer.writerIndex(0);
+    /**
+     * 包体超过压缩阈值的时候返回序列化好的包体，包体可能被压缩也可能因为压缩之后没有变小而没有被压缩；没有超过压缩阈值返回null
+     *
+     * @param packetLength 包体加上附加包的长度，只用来快速判断有没有超过压缩阈值
+     */
+    private ByteBuf compressPacket(ByteBufAllocator allocator, IPacket packet, int packetLength) {
+        var threshold = compressionThreshold;
+        if (threshold <= 0 || packetLength < threshold || !compressible(packet.protocolId())) {
+            return null;
+        }
+        return encodePacket(allocator, packet);
+    }
+
+    private void writePacket(ByteBuf buffer, IPacket packet, ByteBuf packetBuffer) {
+        if (packetBuffer == null) {
+            ProtocolManager.write(buffer, packet);
+        } else {
+            buffer.writeBytes(packetBuffer, packetBuffer.readerIndex(), packetBuffer.readableBytes());
+        }
+    }
 
-        buffer.writeInt(packetLength);
+    private boolean compressible(IPacket packet, int packetSize) {
+        var threshold = compressionThreshold;
+        return threshold > 0 && packetSize >= threshold && compressible(packet.protocolId());
+    }
 
-        buffer.writerIndex(length);
+    /**
+     * 被NoCompression标注的协议和需要在网关解码的协议不会被压缩
+     */
+    private boolean compressible(short protocolId) {
+        var compression = compressions[protocolId];
+        if (compression == 0) {
+            var clazz = ProtocolManager.getProtocol(protocolId).protocolConstructor().getDeclaringClass();
+            var enable = !clazz.isAnnotationPresent(NoCompression.class) && !gatewayInspection(protocolId);
+            compression = enable ? COMPRESSION_ENABLE : COMPRESSION_DISABLE;
+            compressions[protocolId] = compression;
+        }
+        return compression == COMPRESSION_ENABLE;
+    }
+
+    /**
+     * 压缩序列化好的protocolId + packet，压缩之后没有变小返回null
+     */
+    private ByteBuf compress(ByteBufAllocator allocator, ByteBuf packetBuffer) {
+        var rawLength = packetBuffer.readableBytes();
+        // zlib的compressBound
+        var maxLength = rawLength + (rawLength >> 12) + (rawLength >> 14) + (rawLength >> 25) + 13;
+        var deflater = DEFLATER.get();
+        var deflatedBuffer = allocator.heapBuffer(maxLength);
+        try {
+            deflater.setInput(packetBuffer.nioBuffer());
+            deflater.finish();
+            var compressedLength = deflater.deflate(deflatedBuffer.nioBuffer(0, maxLength));
+            if (!deflater.finished()) {
+                return null;
+            }
+            deflatedBuffer.writerIndex(compressedLength);
+
+            var headLength = 2 + ByteBufUtils.writeIntCount(rawLength) + ByteBufUtils.writeIntCount(compressedLength);
+            if (headLength + compressedLength >= rawLength) {
+                return null;
+            }
+            var buffer = allocator.ioBuffer(headLength + compressedLength);
+            buffer.writeShort(COMPRESSED_PROTOCOL_ID);
+            ByteBufUtils.writeInt(buffer, rawLength);
+            ByteBufUtils.writeInt(buffer, compressedLength);
+            buffer.writeBytes(deflatedBuffer);
+            return buffer;
+        } finally {
+            deflatedBuffer.release();
+            deflater.reset();
+        }
+    }
+
+    /**
+     * 读取protocolId + packet，读到COMPRESSED_PROTOCOL_ID的时候先解压
+     */
+    private IPacket readPacket(ByteBuf buffer) {
+        if (buffer.getShort(buffer.readerIndex()) != COMPRESSED_PROTOCOL_ID) {
+            return ProtocolManager.read(buffer);
+        }
+
+        buffer.skipBytes(2);
+        var rawLength = ByteBufUtils.readInt(buffer);
+        var compressedLength = ByteBufUtils.readInt(buffer);
+        if (rawLength <= 0 || rawLength > MAX_DECOMPRESSED_LENGTH || compressedLength <= 0 || compressedLength > buffer.readableBytes()) {
+            throw new IllegalArgumentException(StringUtils.format("压缩包体的长度[rawLength:{}][compressedLength:{}]非法", rawLength, compressedLength));
+        }
+
+        var inflater = INFLATER.get();
+        var packetBuffer = ByteBufAllocator.DEFAULT.heapBuffer(rawLength);
+        try {
+            inflater.setInput(buffer.nioBuffer(buffer.readerIndex(), compressedLength));
+            var length = inflater.inflate(packetBuffer.nioBuffer(0, rawLength));
+            if (length != rawLength || !inflater.finished()) {
+                throw new IllegalArgumentException(StringUtils.format("压缩包体解压之后的长度[{}]和[rawLength:{}]不一致", length, rawLength));
+            }
+            packetBuffer.writerIndex(rawLength);
+            buffer.skipBytes(compressedLength);
+            return ProtocolManager.read(packetBuffer);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException(StringUtils.format("压缩包体解压失败[{}]", e.getMessage()));
+        } finally {
+            packetBuffer.release();
+            inflater.reset();
+        }
+    }
+
+    /**
+     * 网关需要完整解码的协议：Heartbeat，Ping，网关授权，继承了IGatewayLoadBalancer或者被GatewayInspection标注的协议
+     */
+    private boolean gatewayInspection(short protocolId) {
+        // 非法的协议号交给解码去报错
+        if (protocolId < 0) {
+            return true;
+        }
+
+        var inspection = gatewayInspections[protocolId];
+        if (inspection == 0) {
+            var protocol = ProtocolManager.protocols[protocolId];
+            if (protocol == null) {
+                return true;
+            }
+            var clazz = protocol.protocolConstructor().getDeclaringClass();
+            var needInspection = protocolId == Heartbeat.PROTOCOL_ID
+                    || protocolId == Ping.PROTOCOL_ID
+                    || protocolId == AuthUidToGatewayCheck.PROTOCOL_ID
+                    || IGatewayLoadBalancer.class.isAssignableFrom(clazz)
+                    || clazz.isAnnotationPresent(GatewayInspection.class);
+            inspection = needInspection ? GATEWAY_INSPECTION : GATEWAY_FORWARD;
+            gatewayInspections[protocolId] = inspection;
+        }
+        return inspection == GATEWAY_INSPECTION;
     }
 }
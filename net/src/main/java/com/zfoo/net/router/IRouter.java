@@ -13,13 +13,20 @@
 
 package com.zfoo.net.router;
 
+import com.zfoo.net.packet.model.ForwardPacketInfo;
 import com.zfoo.net.router.answer.AsyncAnswer;
 import com.zfoo.net.router.answer.SyncAnswer;
 import com.zfoo.net.router.attachment.IAttachment;
 import com.zfoo.net.session.model.Session;
 import com.zfoo.protocol.IPacket;
+import io.netty.buffer.ByteBuf;
 import org.springframework.lang.Nullable;
 
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
 
 /**
  * @author jaysunxiao
@@ -34,8 +41,37 @@ public interface IRouter {
      */
     void send(Session session, IPacket packet, @Nullable IAttachment attachment);
 
+    /**
+     * 广播消息，packet只会序列化一次，所有的session共享同一份序列化后的字节，适合世界聊天，boss血量同步这种一对多的推送
+     * <p>
+     * 广播的消息没有附加包attachment，只支持tcp和websocket的session
+     */
+    void broadcast(Collection<Session> sessions, IPacket packet);
+
+    /**
+     * 广播给所有满足条件的服务器session（作为服务器接收到的客户端连接）
+     */
+    void broadcast(Predicate<Session> filter, IPacket packet);
+
+    /**
+     * 分块发送很大的数据，比如录像和配置文件，分块和其它的包交错发送，不会长时间占用连接，接收方通过StreamBus.setStreamHandler()接收
+     * <p>
+     * payload的引用计数转移给发送流，发送完成或者失败之后会自动release；返回的future在接收方确认所有的分块之后完成
+     */
+    CompletableFuture<Void> sendStream(Session session, String name, ByteBuf payload);
+
+    /**
+     * 分块发送文件，流的名称为文件名，分块在发送的时候才从文件中读取
+     */
+    CompletableFuture<Void> sendStream(Session session, Path file);
+
     void receive(Session session, IPacket packet, @Nullable IAttachment attachment);
 
+    /**
+     * 网关接收到服务提供者返回的原始字节的包，不解码包体，直接转发给网关附加包中的客户端
+     */
+    void forward(Session session, ForwardPacketInfo packetInfo);
+
     void atReceiver(Session session, IPacket packet, @Nullable IAttachment attachment);
 
     /**
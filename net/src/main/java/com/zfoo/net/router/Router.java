@@ -20,7 +20,11 @@ import com.zfoo.net.core.gateway.model.AuthUidToGatewayConfirm;
 import com.zfoo.net.core.gateway.model.AuthUidToGatewayEvent;
 import com.zfoo.net.packet.common.Error;
 import com.zfoo.net.packet.common.Heartbeat;
+import com.zfoo.net.packet.common.StreamAck;
+import com.zfoo.net.packet.common.StreamChunk;
 import com.zfoo.net.packet.model.EncodedPacketInfo;
+import com.zfoo.net.packet.model.ForwardPacketInfo;
+import com.zfoo.net.packet.model.RawPacketInfo;
 import com.zfoo.net.router.answer.AsyncAnswer;
 import com.zfoo.net.router.answer.SyncAnswer;
 import com.zfoo.net.router.attachment.GatewayAttachment;
@@ -31,23 +35,33 @@ import com.zfoo.net.router.exception.NetTimeOutException;
 import com.zfoo.net.router.exception.UnexpectedProtocolException;
 import com.zfoo.net.router.route.PacketBus;
 import com.zfoo.net.router.route.SignalBridge;
+import com.zfoo.net.router.route.WriteCoalescing;
+import com.zfoo.net.router.stream.StreamBus;
 import com.zfoo.net.session.model.AttributeType;
 import com.zfoo.net.session.model.Session;
 import com.zfoo.net.task.TaskBus;
 import com.zfoo.net.task.model.PacketReceiverTask;
 import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.collection.CollectionUtils;
 import com.zfoo.protocol.exception.ExceptionUtils;
 import com.zfoo.protocol.util.JsonUtils;
 import com.zfoo.protocol.util.StringUtils;
 import com.zfoo.util.math.HashUtils;
 import com.zfoo.util.math.RandomUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.FastThreadLocal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.Nullable;
 
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 
 /**
  * 消息派发
@@ -61,6 +75,11 @@ public class Router implements IRouter {
 
     public static final long DEFAULT_TIMEOUT = 3000;
 
+    /**
+     * syncAsk阻塞等待的时间比时间轮的超时多出的余量，正常情况下由时间轮超时，时间轮的线程异常或者阻塞的时候调用者也不会一直阻塞
+     */
+    public static final long SYNC_ASK_TIMEOUT_MARGIN = 1000;
+
     /**
      * 作为服务器接收方，会把receive收到的attachment存储在这个地方，只针对task线程。
      * atReceiver会设置attachment，但是在方法调用完成会取消，不需要过多关注。
@@ -76,6 +95,16 @@ public class Router implements IRouter {
             return;
         }
 
+        // 大数据流的分块和确认由StreamBus处理，不会派发给PacketReceiver
+        if (packet.protocolId() == StreamChunk.PROTOCOL_ID) {
+            StreamBus.receiveChunk(session, (StreamChunk) packet);
+            return;
+        }
+        if (packet.protocolId() == StreamAck.PROTOCOL_ID) {
+            StreamBus.receiveAck(session, (StreamAck) packet);
+            return;
+        }
+
         // 发送者（客户端）同步和异步消息的接收，发送者通过signalId判断重复
         if (attachment != null) {
             switch (attachment.packetType()) {
@@ -138,7 +167,28 @@ public class Router implements IRouter {
         }
 
         // 正常发送消息的接收
-        TaskBus.submit(new PacketReceiverTask(session, packet, attachment));
+        TaskBus.submit(PacketReceiverTask.valueOf(session, packet, attachment));
+    }
+
+    @Override
+    public void forward(Session session, ForwardPacketInfo packetInfo) {
+        var gatewayAttachment = packetInfo.getGatewayAttachment();
+        var gatewaySession = NetContext.getSessionManager().getServerSession(gatewayAttachment.getSid());
+        if (gatewaySession == null) {
+            packetInfo.release();
+            logger.error("gateway receives packet:[{}] and attachment:[{}] from server" +
+                            ", but serverSessionMap has no session[id:{}], perhaps client disconnected from gateway."
+                    , packetInfo.getProtocolId(), JsonUtils.object2String(gatewayAttachment), gatewayAttachment.getSid());
+            return;
+        }
+
+        var signalAttachment = gatewayAttachment.getSignalAttachment();
+        if (signalAttachment != null) {
+            signalAttachment.setClient(false);
+        }
+
+        // 包体的原始字节直接转发给客户端，由客户端的channel的codec加上客户端的附加包，引用计数转移给codec
+        WriteCoalescing.writeAndFlush(gatewaySession.getChannel(), RawPacketInfo.valueOf(packetInfo.getPacketBuffer(), signalAttachment, false));
     }
 
     @Override
@@ -152,10 +202,82 @@ public class Router implements IRouter {
             return;
         }
 
-        var packetInfo = EncodedPacketInfo.valueOf(packet, attachment);
+        var packetInfo = EncodedPacketInfo.recyclable(packet, attachment);
+
+        var channel = session.getChannel();
+        WriteCoalescing.writeAndFlush(channel, packetInfo);
+    }
+
+    @Override
+    public void broadcast(Collection<Session> sessions, IPacket packet) {
+        if (CollectionUtils.isEmpty(sessions)) {
+            return;
+        }
+        if (packet == null) {
+            logger.error("packet is null and can not be broadcast.");
+            return;
+        }
+
+        var buffer = encodeBroadcastPacket(packet);
+        try {
+            for (var session : sessions) {
+                writeBroadcastPacket(session, buffer);
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public void broadcast(Predicate<Session> filter, IPacket packet) {
+        if (packet == null) {
+            logger.error("packet is null and can not be broadcast.");
+            return;
+        }
+
+        // 没有满足条件的session就不需要序列化
+        ByteBuf buffer = null;
+        try {
+            for (var session : NetContext.getSessionManager().getServerSessionMap().values()) {
+                if (!filter.test(session)) {
+                    continue;
+                }
+                if (buffer == null) {
+                    buffer = encodeBroadcastPacket(packet);
+                }
+                writeBroadcastPacket(session, buffer);
+            }
+        } finally {
+            ReferenceCountUtil.release(buffer);
+        }
+    }
 
+    /**
+     * 广播的消息只序列化（压缩）一次包体，使用池化的ByteBuf，每个channel的codec再根据连接的协议版本加上包头，包体共享同一份内容
+     */
+    private ByteBuf encodeBroadcastPacket(IPacket packet) {
+        return NetContext.getPacketService().encodePacket(ByteBufAllocator.DEFAULT, packet);
+    }
+
+    private void writeBroadcastPacket(Session session, ByteBuf buffer) {
+        if (session == null) {
+            return;
+        }
         var channel = session.getChannel();
-        channel.writeAndFlush(packetInfo);
+        if (!channel.isActive()) {
+            return;
+        }
+        WriteCoalescing.writeAndFlush(channel, RawPacketInfo.valueOf(buffer.retainedDuplicate(), null, false));
+    }
+
+    @Override
+    public CompletableFuture<Void> sendStream(Session session, String name, ByteBuf payload) {
+        return StreamBus.send(session, name, payload);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendStream(Session session, Path file) {
+        return StreamBus.send(session, file);
     }
 
     @Override
@@ -180,14 +302,21 @@ public class Router implements IRouter {
     @Override
     public <T extends IPacket> SyncAnswer<T> syncAsk(Session session, IPacket packet, @Nullable Class<T> answerClass, @Nullable Object argument) throws Exception {
         var clientSignalAttachment = new SignalAttachment();
-        var executorConsistentHash = (argument == null) ? RandomUtils.randomInt() : HashUtils.fnvHash(argument);
+        var executorConsistentHash = (argument == null) ? RandomUtils.randomInt(TaskBus.RANDOM_EXECUTOR_HASH_BOUND) : HashUtils.fnvHash(argument);
         clientSignalAttachment.setExecutorConsistentHash(executorConsistentHash);
 
         try {
             SignalBridge.addSignalAttachment(clientSignalAttachment);
             send(session, packet, clientSignalAttachment);
-
-            IPacket responsePacket = clientSignalAttachment.getResponseFuture().get(DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+            // 在PacketReceiverTask中同步请求的时候，合并写的请求需要在阻塞之前发送出去
+            WriteCoalescing.flushTask();
+
+            // 超时由SignalBridge的时间轮控制，超时的时候返回null；有界的等待只是兜底
+            IPacket responsePacket = clientSignalAttachment.getResponseFuture().get(DEFAULT_TIMEOUT + SYNC_ASK_TIMEOUT_MARGIN, TimeUnit.MILLISECONDS);
+            if (responsePacket == null) {
+                throw new NetTimeOutException(StringUtils.format("syncAsk timeout exception, ask:[{}], attachment:[{}]"
+                        , JsonUtils.object2String(packet), JsonUtils.object2String(clientSignalAttachment)));
+            }
 
             if (responsePacket.protocolId() == Error.errorProtocolId()) {
                 throw new ErrorResponseException((Error) responsePacket);
@@ -210,7 +339,7 @@ public class Router implements IRouter {
     @Override
     public <T extends IPacket> AsyncAnswer<T> asyncAsk(Session session, IPacket packet, @Nullable Class<T> answerClass, @Nullable Object argument) {
         var clientSignalAttachment = new SignalAttachment();
-        var executorConsistentHash = (argument == null) ? RandomUtils.randomInt() : HashUtils.fnvHash(argument);
+        var executorConsistentHash = (argument == null) ? RandomUtils.randomInt(TaskBus.RANDOM_EXECUTOR_HASH_BOUND) : HashUtils.fnvHash(argument);
         clientSignalAttachment.setExecutorConsistentHash(executorConsistentHash);
 
         // 服务器在同步或异步的消息处理中，又调用了同步或异步的方法，这时候threadReceiverAttachment不为空
@@ -220,8 +349,8 @@ public class Router implements IRouter {
             var asyncAnswer = new AsyncAnswer<T>();
             asyncAnswer.setSignalAttachment(clientSignalAttachment);
 
+            // 超时由SignalBridge的时间轮控制，超时的时候answer为null
             clientSignalAttachment.getResponseFuture()
-                    .completeOnTimeout(null, DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS)
                     .thenApply(answer -> {
                         if (answer == null) {
                             throw new NetTimeOutException(StringUtils.format("async ask [{}] timeout exception", packet.getClass().getSimpleName()));
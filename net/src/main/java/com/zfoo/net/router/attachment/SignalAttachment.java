@@ -14,6 +14,7 @@ package com.zfoo.net.router.attachment;
 
 import com.zfoo.protocol.IPacket;
 import com.zfoo.scheduler.util.TimeUtils;
+import io.netty.util.Timeout;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -55,9 +56,26 @@ public class SignalAttachment implements IAttachment {
      */
     private transient CompletableFuture<IPacket> responseFuture = new CompletableFuture<>();
 
+    /**
+     * SignalBridge中时间轮的超时任务，收到回复的时候取消
+     */
+    private transient Timeout timeout;
+
     public SignalAttachment() {
     }
 
+    public void bindTimeout(Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    public void cancelTimeout() {
+        var timeout = this.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+            this.timeout = null;
+        }
+    }
+
 
     @Override
     public AttachmentType packetType() {
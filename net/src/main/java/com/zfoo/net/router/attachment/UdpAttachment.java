@@ -12,6 +12,7 @@
 
 package com.zfoo.net.router.attachment;
 
+import com.zfoo.net.task.TaskBus;
 import com.zfoo.util.math.RandomUtils;
 
 /**
@@ -39,7 +40,7 @@ public class UdpAttachment implements IAttachment {
 
     @Override
     public int executorConsistentHash() {
-        return RandomUtils.randomInt();
+        return RandomUtils.randomInt(TaskBus.RANDOM_EXECUTOR_HASH_BOUND);
     }
 
     @Override
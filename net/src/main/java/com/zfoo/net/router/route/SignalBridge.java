@@ -12,14 +12,19 @@
 
 package com.zfoo.net.router.route;
 
+import com.zfoo.net.router.Router;
 import com.zfoo.net.router.attachment.SignalAttachment;
 import com.zfoo.protocol.util.JsonUtils;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 同步或异步的调用控制器，同步和异步调用的信号沟通桥梁
@@ -44,16 +49,43 @@ public class SignalBridge {
      */
     private static final Map<Integer, SignalAttachment> signalAttachmentMap = new ConcurrentHashMap<>(1000);
 
+    /**
+     * 同步和异步请求的超时时间轮，每10毫秒一个tick，添加和取消超时任务都是O(1)，每个tick批量处理到期的请求；
+     * 替代CompletableFuture.completeOnTimeout，避免所有的请求都挤在JDK唯一的Delayer线程的堆中
+     */
+    private static final HashedWheelTimer timer = new HashedWheelTimer(new DefaultThreadFactory("signal-timeout", true), 10, TimeUnit.MILLISECONDS, 512);
+
+    /**
+     * 超时的请求的数量
+     */
+    private static final LongAdder TIMEOUT_COUNT = new LongAdder();
+
+    /**
+     * 正在等待回复的请求的数量，时间轮的pendingTimeouts()包含已经取消但还没有被清理的超时任务，不能用来统计
+     */
+    private static final LongAdder PENDING_COUNT = new LongAdder();
+
     public static void addSignalAttachment(SignalAttachment signalAttachment) {
+        addSignalAttachment(signalAttachment, Router.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * 超时之后会移除signalAttachment，并且用null完成responseFuture，调用方通过null判断超时
+     */
+    public static void addSignalAttachment(SignalAttachment signalAttachment, long timeoutMillis) {
         var signalId = signalAttachment.getSignalId();
         var hash = signalId & SIGNAL_MASK;
 
+        // 先计数再加入，并发的移除不会让计数变为负数
+        PENDING_COUNT.increment();
+
         // 使用AtomicReferenceArray只是为了提升性能，仅使用ConcurrentHashMap依然可以运行
-        if (signalAttachmentArray.compareAndSet(hash, null, signalAttachment)) {
-            return;
+        if (!signalAttachmentArray.compareAndSet(hash, null, signalAttachment)) {
+            signalAttachmentMap.put(signalId, signalAttachment);
         }
 
-        signalAttachmentMap.put(signalId, signalAttachment);
+        // 先加入再设置超时，超时任务执行的时候一定能找到还没有收到回复的请求
+        signalAttachment.bindTimeout(timer.newTimeout(timeout -> expire(signalAttachment), timeoutMillis, TimeUnit.MILLISECONDS));
     }
 
     public static SignalAttachment removeSignalAttachment(SignalAttachment signalAttachment) {
@@ -64,10 +96,36 @@ public class SignalBridge {
         var hash = signalId & SIGNAL_MASK;
 
         var attachment = signalAttachmentArray.get(hash);
-        if (attachment != null && attachment.getSignalId() == signalId && signalAttachmentArray.compareAndSet(hash, attachment, null)) {
-            return attachment;
+        if (attachment == null || attachment.getSignalId() != signalId || !signalAttachmentArray.compareAndSet(hash, attachment, null)) {
+            attachment = signalAttachmentMap.remove(signalId);
+        }
+        if (attachment != null) {
+            PENDING_COUNT.decrement();
+            attachment.cancelTimeout();
+        }
+        return attachment;
+    }
+
+    /**
+     * 在时间轮的线程中执行，已经收到回复的请求已经被移除，不会重复完成
+     */
+    private static void expire(SignalAttachment signalAttachment) {
+        if (removeSignalAttachment(signalAttachment.getSignalId()) == null) {
+            return;
         }
-        return signalAttachmentMap.remove(signalId);
+        TIMEOUT_COUNT.increment();
+        signalAttachment.getResponseFuture().complete(null);
+    }
+
+    public static long timeoutCount() {
+        return TIMEOUT_COUNT.sum();
+    }
+
+    /**
+     * 正在等待回复的请求的数量
+     */
+    public static long pendingCount() {
+        return PENDING_COUNT.sum();
     }
 
     public static void status() {
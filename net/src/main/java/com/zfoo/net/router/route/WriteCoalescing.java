@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.router.route;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并写，发送的消息先写入channel的缓冲区，不立刻flush，减少系统调用的次数
+ * <p>
+ * 在PacketReceiverTask中发送的消息，在任务结束的时候对写过的channel统一flush一次，任务中的同步请求在阻塞等待之前flush；
+ * 在其它线程中发送的消息，在channel的EventLoop的下一次tick中flush，一次tick中的多个消息只会flush一次
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class WriteCoalescing {
+
+    private static final AttributeKey<Boolean> FLUSH_PENDING_KEY = AttributeKey.valueOf("flushPending");
+
+    private static final FastThreadLocal<TaskChannels> TASK_CHANNELS = new FastThreadLocal<>() {
+        @Override
+        protected TaskChannels initialValue() {
+            return new TaskChannels();
+        }
+    };
+
+    /**
+     * 写入的包的数量和flush的次数，两者相除就是平均每次flush的包的数量
+     */
+    private static final LongAdder PACKET_COUNT = new LongAdder();
+    private static final LongAdder FLUSH_COUNT = new LongAdder();
+
+    /**
+     * 在PacketService初始化的时候根据NetConfig设置
+     */
+    private static volatile boolean enable;
+
+    /**
+     * 当前线程正在执行的PacketReceiverTask中写过的channel
+     */
+    private static class TaskChannels {
+        private int depth;
+        private final ArrayList<Channel> channels = new ArrayList<>();
+    }
+
+    public static void writeAndFlush(Channel channel, Object msg) {
+        if (!enable) {
+            channel.writeAndFlush(msg);
+            return;
+        }
+
+        PACKET_COUNT.increment();
+        channel.write(msg);
+
+        var taskChannels = TASK_CHANNELS.get();
+        if (taskChannels.depth > 0) {
+            if (!taskChannels.channels.contains(channel)) {
+                taskChannels.channels.add(channel);
+            }
+            return;
+        }
+
+        flushLater(channel);
+    }
+
+    /**
+     * PacketReceiverTask开始执行，没有开启合并写的时候不会访问FastThreadLocal
+     *
+     * @return true为开启了合并写，任务结束的时候需要调用endTask()
+     */
+    public static boolean beginTask() {
+        if (!enable) {
+            return false;
+        }
+        TASK_CHANNELS.get().depth++;
+        return true;
+    }
+
+    /**
+     * PacketReceiverTask执行结束，flush任务中写过的channel；只有beginTask()返回true的时候才需要调用，
+     * 任务中途关闭合并写也能保证任务开始和结束成对出现
+     */
+    public static void endTask() {
+        var taskChannels = TASK_CHANNELS.get();
+        if (taskChannels.depth <= 0 || --taskChannels.depth > 0) {
+            return;
+        }
+        flushChannels(taskChannels);
+    }
+
+    /**
+     * 在PacketReceiverTask中阻塞等待回复之前调用，立刻flush任务中写过的channel；
+     * 否则同步请求要等到任务结束才会发送出去，而任务又在阻塞等待这个请求的回复，只能等到超时
+     */
+    public static void flushTask() {
+        if (!enable) {
+            return;
+        }
+        var taskChannels = TASK_CHANNELS.get();
+        if (taskChannels.depth <= 0) {
+            return;
+        }
+        flushChannels(taskChannels);
+    }
+
+    private static void flushChannels(TaskChannels taskChannels) {
+        var channels = taskChannels.channels;
+        for (var i = 0; i < channels.size(); i++) {
+            flush(channels.get(i));
+        }
+        channels.clear();
+    }
+
+    private static void flushLater(Channel channel) {
+        var flushPending = channel.attr(FLUSH_PENDING_KEY);
+        if (flushPending.getAndSet(Boolean.TRUE) == Boolean.TRUE) {
+            return;
+        }
+        channel.eventLoop().execute(() -> {
+            flushPending.set(Boolean.FALSE);
+            flush(channel);
+        });
+    }
+
+    private static void flush(Channel channel) {
+        FLUSH_COUNT.increment();
+        channel.flush();
+    }
+
+    public static boolean isEnable() {
+        return enable;
+    }
+
+    public static void setEnable(boolean enable) {
+        WriteCoalescing.enable = enable;
+    }
+
+    public static long packetCount() {
+        return PACKET_COUNT.sum();
+    }
+
+    public static long flushCount() {
+        return FLUSH_COUNT.sum();
+    }
+
+    /**
+     * 平均每次flush的包的数量
+     */
+    public static double packetsPerFlush() {
+        var flushCount = FLUSH_COUNT.sum();
+        return flushCount == 0 ? 0 : (double) PACKET_COUNT.sum() / flushCount;
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.router.stream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.function.Consumer;
+
+/**
+ * 在内存中重组流，每个分块直接作为CompositeByteBuf的一个组件，不会拷贝分块的字节
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class BufferStreamSink implements IStreamSink {
+
+    private final CompositeByteBuf buffer = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+
+    /**
+     * 接收完成的回调，buffer的引用计数转移给回调，回调使用完之后需要release
+     */
+    private final Consumer<ByteBuf> completeCallback;
+
+    public BufferStreamSink(Consumer<ByteBuf> completeCallback) {
+        this.completeCallback = completeCallback;
+    }
+
+    @Override
+    public void write(byte[] data) {
+        if (data.length == 0) {
+            return;
+        }
+        buffer.addComponent(true, Unpooled.wrappedBuffer(data));
+    }
+
+    @Override
+    public void complete() {
+        completeCallback.accept(buffer);
+    }
+
+    @Override
+    public void abort(Throwable cause) {
+        buffer.release();
+    }
+
+}
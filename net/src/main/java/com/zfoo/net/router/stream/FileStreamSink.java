@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.router.stream;
+
+import com.zfoo.protocol.util.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * 把流的分块增量写入文件，适合接收不适合常驻内存的大文件
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class FileStreamSink implements IStreamSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileStreamSink.class);
+
+    private final Path path;
+
+    private final FileChannel fileChannel;
+
+    private final Consumer<Path> completeCallback;
+
+    public FileStreamSink(Path path, Consumer<Path> completeCallback) throws IOException {
+        this.path = path;
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.completeCallback = completeCallback;
+    }
+
+    @Override
+    public void write(byte[] data) throws IOException {
+        var byteBuffer = ByteBuffer.wrap(data);
+        while (byteBuffer.hasRemaining()) {
+            fileChannel.write(byteBuffer);
+        }
+    }
+
+    @Override
+    public void complete() throws IOException {
+        fileChannel.close();
+        completeCallback.accept(path);
+    }
+
+    @Override
+    public void abort(Throwable cause) {
+        IOUtils.closeIO(fileChannel);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.error("stream file [{}] delete exception", path, e);
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.router.stream;
+
+import com.zfoo.net.session.model.Session;
+import org.springframework.lang.Nullable;
+
+/**
+ * 接收方处理大数据流，收到一个新的流的第一个分块的时候调用
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public interface IStreamHandler {
+
+    /**
+     * @param session   发送流的session
+     * @param name      发送方指定的流的名称
+     * @param totalSize 流的总字节数，可以用来判断是否接收这个流以及用内存还是文件接收
+     * @return 接收分块的sink，返回null则拒绝这个流
+     */
+    @Nullable
+    IStreamSink open(Session session, String name, long totalSize);
+
+}
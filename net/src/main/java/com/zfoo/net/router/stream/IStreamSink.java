@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.router.stream;
+
+import java.io.IOException;
+
+/**
+ * 流的分块按顺序增量写入sink，同一个流的所有方法都在同一条线程中调用
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public interface IStreamSink {
+
+    /**
+     * 按照分块的顺序写入数据，data的所有权转移给sink
+     */
+    void write(byte[] data) throws IOException;
+
+    /**
+     * 所有的分块都已经写入
+     */
+    void complete() throws IOException;
+
+    /**
+     * 流被中断，发送方断开连接或者分块乱序，sink需要释放占用的资源
+     */
+    void abort(Throwable cause);
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.router.stream;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.packet.common.StreamAck;
+import com.zfoo.net.packet.common.StreamChunk;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.protocol.exception.RunException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 接收方的流，分块按顺序写入sink，每写入一个分块就确认一次，sink写入慢的时候发送方也会慢下来
+ * <p>
+ * 只会在session对应的任务线程中访问，不需要同步
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+class InboundStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(InboundStream.class);
+
+    private final Session session;
+
+    private final long streamId;
+
+    private final long totalSize;
+
+    private final IStreamSink sink;
+
+    private int expectedIndex;
+
+    private long receivedSize;
+
+    InboundStream(Session session, long streamId, long totalSize, IStreamSink sink) {
+        this.session = session;
+        this.streamId = streamId;
+        this.totalSize = totalSize;
+        this.sink = sink;
+    }
+
+    /**
+     * @return 流是否已经结束，接收完成或者被中断
+     */
+    boolean receive(StreamChunk chunk) {
+        var data = chunk.getData();
+        if (chunk.getIndex() != expectedIndex || receivedSize + data.length > totalSize) {
+            abort(new RunException("stream [{}] expect chunk [{}] but found chunk [{}]", streamId, expectedIndex, chunk.getIndex()));
+            NetContext.getRouter().send(session, StreamAck.valueOf(streamId, -1), null);
+            return true;
+        }
+
+        try {
+            sink.write(data);
+        } catch (Throwable t) {
+            abort(t);
+            NetContext.getRouter().send(session, StreamAck.valueOf(streamId, -1), null);
+            return true;
+        }
+
+        expectedIndex++;
+        receivedSize += data.length;
+        NetContext.getRouter().send(session, StreamAck.valueOf(streamId, chunk.getIndex()), null);
+
+        if (receivedSize < totalSize) {
+            return false;
+        }
+        try {
+            sink.complete();
+        } catch (Throwable t) {
+            logger.error("stream [{}] from session [{}] complete exception", streamId, session.getSid(), t);
+        }
+        return true;
+    }
+
+    void abort(Throwable cause) {
+        logger.error("stream [{}] from session [{}] is aborted after [{}/{}] bytes", streamId, session.getSid(), receivedSize, totalSize, cause);
+        sink.abort(cause);
+    }
+
+}
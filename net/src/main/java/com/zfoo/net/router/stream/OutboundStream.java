@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.router.stream;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.packet.common.StreamChunk;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.util.IOUtils;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.ReferenceCountUtil;
+import org.springframework.lang.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 发送方的流，最多有window个已经发送但是没有被确认的分块，收到确认之后再继续发送后面的分块
+ * <p>
+ * 第一个窗口在调用者的线程中发送，之后的确认和中断都在session对应的任务线程中处理，不会在IO线程中读取文件
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+class OutboundStream {
+
+    private final long streamId;
+
+    private final Session session;
+
+    private final String name;
+
+    private final long totalSize;
+
+    private final int chunkSize;
+
+    private final int window;
+
+    private final int chunkCount;
+
+    /**
+     * 内存中的数据源和文件数据源只会有一个不为null
+     */
+    @Nullable
+    private final ByteBuf payload;
+    @Nullable
+    private final FileChannel fileChannel;
+
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    private final ChannelFutureListener closeListener = this::channelClosed;
+
+    /**
+     * 下一个需要发送的分块序号
+     */
+    private int nextIndex;
+
+    /**
+     * 接收方已经确认的最大的分块序号
+     */
+    private int ackedIndex = -1;
+
+    private boolean done;
+
+    OutboundStream(long streamId, Session session, String name, long totalSize, int chunkSize, int window, @Nullable ByteBuf payload, @Nullable FileChannel fileChannel) {
+        var chunkCount = totalSize == 0 ? 1 : (totalSize + chunkSize - 1) / chunkSize;
+        if (chunkCount > Integer.MAX_VALUE) {
+            throw new RunException("stream [{}] size [{}] is too large for chunk size [{}]", name, totalSize, chunkSize);
+        }
+        this.streamId = streamId;
+        this.session = session;
+        this.name = name;
+        this.totalSize = totalSize;
+        this.chunkSize = chunkSize;
+        this.window = window;
+        this.chunkCount = (int) chunkCount;
+        this.payload = payload;
+        this.fileChannel = fileChannel;
+    }
+
+    void start() {
+        session.getChannel().closeFuture().addListener(closeListener);
+        pump();
+    }
+
+    /**
+     * 在窗口允许的范围内尽可能多的发送分块，分块作为普通的包发送，可以和其它的包交错
+     */
+    synchronized void pump() {
+        if (done) {
+            return;
+        }
+        if (!session.getChannel().isActive()) {
+            abort(new RunException("stream [{}] session [{}] is inactive", name, session.getSid()));
+            return;
+        }
+        try {
+            while (nextIndex < chunkCount && nextIndex - ackedIndex <= window) {
+                var chunk = StreamChunk.valueOf(streamId, nextIndex, totalSize, nextIndex == 0 ? name : StringUtils.EMPTY, readChunk(nextIndex));
+                NetContext.getRouter().send(session, chunk, null);
+                nextIndex++;
+            }
+        } catch (IOException e) {
+            abort(e);
+        }
+    }
+
+    synchronized void ack(int index) {
+        if (done) {
+            return;
+        }
+        if (index < 0) {
+            abort(new RunException("stream [{}] is rejected by session [{}]", name, session.getSid()));
+            return;
+        }
+        if (index <= ackedIndex) {
+            return;
+        }
+        ackedIndex = Math.min(index, nextIndex - 1);
+        if (ackedIndex >= chunkCount - 1) {
+            finish();
+            future.complete(null);
+            return;
+        }
+        pump();
+    }
+
+    synchronized void abort(Throwable cause) {
+        if (done) {
+            return;
+        }
+        finish();
+        future.completeExceptionally(cause);
+    }
+
+    /**
+     * 在IO线程中回调，交给任务线程处理，避免等待正在读取文件的pump()
+     */
+    private void channelClosed(ChannelFuture channelFuture) {
+        StreamBus.executor(session).execute(() -> abort(new RunException("stream [{}] session [{}] is closed", name, session.getSid())));
+    }
+
+    private void finish() {
+        done = true;
+        StreamBus.removeOutboundStream(streamId);
+        session.getChannel().closeFuture().removeListener(closeListener);
+        ReferenceCountUtil.release(payload);
+        IOUtils.closeIO(fileChannel);
+    }
+
+    private byte[] readChunk(int index) throws IOException {
+        var offset = (long) index * chunkSize;
+        var bytes = new byte[(int) Math.min(chunkSize, totalSize - offset)];
+        if (payload != null) {
+            payload.getBytes(payload.readerIndex() + (int) offset, bytes);
+            return bytes;
+        }
+        var byteBuffer = ByteBuffer.wrap(bytes);
+        while (byteBuffer.hasRemaining()) {
+            if (fileChannel.read(byteBuffer, offset + byteBuffer.position()) < 0) {
+                throw new EOFException(StringUtils.format("stream [{}] file is truncated at [{}]", name, offset + byteBuffer.position()));
+            }
+        }
+        return bytes;
+    }
+
+    long getStreamId() {
+        return streamId;
+    }
+
+    Session getSession() {
+        return session;
+    }
+
+    CompletableFuture<Void> getFuture() {
+        return future;
+    }
+}
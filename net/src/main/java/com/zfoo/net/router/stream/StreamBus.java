@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.router.stream;
+
+import com.zfoo.net.NetContext;
+import com.zfoo.net.packet.common.StreamAck;
+import com.zfoo.net.packet.common.StreamChunk;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.net.task.TaskBus;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.util.IOUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 大数据流的分块传输，避免一个很大的包需要在内存中完整的缓冲之后才能解码，并且长时间占用连接
+ * <p>
+ * 发送方把流切分成固定大小的StreamChunk，作为普通的包通过IRouter发送，可以和其它的包交错；
+ * 接收方每收到一个分块就回复一个StreamAck，发送方最多只会有window个没有被确认的分块，实现流量控制。
+ * 接收方通过IStreamHandler打开一个IStreamSink，分块按顺序增量写入内存或者文件
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class StreamBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamBus.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * IOUtils.BYTES_PER_KB;
+
+    /**
+     * 默认最多有16个分块没有被确认，即1M的数据在路上
+     */
+    public static final int DEFAULT_WINDOW = 16;
+
+    private static final AtomicLong STREAM_ID_GENERATOR = new AtomicLong(0);
+
+    /**
+     * 正在发送的流，key：streamId
+     */
+    private static final Map<Long, OutboundStream> outboundStreamMap = new ConcurrentHashMap<>();
+
+    /**
+     * 正在接收的流，key：session的sid；value：这个session正在接收的流，只会在session对应的任务线程中访问
+     */
+    private static final Map<Long, Map<Long, InboundStream>> inboundStreamMap = new ConcurrentHashMap<>();
+
+    private static volatile IStreamHandler streamHandler;
+
+    public static void setStreamHandler(IStreamHandler streamHandler) {
+        StreamBus.streamHandler = streamHandler;
+    }
+
+    /**
+     * 发送内存中的数据，payload的引用计数转移给StreamBus，发送完成或者失败之后会自动release
+     */
+    public static CompletableFuture<Void> send(Session session, String name, ByteBuf payload) {
+        return send(session, name, payload, DEFAULT_CHUNK_SIZE, DEFAULT_WINDOW);
+    }
+
+    public static CompletableFuture<Void> send(Session session, String name, ByteBuf payload, int chunkSize, int window) {
+        OutboundStream stream;
+        try {
+            stream = new OutboundStream(STREAM_ID_GENERATOR.incrementAndGet(), session, name, payload.readableBytes(), chunkSize, window, payload, null);
+        } catch (Throwable t) {
+            ReferenceCountUtil.release(payload);
+            return CompletableFuture.failedFuture(t);
+        }
+        return start(stream);
+    }
+
+    /**
+     * 发送文件，分块在发送的时候才从文件中读取，流的名称为文件名
+     */
+    public static CompletableFuture<Void> send(Session session, Path file) {
+        return send(session, file, DEFAULT_CHUNK_SIZE, DEFAULT_WINDOW);
+    }
+
+    public static CompletableFuture<Void> send(Session session, Path file, int chunkSize, int window) {
+        FileChannel fileChannel = null;
+        OutboundStream stream;
+        try {
+            fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+            stream = new OutboundStream(STREAM_ID_GENERATOR.incrementAndGet(), session, file.getFileName().toString(), fileChannel.size(), chunkSize, window, null, fileChannel);
+        } catch (Throwable t) {
+            IOUtils.closeIO(fileChannel);
+            return CompletableFuture.failedFuture(t);
+        }
+        return start(stream);
+    }
+
+    private static CompletableFuture<Void> start(OutboundStream stream) {
+        outboundStreamMap.put(stream.getStreamId(), stream);
+        stream.start();
+        return stream.getFuture();
+    }
+
+    static void removeOutboundStream(long streamId) {
+        outboundStreamMap.remove(streamId);
+    }
+
+    /**
+     * 发送方收到确认，在session对应的任务线程中继续发送窗口内的分块，从文件中读取分块不会阻塞IO线程
+     */
+    public static void receiveAck(Session session, StreamAck ack) {
+        var stream = outboundStreamMap.get(ack.getStreamId());
+        if (stream == null || stream.getSession().getSid() != session.getSid()) {
+            return;
+        }
+        executor(session).execute(() -> stream.ack(ack.getIndex()));
+    }
+
+    /**
+     * 接收方收到分块，同一个session的分块总是在同一条任务线程中按顺序写入，写文件不会阻塞IO线程
+     */
+    public static void receiveChunk(Session session, StreamChunk chunk) {
+        executor(session).execute(() -> doReceiveChunk(session, chunk));
+    }
+
+    private static void doReceiveChunk(Session session, StreamChunk chunk) {
+        var sid = session.getSid();
+        var streamMap = inboundStreamMap.get(sid);
+        if (streamMap == null) {
+            streamMap = new HashMap<>();
+            inboundStreamMap.put(sid, streamMap);
+            // session断开之后中断所有正在接收的流
+            session.getChannel().closeFuture().addListener(future -> executor(session).execute(() -> abortInboundStreams(session)));
+        }
+
+        var streamId = chunk.getStreamId();
+        var stream = streamMap.get(streamId);
+        if (stream == null) {
+            // 接收方已经中断的流，发送方在收到拒绝之前可能还会发送一些窗口内的分块
+            if (chunk.getIndex() != 0) {
+                return;
+            }
+            stream = openInboundStream(session, chunk);
+            if (stream == null) {
+                return;
+            }
+            streamMap.put(streamId, stream);
+        }
+
+        if (stream.receive(chunk)) {
+            streamMap.remove(streamId);
+        }
+    }
+
+    private static InboundStream openInboundStream(Session session, StreamChunk chunk) {
+        var handler = streamHandler;
+        IStreamSink sink = null;
+        try {
+            if (handler == null) {
+                logger.error("stream [{}] from session [{}] is rejected because StreamBus has no stream handler", chunk.getName(), session.getSid());
+            } else {
+                sink = handler.open(session, chunk.getName(), chunk.getTotalSize());
+            }
+        } catch (Throwable t) {
+            logger.error("stream [{}] from session [{}] open exception", chunk.getName(), session.getSid(), t);
+        }
+
+        if (sink == null) {
+            NetContext.getRouter().send(session, StreamAck.valueOf(chunk.getStreamId(), -1), null);
+            return null;
+        }
+        return new InboundStream(session, chunk.getStreamId(), chunk.getTotalSize(), sink);
+    }
+
+    private static void abortInboundStreams(Session session) {
+        var streamMap = inboundStreamMap.remove(session.getSid());
+        if (streamMap == null) {
+            return;
+        }
+        var cause = new RunException("session [{}] is closed", session.getSid());
+        streamMap.values().forEach(it -> it.abort(cause));
+    }
+
+    static ExecutorService executor(Session session) {
+        return TaskBus.executor((int) session.getSid());
+    }
+
+}
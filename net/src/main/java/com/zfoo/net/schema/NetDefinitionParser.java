@@ -99,6 +99,13 @@ public class NetDefinitionParser implements BeanDefinitionParser {
         resolvePlaceholder("fold-protocol", "foldProtocol", builder, element, parserContext);
         resolvePlaceholder("protocol-path", "protocolPath", builder, element, parserContext);
         resolvePlaceholder("protocol-param", "protocolParam", builder, element, parserContext);
+        resolvePlaceholder("wire-v2", "wireV2", builder, element, parserContext);
+        resolvePlaceholder("write-coalescing", "writeCoalescing", builder, element, parserContext);
+        resolvePlaceholder("compression-threshold", "compressionThreshold", builder, element, parserContext);
+        resolvePlaceholder("lazy-decode", "lazyDecode", builder, element, parserContext);
+        resolvePlaceholder("gateway-attachment-first", "gatewayAttachmentFirst", builder, element, parserContext);
+        resolvePlaceholder("http-protocol-json", "httpProtocolJson", builder, element, parserContext);
+        resolvePlaceholder("protocol-profile", "protocolProfile", builder, element, parserContext);
 
         var registryElement = DomUtils.getFirstChildElementByTagName(element, "registry");
         if (registryElement != null) {
@@ -157,6 +164,7 @@ public class NetDefinitionParser implements BeanDefinitionParser {
 
         resolvePlaceholder("task-dispatch", "taskDispatch", builder, element, parserContext);
         resolvePlaceholder("thread", "thread", builder, element, parserContext);
+        resolvePlaceholder("executor", "executor", builder, element, parserContext);
         resolvePlaceholder("address", "address", builder, element, parserContext);
 
         var providerModules = parseModules("provider", element, parserContext);
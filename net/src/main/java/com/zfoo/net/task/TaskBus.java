@@ -16,13 +16,17 @@ package com.zfoo.net.task;
 import com.zfoo.net.NetContext;
 import com.zfoo.net.task.dispatcher.AbstractTaskDispatch;
 import com.zfoo.net.task.dispatcher.ITaskDispatch;
+import com.zfoo.net.task.executor.ActorMailboxes;
+import com.zfoo.net.task.executor.MpscExecutor;
 import com.zfoo.net.task.model.PacketReceiverTask;
 import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.scheduler.manager.SchedulerBus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author jaysunxiao
@@ -35,6 +39,12 @@ public final class TaskBus {
     // 线程池的大小
     public static final int EXECUTOR_SIZE;
 
+    /**
+     * 没有指定argument的请求随机选择executorConsistentHash的范围；actor模式下每个不同的executorConsistentHash都会创建一个邮箱，
+     * 随机的hash限制在有限的范围之内，邮箱的数量不会随着请求的数量增长；范围比线程数大得多，对方的线程数不同也能均匀的分配
+     */
+    public static final int RANDOM_EXECUTOR_HASH_BOUND = 1024;
+
     private static final ITaskDispatch taskDispatch;
 
 
@@ -43,6 +53,11 @@ public final class TaskBus {
      */
     private static final ExecutorService[] executors;
 
+    /**
+     * actor邮箱模式下每个executorConsistentHash都有自己的邮箱，executors中只有一个共享的ForkJoinPool；其它模式下为null
+     */
+    private static final ActorMailboxes actorMailboxes;
+
     static {
         var localConfig = NetContext.getConfigManager().getLocalConfig();
         var providerConfig = localConfig.getProvider();
@@ -53,10 +68,22 @@ public final class TaskBus {
                 ? (Runtime.getRuntime().availableProcessors() + 1)
                 : Integer.parseInt(providerConfig.getThread());
 
-        executors = new ExecutorService[EXECUTOR_SIZE];
-        for (int i = 0; i < executors.length; i++) {
-            var namedThreadFactory = new TaskThreadFactory();
-            executors[i] = Executors.newSingleThreadExecutor(namedThreadFactory);
+        var executorType = providerConfig == null ? null : providerConfig.getExecutor();
+
+        if ("actor".equals(executorType)) {
+            actorMailboxes = new ActorMailboxes(EXECUTOR_SIZE);
+            executors = new ExecutorService[]{actorMailboxes.getPool()};
+            SchedulerBus.scheduleAtFixedRate(() -> actorMailboxes.expire(ActorMailboxes.DEFAULT_IDLE_EXPIRE), 1, TimeUnit.MINUTES);
+        } else {
+            // mpsc使用无锁队列的MpscExecutor，默认使用newSingleThreadExecutor
+            var mpsc = "mpsc".equals(executorType);
+            actorMailboxes = null;
+            executors = new ExecutorService[EXECUTOR_SIZE];
+            for (int i = 0; i < executors.length; i++) {
+                executors[i] = mpsc
+                        ? new MpscExecutor(new TaskThreadFactory(i))
+                        : Executors.newSingleThreadExecutor(new TaskThreadFactory());
+            }
         }
     }
 
@@ -84,6 +111,9 @@ public final class TaskBus {
     }
 
     public static ExecutorService executor(int executorConsistentHash) {
+        if (actorMailboxes != null) {
+            return actorMailboxes.mailbox(executorConsistentHash);
+        }
         return executors[Math.abs(executorConsistentHash % EXECUTOR_SIZE)];
     }
 }
@@ -33,15 +33,32 @@ public class TaskThreadFactory implements ThreadFactory {
     private final AtomicInteger threadNumber = new AtomicInteger(1);
     private final String namePrefix;
 
+    /**
+     * 固定的线程名称，不为null的时候不再使用namePrefix
+     */
+    private final String threadName;
+
     TaskThreadFactory() {
         var s = System.getSecurityManager();
         group = (s != null) ? s.getThreadGroup() : Thread.currentThread().getThreadGroup();
         namePrefix = "task-p" + poolNumber.getAndIncrement() + "-t";
+        threadName = null;
+    }
+
+    /**
+     * 线程名称为task-{executorIndex}，和TaskBus中executor的下标一一对应，每次启动都一样，方便通过线程名称绑定cpu
+     */
+    TaskThreadFactory(int executorIndex) {
+        var s = System.getSecurityManager();
+        group = (s != null) ? s.getThreadGroup() : Thread.currentThread().getThreadGroup();
+        namePrefix = "task-" + executorIndex;
+        threadName = namePrefix;
     }
 
     @Override
     public Thread newThread(Runnable runnable) {
-        var t = new FastThreadLocalThread(group, runnable, namePrefix + threadNumber.getAndIncrement(), 0);
+        var name = threadName == null ? namePrefix + threadNumber.getAndIncrement() : threadName;
+        var t = new FastThreadLocalThread(group, runnable, name, 0);
         t.setDaemon(false);
         t.setPriority(Thread.NORM_PRIORITY);
         t.setUncaughtExceptionHandler((thread, e) -> logger.error(thread.toString(), e));
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.task.executor;
+
+import com.zfoo.scheduler.util.TimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个key的邮箱，邮箱没有自己的线程，有任务的时候把自己提交到共享的线程池中执行，同一个时刻最多只会在一个线程中执行，保证了同一个key的任务的顺序
+ * <p>
+ * state的最低位表示邮箱已经提交到线程池，第二位表示邮箱已经过期，剩下的位是已经预留但是还没有执行的任务数量；
+ * 生产者先预留再放入队列，过期只能在没有任何预留任务的时候发生，所以过期的邮箱中一定没有任务
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ActorMailbox extends AbstractExecutorService implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActorMailbox.class);
+
+    private static final int SCHEDULED = 1;
+    private static final int EXPIRED = 2;
+    private static final int PENDING_UNIT = 4;
+
+    /**
+     * 每次最多执行的任务数量，执行完一批之后重新提交到线程池，让其它的邮箱也有机会执行
+     */
+    private static final int BATCH_SIZE = 64;
+
+    private final ActorMailboxes mailboxes;
+
+    private final int key;
+
+    private final MpscQueue<Runnable> queue = new MpscQueue<>();
+
+    private final AtomicInteger state = new AtomicInteger(0);
+
+    private volatile long lastActiveTime = TimeUtils.now();
+
+    ActorMailbox(ActorMailboxes mailboxes, int key) {
+        this.mailboxes = mailboxes;
+        this.key = key;
+    }
+
+    /**
+     * 邮箱已经过期的时候交给这个key新的邮箱执行
+     */
+    @Override
+    public void execute(Runnable task) {
+        Objects.requireNonNull(task);
+        if (!offer(task)) {
+            mailboxes.execute(key, task);
+        }
+    }
+
+    boolean offer(Runnable task) {
+        while (true) {
+            var s = state.get();
+            if ((s & EXPIRED) != 0) {
+                return false;
+            }
+            if (state.compareAndSet(s, (s + PENDING_UNIT) | SCHEDULED)) {
+                queue.offer(task);
+                if ((s & SCHEDULED) == 0) {
+                    mailboxes.getPool().execute(this);
+                }
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        var executed = 0;
+        while (executed < BATCH_SIZE) {
+            var task = queue.poll();
+            if (task == null) {
+                if ((state.get() >>> 2) <= executed) {
+                    break;
+                }
+                // 生产者已经预留但是还没有放入队列
+                Thread.yield();
+                continue;
+            }
+            executed++;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.error("actor mailbox [{}] run task exception", key, t);
+            }
+        }
+        lastActiveTime = TimeUtils.now();
+
+        while (true) {
+            var s = state.get();
+            var remain = (s >>> 2) - executed;
+            if (state.compareAndSet(s, remain == 0 ? 0 : s - executed * PENDING_UNIT)) {
+                if (remain > 0) {
+                    mailboxes.getPool().execute(this);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 没有任何任务并且空闲超过idleMillis的邮箱才能过期
+     */
+    boolean tryExpire(long idleMillis) {
+        return TimeUtils.now() - lastActiveTime >= idleMillis && state.compareAndSet(0, EXPIRED);
+    }
+
+    public int getKey() {
+        return key;
+    }
+
+    /**
+     * 邮箱没有自己的线程，生命周期由ActorMailboxes共享的线程池控制
+     */
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return mailboxes.getPool().isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return mailboxes.getPool().isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return mailboxes.getPool().awaitTermination(timeout, unit);
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.task.executor;
+
+import com.zfoo.scheduler.util.TimeUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Actor邮箱模式的任务线程池，每个executorConsistentHash都有自己的轻量级邮箱，所有的邮箱共享一个work-stealing的ForkJoinPool
+ * <p>
+ * 固定线程数组的模式下，hash到同一条线程的key会互相阻塞，一个很忙的玩家或者公会会拖慢同一条线程上的所有key，并且空闲的线程无法帮忙；
+ * 邮箱模式下同一个key的任务依然按照顺序执行，不同的key之间互不阻塞，空闲的线程会从其它线程的队列中窃取邮箱执行。
+ * <p>
+ * 同一个key的任务不再保证总是在同一条线程中执行，业务代码不能依赖ThreadLocal保存key的状态；空闲的邮箱会过期回收，避免内存无限增长
+ * <p>
+ * 邮箱中的任务阻塞的时候会占用ForkJoinPool的工作线程，syncAsk中的CompletableFuture.get()内部使用了ForkJoinPool.managedBlock()，
+ * 线程池会临时补偿工作线程；其它的阻塞方式需要使用ForkJoinPool.ManagedBlocker包装，否则所有的工作线程都阻塞的时候其它的邮箱无法执行
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ActorMailboxes {
+
+    /**
+     * 邮箱默认空闲5分钟之后过期
+     */
+    public static final long DEFAULT_IDLE_EXPIRE = 5 * TimeUtils.MILLIS_PER_MINUTE;
+
+    private final ForkJoinPool pool;
+
+    private final Map<Integer, ActorMailbox> mailboxMap = new ConcurrentHashMap<>();
+
+    public ActorMailboxes(int parallelism) {
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("task-actor-" + thread.getPoolIndex());
+            return thread;
+        };
+        // asyncMode为true，工作线程本地的队列为FIFO，适合不会join的事件型任务
+        this.pool = new ForkJoinPool(parallelism, threadFactory, null, true);
+    }
+
+    public ExecutorService mailbox(int key) {
+        var mailbox = mailboxMap.get(key);
+        if (mailbox == null) {
+            mailbox = mailboxMap.computeIfAbsent(key, it -> new ActorMailbox(this, it));
+        }
+        return mailbox;
+    }
+
+    public void execute(int key, Runnable task) {
+        while (true) {
+            var mailbox = (ActorMailbox) mailbox(key);
+            if (mailbox.offer(task)) {
+                return;
+            }
+            // 邮箱刚刚过期，移除之后重新创建
+            mailboxMap.remove(key, mailbox);
+        }
+    }
+
+    /**
+     * 回收空闲的邮箱
+     *
+     * @return 回收的邮箱的数量
+     */
+    public int expire(long idleMillis) {
+        var count = 0;
+        for (var mailbox : mailboxMap.values()) {
+            if (mailbox.tryExpire(idleMillis)) {
+                mailboxMap.remove(mailbox.getKey(), mailbox);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int size() {
+        return mailboxMap.size();
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+}
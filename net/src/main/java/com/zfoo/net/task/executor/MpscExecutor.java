@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.task.executor;
+
+import com.zfoo.protocol.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于无锁MPSC队列的单线程执行器，用来替代Executors.newSingleThreadExecutor()
+ * <p>
+ * newSingleThreadExecutor使用LinkedBlockingQueue，每次提交任务都要获取ReentrantLock并且可能唤醒条件变量；
+ * MpscExecutor提交任务只有一次getAndSet，只有在工作线程已经park的时候才需要unpark。
+ * 工作线程每次批量执行队列中的任务，队列为空的时候先自旋，再yield，最后park，任务密集的时候几乎不会进入park
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class MpscExecutor extends AbstractExecutorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MpscExecutor.class);
+
+    /**
+     * 一次批量执行的任务的最大数量，执行完一批之后才会检查执行器的状态
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * 单核的机器上自旋只会占用生产者的cpu时间，直接yield
+     */
+    private static final int SPIN_TIMES = Runtime.getRuntime().availableProcessors() > 1 ? 128 : 0;
+
+    private static final int YIELD_TIMES = 16;
+
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP = 2;
+    private static final int TERMINATED = 3;
+
+    private final MpscQueue<Runnable> queue = new MpscQueue<>();
+
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+    /**
+     * 已经通过状态检查但是还没有把任务添加到队列中的生产者的数量，工作线程退出之前需要等待这些任务入队
+     */
+    private final AtomicInteger submitting = new AtomicInteger(0);
+
+    private final CountDownLatch terminationLatch = new CountDownLatch(1);
+
+    /**
+     * 工作线程是否已经或者即将park，生产者只有看到这个标志才需要unpark
+     */
+    private volatile boolean parked;
+
+    private final Thread thread;
+
+    public MpscExecutor(ThreadFactory threadFactory) {
+        this.thread = threadFactory.newThread(this::work);
+        this.thread.start();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        // shutdown之后直接拒绝，不增加submitting，否则不停提交的生产者会让工作线程一直等待submitting归零
+        if (state.get() != RUNNING) {
+            throw rejected();
+        }
+        // 先增加submitting再检查状态，工作线程先看到非RUNNING的状态再检查submitting，任务要么被拒绝，要么一定会被执行
+        submitting.incrementAndGet();
+        try {
+            if (state.get() != RUNNING) {
+                throw rejected();
+            }
+            queue.offer(task);
+        } finally {
+            submitting.decrementAndGet();
+        }
+        // offer中对tail的getAndSet和工作线程对parked的写入构成Dekker式的同步，不会丢失唤醒
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private RejectedExecutionException rejected() {
+        return new RejectedExecutionException(StringUtils.format("executor [{}] has been shutdown", thread.getName()));
+    }
+
+    private void work() {
+        try {
+            var idleTimes = 0;
+            while (state.get() != STOP) {
+                if (drain() > 0) {
+                    idleTimes = 0;
+                    continue;
+                }
+                if (!queue.isEmpty()) {
+                    // 生产者正在添加任务
+                    Thread.onSpinWait();
+                    continue;
+                }
+                if (state.get() != RUNNING) {
+                    drainOnShutdown();
+                    break;
+                }
+                idleTimes = idle(idleTimes);
+            }
+        } finally {
+            state.set(TERMINATED);
+            terminationLatch.countDown();
+        }
+    }
+
+    private int drain() {
+        var count = 0;
+        Runnable task;
+        while (count < BATCH_SIZE && (task = queue.poll()) != null) {
+            count++;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.error("executor [{}] run task exception", thread.getName(), t);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * shutdown之后，等待已经通过状态检查的生产者把任务添加到队列中，再把队列中剩下的任务执行完；
+     * shutdown之后的生产者不会再增加submitting，所以只需要等待shutdown之前已经进入execute的有限个生产者
+     */
+    private void drainOnShutdown() {
+        while (submitting.get() != 0) {
+            Thread.yield();
+        }
+        while (state.get() != STOP) {
+            if (drain() > 0) {
+                continue;
+            }
+            if (queue.isEmpty()) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 自适应的等待策略，先自旋，再让出cpu，最后park等待生产者唤醒
+     */
+    private int idle(int idleTimes) {
+        if (idleTimes < SPIN_TIMES) {
+            Thread.onSpinWait();
+            return idleTimes + 1;
+        }
+        if (idleTimes < SPIN_TIMES + YIELD_TIMES) {
+            Thread.yield();
+            return idleTimes + 1;
+        }
+        parked = true;
+        // 先写parked再检查队列，生产者先写队列再检查parked
+        if (queue.isEmpty() && state.get() == RUNNING) {
+            LockSupport.park(this);
+        }
+        parked = false;
+        return idleTimes;
+    }
+
+    /**
+     * 不再接收新的任务，已经提交的任务执行完之后工作线程退出
+     */
+    @Override
+    public void shutdown() {
+        state.compareAndSet(RUNNING, SHUTDOWN);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * 队列只能由工作线程消费，所以没有执行的任务直接丢弃，返回空的列表
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        state.compareAndSet(RUNNING, SHUTDOWN);
+        state.compareAndSet(SHUTDOWN, STOP);
+        LockSupport.unpark(thread);
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return state.get() != RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return state.get() == TERMINATED;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminationLatch.await(timeout, unit);
+    }
+
+}
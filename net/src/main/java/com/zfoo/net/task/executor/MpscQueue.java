@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.task.executor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * 无锁的多生产者单消费者的无界队列，Dmitry Vyukov的链表MPSC队列
+ * <p>
+ * 生产者只需要一次getAndSet和一次release写，没有锁，也不需要唤醒条件变量；
+ * poll和isEmpty只能由唯一的消费者线程调用
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class MpscQueue<E> {
+
+    private static final VarHandle TAIL;
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            var lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(MpscQueue.class, "tail", Node.class);
+            NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final class Node<E> {
+        private E value;
+        private volatile Node<E> next;
+
+        private Node(E value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * 消费者独占，head本身是一个已经被消费的哨兵节点
+     */
+    private Node<E> head;
+
+    /**
+     * 生产者竞争的尾节点
+     */
+    private volatile Node<E> tail;
+
+    public MpscQueue() {
+        var stub = new Node<E>(null);
+        head = stub;
+        tail = stub;
+    }
+
+    public void offer(E e) {
+        Objects.requireNonNull(e);
+        var node = new Node<>(e);
+        @SuppressWarnings("unchecked")
+        var prev = (Node<E>) TAIL.getAndSet(this, node);
+        // 在这里到设置next之前，消费者看到的队列不为空但是poll不出元素，只会短暂的出现
+        NEXT.setRelease(prev, node);
+    }
+
+    /**
+     * 只能被消费者线程调用，队列为空的时候返回null
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        var next = (Node<E>) NEXT.getAcquire(head);
+        if (next == null) {
+            return null;
+        }
+        var value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+
+    /**
+     * 只能被消费者线程调用，读取的是volatile的tail，生产者正在添加的元素也会被认为不为空
+     */
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+}
@@ -14,9 +14,16 @@
 package com.zfoo.net.task.model;
 
 import com.zfoo.net.NetContext;
+import com.zfoo.net.packet.model.LazyPacket;
 import com.zfoo.net.router.attachment.IAttachment;
+import com.zfoo.net.router.route.WriteCoalescing;
 import com.zfoo.net.session.model.Session;
+import com.zfoo.net.util.SessionUtils;
 import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.ProtocolManager;
+import io.netty.util.Recycler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * @author jaysunxiao
@@ -24,19 +31,79 @@ import com.zfoo.protocol.IPacket;
  */
 public final class PacketReceiverTask implements Runnable {
 
+    private static final Logger logger = LoggerFactory.getLogger(PacketReceiverTask.class);
+
+    private static final Recycler<PacketReceiverTask> RECYCLER = new Recycler<>() {
+        @Override
+        protected PacketReceiverTask newObject(Handle<PacketReceiverTask> handle) {
+            return new PacketReceiverTask(handle);
+        }
+    };
+
+    private final Recycler.Handle<PacketReceiverTask> handle;
+
     private Session session;
     private IPacket packet;
     private IAttachment attachment;
 
+    private PacketReceiverTask(Recycler.Handle<PacketReceiverTask> handle) {
+        this.handle = handle;
+    }
+
     public PacketReceiverTask(Session session, IPacket packet, IAttachment attachment) {
+        this.handle = null;
         this.session = session;
         this.packet = packet;
         this.attachment = attachment;
     }
 
+    /**
+     * 从对象池中获取，任务执行完之后自动回收
+     */
+    public static PacketReceiverTask valueOf(Session session, IPacket packet, IAttachment attachment) {
+        var task = RECYCLER.get();
+        task.session = session;
+        task.packet = packet;
+        task.attachment = attachment;
+        return task;
+    }
+
     @Override
     public void run() {
-        NetContext.getRouter().atReceiver(session, packet, attachment);
+        // 延迟解码的包在派发给协议接收器之前解码
+        if (packet instanceof LazyPacket) {
+            var lazyPacket = (LazyPacket) packet;
+            try {
+                packet = NetContext.getPacketService().readLazy(lazyPacket);
+            } catch (Throwable t) {
+                logger.error("[session:{}]延迟解码[protocolId:{}]异常", SessionUtils.sessionInfo(session), lazyPacket.protocolId(), t);
+                session.close();
+                recycle();
+                return;
+            }
+        }
+
+        // 任务中发送的消息在任务结束的时候统一flush
+        var coalescing = WriteCoalescing.beginTask();
+        try {
+            NetContext.getRouter().atReceiver(session, packet, attachment);
+        } finally {
+            if (coalescing) {
+                WriteCoalescing.endTask();
+            }
+            // 协议接收器执行完之后回收被Pooled标注的协议
+            ProtocolManager.recycle(packet);
+            recycle();
+        }
+    }
+
+    private void recycle() {
+        session = null;
+        packet = null;
+        attachment = null;
+        if (handle != null) {
+            handle.recycle(this);
+        }
     }
 
     public Session getSession() {
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.consumer.balancer;
+
+import com.zfoo.net.session.model.Session;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * 模拟服务提供者的离散事件测试，不需要真正的网络和时间
+ * <p>
+ * 每个服务提供者是一个先进先出的单线程队列，其中一个服务提供者比其它的慢10倍，请求以固定的速率到达，
+ * 随机负载均衡仍然会把1/4的请求发给慢的服务提供者导致它的队列无限增长，最少请求负载均衡应该几乎不会选择它
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class LeastRequestConsumerLoadBalancerTest {
+
+    // 时间单位都是微秒
+    private static final long FAST_SERVICE_TIME = 1000;
+    private static final long SLOW_SERVICE_TIME = 10000;
+    private static final long ARRIVAL_INTERVAL = 500;
+    private static final int REQUEST_COUNT = 20000;
+
+    private static class Provider {
+        private final Session session = new Session(new EmbeddedChannel());
+        private final long serviceTime;
+        private long busyUntil;
+        private int requestCount;
+
+        private Provider(long serviceTime) {
+            this.serviceTime = serviceTime;
+        }
+    }
+
+    private static class Request {
+        private final Provider provider;
+        private final long arrivalTime;
+        private final long finishTime;
+
+        private Request(Provider provider, long arrivalTime, long finishTime) {
+            this.provider = provider;
+            this.arrivalTime = arrivalTime;
+            this.finishTime = finishTime;
+        }
+    }
+
+    private static class Result {
+        private double slowShare;
+        private double meanLatency;
+    }
+
+    private interface Selector {
+        Provider select(long now);
+
+        default void complete(Request request) {
+        }
+    }
+
+    @Test
+    public void selectTest() {
+        var balancer = new LeastRequestConsumerLoadBalancer();
+        var a = new Session(new EmbeddedChannel());
+        var b = new Session(new EmbeddedChannel());
+        var sessions = List.of(a, b);
+        var random = new Random(0);
+
+        Assert.assertEquals(balancer.select(List.of(a), random), a);
+
+        // 两个候选者总是不同，所以负载更小的总是被选中
+        balancer.start(a);
+        for (var i = 0; i < 100; i++) {
+            Assert.assertEquals(balancer.select(sessions, random), b);
+        }
+        Assert.assertEquals(balancer.inflight(a), 1);
+
+        balancer.complete(a, 100);
+        Assert.assertEquals(balancer.inflight(a), 0);
+        Assert.assertEquals(balancer.latency(a), 100D, 0.0001D);
+
+        // 指数加权移动平均
+        balancer.start(a);
+        balancer.complete(a, 0);
+        Assert.assertEquals(balancer.latency(a), 70D, 0.0001D);
+        for (var i = 0; i < 100; i++) {
+            Assert.assertEquals(balancer.select(sessions, random), b);
+        }
+
+        // session断开之后负载被移除
+        a.getChannel().close();
+        Assert.assertEquals(balancer.latency(a), 0D, 0.0001D);
+
+        // 已经断开的session，关闭的回调在当前线程中立刻执行，不会留下负载
+        balancer.start(a);
+        Assert.assertEquals(balancer.inflight(a), 0);
+        balancer.complete(a, 100);
+        Assert.assertEquals(balancer.latency(a), 0D, 0.0001D);
+    }
+
+    @Test
+    public void simulationTest() {
+        var random = new Random(0);
+        var randomResult = simulate(providers -> now -> providers.get(random.nextInt(providers.size())));
+
+        var balancer = new LeastRequestConsumerLoadBalancer();
+        var leastRequestResult = simulate(providers -> {
+            var sessions = new ArrayList<Session>();
+            var sessionMap = new HashMap<Session, Provider>();
+            for (var provider : providers) {
+                sessions.add(provider.session);
+                sessionMap.put(provider.session, provider);
+            }
+            return new Selector() {
+                @Override
+                public Provider select(long now) {
+                    var session = balancer.select(sessions, random);
+                    balancer.start(session);
+                    return sessionMap.get(session);
+                }
+
+                @Override
+                public void complete(Request request) {
+                    balancer.complete(request.provider.session, request.finishTime - request.arrivalTime);
+                }
+            };
+        });
+
+        Assert.assertTrue(randomResult.slowShare > 0.2D);
+        Assert.assertTrue(leastRequestResult.slowShare < 0.05D);
+        Assert.assertTrue(leastRequestResult.meanLatency * 10 < randomResult.meanLatency);
+    }
+
+    private Result simulate(Function<List<Provider>, Selector> selectorFactory) {
+        var providers = List.of(new Provider(FAST_SERVICE_TIME), new Provider(FAST_SERVICE_TIME), new Provider(FAST_SERVICE_TIME), new Provider(SLOW_SERVICE_TIME));
+        var selector = selectorFactory.apply(providers);
+        var slowProvider = providers.get(providers.size() - 1);
+
+        var completions = new PriorityQueue<Request>((x, y) -> Long.compare(x.finishTime, y.finishTime));
+        var totalLatency = 0L;
+        for (var i = 0; i < REQUEST_COUNT; i++) {
+            var now = i * ARRIVAL_INTERVAL;
+            while (!completions.isEmpty() && completions.peek().finishTime <= now) {
+                selector.complete(completions.poll());
+            }
+
+            var provider = selector.select(now);
+            provider.requestCount++;
+            provider.busyUntil = Math.max(now, provider.busyUntil) + provider.serviceTime;
+            var request = new Request(provider, now, provider.busyUntil);
+            completions.add(request);
+            totalLatency += request.finishTime - request.arrivalTime;
+        }
+
+        var result = new Result();
+        result.slowShare = (double) slowProvider.requestCount / REQUEST_COUNT;
+        result.meanLatency = (double) totalLatency / REQUEST_COUNT;
+        providers.forEach(it -> it.session.getChannel().close());
+        return result;
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.zfoo.net.packet;
+
+import com.zfoo.protocol.IPooledPacket;
+import com.zfoo.protocol.registration.anno.Compatible;
+import com.zfoo.protocol.registration.anno.Pooled;
+import io.netty.util.Recycler;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Pooled
+public class CM_Pooled implements IPooledPacket {
+
+    public static final transient short PROTOCOL_ID = 1122;
+
+    private transient Recycler.Handle<IPooledPacket> recyclerHandle;
+
+    private int a;
+
+    private String b;
+
+    @Compatible(order = 1)
+    private int c = -1;
+
+    @Override
+    public short protocolId() {
+        return PROTOCOL_ID;
+    }
+
+    @Override
+    public Recycler.Handle<IPooledPacket> recyclerHandle() {
+        return recyclerHandle;
+    }
+
+    @Override
+    public void recyclerHandle(Recycler.Handle<IPooledPacket> handle) {
+        this.recyclerHandle = handle;
+    }
+
+    public int getA() {
+        return a;
+    }
+
+    public void setA(int a) {
+        this.a = a;
+    }
+
+    public String getB() {
+        return b;
+    }
+
+    public void setB(String b) {
+        this.b = b;
+    }
+
+    public int getC() {
+        return c;
+    }
+
+    public void setC(int c) {
+        this.c = c;
+    }
+}
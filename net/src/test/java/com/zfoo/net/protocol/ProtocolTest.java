@@ -14,21 +14,70 @@
 package com.zfoo.net.protocol;
 
 import com.zfoo.net.NetContext;
+import com.zfoo.net.handler.codec.http.HttpCodecHandler;
+import com.zfoo.net.handler.codec.jprotobuf.JProtobufTcpCodecHandler;
+import com.zfoo.net.handler.codec.protobuf.ProtobufTcpCodecHandler;
+import com.zfoo.net.handler.codec.tcp.TcpCodecHandler;
+import com.zfoo.net.handler.codec.websocket.WebSocketCodecHandler;
 import com.zfoo.net.packet.*;
+import com.zfoo.net.packet.common.PairLS;
+import com.zfoo.net.packet.common.Ping;
+import com.zfoo.net.packet.common.StreamAck;
+import com.zfoo.net.packet.common.StreamChunk;
+import com.zfoo.net.packet.jprotobuf.JProtobufHelloRequest;
 import com.zfoo.net.packet.model.DecodedPacketInfo;
+import com.zfoo.net.packet.model.EncodedPacketInfo;
+import com.zfoo.net.packet.model.ForwardPacketInfo;
+import com.zfoo.net.packet.model.LazyPacket;
+import com.zfoo.net.packet.model.RawPacketInfo;
 import com.zfoo.net.packet.service.IPacketService;
 import com.zfoo.net.packet.service.PacketService;
+import com.zfoo.net.router.Router;
+import com.zfoo.net.router.attachment.GatewayAttachment;
+import com.zfoo.net.router.attachment.HttpAttachment;
+import com.zfoo.net.router.attachment.IAttachment;
+import com.zfoo.net.router.attachment.NoAnswerAttachment;
 import com.zfoo.net.router.attachment.SignalAttachment;
+import com.zfoo.net.router.route.SignalBridge;
+import com.zfoo.net.router.route.WriteCoalescing;
+import com.zfoo.net.router.stream.BufferStreamSink;
+import com.zfoo.net.router.stream.FileStreamSink;
+import com.zfoo.net.router.stream.StreamBus;
+import com.zfoo.net.session.model.Session;
+import com.zfoo.net.task.TaskBus;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.buffer.ByteBufUtils;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.profile.ProtocolProfiler;
+import com.zfoo.protocol.util.JsonUtils;
+import com.zfoo.protocol.util.StringUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author jaysunxiao
@@ -59,6 +108,660 @@ public class ProtocolTest {
         attachment.setSignalId(Integer.MAX_VALUE);
     }
 
+    @Test
+    public void testBroadcast() {
+        CM_Int cm = new CM_Int();
+        cm.setC(Integer.MAX_VALUE);
+        cm.setF("broadcast");
+
+        var tcpChannel = new EmbeddedChannel(new TcpCodecHandler());
+        var websocketChannel = new EmbeddedChannel(new WebSocketCodecHandler());
+        var sessions = List.of(new Session(tcpChannel), new Session(websocketChannel));
+
+        NetContext.getRouter().broadcast(sessions, cm);
+
+        ByteBuf tcpBuff = tcpChannel.readOutbound();
+        BinaryWebSocketFrame websocketFrame = websocketChannel.readOutbound();
+        for (var writeBuff : List.of(tcpBuff, websocketFrame.content())) {
+            Assert.assertEquals(writeBuff.readInt(), writeBuff.readableBytes());
+            DecodedPacketInfo packetInfo = packetService.read(writeBuff);
+            Assert.assertEquals(packetInfo.getPacket(), cm);
+            Assert.assertNull(packetInfo.getAttachment());
+        }
+
+        // 所有的channel共享同一份序列化后的字节，全部写完后释放
+        tcpBuff.release();
+        Assert.assertTrue(websocketFrame.release());
+    }
+
+    @Test
+    public void testPacketLengthCheck() {
+        CM_Int cm = new CM_Int();
+        cm.setF("packetLength");
+
+        var buffer = Unpooled.buffer();
+        var packetLength = packetService.packetLength(cm, attachment);
+        packetService.write(buffer, cm, attachment, packetLength);
+        Assert.assertEquals(buffer.readInt(), packetLength);
+        Assert.assertEquals(buffer.readableBytes(), packetLength);
+
+        // 包头的长度和实际写入的长度不一致的时候抛出异常，不会写出错位的包
+        buffer.clear();
+        try {
+            packetService.write(buffer, cm, attachment, packetLength + 1);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // 预期的异常
+        }
+        buffer.release();
+    }
+
+    @Test
+    public void testWriteCoalescing() {
+        CM_Int cm = new CM_Int();
+        cm.setF("coalescing");
+
+        var channel = new EmbeddedChannel(new TcpCodecHandler());
+        var session = new Session(channel);
+        var flushCount = WriteCoalescing.flushCount();
+        WriteCoalescing.setEnable(true);
+        try {
+            // PacketReceiverTask中发送的消息在任务结束的时候只flush一次
+            WriteCoalescing.beginTask();
+            for (var i = 0; i < 10; i++) {
+                NetContext.getRouter().send(session, cm, null);
+            }
+            Assert.assertTrue(channel.outboundMessages().isEmpty());
+            WriteCoalescing.endTask();
+            Assert.assertEquals(channel.outboundMessages().size(), 10);
+            Assert.assertEquals(WriteCoalescing.flushCount(), flushCount + 1);
+            Assert.assertTrue(WriteCoalescing.packetsPerFlush() > 1);
+            channel.releaseOutbound();
+        } finally {
+            WriteCoalescing.setEnable(false);
+        }
+    }
+
+    @Test
+    public void testWriteCoalescingSyncAsk() throws Exception {
+        CM_Int cm = new CM_Int();
+        cm.setF("syncAsk");
+
+        // 模拟服务提供者，请求被flush出去的时候立刻回复
+        var answerHandler = new ChannelOutboundHandlerAdapter() {
+            private final List<ByteBuf> pending = new ArrayList<>();
+
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                pending.add(((ByteBuf) msg).duplicate());
+                ctx.write(msg, promise);
+            }
+
+            @Override
+            public void flush(ChannelHandlerContext ctx) {
+                for (var buffer : pending) {
+                    buffer.skipBytes(PacketService.PACKET_HEAD_LENGTH);
+                    var signalAttachment = (SignalAttachment) packetService.read(buffer).getAttachment();
+                    SignalBridge.removeSignalAttachment(signalAttachment.getSignalId()).getResponseFuture().complete(cm);
+                }
+                pending.clear();
+                ctx.flush();
+            }
+        };
+        var channel = new EmbeddedChannel(answerHandler, new TcpCodecHandler());
+        var session = new Session(channel);
+        WriteCoalescing.setEnable(true);
+        try {
+            // PacketReceiverTask中的同步请求在阻塞等待之前就发送出去，不会等到任务结束
+            Assert.assertTrue(WriteCoalescing.beginTask());
+            var startTime = System.currentTimeMillis();
+            var answer = NetContext.getRouter().syncAsk(session, cm, CM_Int.class, null);
+            Assert.assertEquals(answer.packet(), cm);
+            Assert.assertTrue(System.currentTimeMillis() - startTime < Router.DEFAULT_TIMEOUT);
+            WriteCoalescing.endTask();
+            channel.releaseOutbound();
+        } finally {
+            WriteCoalescing.setEnable(false);
+        }
+    }
+
+    @Test
+    public void testGatewayForwarding() {
+        CM_Int cm = new CM_Int();
+        cm.setC(Integer.MAX_VALUE);
+        cm.setF("forwarding");
+
+        // 客户端发到网关，网关只读取协议号，直接转发原始字节
+        var gatewayChannel = new EmbeddedChannel(new TcpCodecHandler(true));
+        ByteBuf clientBuff = Unpooled.buffer();
+        packetService.write(clientBuff, cm, attachment);
+        gatewayChannel.writeInbound(clientBuff);
+        ForwardPacketInfo forwardPacketInfo = gatewayChannel.readInbound();
+        Assert.assertEquals(forwardPacketInfo.getProtocolId(), cm.protocolId());
+        Assert.assertNull(forwardPacketInfo.getGatewayAttachment());
+
+        // 默认和旧版本兼容，网关附加包写在包体的后面，v1客户端的原始字节后面还有客户端的附加包，只能解码之后重新编码
+        var requestGatewayAttachment = new GatewayAttachment(1, 2);
+        requestGatewayAttachment.setClient(true);
+        var providerPacketInfo = (DecodedPacketInfo) forward(new EmbeddedChannel(new TcpCodecHandler()), forwardPacketInfo, requestGatewayAttachment, new EmbeddedChannel(new TcpCodecHandler()));
+        Assert.assertEquals(providerPacketInfo.getPacket(), cm);
+        var providerGatewayAttachment = (GatewayAttachment) providerPacketInfo.getAttachment();
+        Assert.assertEquals(providerGatewayAttachment.getSid(), 1);
+        Assert.assertEquals(providerGatewayAttachment.getUid(), 2);
+        Assert.assertEquals(providerGatewayAttachment.getSignalAttachment(), attachment);
+
+        // 服务提供者返回给网关的包体在前面，旧版本的网关可以解析，网关需要完整的解码
+        providerGatewayAttachment.setClient(false);
+        ByteBuf providerBuff = Unpooled.buffer();
+        packetService.write(providerBuff, cm, providerGatewayAttachment);
+        Assert.assertEquals(providerBuff.getShort(PacketService.PACKET_HEAD_LENGTH), cm.protocolId());
+        var gatewayClientChannel = new EmbeddedChannel(new TcpCodecHandler());
+        gatewayClientChannel.writeInbound(providerBuff);
+        DecodedPacketInfo gatewayPacketInfo = gatewayClientChannel.readInbound();
+        Assert.assertEquals(gatewayPacketInfo.getPacket(), cm);
+        Assert.assertEquals(((GatewayAttachment) gatewayPacketInfo.getAttachment()).getSid(), 1);
+
+        var service = (PacketService) packetService;
+        service.setGatewayAttachmentFirst(true);
+        try {
+            // 网关在包的前面加上网关附加包转发给服务提供者，服务提供者完整的解码
+            clientBuff = Unpooled.buffer();
+            packetService.write(clientBuff, cm, attachment);
+            gatewayChannel.writeInbound(clientBuff);
+            forwardPacketInfo = gatewayChannel.readInbound();
+            var linkChannel = new EmbeddedChannel(new TcpCodecHandler());
+            linkChannel.writeOutbound(RawPacketInfo.valueOf(forwardPacketInfo.getPacketBuffer().retain(), requestGatewayAttachment, forwardPacketInfo.isTrailingAttachment()));
+            forwardPacketInfo.release();
+            ByteBuf requestBuff = linkChannel.readOutbound();
+            Assert.assertEquals(requestBuff.getShort(PacketService.PACKET_HEAD_LENGTH), GatewayAttachment.PROTOCOL_ID);
+            var providerChannel = new EmbeddedChannel(new TcpCodecHandler());
+            providerChannel.writeInbound(requestBuff);
+            providerPacketInfo = providerChannel.readInbound();
+            Assert.assertEquals(providerPacketInfo.getPacket(), cm);
+            Assert.assertEquals(((GatewayAttachment) providerPacketInfo.getAttachment()).getSignalAttachment(), attachment);
+
+            // 服务提供者返回给网关，网关只解码网关附加包，包体直接转发给客户端
+            providerBuff = Unpooled.buffer();
+            packetService.write(providerBuff, cm, providerGatewayAttachment);
+            gatewayClientChannel.writeInbound(providerBuff);
+            forwardPacketInfo = gatewayClientChannel.readInbound();
+            Assert.assertEquals(forwardPacketInfo.getProtocolId(), cm.protocolId());
+            Assert.assertEquals(forwardPacketInfo.getGatewayAttachment().getSid(), 1);
+
+            var clientPacketInfo = (DecodedPacketInfo) forward(new EmbeddedChannel(new TcpCodecHandler()), forwardPacketInfo, attachment, new EmbeddedChannel(new TcpCodecHandler()));
+            Assert.assertEquals(clientPacketInfo.getPacket(), cm);
+            Assert.assertEquals(clientPacketInfo.getAttachment(), attachment);
+        } finally {
+            service.setGatewayAttachmentFirst(false);
+        }
+
+        // 需要在网关检查的包仍然会完整的解码
+        ByteBuf pingBuff = Unpooled.buffer();
+        packetService.write(pingBuff, new Ping(), null);
+        gatewayChannel.writeInbound(pingBuff);
+        DecodedPacketInfo pingPacketInfo = gatewayChannel.readInbound();
+        Assert.assertEquals(pingPacketInfo.getPacket().protocolId(), Ping.PROTOCOL_ID);
+    }
+
+    @Test
+    public void testWireV2() {
+        CM_Int cm = new CM_Int();
+        cm.setC(Integer.MAX_VALUE);
+        cm.setF("v2");
+
+        // 客户端主动使用v2，服务器收到魔数之后发送方向也切换到v2
+        var clientChannel = new EmbeddedChannel(new TcpCodecHandler(false, true));
+        var serverChannel = new EmbeddedChannel(new TcpCodecHandler());
+        ByteBuf clientMagic = clientChannel.readOutbound();
+        Assert.assertEquals(clientMagic.getInt(0), PacketService.WIRE_V2_MAGIC);
+        serverChannel.writeInbound(clientMagic);
+        ByteBuf serverMagic = serverChannel.readOutbound();
+        Assert.assertEquals(serverMagic.getInt(0), PacketService.WIRE_V2_MAGIC);
+        clientChannel.writeInbound(serverMagic);
+
+        // v2的附加包只有固定格式的字段，比v1小
+        clientChannel.writeOutbound(EncodedPacketInfo.valueOf(cm, attachment));
+        ByteBuf v2Buff = clientChannel.readOutbound();
+        ByteBuf v1Buff = Unpooled.buffer();
+        packetService.write(v1Buff, cm, attachment);
+        Assert.assertTrue(v2Buff.readableBytes() < v1Buff.readableBytes());
+
+        serverChannel.writeInbound(v2Buff);
+        DecodedPacketInfo serverPacketInfo = serverChannel.readInbound();
+        Assert.assertEquals(serverPacketInfo.getPacket(), cm);
+        Assert.assertEquals(serverPacketInfo.getAttachment(), attachment);
+        Assert.assertTrue(((SignalAttachment) serverPacketInfo.getAttachment()).isClient());
+
+        var gatewayAttachment = new GatewayAttachment(Long.MAX_VALUE, 99);
+        gatewayAttachment.setClient(true);
+        gatewayAttachment.useExecutorConsistentHash("v2");
+        gatewayAttachment.setSignalAttachment(attachment);
+        for (var responseAttachment : List.of(gatewayAttachment, NoAnswerAttachment.valueOf(Integer.MIN_VALUE))) {
+            serverChannel.writeOutbound(EncodedPacketInfo.valueOf(cm, responseAttachment));
+            clientChannel.writeInbound((ByteBuf) serverChannel.readOutbound());
+            DecodedPacketInfo clientPacketInfo = clientChannel.readInbound();
+            Assert.assertEquals(clientPacketInfo.getPacket(), cm);
+            Assert.assertEquals(clientPacketInfo.getAttachment().packetType(), responseAttachment.packetType());
+            Assert.assertEquals(clientPacketInfo.getAttachment().executorConsistentHash(), responseAttachment.executorConsistentHash());
+        }
+        serverChannel.writeOutbound(EncodedPacketInfo.valueOf(cm, gatewayAttachment));
+        clientChannel.writeInbound((ByteBuf) serverChannel.readOutbound());
+        var clientGatewayAttachment = (GatewayAttachment) ((DecodedPacketInfo) clientChannel.readInbound()).getAttachment();
+        Assert.assertEquals(clientGatewayAttachment.getSid(), Long.MAX_VALUE);
+        Assert.assertEquals(clientGatewayAttachment.getUid(), 99);
+        Assert.assertTrue(clientGatewayAttachment.isClient());
+        Assert.assertEquals(clientGatewayAttachment.getSignalAttachment(), attachment);
+
+        // v1的客户端通过网关转发给v2的服务提供者，包体后面的v1附加包也会被服务提供者解析
+        var gatewayChannel = new EmbeddedChannel(new TcpCodecHandler(true));
+        gatewayChannel.writeInbound(v1Buff);
+        ForwardPacketInfo forwardPacketInfo = gatewayChannel.readInbound();
+        var providerLinkChannel = new EmbeddedChannel(new TcpCodecHandler(false, true));
+        var providerChannel = new EmbeddedChannel(new TcpCodecHandler());
+        providerChannel.writeInbound((ByteBuf) providerLinkChannel.readOutbound());
+        var requestGatewayAttachment = new GatewayAttachment(1, 2);
+        requestGatewayAttachment.setClient(true);
+        var providerPacketInfo = (DecodedPacketInfo) forward(providerLinkChannel, forwardPacketInfo, requestGatewayAttachment, providerChannel);
+        Assert.assertEquals(providerPacketInfo.getPacket(), cm);
+        Assert.assertEquals(((GatewayAttachment) providerPacketInfo.getAttachment()).getSignalAttachment(), attachment);
+    }
+
+    @Test
+    public void testCompression() {
+        CM_Int cm = new CM_Int();
+        cm.setC(Integer.MAX_VALUE);
+        cm.setF("compression".repeat(100));
+
+        ByteBuf uncompressedBuff = Unpooled.buffer();
+        packetService.write(uncompressedBuff, cm, attachment);
+
+        var service = (PacketService) packetService;
+        service.setCompressionThreshold(64);
+        try {
+            // v1压缩之后协议号的位置为压缩标识
+            ByteBuf v1Buff = Unpooled.buffer();
+            packetService.write(v1Buff, cm, attachment);
+            Assert.assertTrue(v1Buff.readableBytes() < uncompressedBuff.readableBytes());
+            Assert.assertEquals(v1Buff.getShort(PacketService.PACKET_HEAD_LENGTH), PacketService.COMPRESSED_PROTOCOL_ID);
+            Assert.assertEquals(v1Buff.readInt(), v1Buff.readableBytes());
+            DecodedPacketInfo packetInfo = packetService.read(v1Buff);
+            Assert.assertEquals(packetInfo.getPacket(), cm);
+            Assert.assertEquals(packetInfo.getAttachment(), attachment);
+
+            // v2
+            var clientChannel = new EmbeddedChannel(new TcpCodecHandler(false, true));
+            var serverChannel = new EmbeddedChannel(new TcpCodecHandler());
+            serverChannel.writeInbound((ByteBuf) clientChannel.readOutbound());
+            clientChannel.writeInbound((ByteBuf) serverChannel.readOutbound());
+            clientChannel.writeOutbound(EncodedPacketInfo.valueOf(cm, attachment));
+            serverChannel.writeInbound((ByteBuf) clientChannel.readOutbound());
+            DecodedPacketInfo serverPacketInfo = serverChannel.readInbound();
+            Assert.assertEquals(serverPacketInfo.getPacket(), cm);
+            Assert.assertEquals(serverPacketInfo.getAttachment(), attachment);
+
+            // 服务提供者返回的压缩包体，网关附加包在包体前面的时候网关不解压直接转发给客户端
+            var gatewayAttachment = new GatewayAttachment(1, 2);
+            ByteBuf providerBuff = Unpooled.buffer();
+            service.setGatewayAttachmentFirst(true);
+            packetService.write(providerBuff, cm, gatewayAttachment);
+            service.setGatewayAttachmentFirst(false);
+            var gatewayClientChannel = new EmbeddedChannel(new TcpCodecHandler());
+            gatewayClientChannel.writeInbound(providerBuff);
+            ForwardPacketInfo forwardPacketInfo = gatewayClientChannel.readInbound();
+            Assert.assertEquals(forwardPacketInfo.getProtocolId(), PacketService.COMPRESSED_PROTOCOL_ID);
+            var clientPacketInfo = (DecodedPacketInfo) forward(new EmbeddedChannel(new TcpCodecHandler()), forwardPacketInfo, null, new EmbeddedChannel(new TcpCodecHandler()));
+            Assert.assertEquals(clientPacketInfo.getPacket(), cm);
+
+            // 小于压缩阈值的包不会被压缩
+            cm.setF("compression");
+            ByteBuf smallBuff = Unpooled.buffer();
+            packetService.write(smallBuff, cm, null);
+            Assert.assertEquals(smallBuff.getShort(PacketService.PACKET_HEAD_LENGTH), cm.protocolId());
+        } finally {
+            service.setCompressionThreshold(0);
+        }
+    }
+
+    @Test
+    public void testLazyDecode() {
+        CM_Int cm = new CM_Int();
+        cm.setC(Integer.MAX_VALUE);
+        cm.setF("lazy");
+
+        var service = (PacketService) packetService;
+        service.setLazyDecode(true);
+        try {
+            var clientChannel = new EmbeddedChannel(new TcpCodecHandler(false, true));
+            var serverChannel = new EmbeddedChannel(new TcpCodecHandler());
+            serverChannel.writeInbound((ByteBuf) clientChannel.readOutbound());
+            clientChannel.writeInbound((ByteBuf) serverChannel.readOutbound());
+
+            // 服务器收到的请求只解码附加包，包体在TaskBus的线程中解码
+            clientChannel.writeOutbound(EncodedPacketInfo.valueOf(cm, attachment));
+            serverChannel.writeInbound((ByteBuf) clientChannel.readOutbound());
+            DecodedPacketInfo serverPacketInfo = serverChannel.readInbound();
+            Assert.assertTrue(serverPacketInfo.getPacket() instanceof LazyPacket);
+            Assert.assertEquals(serverPacketInfo.getPacket().protocolId(), cm.protocolId());
+            Assert.assertEquals(serverPacketInfo.getAttachment(), attachment);
+            var lazyPacket = (LazyPacket) serverPacketInfo.getPacket();
+            Assert.assertEquals(packetService.readLazy(lazyPacket), cm);
+            Assert.assertEquals(lazyPacket.refCnt(), 0);
+
+            // 应答的包需要完成发送者的CompletableFuture，立即解码
+            var answerAttachment = new SignalAttachment();
+            answerAttachment.setSignalId(1);
+            answerAttachment.setClient(false);
+            serverChannel.writeOutbound(EncodedPacketInfo.valueOf(cm, answerAttachment));
+            clientChannel.writeInbound((ByteBuf) serverChannel.readOutbound());
+            DecodedPacketInfo clientPacketInfo = clientChannel.readInbound();
+            Assert.assertEquals(clientPacketInfo.getPacket(), cm);
+
+            // 网关不能延迟解码
+            ByteBuf v1Buff = Unpooled.buffer();
+            packetService.write(v1Buff, cm, attachment);
+            var gatewayChannel = new EmbeddedChannel(new TcpCodecHandler(false));
+            gatewayChannel.writeInbound(v1Buff.retainedDuplicate());
+            Assert.assertEquals(((DecodedPacketInfo) gatewayChannel.readInbound()).getPacket(), cm);
+
+            // 网关转发的v1客户端的原始字节，包体后面的客户端附加包在延迟解码的时候设置到网关附加包中
+            var forwardingChannel = new EmbeddedChannel(new TcpCodecHandler(true));
+            forwardingChannel.writeInbound(v1Buff);
+            ForwardPacketInfo forwardPacketInfo = forwardingChannel.readInbound();
+            var providerLinkChannel = new EmbeddedChannel(new TcpCodecHandler(false, true));
+            var providerChannel = new EmbeddedChannel(new TcpCodecHandler());
+            providerChannel.writeInbound((ByteBuf) providerLinkChannel.readOutbound());
+            var requestGatewayAttachment = new GatewayAttachment(1, 2);
+            requestGatewayAttachment.setClient(true);
+            var providerPacketInfo = (DecodedPacketInfo) forward(providerLinkChannel, forwardPacketInfo, requestGatewayAttachment, providerChannel);
+            var providerGatewayAttachment = (GatewayAttachment) providerPacketInfo.getAttachment();
+            Assert.assertNull(providerGatewayAttachment.getSignalAttachment());
+            Assert.assertEquals(packetService.readLazy((LazyPacket) providerPacketInfo.getPacket()), cm);
+            Assert.assertEquals(providerGatewayAttachment.getSignalAttachment(), attachment);
+        } finally {
+            service.setLazyDecode(false);
+        }
+    }
+
+    @Test
+    public void testProtobufCodec() {
+        var request = JProtobufHelloRequest.valueOf("Hello, protobuf中文");
+
+        // 字节码增强的protobuf编码可以被jprotobuf解码，反过来也一样
+        var protobufChannel = new EmbeddedChannel(new ProtobufTcpCodecHandler());
+        var jprotobufChannel = new EmbeddedChannel(new JProtobufTcpCodecHandler());
+        protobufChannel.writeOutbound(EncodedPacketInfo.valueOf(request, null));
+        jprotobufChannel.writeInbound((ByteBuf) protobufChannel.readOutbound());
+        DecodedPacketInfo jprotobufPacketInfo = jprotobufChannel.readInbound();
+        Assert.assertEquals(((JProtobufHelloRequest) jprotobufPacketInfo.getPacket()).getMessage(), request.getMessage());
+
+        jprotobufChannel.writeOutbound(EncodedPacketInfo.valueOf(request, null));
+        protobufChannel.writeInbound((ByteBuf) jprotobufChannel.readOutbound());
+        DecodedPacketInfo protobufPacketInfo = protobufChannel.readInbound();
+        Assert.assertEquals(((JProtobufHelloRequest) protobufPacketInfo.getPacket()).getMessage(), request.getMessage());
+    }
+
+    @Test
+    public void testHttpJson() {
+        var request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        var cm = new CM_Int();
+        cm.setC(Integer.MAX_VALUE);
+        cm.setF("http");
+        // PairLS的key使用了jackson的注解序列化为字符串
+        var pair = PairLS.valueOf(Long.MAX_VALUE, "http");
+
+        // 默认使用jackson，输出和JsonUtils.object2String()完全一致
+        var jacksonChannel = new EmbeddedChannel(new HttpCodecHandler(it -> null));
+        for (var packet : List.of(cm, pair)) {
+            jacksonChannel.writeOutbound(EncodedPacketInfo.valueOf(packet, HttpAttachment.valueOf(request, HttpResponseStatus.OK)));
+            FullHttpResponse response = jacksonChannel.readOutbound();
+            Assert.assertEquals(response.content().toString(StringUtils.DEFAULT_CHARSET), JsonUtils.object2String(packet));
+            response.release();
+        }
+
+        // 开启之后使用生成的json序列化，使用了jackson注解的协议仍然使用jackson
+        var protocolJsonChannel = new EmbeddedChannel(new HttpCodecHandler(it -> null, true));
+        protocolJsonChannel.writeOutbound(EncodedPacketInfo.valueOf(cm, HttpAttachment.valueOf(request, HttpResponseStatus.OK)));
+        FullHttpResponse cmResponse = protocolJsonChannel.readOutbound();
+        Assert.assertEquals(JsonUtils.string2Object(cmResponse.content().toString(StringUtils.DEFAULT_CHARSET), CM_Int.class), cm);
+        cmResponse.release();
+
+        protocolJsonChannel.writeOutbound(EncodedPacketInfo.valueOf(pair, HttpAttachment.valueOf(request, HttpResponseStatus.OK)));
+        FullHttpResponse pairResponse = protocolJsonChannel.readOutbound();
+        Assert.assertEquals(pairResponse.content().toString(StringUtils.DEFAULT_CHARSET), JsonUtils.object2String(pair));
+        pairResponse.release();
+    }
+
+    @Test
+    public void testProtobufCodecUnsupported() {
+        // CM_Int的字段没有使用Protobuf注解，不支持protobuf格式，编码失败的时候不会写出任何字节
+        var buffer = Unpooled.buffer();
+        buffer.writeByte(1);
+        try {
+            ProtobufTcpCodecHandler.write(buffer, new CM_Int());
+            Assert.fail();
+        } catch (RunException e) {
+            // 预期的异常
+        }
+        Assert.assertEquals(buffer.writerIndex(), 1);
+        buffer.release();
+
+        var channel = new EmbeddedChannel(new ProtobufTcpCodecHandler());
+        try {
+            channel.writeOutbound(EncodedPacketInfo.valueOf(new CM_Int(), null));
+            Assert.fail();
+        } catch (EncoderException e) {
+            // 预期的异常
+        }
+        Assert.assertTrue(channel.outboundMessages().isEmpty());
+
+        // 之后的包可以正常发送和解码
+        var request = JProtobufHelloRequest.valueOf("after unsupported");
+        channel.writeOutbound(EncodedPacketInfo.valueOf(request, null));
+        channel.writeInbound((ByteBuf) channel.readOutbound());
+        DecodedPacketInfo packetInfo = channel.readInbound();
+        Assert.assertEquals(((JProtobufHelloRequest) packetInfo.getPacket()).getMessage(), request.getMessage());
+    }
+
+    @Test
+    public void testPooledPacket() {
+        var pooled = new CM_Pooled();
+        pooled.setA(Integer.MAX_VALUE);
+        pooled.setB("pooled");
+        pooled.setC(99);
+        ByteBuf buffer = Unpooled.buffer();
+        ProtocolManager.write(buffer, pooled);
+
+        var packet = (CM_Pooled) ProtocolManager.read(buffer.duplicate());
+        Assert.assertEquals(packet.getA(), Integer.MAX_VALUE);
+        Assert.assertEquals(packet.getB(), "pooled");
+        Assert.assertEquals(packet.getC(), 99);
+
+        // 同一条线程回收之后再反序列化会复用同一个对象
+        ProtocolManager.recycle(packet);
+        var reusedPacket = (CM_Pooled) ProtocolManager.read(buffer.duplicate());
+        Assert.assertSame(reusedPacket, packet);
+        Assert.assertEquals(reusedPacket.getC(), 99);
+
+        // 老版本的协议没有兼容字段，复用的对象的兼容字段会被重置为默认值
+        ProtocolManager.recycle(reusedPacket);
+        ByteBuf oldBuffer = Unpooled.buffer();
+        ByteBufUtils.writeShort(oldBuffer, CM_Pooled.PROTOCOL_ID);
+        ByteBufUtils.writeBoolean(oldBuffer, true);
+        ByteBufUtils.writeInt(oldBuffer, 1);
+        ByteBufUtils.writeString(oldBuffer, "old");
+        var oldPacket = (CM_Pooled) ProtocolManager.read(oldBuffer);
+        Assert.assertSame(oldPacket, packet);
+        Assert.assertEquals(oldPacket.getA(), 1);
+        Assert.assertEquals(oldPacket.getB(), "old");
+        Assert.assertEquals(oldPacket.getC(), -1);
+
+        // 对象池中获取的EncodedPacketInfo在编码之后回收，valueOf创建的不会被回收
+        var channel = new EmbeddedChannel(new TcpCodecHandler());
+        var recyclablePacketInfo = EncodedPacketInfo.recyclable(pooled, null);
+        var packetInfo = EncodedPacketInfo.valueOf(pooled, null);
+        channel.writeOutbound(recyclablePacketInfo, packetInfo);
+        Assert.assertNull(recyclablePacketInfo.getPacket());
+        Assert.assertSame(packetInfo.getPacket(), pooled);
+        channel.releaseOutbound();
+    }
+
+    /**
+     * 模拟网关把原始字节的包通过linkChannel写出，再由对端的peerChannel读取
+     */
+    private Object forward(EmbeddedChannel linkChannel, ForwardPacketInfo forwardPacketInfo, IAttachment attachment, EmbeddedChannel peerChannel) {
+        linkChannel.writeOutbound(RawPacketInfo.valueOf(forwardPacketInfo.getPacketBuffer().retain(), attachment, forwardPacketInfo.isTrailingAttachment()));
+        forwardPacketInfo.release();
+        peerChannel.writeInbound((ByteBuf) linkChannel.readOutbound());
+        return peerChannel.readInbound();
+    }
+
+    @Test
+    public void testProtocolProfile() {
+        CM_Int cm = new CM_Int();
+        cm.setF("profile");
+
+        ProtocolProfiler.reset();
+        ProtocolProfiler.setEnable(true);
+        try {
+            ByteBuf writeBuff = Unpooled.buffer();
+            packetService.write(writeBuff, cm, attachment);
+            var wireBytes = writeBuff.readableBytes();
+            writeBuff.readerIndex(PacketService.PACKET_HEAD_LENGTH);
+            Assert.assertEquals(packetService.read(writeBuff).getPacket(), cm);
+
+            // 包体和附加包分别统计序列化的字节数，网络上的字节数包括包头和附加包，统计在包体的协议号上
+            var profile = ProtocolProfiler.profile(cm.protocolId());
+            Assert.assertEquals(profile.getWriteCount(), 1);
+            Assert.assertEquals(profile.getReadCount(), 1);
+            Assert.assertEquals(profile.getWriteBytes(), ProtocolManager.serializedSize(cm));
+            Assert.assertEquals(profile.getWireBytes(), 2L * wireBytes);
+            Assert.assertEquals(ProtocolProfiler.profile(attachment.protocolId()).getWriteCount(), 1);
+        } finally {
+            ProtocolProfiler.setEnable(false);
+        }
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        stream(new EmbeddedChannel(new TcpCodecHandler()), new EmbeddedChannel(new TcpCodecHandler()));
+    }
+
+    @Test
+    public void testStreamWireV2() throws Exception {
+        // v2的连接可以延迟解码，分块和确认必须在Router.receive()之前解码
+        var service = (PacketService) packetService;
+        service.setLazyDecode(true);
+        try {
+            var senderChannel = new EmbeddedChannel(new TcpCodecHandler(false, true));
+            var receiverChannel = new EmbeddedChannel(new TcpCodecHandler());
+            receiverChannel.writeInbound((ByteBuf) senderChannel.readOutbound());
+            senderChannel.writeInbound((ByteBuf) receiverChannel.readOutbound());
+            stream(senderChannel, receiverChannel);
+        } finally {
+            service.setLazyDecode(false);
+        }
+    }
+
+    private void stream(EmbeddedChannel senderChannel, EmbeddedChannel receiverChannel) throws Exception {
+        var random = new Random(1);
+        var bytes = new byte[300 * 1024];
+        random.nextBytes(bytes);
+        var senderSession = new Session(senderChannel);
+        var receiverSession = new Session(receiverChannel);
+
+        try {
+            // 内存中重组，窗口为2，每一轮最多只有2个分块在路上，普通的包可以插入到分块之间
+            var bufferFuture = new CompletableFuture<ByteBuf>();
+            StreamBus.setStreamHandler((session, name, totalSize) -> {
+                Assert.assertEquals(name, "replay");
+                Assert.assertEquals(totalSize, bytes.length);
+                return new BufferStreamSink(bufferFuture::complete);
+            });
+            var future = StreamBus.send(senderSession, "replay", Unpooled.wrappedBuffer(bytes), 64 * 1024, 2);
+            NetContext.getRouter().send(senderSession, new Ping(), null);
+            Assert.assertEquals(transferStream(future, senderChannel, senderSession, receiverChannel, receiverSession), List.of(StreamChunk.PROTOCOL_ID, StreamChunk.PROTOCOL_ID, Ping.PROTOCOL_ID));
+            Assert.assertTrue(future.isDone() && !future.isCompletedExceptionally());
+            var buffer = bufferFuture.get(1, TimeUnit.SECONDS);
+            Assert.assertArrayEquals(ByteBufUtils.readAllBytes(buffer), bytes);
+            buffer.release();
+
+            // 文件到文件，分块在发送的时候才从文件中读取
+            var sourceFile = Files.createTempFile("stream", ".source");
+            var targetFile = Files.createTempFile("stream", ".target");
+            Files.write(sourceFile, bytes);
+            var fileFuture = new CompletableFuture<Path>();
+            StreamBus.setStreamHandler((session, name, totalSize) -> {
+                try {
+                    return new FileStreamSink(targetFile, fileFuture::complete);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            future = NetContext.getRouter().sendStream(senderSession, sourceFile);
+            transferStream(future, senderChannel, senderSession, receiverChannel, receiverSession);
+            Assert.assertEquals(fileFuture.get(1, TimeUnit.SECONDS), targetFile);
+            Assert.assertArrayEquals(Files.readAllBytes(targetFile), bytes);
+            Files.delete(sourceFile);
+            Files.delete(targetFile);
+
+            // 接收方拒绝，发送方的future异常结束
+            StreamBus.setStreamHandler((session, name, totalSize) -> null);
+            future = StreamBus.send(senderSession, "rejected", Unpooled.wrappedBuffer(bytes));
+            transferStream(future, senderChannel, senderSession, receiverChannel, receiverSession);
+            Assert.assertTrue(future.isCompletedExceptionally());
+        } finally {
+            StreamBus.setStreamHandler(null);
+        }
+    }
+
+    /**
+     * 在两个channel之间来回传递包，直到流发送结束
+     *
+     * @return 第一轮接收方收到的包的协议号
+     */
+    private List<Short> transferStream(CompletableFuture<Void> future, EmbeddedChannel senderChannel, Session senderSession, EmbeddedChannel receiverChannel, Session receiverSession) throws Exception {
+        List<Short> firstRound = null;
+        while (!future.isDone()) {
+            ByteBuf buffer;
+            while ((buffer = senderChannel.readOutbound()) != null) {
+                receiverChannel.writeInbound(buffer);
+            }
+            var protocolIds = new ArrayList<Short>();
+            DecodedPacketInfo packetInfo;
+            while ((packetInfo = receiverChannel.readInbound()) != null) {
+                var packet = packetInfo.getPacket();
+                protocolIds.add(packet.protocolId());
+                if (packet.protocolId() == StreamChunk.PROTOCOL_ID) {
+                    Assert.assertTrue(packet instanceof StreamChunk);
+                    NetContext.getRouter().receive(receiverSession, packet, packetInfo.getAttachment());
+                } else if (packet instanceof LazyPacket) {
+                    ((LazyPacket) packet).release();
+                }
+            }
+            if (firstRound == null) {
+                firstRound = protocolIds;
+            }
+            Assert.assertFalse(protocolIds.isEmpty());
+
+            // 接收方在session对应的任务线程中写入分块，等待任务线程处理完再读取确认
+            TaskBus.executor((int) receiverSession.getSid()).submit(() -> {
+            }).get(1, TimeUnit.SECONDS);
+
+            while ((buffer = receiverChannel.readOutbound()) != null) {
+                senderChannel.writeInbound(buffer);
+            }
+            while ((packetInfo = senderChannel.readInbound()) != null) {
+                Assert.assertTrue(packetInfo.getPacket() instanceof StreamAck);
+                NetContext.getRouter().receive(senderSession, packetInfo.getPacket(), packetInfo.getAttachment());
+            }
+
+            // 发送方在session对应的任务线程中处理确认并发送下一个窗口
+            TaskBus.executor((int) senderSession.getSid()).submit(() -> {
+            }).get(1, TimeUnit.SECONDS);
+        }
+        return firstRound;
+    }
+
     @Test
     public void testCMInt() {
         CM_Int cm = new CM_Int();
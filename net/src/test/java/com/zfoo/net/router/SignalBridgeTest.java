@@ -13,21 +13,23 @@
 package com.zfoo.net.router;
 
 import com.zfoo.event.manager.EventBus;
+import com.zfoo.net.router.attachment.SignalAttachment;
 import com.zfoo.net.router.route.SignalBridge;
 import com.zfoo.scheduler.util.TimeUtils;
 import com.zfoo.util.ThreadUtils;
+import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author jaysunxiao
  * @version 3.0
  */
-@Ignore
 public class SignalBridgeTest {
 
     private final AtomicInteger atomicInteger = new AtomicInteger(0);
@@ -36,6 +38,7 @@ public class SignalBridgeTest {
     private final int count = 100_0000;
     private final int totalIndex = 10;
 
+    @Ignore
     @Test
     public void test() throws InterruptedException {
         // 预热
@@ -49,6 +52,31 @@ public class SignalBridgeTest {
         System.out.println(atomicInteger.get());
     }
 
+    @Test
+    public void timeoutTest() throws Exception {
+        var timeoutCount = SignalBridge.timeoutCount();
+        var pendingCount = SignalBridge.pendingCount();
+
+        // 没有收到回复的请求由时间轮移除，并且用null完成
+        var timeoutAttachment = new SignalAttachment();
+        SignalBridge.addSignalAttachment(timeoutAttachment, 50);
+        Assert.assertEquals(SignalBridge.pendingCount(), pendingCount + 1);
+        Assert.assertNull(timeoutAttachment.getResponseFuture().get(1, TimeUnit.SECONDS));
+        Assert.assertNull(SignalBridge.removeSignalAttachment(timeoutAttachment));
+        Assert.assertEquals(SignalBridge.timeoutCount(), timeoutCount + 1);
+        Assert.assertEquals(SignalBridge.pendingCount(), pendingCount);
+
+        // 在超时之前收到回复的请求会取消超时任务，取消的超时任务不会被统计为正在等待回复的请求
+        var answeredAttachment = new SignalAttachment();
+        SignalBridge.addSignalAttachment(answeredAttachment, 50);
+        Assert.assertSame(SignalBridge.removeSignalAttachment(answeredAttachment), answeredAttachment);
+        Assert.assertNull(SignalBridge.removeSignalAttachment(answeredAttachment));
+        Assert.assertEquals(SignalBridge.pendingCount(), pendingCount);
+        ThreadUtils.sleep(200);
+        Assert.assertFalse(answeredAttachment.getResponseFuture().isDone());
+        Assert.assertEquals(SignalBridge.timeoutCount(), timeoutCount + 1);
+    }
+
     public void arrayTest() throws InterruptedException {
         var startTime = TimeUtils.currentTimeMillis();
 
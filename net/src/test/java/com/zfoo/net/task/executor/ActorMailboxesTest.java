@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.task.executor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ActorMailboxesTest {
+
+    @Test
+    public void orderTest() throws Exception {
+        var keySize = 16;
+        var producerSize = 4;
+        var count = 1_0000;
+        var mailboxes = new ActorMailboxes(4);
+
+        // 每个生产者使用不同的key，同一个key的任务按照提交的顺序执行
+        var lastValues = new int[keySize * producerSize];
+        var disorder = new AtomicInteger(0);
+        var latch = new CountDownLatch(keySize * producerSize * count);
+        var producers = new Thread[producerSize];
+        for (var i = 0; i < producerSize; i++) {
+            var producer = i;
+            producers[i] = new Thread(() -> {
+                for (var j = 1; j <= count; j++) {
+                    for (var k = 0; k < keySize; k++) {
+                        var key = producer * keySize + k;
+                        var value = j;
+                        mailboxes.mailbox(key).execute(() -> {
+                            if (lastValues[key] + 1 != value) {
+                                disorder.incrementAndGet();
+                            }
+                            lastValues[key] = value;
+                            latch.countDown();
+                        });
+                    }
+                }
+            });
+            producers[i].start();
+        }
+
+        Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        Assert.assertEquals(disorder.get(), 0);
+        Assert.assertEquals(mailboxes.size(), keySize * producerSize);
+        mailboxes.getPool().shutdown();
+    }
+
+    @Test
+    public void headOfLineTest() throws Exception {
+        var mailboxes = new ActorMailboxes(2);
+        var blocker = new CountDownLatch(1);
+        var blocked = new CountDownLatch(1);
+        var hotKeyDone = new CountDownLatch(1);
+
+        // key为0的邮箱被阻塞，key为2的任务依然可以执行，固定线程数组的模式下0和2会hash到同一条线程
+        mailboxes.mailbox(0).execute(() -> {
+            blocked.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        mailboxes.mailbox(0).execute(hotKeyDone::countDown);
+        Assert.assertTrue(blocked.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals((int) mailboxes.mailbox(2).submit(() -> 2).get(1, TimeUnit.SECONDS), 2);
+        Assert.assertEquals(hotKeyDone.getCount(), 1);
+
+        blocker.countDown();
+        Assert.assertTrue(hotKeyDone.await(1, TimeUnit.SECONDS));
+        mailboxes.getPool().shutdown();
+    }
+
+    @Test
+    public void managedBlockTest() throws Exception {
+        var mailboxes = new ActorMailboxes(1);
+
+        // 只有一个工作线程，key为0的任务阻塞等待key为1的任务的结果，和在邮箱中syncAsk一样；
+        // CompletableFuture.get()使用了ManagedBlocker，线程池会补偿工作线程，不会死锁
+        var answer = new CompletableFuture<Integer>();
+        var result = mailboxes.mailbox(0).submit(() -> {
+            mailboxes.mailbox(1).execute(() -> answer.complete(1));
+            return answer.get(5, TimeUnit.SECONDS);
+        });
+        Assert.assertEquals((int) result.get(10, TimeUnit.SECONDS), 1);
+        mailboxes.getPool().shutdown();
+    }
+
+    @Test
+    public void expireTest() throws Exception {
+        var mailboxes = new ActorMailboxes(2);
+        var staleMailbox = mailboxes.mailbox(1);
+        Assert.assertEquals((int) staleMailbox.submit(() -> 1).get(1, TimeUnit.SECONDS), 1);
+
+        // 正在执行任务的邮箱不会过期
+        var blocker = new CountDownLatch(1);
+        mailboxes.mailbox(2).execute(() -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assert.assertEquals(mailboxes.expire(0), 1);
+        Assert.assertEquals(mailboxes.size(), 1);
+        blocker.countDown();
+
+        // 过期的邮箱被引用的时候，任务会交给这个key新的邮箱执行
+        Assert.assertEquals((int) staleMailbox.submit(() -> 2).get(1, TimeUnit.SECONDS), 2);
+        Assert.assertNotSame(mailboxes.mailbox(1), staleMailbox);
+        mailboxes.getPool().shutdown();
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.net.task.executor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class MpscExecutorTest {
+
+    @Test
+    public void multiProducerTest() throws Exception {
+        var producerSize = 4;
+        var count = 10_0000;
+        var executor = new MpscExecutor(Executors.defaultThreadFactory());
+
+        // 只在工作线程中读写，同一个生产者提交的任务按照提交的顺序执行
+        var lastValues = new int[producerSize];
+        var disorder = new AtomicInteger(0);
+        var latch = new CountDownLatch(producerSize * count);
+        var producers = new Thread[producerSize];
+        for (var i = 0; i < producerSize; i++) {
+            var producer = i;
+            producers[i] = new Thread(() -> {
+                for (var j = 1; j <= count; j++) {
+                    var value = j;
+                    executor.execute(() -> {
+                        if (lastValues[producer] + 1 != value) {
+                            disorder.incrementAndGet();
+                        }
+                        lastValues[producer] = value;
+                        latch.countDown();
+                    });
+                }
+            });
+            producers[i].start();
+        }
+
+        Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        Assert.assertEquals(disorder.get(), 0);
+
+        // 工作线程park之后可以被唤醒，抛出异常的任务不会影响后面的任务
+        Thread.sleep(100);
+        executor.execute(() -> {
+            throw new RuntimeException("mpsc executor test exception");
+        });
+        Assert.assertEquals((int) executor.submit(() -> 1).get(1, TimeUnit.SECONDS), 1);
+
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        Assert.assertTrue(executor.isTerminated());
+    }
+
+    @Test
+    public void shutdownTest() throws Exception {
+        var executor = new MpscExecutor(Executors.defaultThreadFactory());
+        var counter = new AtomicInteger(0);
+        var blocker = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (var i = 0; i < 100; i++) {
+            executor.execute(counter::incrementAndGet);
+        }
+
+        // shutdown之后拒绝新的任务，已经提交的任务会执行完
+        executor.shutdown();
+        try {
+            executor.execute(counter::incrementAndGet);
+            Assert.fail();
+        } catch (RejectedExecutionException e) {
+            // 预期的异常
+        }
+        Assert.assertFalse(executor.isTerminated());
+        blocker.countDown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        Assert.assertEquals(counter.get(), 100);
+    }
+
+    @Test
+    public void shutdownRaceTest() throws Exception {
+        // 和生产者并发shutdown，没有被拒绝的任务一定会被执行
+        for (var round = 0; round < 100; round++) {
+            var executor = new MpscExecutor(Executors.defaultThreadFactory());
+            var accepted = new AtomicInteger(0);
+            var executed = new AtomicInteger(0);
+            var producers = new Thread[4];
+            for (var i = 0; i < producers.length; i++) {
+                producers[i] = new Thread(() -> {
+                    for (var j = 0; j < 1000; j++) {
+                        try {
+                            executor.execute(executed::incrementAndGet);
+                            accepted.incrementAndGet();
+                        } catch (RejectedExecutionException e) {
+                            return;
+                        }
+                    }
+                });
+                producers[i].start();
+            }
+            executor.shutdown();
+            for (var producer : producers) {
+                producer.join();
+            }
+            Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            Assert.assertEquals(executed.get(), accepted.get());
+        }
+    }
+
+    @Test
+    public void shutdownWithRejectedProducersTest() throws Exception {
+        // shutdown之后仍然不停提交任务的生产者不会阻止工作线程退出
+        var executor = new MpscExecutor(Executors.defaultThreadFactory());
+        var running = new AtomicBoolean(true);
+        var producers = new Thread[4];
+        for (var i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(() -> {
+                while (running.get()) {
+                    try {
+                        executor.execute(() -> {
+                        });
+                    } catch (RejectedExecutionException e) {
+                        // 预期的异常
+                    }
+                }
+            });
+            producers[i].start();
+        }
+        Thread.sleep(50);
+        executor.shutdown();
+        try {
+            Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            running.set(false);
+            for (var producer : producers) {
+                producer.join();
+            }
+        }
+    }
+
+}
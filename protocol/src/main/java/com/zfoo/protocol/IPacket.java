@@ -24,9 +24,9 @@ public interface IPacket {
     /**
      * 这个类的协议号
      * <p>
-     * 子类可以不用重写这个方法，也能够通过反射自动获取到PROTOCOL_ID这个协议号，序列化一次对象只会调用一次，性能损失很小
+     * 子类可以不用重写这个方法，第一次调用的时候通过反射获取到PROTOCOL_ID这个协议号，之后从ClassValue的缓存中读取，没有锁
      * <p>
-     * 重写这个方法，使用多态获取协议号，可以提高一点性能
+     * 重写这个方法，使用多态获取协议号，可以提高一点性能；编译期预先生成协议注册类的时候，会给没有重写的协议类自动生成这个方法
      *
      * @return 协议号Id
      */
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.zfoo.protocol;
+
+import io.netty.util.Recycler;
+
+/**
+ * 被Pooled标注的协议需要实现这个接口，用来保存对象池的句柄，句柄需要使用transient修饰，不会被序列化
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public interface IPooledPacket extends IPacket {
+
+    Recycler.Handle<IPooledPacket> recyclerHandle();
+
+    void recyclerHandle(Recycler.Handle<IPooledPacket> handle);
+
+}
@@ -14,8 +14,11 @@ package com.zfoo.protocol;
 
 import com.zfoo.protocol.buffer.ByteBufUtils;
 import com.zfoo.protocol.generate.GenerateOperation;
+import com.zfoo.protocol.profile.ProtocolProfiler;
 import com.zfoo.protocol.registration.IProtocolRegistration;
+import com.zfoo.protocol.registration.PacketRecycler;
 import com.zfoo.protocol.registration.ProtocolAnalysis;
+import com.zfoo.protocol.registration.ProtocolClassValue;
 import com.zfoo.protocol.registration.ProtocolModule;
 import com.zfoo.protocol.util.AssertionUtils;
 import com.zfoo.protocol.xml.XmlProtocols;
@@ -36,8 +39,6 @@ public class ProtocolManager {
     public static final IProtocolRegistration[] protocols = new IProtocolRegistration[MAX_PROTOCOL_NUM];
     public static final ProtocolModule[] modules = new ProtocolModule[MAX_MODULE_NUM];
 
-    private static final Map<Class<?>, Short> protocolIdMap = new HashMap<>();
-
     static {
         // 初始化默认协议模块
         modules[0] = ProtocolModule.DEFAULT_PROTOCOL_MODULE;
@@ -48,16 +49,89 @@ public class ProtocolManager {
      */
     public static void write(ByteBuf buffer, IPacket packet) {
         var protocolId = packet.protocolId();
+        if (ProtocolProfiler.isEnable()) {
+            profileWrite(buffer, packet, protocolId);
+            return;
+        }
         // 写入协议号
         ByteBufUtils.writeShort(buffer, protocolId);
         // 写入包体
         protocols[protocolId].write(buffer, packet);
     }
 
+    private static void profileWrite(ByteBuf buffer, IPacket packet, short protocolId) {
+        var writerIndex = buffer.writerIndex();
+        var startTime = System.nanoTime();
+        ByteBufUtils.writeShort(buffer, protocolId);
+        protocols[protocolId].write(buffer, packet);
+        ProtocolProfiler.recordWrite(protocolId, buffer.writerIndex() - writerIndex, System.nanoTime() - startTime);
+    }
+
+    /**
+     * packet序列化之后准确的字节数，包括协议号
+     */
+    public static int serializedSize(IPacket packet) {
+        return 2 + protocols[packet.protocolId()].serializedSize(packet);
+    }
+
     public static IPacket read(ByteBuf buffer) {
+        if (ProtocolProfiler.isEnable()) {
+            return profileRead(buffer);
+        }
         return (IPacket) protocols[ByteBufUtils.readShort(buffer)].read(buffer);
     }
 
+    private static IPacket profileRead(ByteBuf buffer) {
+        var readerIndex = buffer.readerIndex();
+        var startTime = System.nanoTime();
+        var protocolId = ByteBufUtils.readShort(buffer);
+        var packet = (IPacket) protocols[protocolId].read(buffer);
+        ProtocolProfiler.recordRead(protocolId, buffer.readerIndex() - readerIndex, System.nanoTime() - startTime);
+        return packet;
+    }
+
+    /**
+     * 深拷贝一个协议对象，比序列化再反序列化或者json转换快很多，适合做状态的快照或者跨线程传递
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends IPacket> T copy(T packet) {
+        if (packet == null) {
+            return null;
+        }
+        return (T) protocols[packet.protocolId()].copy(packet);
+    }
+
+    /**
+     * 以json的格式直接把UTF-8字节写入buffer，输出和JsonUtils.object2String(packet)一致，但是没有反射和中间的String
+     */
+    public static void writeJson(ByteBuf buffer, IPacket packet) {
+        protocols[packet.protocolId()].writeJson(buffer, packet);
+    }
+
+    /**
+     * 以protobuf的编码格式写入，先写入协议号，再写入protobuf格式的包体，包体可以被第三方的protobuf客户端直接解析
+     */
+    public static void writeProtobuf(ByteBuf buffer, IPacket packet) {
+        var protocolId = packet.protocolId();
+        ByteBufUtils.writeShort(buffer, protocolId);
+        protocols[protocolId].writeProtobuf(buffer, packet);
+    }
+
+    /**
+     * 读取writeProtobuf写入的协议，包体为buffer中剩下的所有字节
+     */
+    public static IPacket readProtobuf(ByteBuf buffer) {
+        var protocolId = ByteBufUtils.readShort(buffer);
+        return (IPacket) protocols[protocolId].readProtobuf(buffer, buffer.writerIndex());
+    }
+
+    /**
+     * 回收被Pooled标注的协议对象，没有被Pooled标注的协议直接忽略
+     */
+    public static void recycle(IPacket packet) {
+        PacketRecycler.recycle(packet);
+    }
+
     public static IProtocolRegistration getProtocol(short protocolId) {
         var protocol = protocols[protocolId];
         AssertionUtils.notNull(protocol, "[protocolId:{}]协议不存在，可能没有注册该协议或者协议号错误", protocolId);
@@ -85,16 +159,19 @@ public class ProtocolManager {
         return moduleOptional.get();
     }
 
+    /**
+     * 协议类的协议号，没有重写protocolId()的协议每次发送都会调用，缓存在ClassValue中，没有锁
+     */
     public static short protocolId(Class<?> clazz) {
-        var protocolId = protocolIdMap.get(clazz);
-        if (protocolId == null) {
-            protocolId = ProtocolAnalysis.getProtocolIdByClass(clazz);
-            // 使用懒加载的方式，主要是想节省一点空间，实际运行只有IPacket没有重写protocolId的Response和Answer才会放进去
-            synchronized (protocolIdMap) {
-                protocolIdMap.put(clazz, protocolId);
-            }
-        }
-        return protocolId;
+        return ProtocolClassValue.of(clazz).protocolId();
+    }
+
+    public static IProtocolRegistration getProtocol(Class<?> clazz) {
+        return ProtocolClassValue.of(clazz).registration();
+    }
+
+    public static ProtocolModule moduleByClass(Class<?> clazz) {
+        return ProtocolClassValue.of(clazz).module();
     }
 
     public static void initProtocol(Set<Class<?>> protocolClassSet) {
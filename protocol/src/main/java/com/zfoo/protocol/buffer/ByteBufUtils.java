@@ -15,12 +15,15 @@ package com.zfoo.protocol.buffer;
 import com.zfoo.protocol.IPacket;
 import com.zfoo.protocol.collection.ArrayUtils;
 import com.zfoo.protocol.collection.CollectionUtils;
+import com.zfoo.protocol.collection.IntList;
+import com.zfoo.protocol.collection.LongList;
 import com.zfoo.protocol.registration.IProtocolRegistration;
 import com.zfoo.protocol.util.StringUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
-import io.netty.util.ReferenceCountUtil;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -169,7 +172,10 @@ public abstract class ByteBufUtils {
     }
 
 
-    private static int writeIntCount(int value) {
+    /**
+     * writeInt写入的字节数
+     */
+    public static int writeIntCount(int value) {
         value = (value << 1) ^ (value >> 31);
 
         if (value >>> 7 == 0) {
@@ -192,6 +198,10 @@ public abstract class ByteBufUtils {
     }
 
 
+    public static int writeIntBoxCount(Integer value) {
+        return writeIntCount(value == null ? 0 : value);
+    }
+
     public static void writeIntBox(ByteBuf byteBuf, Integer value) {
         writeInt(byteBuf, value == null ? 0 : value);
     }
@@ -294,6 +304,24 @@ public abstract class ByteBufUtils {
         return ((value >>> 1) ^ -(value & 1));
     }
 
+    /**
+     * writeLong写入的字节数
+     */
+    public static int writeLongCount(long value) {
+        long mask = (value << 1) ^ (value >> 63);
+
+        // 每个字节7个有效位，最后一个字节可以存8个有效位，所以最多9个字节
+        var bits = 64 - Long.numberOfLeadingZeros(mask);
+        if (bits <= 7) {
+            return 1;
+        }
+        return Math.min((bits + 6) / 7, 9);
+    }
+
+    public static int writeLongBoxCount(Long value) {
+        return writeLongCount(value == null ? 0L : value);
+    }
+
     public static void writeLongBox(ByteBuf byteBuf, Long value) {
         writeLong(byteBuf, value == null ? 0L : value);
     }
@@ -343,27 +371,35 @@ public abstract class ByteBufUtils {
             return;
         }
 
-        // 预估需要写入的字节数，并预留位置
-        var maxLength = ByteBufUtil.utf8MaxBytes(value);
-        var writeIntCountByte = writeInt(byteBuf, maxLength);
-
-        var length = byteBuf.writeCharSequence(value, StringUtils.DEFAULT_CHARSET);
+        // 先计算出准确的字节数，直接写入长度，不需要预留位置再移动字符串的字节
+        var length = utf8Length(value);
+        writeInt(byteBuf, length);
+        ByteBufUtil.reserveAndWriteUtf8(byteBuf, value, length);
+    }
 
-        var currentWriteIndex = byteBuf.writerIndex();
+    /**
+     * writeString写入的字节数
+     */
+    public static int writeStringCount(String value) {
+        if (StringUtils.isEmpty(value)) {
+            return 1;
+        }
+        var length = utf8Length(value);
+        return writeIntCount(length) + length;
+    }
 
-        // 因为写入的是可变长的int，如果预留的位置过多，则清除多余的位置
-        var padding = writeIntCountByte - writeIntCount(length);
-        if (padding == 0) {
-            byteBuf.writerIndex(currentWriteIndex - length - writeIntCountByte);
-            writeInt(byteBuf, length);
-            byteBuf.writerIndex(currentWriteIndex);
-        } else {
-            var retainedByteBuf = byteBuf.retainedSlice(currentWriteIndex - length, length);
-            byteBuf.writerIndex(currentWriteIndex - length - writeIntCountByte);
-            writeInt(byteBuf, length);
-            byteBuf.writeBytes(retainedByteBuf);
-            ReferenceCountUtil.release(retainedByteBuf);
+    /**
+     * 字符串UTF-8编码后准确的字节数
+     */
+    public static int utf8Length(String value) {
+        var length = value.length();
+        // ASCII快速路径，协议中绝大部分的字符串都是ASCII，一个字符对应一个字节
+        for (var i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                return i + ByteBufUtil.utf8Bytes(value, i, length);
+            }
         }
+        return length;
     }
 
     public static String readString(ByteBuf byteBuf) {
@@ -386,6 +422,24 @@ public abstract class ByteBufUtils {
         return value.charAt(0);
     }
 
+    /**
+     * writeChar写入的字节数，单独的代理字符会被编码为一个字节的'?'
+     */
+    public static int writeCharCount(char value) {
+        if (value < 0x80) {
+            return 2;
+        } else if (value < 0x800) {
+            return 3;
+        } else if (Character.isSurrogate(value)) {
+            return 2;
+        }
+        return 4;
+    }
+
+    public static int writeCharBoxCount(Character value) {
+        return writeCharCount(value == null ? Character.MIN_VALUE : value);
+    }
+
     public static void writeCharBox(ByteBuf byteBuf, Character value) {
         writeChar(byteBuf, value == null ? Character.MIN_VALUE : value);
     }
@@ -951,6 +1005,17 @@ public abstract class ByteBufUtils {
         }
     }
 
+    public static int writeIntArrayCount(int[] array) {
+        if (array == null) {
+            return 1;
+        }
+        var count = writeIntCount(array.length);
+        for (var value : array) {
+            count += writeIntCount(value);
+        }
+        return count;
+    }
+
     public static int[] readIntArray(ByteBuf byteBuf) {
         var length = readInt(byteBuf);
         var ints = new int[length];
@@ -1017,6 +1082,39 @@ public abstract class ByteBufUtils {
         return set;
     }
 
+    public static void writeIntPrimitiveList(ByteBuf byteBuf, IntList list) {
+        if (list == null) {
+            byteBuf.writeByte(0);
+            return;
+        }
+        var size = list.size();
+        writeInt(byteBuf, size);
+        for (var i = 0; i < size; i++) {
+            writeInt(byteBuf, list.getInt(i));
+        }
+    }
+
+    public static IntList readIntPrimitiveList(ByteBuf byteBuf) {
+        var length = readInt(byteBuf);
+        var list = new IntList(Math.max(length, 0));
+        for (var i = 0; i < length; i++) {
+            list.addInt(readInt(byteBuf));
+        }
+        return list;
+    }
+
+    public static int writeIntPrimitiveListCount(IntList list) {
+        if (list == null) {
+            return 1;
+        }
+        var size = list.size();
+        var count = writeIntCount(size);
+        for (var i = 0; i < size; i++) {
+            count += writeIntCount(list.getInt(i));
+        }
+        return count;
+    }
+
 
     //---------------------------------long--------------------------------------
     public static void writeLongArray(ByteBuf byteBuf, long[] array) {
@@ -1030,6 +1128,17 @@ public abstract class ByteBufUtils {
         }
     }
 
+    public static int writeLongArrayCount(long[] array) {
+        if (array == null) {
+            return 1;
+        }
+        var count = writeIntCount(array.length);
+        for (var value : array) {
+            count += writeLongCount(value);
+        }
+        return count;
+    }
+
     public static long[] readLongArray(ByteBuf byteBuf) {
         var length = readInt(byteBuf);
         var longs = new long[length];
@@ -1096,6 +1205,39 @@ public abstract class ByteBufUtils {
         return set;
     }
 
+    public static void writeLongPrimitiveList(ByteBuf byteBuf, LongList list) {
+        if (list == null) {
+            byteBuf.writeByte(0);
+            return;
+        }
+        var size = list.size();
+        writeInt(byteBuf, size);
+        for (var i = 0; i < size; i++) {
+            writeLong(byteBuf, list.getLong(i));
+        }
+    }
+
+    public static LongList readLongPrimitiveList(ByteBuf byteBuf) {
+        var length = readInt(byteBuf);
+        var list = new LongList(Math.max(length, 0));
+        for (var i = 0; i < length; i++) {
+            list.addLong(readLong(byteBuf));
+        }
+        return list;
+    }
+
+    public static int writeLongPrimitiveListCount(LongList list) {
+        if (list == null) {
+            return 1;
+        }
+        var size = list.size();
+        var count = writeIntCount(size);
+        for (var i = 0; i < size; i++) {
+            count += writeLongCount(list.getLong(i));
+        }
+        return count;
+    }
+
     //---------------------------------float--------------------------------------
     public static void writeFloatArray(ByteBuf byteBuf, float[] array) {
         if (array == null) {
@@ -1339,6 +1481,17 @@ public abstract class ByteBufUtils {
         }
     }
 
+    public static int writeCharArrayCount(char[] array) {
+        if (array == null) {
+            return 1;
+        }
+        var count = writeIntCount(array.length);
+        for (var value : array) {
+            count += writeCharCount(value);
+        }
+        return count;
+    }
+
     public static char[] readCharArray(ByteBuf byteBuf) {
         var length = readInt(byteBuf);
         var chars = new char[length];
@@ -1379,4 +1532,230 @@ public abstract class ByteBufUtils {
         }
     }
 
+    //---------------------------------packed array--------------------------------------
+    // 被Packed标注的基础类型数组，FIXED为小端的定长字节整体写入，DELTA_VARINT为和前一个元素的差值的zigzag varint
+    // 数组的长度和普通的数组一样使用varint，null和长度为0的数组一样
+    public static int writeFixedArrayCount(int length, int elementBytes) {
+        return writeIntCount(length) + length * elementBytes;
+    }
+
+    /**
+     * 整体写入的ByteBuffer，ByteBuf不是由一块连续的内存组成的时候返回null
+     */
+    private static ByteBuffer packedWriteBuffer(ByteBuf byteBuf, int length) {
+        byteBuf.ensureWritable(length);
+        if (byteBuf.nioBufferCount() != 1) {
+            return null;
+        }
+        return byteBuf.nioBuffer(byteBuf.writerIndex(), length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer packedReadBuffer(ByteBuf byteBuf, int length, int elementBytes) {
+        if (length < 0 || length > byteBuf.readableBytes() / elementBytes) {
+            throw new IndexOutOfBoundsException(StringUtils.format("packed数组的长度[{}]超过了可读的字节数[{}]", length, byteBuf.readableBytes()));
+        }
+        var byteBuffer = byteBuf.nioBuffer(byteBuf.readerIndex(), length * elementBytes).order(ByteOrder.LITTLE_ENDIAN);
+        byteBuf.skipBytes(length * elementBytes);
+        return byteBuffer;
+    }
+
+    public static void writeFixedShortArray(ByteBuf byteBuf, short[] array) {
+        if (array == null) {
+            byteBuf.writeByte(0);
+            return;
+        }
+        writeInt(byteBuf, array.length);
+        var byteBuffer = packedWriteBuffer(byteBuf, array.length * 2);
+        if (byteBuffer == null) {
+            for (var value : array) {
+                byteBuf.writeShortLE(value);
+            }
+            return;
+        }
+        byteBuffer.asShortBuffer().put(array);
+        byteBuf.writerIndex(byteBuf.writerIndex() + array.length * 2);
+    }
+
+    public static short[] readFixedShortArray(ByteBuf byteBuf) {
+        var length = readInt(byteBuf);
+        var byteBuffer = packedReadBuffer(byteBuf, length, 2);
+        var shorts = new short[length];
+        byteBuffer.asShortBuffer().get(shorts);
+        return shorts;
+    }
+
+    public static void writeFixedIntArray(ByteBuf byteBuf, int[] array) {
+        if (array == null) {
+            byteBuf.writeByte(0);
+            return;
+        }
+        writeInt(byteBuf, array.length);
+        var byteBuffer = packedWriteBuffer(byteBuf, array.length * 4);
+        if (byteBuffer == null) {
+            for (var value : array) {
+                byteBuf.writeIntLE(value);
+            }
+            return;
+        }
+        byteBuffer.asIntBuffer().put(array);
+        byteBuf.writerIndex(byteBuf.writerIndex() + array.length * 4);
+    }
+
+    public static int[] readFixedIntArray(ByteBuf byteBuf) {
+        var length = readInt(byteBuf);
+        var byteBuffer = packedReadBuffer(byteBuf, length, 4);
+        var ints = new int[length];
+        byteBuffer.asIntBuffer().get(ints);
+        return ints;
+    }
+
+    public static void writeFixedLongArray(ByteBuf byteBuf, long[] array) {
+        if (array == null) {
+            byteBuf.writeByte(0);
+            return;
+        }
+        writeInt(byteBuf, array.length);
+        var byteBuffer = packedWriteBuffer(byteBuf, array.length * 8);
+        if (byteBuffer == null) {
+            for (var value : array) {
+                byteBuf.writeLongLE(value);
+            }
+            return;
+        }
+        byteBuffer.asLongBuffer().put(array);
+        byteBuf.writerIndex(byteBuf.writerIndex() + array.length * 8);
+    }
+
+    public static long[] readFixedLongArray(ByteBuf byteBuf) {
+        var length = readInt(byteBuf);
+        var byteBuffer = packedReadBuffer(byteBuf, length, 8);
+        var longs = new long[length];
+        byteBuffer.asLongBuffer().get(longs);
+        return longs;
+    }
+
+    public static void writeFixedFloatArray(ByteBuf byteBuf, float[] array) {
+        if (array == null) {
+            byteBuf.writeByte(0);
+            return;
+        }
+        writeInt(byteBuf, array.length);
+        var byteBuffer = packedWriteBuffer(byteBuf, array.length * 4);
+        if (byteBuffer == null) {
+            for (var value : array) {
+                byteBuf.writeFloatLE(value);
+            }
+            return;
+        }
+        byteBuffer.asFloatBuffer().put(array);
+        byteBuf.writerIndex(byteBuf.writerIndex() + array.length * 4);
+    }
+
+    public static float[] readFixedFloatArray(ByteBuf byteBuf) {
+        var length = readInt(byteBuf);
+        var byteBuffer = packedReadBuffer(byteBuf, length, 4);
+        var floats = new float[length];
+        byteBuffer.asFloatBuffer().get(floats);
+        return floats;
+    }
+
+    public static void writeFixedDoubleArray(ByteBuf byteBuf, double[] array) {
+        if (array == null) {
+            byteBuf.writeByte(0);
+            return;
+        }
+        writeInt(byteBuf, array.length);
+        var byteBuffer = packedWriteBuffer(byteBuf, array.length * 8);
+        if (byteBuffer == null) {
+            for (var value : array) {
+                byteBuf.writeDoubleLE(value);
+            }
+            return;
+        }
+        byteBuffer.asDoubleBuffer().put(array);
+        byteBuf.writerIndex(byteBuf.writerIndex() + array.length * 8);
+    }
+
+    public static double[] readFixedDoubleArray(ByteBuf byteBuf) {
+        var length = readInt(byteBuf);
+        var byteBuffer = packedReadBuffer(byteBuf, length, 8);
+        var doubles = new double[length];
+        byteBuffer.asDoubleBuffer().get(doubles);
+        return doubles;
+    }
+
+    public static void writeDeltaIntArray(ByteBuf byteBuf, int[] array) {
+        if (array == null) {
+            byteBuf.writeByte(0);
+            return;
+        }
+        writeInt(byteBuf, array.length);
+        int previous = 0;
+        for (var value : array) {
+            writeInt(byteBuf, value - previous);
+            previous = value;
+        }
+    }
+
+    public static int writeDeltaIntArrayCount(int[] array) {
+        if (array == null) {
+            return 1;
+        }
+        var count = writeIntCount(array.length);
+        int previous = 0;
+        for (var value : array) {
+            count += writeIntCount(value - previous);
+            previous = value;
+        }
+        return count;
+    }
+
+    public static int[] readDeltaIntArray(ByteBuf byteBuf) {
+        var length = readInt(byteBuf);
+        var ints = new int[length];
+        int previous = 0;
+        for (var i = 0; i < length; i++) {
+            previous += readInt(byteBuf);
+            ints[i] = previous;
+        }
+        return ints;
+    }
+
+    public static void writeDeltaLongArray(ByteBuf byteBuf, long[] array) {
+        if (array == null) {
+            byteBuf.writeByte(0);
+            return;
+        }
+        writeInt(byteBuf, array.length);
+        long previous = 0;
+        for (var value : array) {
+            writeLong(byteBuf, value - previous);
+            previous = value;
+        }
+    }
+
+    public static int writeDeltaLongArrayCount(long[] array) {
+        if (array == null) {
+            return 1;
+        }
+        var count = writeIntCount(array.length);
+        long previous = 0;
+        for (var value : array) {
+            count += writeLongCount(value - previous);
+            previous = value;
+        }
+        return count;
+    }
+
+    public static long[] readDeltaLongArray(ByteBuf byteBuf) {
+        var length = readInt(byteBuf);
+        var longs = new long[length];
+        long previous = 0;
+        for (var i = 0; i < length; i++) {
+            previous += readLong(byteBuf);
+            longs[i] = previous;
+        }
+        return longs;
+    }
+
 }
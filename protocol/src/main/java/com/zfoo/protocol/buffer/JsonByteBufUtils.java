@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.buffer;
+
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.CharBuffer;
+import java.util.Base64;
+
+/**
+ * 直接把json的UTF-8字节写入ByteBuf，没有中间的String，格式和JsonUtils（jackson）的默认输出一致
+ * <p>
+ * 对象和数组的每个元素后面都先写一个逗号，结束的时候如果最后一个字节是逗号则直接替换成结束符号，这样生成的代码不需要判断是不是第一个元素
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class JsonByteBufUtils {
+
+    private static final byte[] NULL = StringUtils.bytes("null");
+    private static final byte[] TRUE = StringUtils.bytes("true");
+    private static final byte[] FALSE = StringUtils.bytes("false");
+    private static final byte[] MIN_LONG = StringUtils.bytes(String.valueOf(Long.MIN_VALUE));
+    private static final byte[] HEX = StringUtils.bytes("0123456789abcdef");
+
+    //---------------------------------结构--------------------------------------
+    public static void writeObjectStart(ByteBuf byteBuf) {
+        byteBuf.writeByte('{');
+    }
+
+    public static void writeObjectEnd(ByteBuf byteBuf) {
+        writeEnd(byteBuf, '}');
+    }
+
+    public static void writeArrayStart(ByteBuf byteBuf) {
+        byteBuf.writeByte('[');
+    }
+
+    public static void writeArrayEnd(ByteBuf byteBuf) {
+        writeEnd(byteBuf, ']');
+    }
+
+    public static void writeComma(ByteBuf byteBuf) {
+        byteBuf.writeByte(',');
+    }
+
+    private static void writeEnd(ByteBuf byteBuf, char end) {
+        var lastIndex = byteBuf.writerIndex() - 1;
+        if (byteBuf.getByte(lastIndex) == ',') {
+            byteBuf.setByte(lastIndex, end);
+        } else {
+            byteBuf.writeByte(end);
+        }
+    }
+
+    /**
+     * 写入"name":
+     */
+    public static void writeFieldName(ByteBuf byteBuf, String name) {
+        writeString(byteBuf, name);
+        byteBuf.writeByte(':');
+    }
+
+    /**
+     * map的key在json中只能是字符串，整数直接写入数字，其它类型和jackson一样使用toString()
+     */
+    public static void writeMapKey(ByteBuf byteBuf, Object key) {
+        if (key instanceof String) {
+            writeString(byteBuf, (String) key);
+        } else if (key instanceof Integer || key instanceof Long || key instanceof Short || key instanceof Byte) {
+            byteBuf.writeByte('"');
+            writeLong(byteBuf, ((Number) key).longValue());
+            byteBuf.writeByte('"');
+        } else {
+            writeString(byteBuf, String.valueOf(key));
+        }
+        byteBuf.writeByte(':');
+    }
+
+    public static void writeNull(ByteBuf byteBuf) {
+        byteBuf.writeBytes(NULL);
+    }
+
+    //---------------------------------boolean--------------------------------------
+    public static void writeBoolean(ByteBuf byteBuf, boolean value) {
+        byteBuf.writeBytes(value ? TRUE : FALSE);
+    }
+
+    public static void writeBooleanBox(ByteBuf byteBuf, Boolean value) {
+        if (value == null) {
+            writeNull(byteBuf);
+            return;
+        }
+        writeBoolean(byteBuf, value);
+    }
+
+    //---------------------------------整数--------------------------------------
+    public static void writeByte(ByteBuf byteBuf, byte value) {
+        writeLong(byteBuf, value);
+    }
+
+    public static void writeByteBox(ByteBuf byteBuf, Byte value) {
+        if (value == null) {
+            writeNull(byteBuf);
+            return;
+        }
+        writeLong(byteBuf, value);
+    }
+
+    public static void writeShort(ByteBuf byteBuf, short value) {
+        writeLong(byteBuf, value);
+    }
+
+    public static void writeShortBox(ByteBuf byteBuf, Short value) {
+        if (value == null) {
+            writeNull(byteBuf);
+            return;
+        }
+        writeLong(byteBuf, value);
+    }
+
+    public static void writeInt(ByteBuf byteBuf, int value) {
+        writeLong(byteBuf, value);
+    }
+
+    public static void writeIntBox(ByteBuf byteBuf, Integer value) {
+        if (value == null) {
+            writeNull(byteBuf);
+            return;
+        }
+        writeLong(byteBuf, value);
+    }
+
+    public static void writeLongBox(ByteBuf byteBuf, Long value) {
+        if (value == null) {
+            writeNull(byteBuf);
+            return;
+        }
+        writeLong(byteBuf, value);
+    }
+
+    /**
+     * 先计算数字的位数，再从后往前直接写入每一位的ASCII
+     */
+    public static void writeLong(ByteBuf byteBuf, long value) {
+        if (value == Long.MIN_VALUE) {
+            byteBuf.writeBytes(MIN_LONG);
+            return;
+        }
+        if (value < 0) {
+            byteBuf.writeByte('-');
+            value = -value;
+        }
+
+        var digits = 1;
+        for (var n = value / 10; n != 0; n /= 10) {
+            digits++;
+        }
+
+        byteBuf.ensureWritable(digits);
+        var writerIndex = byteBuf.writerIndex();
+        for (var i = writerIndex + digits - 1; i >= writerIndex; i--) {
+            byteBuf.setByte(i, (int) ('0' + value % 10));
+            value /= 10;
+        }
+        byteBuf.writerIndex(writerIndex + digits);
+    }
+
+    //---------------------------------浮点数--------------------------------------
+
+    /**
+     * 浮点数的最短表示算法比较复杂，直接使用jdk的算法，和jackson的输出一样；NaN和Infinity不是合法的json数字，和jackson一样写成字符串
+     */
+    public static void writeFloat(ByteBuf byteBuf, float value) {
+        if (Float.isFinite(value)) {
+            byteBuf.writeCharSequence(Float.toString(value), StringUtils.DEFAULT_CHARSET);
+        } else {
+            writeString(byteBuf, Float.toString(value));
+        }
+    }
+
+    public static void writeFloatBox(ByteBuf byteBuf, Float value) {
+        if (value == null) {
+            writeNull(byteBuf);
+            return;
+        }
+        writeFloat(byteBuf, value);
+    }
+
+    public static void writeDouble(ByteBuf byteBuf, double value) {
+        if (Double.isFinite(value)) {
+            byteBuf.writeCharSequence(Double.toString(value), StringUtils.DEFAULT_CHARSET);
+        } else {
+            writeString(byteBuf, Double.toString(value));
+        }
+    }
+
+    public static void writeDoubleBox(ByteBuf byteBuf, Double value) {
+        if (value == null) {
+            writeNull(byteBuf);
+            return;
+        }
+        writeDouble(byteBuf, value);
+    }
+
+    //---------------------------------字符和字符串--------------------------------------
+    public static void writeChar(ByteBuf byteBuf, char value) {
+        byteBuf.writeByte('"');
+        writeEscapedChar(byteBuf, value);
+        byteBuf.writeByte('"');
+    }
+
+    public static void writeCharBox(ByteBuf byteBuf, Character value) {
+        if (value == null) {
+            writeNull(byteBuf);
+            return;
+        }
+        writeChar(byteBuf, value);
+    }
+
+    public static void writeString(ByteBuf byteBuf, String value) {
+        if (value == null) {
+            writeNull(byteBuf);
+            return;
+        }
+        byteBuf.writeByte('"');
+        writeEscaped(byteBuf, value, 0, value.length());
+        byteBuf.writeByte('"');
+    }
+
+    /**
+     * jackson把char[]当成字符串
+     */
+    public static void writeCharArray(ByteBuf byteBuf, char[] value) {
+        if (value == null) {
+            writeNull(byteBuf);
+            return;
+        }
+        byteBuf.writeByte('"');
+        writeEscaped(byteBuf, CharBuffer.wrap(value), 0, value.length);
+        byteBuf.writeByte('"');
+    }
+
+    /**
+     * jackson把byte[]写成base64的字符串
+     */
+    public static void writeByteArray(ByteBuf byteBuf, byte[] value) {
+        if (value == null) {
+            writeNull(byteBuf);
+            return;
+        }
+        byteBuf.writeByte('"');
+        byteBuf.writeBytes(Base64.getEncoder().encode(value));
+        byteBuf.writeByte('"');
+    }
+
+    private static void writeEscaped(ByteBuf byteBuf, CharSequence value, int start, int end) {
+        for (var i = start; i < end; i++) {
+            var c = value.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                var codePoint = Character.toCodePoint(c, value.charAt(++i));
+                byteBuf.writeByte(0xF0 | (codePoint >> 18));
+                byteBuf.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                byteBuf.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                byteBuf.writeByte(0x80 | (codePoint & 0x3F));
+            } else {
+                writeEscapedChar(byteBuf, c);
+            }
+        }
+    }
+
+    private static void writeEscapedChar(ByteBuf byteBuf, char c) {
+        if (c >= 0x800) {
+            if (Character.isSurrogate(c)) {
+                // 不成对的代理字符不是合法的UTF-16，和netty的ByteBufUtil.writeUtf8一样替换成问号
+                byteBuf.writeByte('?');
+                return;
+            }
+            byteBuf.writeByte(0xE0 | (c >> 12));
+            byteBuf.writeByte(0x80 | ((c >> 6) & 0x3F));
+            byteBuf.writeByte(0x80 | (c & 0x3F));
+            return;
+        }
+        if (c >= 0x80) {
+            byteBuf.writeByte(0xC0 | (c >> 6));
+            byteBuf.writeByte(0x80 | (c & 0x3F));
+            return;
+        }
+        switch (c) {
+            case '"':
+            case '\\':
+                byteBuf.writeByte('\\');
+                byteBuf.writeByte(c);
+                return;
+            case '\n':
+                byteBuf.writeByte('\\');
+                byteBuf.writeByte('n');
+                return;
+            case '\r':
+                byteBuf.writeByte('\\');
+                byteBuf.writeByte('r');
+                return;
+            case '\t':
+                byteBuf.writeByte('\\');
+                byteBuf.writeByte('t');
+                return;
+            case '\b':
+                byteBuf.writeByte('\\');
+                byteBuf.writeByte('b');
+                return;
+            case '\f':
+                byteBuf.writeByte('\\');
+                byteBuf.writeByte('f');
+                return;
+            default:
+        }
+        if (c < 0x20) {
+            byteBuf.writeByte('\\');
+            byteBuf.writeByte('u');
+            byteBuf.writeByte('0');
+            byteBuf.writeByte('0');
+            byteBuf.writeByte(HEX[c >> 4]);
+            byteBuf.writeByte(HEX[c & 0xF]);
+            return;
+        }
+        byteBuf.writeByte(c);
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.buffer;
+
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+/**
+ * protobuf的编码格式，和google的CodedOutputStream，CodedInputStream的编码完全一样，直接读写ByteBuf
+ * <p>
+ * tag = (field_number << 3) | wire_type；int32和int64为不使用zigzag的varint，负数固定占用10个字节；float和double为小端的定长
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class ProtobufByteBufUtils {
+
+    public static final int WIRETYPE_VARINT = 0;
+    public static final int WIRETYPE_FIXED64 = 1;
+    public static final int WIRETYPE_LENGTH_DELIMITED = 2;
+    public static final int WIRETYPE_FIXED32 = 5;
+
+    public static int tag(int fieldNumber, int wireType) {
+        return (fieldNumber << 3) | wireType;
+    }
+
+    //---------------------------------varint--------------------------------------
+    public static void writeRawVarint32(ByteBuf byteBuf, int value) {
+        while ((value & ~0x7F) != 0) {
+            byteBuf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        byteBuf.writeByte(value);
+    }
+
+    public static void writeRawVarint64(ByteBuf byteBuf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            byteBuf.writeByte(((int) value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        byteBuf.writeByte((int) value);
+    }
+
+    public static int readRawVarint32(ByteBuf byteBuf) {
+        return (int) readRawVarint64(byteBuf);
+    }
+
+    public static long readRawVarint64(ByteBuf byteBuf) {
+        var result = 0L;
+        for (var shift = 0; shift < 64; shift += 7) {
+            var b = byteBuf.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new RunException("protobuf的varint格式错误，超过了10个字节");
+    }
+
+    public static int varint32Size(int value) {
+        if ((value & (~0 << 7)) == 0) {
+            return 1;
+        } else if ((value & (~0 << 14)) == 0) {
+            return 2;
+        } else if ((value & (~0 << 21)) == 0) {
+            return 3;
+        } else if ((value & (~0 << 28)) == 0) {
+            return 4;
+        }
+        return 5;
+    }
+
+    //---------------------------------标量--------------------------------------
+    public static void writeBool(ByteBuf byteBuf, boolean value) {
+        byteBuf.writeByte(value ? 1 : 0);
+    }
+
+    public static void writeBoolBox(ByteBuf byteBuf, Boolean value) {
+        writeBool(byteBuf, value != null && value);
+    }
+
+    public static boolean readBool(ByteBuf byteBuf) {
+        return readRawVarint64(byteBuf) != 0;
+    }
+
+    /**
+     * int32的负数和int64一样写入10个字节，byte，short，char在protobuf中都是int32
+     */
+    public static void writeInt32(ByteBuf byteBuf, int value) {
+        if (value >= 0) {
+            writeRawVarint32(byteBuf, value);
+        } else {
+            writeRawVarint64(byteBuf, value);
+        }
+    }
+
+    public static void writeInt32Box(ByteBuf byteBuf, Integer value) {
+        writeInt32(byteBuf, value == null ? 0 : value);
+    }
+
+    public static void writeByteBox(ByteBuf byteBuf, Byte value) {
+        writeInt32(byteBuf, value == null ? 0 : value);
+    }
+
+    public static void writeShortBox(ByteBuf byteBuf, Short value) {
+        writeInt32(byteBuf, value == null ? 0 : value);
+    }
+
+    public static void writeCharBox(ByteBuf byteBuf, Character value) {
+        writeInt32(byteBuf, value == null ? 0 : value);
+    }
+
+    public static int readInt32(ByteBuf byteBuf) {
+        return (int) readRawVarint64(byteBuf);
+    }
+
+    public static void writeInt64(ByteBuf byteBuf, long value) {
+        writeRawVarint64(byteBuf, value);
+    }
+
+    public static void writeInt64Box(ByteBuf byteBuf, Long value) {
+        writeRawVarint64(byteBuf, value == null ? 0 : value);
+    }
+
+    public static long readInt64(ByteBuf byteBuf) {
+        return readRawVarint64(byteBuf);
+    }
+
+    public static void writeFloat(ByteBuf byteBuf, float value) {
+        byteBuf.writeIntLE(Float.floatToRawIntBits(value));
+    }
+
+    public static void writeFloatBox(ByteBuf byteBuf, Float value) {
+        writeFloat(byteBuf, value == null ? 0F : value);
+    }
+
+    public static float readFloat(ByteBuf byteBuf) {
+        return Float.intBitsToFloat(byteBuf.readIntLE());
+    }
+
+    public static void writeDouble(ByteBuf byteBuf, double value) {
+        byteBuf.writeLongLE(Double.doubleToRawLongBits(value));
+    }
+
+    public static void writeDoubleBox(ByteBuf byteBuf, Double value) {
+        writeDouble(byteBuf, value == null ? 0D : value);
+    }
+
+    public static double readDouble(ByteBuf byteBuf) {
+        return Double.longBitsToDouble(byteBuf.readLongLE());
+    }
+
+    public static void writeString(ByteBuf byteBuf, String value) {
+        if (StringUtils.isEmpty(value)) {
+            byteBuf.writeByte(0);
+            return;
+        }
+        var length = ByteBufUtils.utf8Length(value);
+        writeRawVarint32(byteBuf, length);
+        ByteBufUtil.reserveAndWriteUtf8(byteBuf, value, length);
+    }
+
+    public static String readString(ByteBuf byteBuf) {
+        var length = readRawVarint32(byteBuf);
+        return length <= 0 ? StringUtils.EMPTY : (String) byteBuf.readCharSequence(length, StringUtils.DEFAULT_CHARSET);
+    }
+
+    //---------------------------------length delimited--------------------------------------
+
+    /**
+     * 嵌套的message和packed的repeated字段需要先写长度，先预留一个字节，写完之后再回填长度
+     *
+     * @return 预留的长度所在的位置
+     */
+    public static int writeLengthStart(ByteBuf byteBuf) {
+        var lengthIndex = byteBuf.writerIndex();
+        byteBuf.writeByte(0);
+        return lengthIndex;
+    }
+
+    /**
+     * 回填长度，长度超过127的时候varint超过一个字节，需要把后面的内容整体往后移动
+     */
+    public static void writeLengthEnd(ByteBuf byteBuf, int lengthIndex) {
+        var bodyIndex = lengthIndex + 1;
+        var length = byteBuf.writerIndex() - bodyIndex;
+        if (length < 0x80) {
+            byteBuf.setByte(lengthIndex, length);
+            return;
+        }
+
+        var shift = varint32Size(length) - 1;
+        byteBuf.ensureWritable(shift);
+        if (byteBuf.hasArray()) {
+            var array = byteBuf.array();
+            var arrayBodyIndex = byteBuf.arrayOffset() + bodyIndex;
+            System.arraycopy(array, arrayBodyIndex, array, arrayBodyIndex + shift, length);
+        } else {
+            for (var i = byteBuf.writerIndex() - 1; i >= bodyIndex; i--) {
+                byteBuf.setByte(i + shift, byteBuf.getByte(i));
+            }
+        }
+        byteBuf.writerIndex(lengthIndex);
+        writeRawVarint32(byteBuf, length);
+        byteBuf.writerIndex(bodyIndex + shift + length);
+    }
+
+    /**
+     * 读取长度，返回这一段内容结束的绝对位置
+     */
+    public static int readLimit(ByteBuf byteBuf) {
+        var length = readRawVarint32(byteBuf);
+        return byteBuf.readerIndex() + length;
+    }
+
+    /**
+     * 跳过不认识的字段，协议增加字段之后老版本仍然可以解析
+     */
+    public static void skipField(ByteBuf byteBuf, int tag) {
+        switch (tag & 0x7) {
+            case WIRETYPE_VARINT:
+                readRawVarint64(byteBuf);
+                break;
+            case WIRETYPE_FIXED64:
+                byteBuf.skipBytes(8);
+                break;
+            case WIRETYPE_LENGTH_DELIMITED:
+                byteBuf.skipBytes(readRawVarint32(byteBuf));
+                break;
+            case WIRETYPE_FIXED32:
+                byteBuf.skipBytes(4);
+                break;
+            default:
+                throw new RunException("不支持的protobuf的wire type[tag:{}]", tag);
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.collection;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 基础类型long的List，内部直接使用long[]存储，没有装箱和拆箱
+ * <p>
+ * 作为协议的字段时序列化格式和List<Long>完全一样，其它语言生成的协议仍然是List<Long>，可以直接替换
+ * <p>
+ * 显式的实现List<Long>接口，协议解析的时候通过这个泛型接口得到和List<Long>一样的泛型类型
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class LongList extends AbstractList<Long> implements List<Long>, RandomAccess {
+
+    private static final long[] EMPTY_ELEMENT_DATA = {};
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private long[] elementData;
+
+    private int size;
+
+    public LongList() {
+        this.elementData = EMPTY_ELEMENT_DATA;
+    }
+
+    public LongList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        }
+        this.elementData = initialCapacity == 0 ? EMPTY_ELEMENT_DATA : new long[initialCapacity];
+    }
+
+    public LongList(long[] array) {
+        this.elementData = ArrayUtils.isEmpty(array) ? EMPTY_ELEMENT_DATA : Arrays.copyOf(array, array.length);
+        this.size = elementData.length;
+    }
+
+    public long getLong(int index) {
+        checkIndex(index);
+        return elementData[index];
+    }
+
+    public long setLong(int index, long value) {
+        checkIndex(index);
+        var oldValue = elementData[index];
+        elementData[index] = value;
+        return oldValue;
+    }
+
+    public boolean addLong(long value) {
+        modCount++;
+        if (size == elementData.length) {
+            grow(size + 1);
+        }
+        elementData[size++] = value;
+        return true;
+    }
+
+    public void addLong(int index, long value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+        }
+        modCount++;
+        if (size == elementData.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elementData, index, elementData, index + 1, size - index);
+        elementData[index] = value;
+        size++;
+    }
+
+    public long removeLongAt(int index) {
+        checkIndex(index);
+        modCount++;
+        var oldValue = elementData[index];
+        var numMoved = size - index - 1;
+        if (numMoved > 0) {
+            System.arraycopy(elementData, index + 1, elementData, index, numMoved);
+        }
+        size--;
+        return oldValue;
+    }
+
+    public int indexOfLong(long value) {
+        for (var i = 0; i < size; i++) {
+            if (elementData[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean containsLong(long value) {
+        return indexOfLong(value) >= 0;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elementData.length) {
+            modCount++;
+            grow(minCapacity);
+        }
+    }
+
+    public long[] toLongArray() {
+        return Arrays.copyOf(elementData, size);
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    public Long set(int index, Long element) {
+        return setLong(index, element);
+    }
+
+    @Override
+    public boolean add(Long element) {
+        return addLong(element);
+    }
+
+    @Override
+    public void add(int index, Long element) {
+        addLong(index, element);
+    }
+
+    @Override
+    public Long remove(int index) {
+        return removeLongAt(index);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return (o instanceof Long) ? indexOfLong((Long) o) : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        modCount++;
+        size = 0;
+    }
+
+    private void grow(int minCapacity) {
+        var oldCapacity = elementData.length;
+        var newCapacity = Math.max(Math.max(minCapacity, oldCapacity + (oldCapacity >> 1)), DEFAULT_CAPACITY);
+        elementData = Arrays.copyOf(elementData, newCapacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+        }
+    }
+
+    private String outOfBoundsMsg(int index) {
+        return "Index: " + index + ", Size: " + size;
+    }
+
+}
@@ -41,6 +41,13 @@ public class GenerateOperation {
      */
     private String protocolPath;
 
+    /**
+     * 预先生成协议注册类的输出路径，一般为编译输出路径target/classes，默认为空不生成
+     * <p>
+     * 设置这个路径会把javassist字节码增强生成的IProtocolRegistration类和索引文件写到这个路径，运行的时候会直接加载，不再使用javassist编译
+     */
+    private String registrationPath;
+
     /**
      * 保留参数
      */
@@ -67,6 +74,14 @@ public class GenerateOperation {
         this.foldProtocol = foldProtocol;
     }
 
+    public String getRegistrationPath() {
+        return registrationPath;
+    }
+
+    public void setRegistrationPath(String registrationPath) {
+        this.registrationPath = registrationPath;
+    }
+
     public String getProtocolParam() {
         return protocolParam;
     }
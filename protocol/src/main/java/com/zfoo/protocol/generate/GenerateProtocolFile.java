@@ -13,6 +13,8 @@
 package com.zfoo.protocol.generate;
 
 import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.collection.IntList;
+import com.zfoo.protocol.collection.LongList;
 import com.zfoo.protocol.registration.IProtocolRegistration;
 import com.zfoo.protocol.registration.ProtocolAnalysis;
 import com.zfoo.protocol.registration.ProtocolRegistration;
@@ -53,6 +55,17 @@ public abstract class GenerateProtocolFile {
         return builder;
     }
 
+    /**
+     * IntList和LongList在其它语言中就是List<Integer>和List<Long>，序列化格式完全一样
+     */
+    public static String toGenericTypeName(String typeName) {
+        // Class.toString()会带上class前缀
+        return typeName.replace(IntList.class.toString(), IntList.class.getCanonicalName())
+                .replace(LongList.class.toString(), LongList.class.getCanonicalName())
+                .replace(IntList.class.getCanonicalName(), "java.util.List<java.lang.Integer>")
+                .replace(LongList.class.getCanonicalName(), "java.util.List<java.lang.Long>");
+    }
+
     public static void clear() {
         generateProtocolFilter = null;
         index = null;
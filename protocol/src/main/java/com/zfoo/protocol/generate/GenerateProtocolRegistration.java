@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.generate;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.registration.EnhanceUtils;
+import com.zfoo.protocol.util.AssertionUtils;
+import com.zfoo.protocol.util.ClassUtils;
+import com.zfoo.protocol.util.DomUtils;
+import com.zfoo.protocol.xml.XmlProtocols;
+
+import java.io.IOException;
+
+/**
+ * 编译期预先生成协议注册类，避免每次启动都使用javassist编译所有的协议
+ * <p>
+ * 一般在maven的process-classes阶段通过exec-maven-plugin调用，参数为：编译输出路径 协议文件的类路径
+ * <p>
+ * 生成的类和javassist在运行时生成的类完全一样，同时会生成索引文件{@link EnhanceUtils#PRECOMPILED_INDEX}，
+ * 运行的时候ProtocolManager.initProtocol会直接加载生成代码没有变化的协议注册类，没有预先生成或者协议发生变化的协议仍然使用javassist编译
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class GenerateProtocolRegistration {
+
+    /**
+     * @param args args[0]为输出路径，一般为${project.build.outputDirectory}；args[1]为协议文件在类路径中的位置，如protocol.xml
+     */
+    public static void main(String[] args) throws IOException {
+        AssertionUtils.isTrue(args.length >= 2, "[{}]需要两个参数：编译输出路径 协议文件的类路径", GenerateProtocolRegistration.class.getSimpleName());
+
+        var generateOperation = new GenerateOperation();
+        generateOperation.setRegistrationPath(args[0]);
+
+        try (var inputStream = ClassUtils.getFileFromClassPath(args[1])) {
+            var xmlProtocols = DomUtils.inputStream2Object(inputStream, XmlProtocols.class);
+            ProtocolManager.initProtocol(xmlProtocols, generateOperation);
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.profile;
+
+import java.util.List;
+
+/**
+ * 协议统计的JMX接口，可以使用jconsole或者jmc连接之后查看和开关
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public interface IProtocolProfilerMXBean {
+
+    boolean isEnable();
+
+    void setEnable(boolean enable);
+
+    void reset();
+
+    /**
+     * 按照序列化的总字节数从大到小排序
+     */
+    List<ProtocolProfile> getProfiles();
+
+    String dump();
+
+}
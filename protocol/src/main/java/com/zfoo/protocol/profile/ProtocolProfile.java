@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.profile;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个协议的统计数据，所有的计数器都是分段的LongAdder，多线程同时写入没有竞争
+ * <p>
+ * size为序列化之后的字节数，包括2个字节的协议号；wireBytes为网络上实际发送和接收的字节数，包括包头，附加包和压缩
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ProtocolProfile {
+
+    /**
+     * 序列化字节数的直方图，第i个桶统计[2^(i-1), 2^i)大小的包，最后一个桶统计所有更大的包
+     */
+    public static final int HISTOGRAM_BUCKETS = 25;
+
+    private final short protocolId;
+
+    private final LongAdder writeCount = new LongAdder();
+    private final LongAdder writeBytes = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+
+    private final LongAdder readCount = new LongAdder();
+    private final LongAdder readBytes = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+
+    private final LongAdder wireBytes = new LongAdder();
+
+    private final LongAccumulator maxSize = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder[] sizeHistogram = new LongAdder[HISTOGRAM_BUCKETS];
+
+    public ProtocolProfile(short protocolId) {
+        this.protocolId = protocolId;
+        for (var i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            sizeHistogram[i] = new LongAdder();
+        }
+    }
+
+    public static int histogramBucket(int size) {
+        return Math.min(Integer.SIZE - Integer.numberOfLeadingZeros(size), HISTOGRAM_BUCKETS - 1);
+    }
+
+    void recordWrite(int size, long nanos) {
+        writeCount.increment();
+        writeBytes.add(size);
+        writeNanos.add(nanos);
+        recordSize(size);
+    }
+
+    void recordRead(int size, long nanos) {
+        readCount.increment();
+        readBytes.add(size);
+        readNanos.add(nanos);
+        recordSize(size);
+    }
+
+    void recordWire(int size) {
+        wireBytes.add(size);
+    }
+
+    private void recordSize(int size) {
+        sizeHistogram[histogramBucket(size)].increment();
+        maxSize.accumulate(size);
+    }
+
+    void reset() {
+        writeCount.reset();
+        writeBytes.reset();
+        writeNanos.reset();
+        readCount.reset();
+        readBytes.reset();
+        readNanos.reset();
+        wireBytes.reset();
+        maxSize.reset();
+        for (var bucket : sizeHistogram) {
+            bucket.reset();
+        }
+    }
+
+    public short getProtocolId() {
+        return protocolId;
+    }
+
+    public long getWriteCount() {
+        return writeCount.sum();
+    }
+
+    public long getWriteBytes() {
+        return writeBytes.sum();
+    }
+
+    public long getWriteNanos() {
+        return writeNanos.sum();
+    }
+
+    public long getReadCount() {
+        return readCount.sum();
+    }
+
+    public long getReadBytes() {
+        return readBytes.sum();
+    }
+
+    public long getReadNanos() {
+        return readNanos.sum();
+    }
+
+    public long getWireBytes() {
+        return wireBytes.sum();
+    }
+
+    public long getMaxSize() {
+        return maxSize.get();
+    }
+
+    public long[] getSizeHistogram() {
+        var histogram = new long[HISTOGRAM_BUCKETS];
+        for (var i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            histogram[i] = sizeHistogram[i].sum();
+        }
+        return histogram;
+    }
+
+    public long getTotalBytes() {
+        return getWriteBytes() + getReadBytes();
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.profile;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.util.FileUtils;
+import com.zfoo.protocol.util.StringUtils;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按照协议号统计序列化和反序列化的次数，字节数，耗时，最大的包和包大小的直方图，用来找出占用流量和分配最多的协议
+ * <p>
+ * 默认关闭，关闭的时候ProtocolManager.write()和read()只多了一次volatile读；打开之后每个协议的计数器在第一次使用的时候创建
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public abstract class ProtocolProfiler {
+
+    private static volatile boolean enable = false;
+
+    private static final AtomicReferenceArray<ProtocolProfile> profiles = new AtomicReferenceArray<>(ProtocolManager.MAX_PROTOCOL_NUM);
+
+    private static final ProtocolProfilerMXBean MX_BEAN = new ProtocolProfilerMXBean();
+
+    public static boolean isEnable() {
+        return enable;
+    }
+
+    public static void setEnable(boolean enable) {
+        ProtocolProfiler.enable = enable;
+    }
+
+    /**
+     * @param size  序列化之后的字节数，包括协议号
+     * @param nanos 序列化花费的纳秒
+     */
+    public static void recordWrite(short protocolId, int size, long nanos) {
+        profile(protocolId).recordWrite(size, nanos);
+    }
+
+    public static void recordRead(short protocolId, int size, long nanos) {
+        profile(protocolId).recordRead(size, nanos);
+    }
+
+    /**
+     * 网络上实际发送或者接收的一个完整的包的字节数
+     */
+    public static void recordWire(short protocolId, int size) {
+        profile(protocolId).recordWire(size);
+    }
+
+    public static ProtocolProfile profile(short protocolId) {
+        var profile = profiles.get(protocolId);
+        if (profile == null) {
+            profiles.compareAndSet(protocolId, null, new ProtocolProfile(protocolId));
+            profile = profiles.get(protocolId);
+        }
+        return profile;
+    }
+
+    public static List<ProtocolProfile> profiles() {
+        var list = new ArrayList<ProtocolProfile>();
+        for (int i = 0, length = profiles.length(); i < length; i++) {
+            var profile = profiles.get(i);
+            if (profile != null) {
+                list.add(profile);
+            }
+        }
+        list.sort(Comparator.comparingLong(ProtocolProfile::getTotalBytes).reversed());
+        return list;
+    }
+
+    public static void reset() {
+        for (int i = 0, length = profiles.length(); i < length; i++) {
+            var profile = profiles.get(i);
+            if (profile != null) {
+                profile.reset();
+            }
+        }
+    }
+
+    /**
+     * 输出所有协议的统计，按照序列化的总字节数从大到小排序
+     */
+    public static String dump() {
+        var builder = new StringBuilder();
+        builder.append("protocolId,protocol,writeCount,writeBytes,writeAvgNanos,readCount,readBytes,readAvgNanos,wireBytes,maxSize,sizeHistogram").append(FileUtils.LS);
+        for (var profile : profiles()) {
+            var protocol = ProtocolManager.protocols[profile.getProtocolId()];
+            var protocolName = protocol == null ? StringUtils.EMPTY : protocol.protocolConstructor().getDeclaringClass().getSimpleName();
+            builder.append(StringUtils.format("{},{},{},{},{},{},{},{},{},{},{}"
+                    , profile.getProtocolId(), protocolName
+                    , profile.getWriteCount(), profile.getWriteBytes(), average(profile.getWriteNanos(), profile.getWriteCount())
+                    , profile.getReadCount(), profile.getReadBytes(), average(profile.getReadNanos(), profile.getReadCount())
+                    , profile.getWireBytes(), profile.getMaxSize(), histogram(profile.getSizeHistogram())));
+            builder.append(FileUtils.LS);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 注册到JMX，ObjectName为com.zfoo.protocol.profile:type=ProtocolProfiler，重复注册会被忽略
+     */
+    public static void registerMBean() {
+        try {
+            var mbs = ManagementFactory.getPlatformMBeanServer();
+            var objectName = new ObjectName(ProtocolProfiler.class.getPackageName() + ":type=" + ProtocolProfiler.class.getSimpleName());
+            if (!mbs.isRegistered(objectName)) {
+                mbs.registerMBean(MX_BEAN, objectName);
+            }
+        } catch (Exception e) {
+            throw new RunException(e);
+        }
+    }
+
+    private static long average(long total, long count) {
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * 只输出不为0的桶，格式为：桶的上界:数量，如 <64:10 <128:2
+     */
+    private static String histogram(long[] histogram) {
+        var builder = new StringBuilder();
+        for (var i = 0; i < histogram.length; i++) {
+            if (histogram[i] == 0) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append(StringUtils.SPACE);
+            }
+            var bound = i == histogram.length - 1 ? ">=" + (1 << (i - 1)) : "<" + (1 << i);
+            builder.append(bound).append(StringUtils.COLON).append(histogram[i]);
+        }
+        return builder.toString();
+    }
+
+    private static class ProtocolProfilerMXBean implements IProtocolProfilerMXBean {
+        @Override
+        public boolean isEnable() {
+            return ProtocolProfiler.isEnable();
+        }
+
+        @Override
+        public void setEnable(boolean enable) {
+            ProtocolProfiler.setEnable(enable);
+        }
+
+        @Override
+        public void reset() {
+            ProtocolProfiler.reset();
+        }
+
+        @Override
+        public List<ProtocolProfile> getProfiles() {
+            return ProtocolProfiler.profiles();
+        }
+
+        @Override
+        public String dump() {
+            return ProtocolProfiler.dump();
+        }
+    }
+
+}
@@ -14,23 +14,37 @@
 package com.zfoo.protocol.registration;
 
 import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.ProtocolManager;
 import com.zfoo.protocol.buffer.ByteBufUtils;
+import com.zfoo.protocol.buffer.JsonByteBufUtils;
 import com.zfoo.protocol.collection.ArrayUtils;
 import com.zfoo.protocol.collection.CollectionUtils;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.generate.GenerateOperation;
 import com.zfoo.protocol.generate.GenerateProtocolFile;
 import com.zfoo.protocol.registration.anno.Compatible;
+import com.zfoo.protocol.registration.anno.Pooled;
 import com.zfoo.protocol.registration.field.IFieldRegistration;
+import com.zfoo.protocol.serializer.JsonSerializer;
 import com.zfoo.protocol.serializer.enhance.*;
+import com.zfoo.protocol.serializer.protobuf.ProtobufSerializer;
 import com.zfoo.protocol.serializer.reflect.*;
+import com.zfoo.protocol.util.ClassUtils;
+import com.zfoo.protocol.util.FileUtils;
 import com.zfoo.protocol.util.ReflectionUtils;
 import com.zfoo.protocol.util.StringUtils;
 import io.netty.buffer.ByteBuf;
 import javassist.*;
+import javassist.util.proxy.DefineClassHelper;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -50,6 +64,21 @@ public abstract class EnhanceUtils {
     public static String byteBufUtilsWriteBooleanTrue = byteBufUtils + ".writeBoolean($1, true);";
     public static String byteBufUtilsReadBoolean = byteBufUtils + ".readBoolean($1)";
     public static String byteBufUtilsWriteInt0 = byteBufUtils + ".writeInt($1, 0);";
+    public static String packetSize = "packetSize";
+
+    /**
+     * 编译期预先生成的协议注册类的索引文件，内容为：协议号=生成代码的指纹
+     */
+    public static final String PRECOMPILED_INDEX = "META-INF/zfoo/protocol-registration.index";
+
+    // 临时变量，类路径中预先生成的协议注册类的索引，协议号对应的生成代码的指纹
+    private static Map<Short, String> precompiledIndexMap = new HashMap<>();
+
+    // 临时变量，预先生成协议注册类的输出路径，为空则不输出
+    private static String precompilePath = null;
+
+    // 临时变量，这次启动输出的协议注册类的指纹
+    private static Map<Short, String> precompiledFingerprintMap = new TreeMap<>();
 
     static {
         var classArray = new Class<?>[]{IPacket.class, IProtocolRegistration.class, IFieldRegistration.class, ByteBuf.class};
@@ -59,6 +88,7 @@ public abstract class EnhanceUtils {
         // 导入需要的包
         classPool.importPackage(IPacket.class.getCanonicalName());
         classPool.importPackage(ByteBufUtils.class.getCanonicalName());
+        classPool.importPackage(JsonByteBufUtils.class.getCanonicalName());
         classPool.importPackage(Collections.class.getCanonicalName());
         classPool.importPackage(CollectionUtils.class.getCanonicalName());
         classPool.importPackage(ArrayUtils.class.getCanonicalName());
@@ -102,26 +132,52 @@ public abstract class EnhanceUtils {
         tempEnhanceSerializerMap.clear();
         tempEnhanceSerializerMap = null;
 
+        precompiledIndexMap = null;
+        precompilePath = null;
+        precompiledFingerprintMap = null;
+
         byteBufUtils = null;
         byteBufUtilsWriteBooleanFalse = null;
         byteBufUtilsWriteBooleanTrue = null;
         byteBufUtilsReadBoolean = null;
         byteBufUtilsWriteInt0 = null;
+        packetSize = null;
     }
 
     /**
      * @param registration 需要增强的类
      * @return 返回类的名称格式：EnhanceUtilsProtocolRegistration1
      */
-    public static IProtocolRegistration createProtocolRegistration(ProtocolRegistration registration) throws NotFoundException, CannotCompileException, NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
+    public static IProtocolRegistration createProtocolRegistration(ProtocolRegistration registration) throws NotFoundException, CannotCompileException, NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException, IOException {
         GenerateProtocolFile.index.set(0);
 
         var classPool = ClassPool.getDefault();
         var protocolId = registration.getId();
-        var packetFields = registration.getFieldRegistrations();
+        var enhanceClazzName = ProtocolRegistration.class.getCanonicalName() + protocolId;
+
+        // 定义类所包含的所有子协议成员
+        var allSubProtocolIds = ProtocolAnalysis.getAllSubProtocolIds(protocolId)
+                .stream()
+                .sorted((a, b) -> Short.compare(a, b))
+                .collect(Collectors.toList());
+
+        var writeMethodBody = writeMethodBody(registration);
+        var readMethodBody = readMethodBody(registration);
+        var serializedSizeMethodBody = serializedSizeMethodBody(registration);
+        var copyMethodBody = copyMethodBody(registration);
+        var writeJsonMethodBody = writeJsonMethodBody(registration);
+        var writeProtobufMethodBody = ProtobufSerializer.getInstance().writeMethodBody(registration);
+        var readProtobufMethodBody = ProtobufSerializer.getInstance().readMethodBody(registration);
+
+        // 如果有编译期预先生成的协议注册类，并且生成的代码没有发生变化，则直接加载，不需要再使用javassist编译
+        var fingerprint = fingerprint(registration, allSubProtocolIds, writeMethodBody, readMethodBody, serializedSizeMethodBody, copyMethodBody, writeJsonMethodBody, writeProtobufMethodBody, readProtobufMethodBody);
+        var precompiledClazz = precompiledProtocolRegistration(protocolId, enhanceClazzName, fingerprint);
+        if (precompiledClazz != null) {
+            return (IProtocolRegistration) precompiledClazz.getConstructor(Constructor.class).newInstance(registration.protocolConstructor());
+        }
 
         // 定义类名称
-        CtClass enhanceClazz = classPool.makeClass(ProtocolRegistration.class.getCanonicalName() + protocolId);
+        CtClass enhanceClazz = classPool.makeClass(enhanceClazzName);
         enhanceClazz.addInterface(classPool.get(IProtocolRegistration.class.getCanonicalName()));
 
         // 定义类中的一个成员
@@ -133,12 +189,6 @@ public abstract class EnhanceUtils {
         receiverFiled.setModifiers(Modifier.PRIVATE);
         enhanceClazz.addField(receiverFiled);
 
-        // 定义类所包含的所有子协议成员
-        var allSubProtocolIds = ProtocolAnalysis.getAllSubProtocolIds(protocolId)
-                .stream()
-                .sorted((a, b) -> Short.compare(a, b))
-                .collect(Collectors.toList());
-
         for (var subProtocolId : allSubProtocolIds) {
             var protocolRegistrationField = new CtField(classPool.get(IProtocolRegistration.class.getCanonicalName()), getProtocolRegistrationFieldNameByProtocolId(subProtocolId), enhanceClazz);
             protocolRegistrationField.setModifiers(Modifier.PRIVATE);
@@ -174,23 +224,166 @@ public abstract class EnhanceUtils {
 
         CtMethod writeMethod = new CtMethod(classPool.get(void.class.getCanonicalName()), "write", classPool.get(new String[]{ByteBuf.class.getCanonicalName(), IPacket.class.getCanonicalName()}), enhanceClazz);
         writeMethod.setModifiers(Modifier.PUBLIC + Modifier.FINAL);
-        writeMethod.setBody(writeMethodBody(registration));
+        writeMethod.setBody(writeMethodBody);
         enhanceClazz.addMethod(writeMethod);
 
         CtMethod readMethod = new CtMethod(classPool.get(Object.class.getCanonicalName()), "read", classPool.get(new String[]{ByteBuf.class.getCanonicalName()}), enhanceClazz);
         readMethod.setModifiers(Modifier.PUBLIC + Modifier.FINAL);
-        readMethod.setBody(readMethodBody(registration));
+        readMethod.setBody(readMethodBody);
         enhanceClazz.addMethod(readMethod);
 
+        CtMethod serializedSizeMethod = new CtMethod(classPool.get(int.class.getCanonicalName()), "serializedSize", classPool.get(new String[]{IPacket.class.getCanonicalName()}), enhanceClazz);
+        serializedSizeMethod.setModifiers(Modifier.PUBLIC + Modifier.FINAL);
+        serializedSizeMethod.setBody(serializedSizeMethodBody);
+        enhanceClazz.addMethod(serializedSizeMethod);
+
+        CtMethod copyMethod = new CtMethod(classPool.get(Object.class.getCanonicalName()), "copy", classPool.get(new String[]{IPacket.class.getCanonicalName()}), enhanceClazz);
+        copyMethod.setModifiers(Modifier.PUBLIC + Modifier.FINAL);
+        copyMethod.setBody(copyMethodBody);
+        enhanceClazz.addMethod(copyMethod);
+
+        CtMethod writeJsonMethod = new CtMethod(classPool.get(void.class.getCanonicalName()), "writeJson", classPool.get(new String[]{ByteBuf.class.getCanonicalName(), IPacket.class.getCanonicalName()}), enhanceClazz);
+        writeJsonMethod.setModifiers(Modifier.PUBLIC + Modifier.FINAL);
+        writeJsonMethod.setBody(writeJsonMethodBody);
+        enhanceClazz.addMethod(writeJsonMethod);
+
+        CtMethod writeProtobufMethod = new CtMethod(classPool.get(void.class.getCanonicalName()), "writeProtobuf", classPool.get(new String[]{ByteBuf.class.getCanonicalName(), IPacket.class.getCanonicalName()}), enhanceClazz);
+        writeProtobufMethod.setModifiers(Modifier.PUBLIC + Modifier.FINAL);
+        writeProtobufMethod.setBody(writeProtobufMethodBody);
+        enhanceClazz.addMethod(writeProtobufMethod);
+
+        CtMethod readProtobufMethod = new CtMethod(classPool.get(Object.class.getCanonicalName()), "readProtobuf", classPool.get(new String[]{ByteBuf.class.getCanonicalName(), int.class.getCanonicalName()}), enhanceClazz);
+        readProtobufMethod.setModifiers(Modifier.PUBLIC + Modifier.FINAL);
+        readProtobufMethod.setBody(readProtobufMethodBody);
+        enhanceClazz.addMethod(readProtobufMethod);
+
+        var bytecode = enhanceClazz.toBytecode();
+
         // 释放缓存
         enhanceClazz.detach();
 
-        Class<?> resultClazz = enhanceClazz.toClass(IProtocolRegistration.class);
+        // 编译期生成协议注册类，把字节码写到输出目录，运行的时候直接加载
+        if (StringUtils.isNotBlank(precompilePath)) {
+            var classFile = FileUtils.getOrCreateFile(StringUtils.format("{}/{}", precompilePath, ProtocolRegistration.class.getPackageName().replace(StringUtils.PERIOD, StringUtils.SLASH)), StringUtils.format("{}{}", ProtocolRegistration.class.getSimpleName() + protocolId, ".class"));
+            try (var outputStream = FileUtils.openOutputStream(classFile, false)) {
+                outputStream.write(bytecode);
+            }
+            precompiledFingerprintMap.put(protocolId, fingerprint);
+            precompileProtocolId(registration.getConstructor().getDeclaringClass());
+        }
+
+        Class<?> resultClazz = DefineClassHelper.toClass(IProtocolRegistration.class, bytecode);
         Constructor<?> resultConstructor = resultClazz.getConstructor(Constructor.class);
 
         return (IProtocolRegistration) resultConstructor.newInstance(registration.protocolConstructor());
     }
 
+    /**
+     * 读取类路径中所有的预先生成的协议注册类索引；如果配置了输出路径，则说明是在编译期生成协议注册类，不读取旧的索引
+     */
+    public static void initPrecompiledIndex(GenerateOperation generateOperation) throws IOException {
+        precompilePath = generateOperation.getRegistrationPath();
+        if (StringUtils.isNotBlank(precompilePath)) {
+            return;
+        }
+
+        var resources = ClassUtils.getDefaultClassLoader().getResources(PRECOMPILED_INDEX);
+        while (resources.hasMoreElements()) {
+            var properties = new Properties();
+            try (var inputStream = resources.nextElement().openStream()) {
+                properties.load(inputStream);
+            }
+            for (var key : properties.stringPropertyNames()) {
+                precompiledIndexMap.put(Short.parseShort(key.trim()), properties.getProperty(key).trim());
+            }
+        }
+    }
+
+    /**
+     * 编译期生成协议注册类之后，输出所有协议注册类的索引文件
+     */
+    public static void writePrecompiledIndex() throws IOException {
+        if (StringUtils.isBlank(precompilePath)) {
+            return;
+        }
+
+        var builder = new StringBuilder();
+        precompiledFingerprintMap.forEach((protocolId, fingerprint) -> builder.append(StringUtils.format("{}={}", protocolId, fingerprint)).append(FileUtils.LS));
+        var indexPath = PRECOMPILED_INDEX.substring(0, PRECOMPILED_INDEX.lastIndexOf(StringUtils.SLASH));
+        var indexName = PRECOMPILED_INDEX.substring(PRECOMPILED_INDEX.lastIndexOf(StringUtils.SLASH) + 1);
+        var indexFile = FileUtils.getOrCreateFile(StringUtils.format("{}/{}", precompilePath, indexPath), indexName);
+        FileUtils.writeStringToFile(indexFile, builder.toString());
+    }
+
+    /**
+     * 指纹只和生成的代码有关，协议类的字段，类型，顺序，子协议发生任何变化，生成的代码都会不一样，预先生成的类就会失效
+     */
+    private static String fingerprint(ProtocolRegistration registration, List<Short> allSubProtocolIds, String writeMethodBody, String readMethodBody, String serializedSizeMethodBody, String copyMethodBody, String writeJsonMethodBody, String writeProtobufMethodBody, String readProtobufMethodBody) {
+        var builder = new StringBuilder();
+        builder.append(registration.getConstructor().getDeclaringClass().getCanonicalName()).append(StringUtils.SEMICOLON)
+                .append(registration.protocolId()).append(StringUtils.SEMICOLON)
+                .append(registration.module()).append(StringUtils.SEMICOLON)
+                .append(allSubProtocolIds).append(StringUtils.SEMICOLON)
+                .append(writeMethodBody).append(StringUtils.SEMICOLON)
+                .append(readMethodBody).append(StringUtils.SEMICOLON)
+                .append(serializedSizeMethodBody).append(StringUtils.SEMICOLON)
+                .append(copyMethodBody).append(StringUtils.SEMICOLON)
+                .append(writeJsonMethodBody).append(StringUtils.SEMICOLON)
+                .append(writeProtobufMethodBody).append(StringUtils.SEMICOLON)
+                .append(readProtobufMethodBody);
+        try {
+            var digest = MessageDigest.getInstance("MD5").digest(StringUtils.bytes(builder.toString()));
+            var hex = new StringBuilder();
+            for (var b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RunException(e);
+        }
+    }
+
+    /**
+     * 编译期给没有重写protocolId()的协议类生成protocolId()方法，直接返回PROTOCOL_ID，运行的时候获取协议号只是一次虚方法调用
+     * <p>
+     * 只修改输出路径中的协议类文件，依赖的jar包中的协议类不会被修改
+     */
+    private static void precompileProtocolId(Class<?> protocolClazz) throws IOException, CannotCompileException {
+        try {
+            protocolClazz.getDeclaredMethod("protocolId");
+            return;
+        } catch (NoSuchMethodException e) {
+            // 没有重写protocolId()，使用的是IPacket的默认方法
+        }
+
+        var classFile = new File(StringUtils.format("{}/{}.class", precompilePath, protocolClazz.getName().replace(StringUtils.PERIOD, StringUtils.SLASH)));
+        if (!classFile.exists()) {
+            return;
+        }
+
+        CtClass protocolCtClazz;
+        try (var inputStream = FileUtils.openInputStream(classFile)) {
+            protocolCtClazz = ClassPool.getDefault().makeClass(inputStream);
+        }
+        protocolCtClazz.addMethod(CtNewMethod.make(StringUtils.format("public short protocolId(){return {};}", ProtocolManager.PROTOCOL_ID), protocolCtClazz));
+        try (var outputStream = FileUtils.openOutputStream(classFile, false)) {
+            outputStream.write(protocolCtClazz.toBytecode());
+        }
+        protocolCtClazz.detach();
+    }
+
+    private static Class<?> precompiledProtocolRegistration(short protocolId, String enhanceClazzName, String fingerprint) {
+        if (!fingerprint.equals(precompiledIndexMap.get(protocolId))) {
+            return null;
+        }
+        try {
+            var clazz = ClassUtils.getDefaultClassLoader().loadClass(enhanceClazzName);
+            return IProtocolRegistration.class.isAssignableFrom(clazz) ? clazz : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
     // see: ProtocolRegistration.write()
     private static String writeMethodBody(ProtocolRegistration registration) {
         var constructor = registration.getConstructor();
@@ -202,9 +395,13 @@ public abstract class EnhanceUtils {
         var builder = new StringBuilder();
         builder.append("{").append(packetClazz.getCanonicalName() + " packet = (" + packetClazz.getCanonicalName() + ")$2;");
         builder.append("if(ByteBufUtils.writePacketFlag($1, packet)){").append("return;}");
+        writeBitmap(builder, registration);
         for (var i = 0; i < fields.length; i++) {
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
+            if (isBitPacked(registration, i)) {
+                continue;
+            }
 
             if (Modifier.isPublic(field.getModifiers())) {
                 enhanceSerializer(fieldRegistration.serializer())
@@ -218,6 +415,94 @@ public abstract class EnhanceUtils {
         return builder.toString();
     }
 
+    private static boolean isBitPacked(ProtocolRegistration registration, int fieldIndex) {
+        return registration.getBitIndexes() != null && registration.getBitIndexes()[fieldIndex] >= 0;
+    }
+
+    // see: ProtocolRegistration.writeBitmap()
+    private static void writeBitmap(StringBuilder builder, ProtocolRegistration registration) {
+        var bitIndexes = registration.getBitIndexes();
+        if (bitIndexes == null) {
+            return;
+        }
+        var fields = registration.getFields();
+        var packetClazz = registration.getConstructor().getDeclaringClass();
+        for (var i = 0; i < registration.getBitmapBytes(); i++) {
+            builder.append(StringUtils.format("int bitmap{} = 0;", i));
+        }
+        for (var i = 0; i < fields.length; i++) {
+            var bitIndex = bitIndexes[i];
+            if (bitIndex < 0) {
+                continue;
+            }
+            var field = fields[i];
+            var value = Modifier.isPublic(field.getModifiers())
+                    ? StringUtils.format("packet.{}", field.getName())
+                    : StringUtils.format("packet.{}()", ReflectionUtils.fieldToGetMethod(packetClazz, field));
+            builder.append(StringUtils.format("if({}){bitmap{} |= {};}", value, bitIndex >> 3, 1 << (bitIndex & 7)));
+        }
+        for (var i = 0; i < registration.getBitmapBytes(); i++) {
+            builder.append(StringUtils.format("$1.writeByte(bitmap{});", i));
+        }
+    }
+
+    // see: ProtocolRegistration.readBitmap()
+    private static void readBitmap(StringBuilder builder, ProtocolRegistration registration) {
+        var bitIndexes = registration.getBitIndexes();
+        if (bitIndexes == null) {
+            return;
+        }
+        var fields = registration.getFields();
+        var packetClazz = registration.getConstructor().getDeclaringClass();
+        for (var i = 0; i < registration.getBitmapBytes(); i++) {
+            builder.append(StringUtils.format("int bitmap{} = $1.readByte();", i));
+        }
+        for (var i = 0; i < fields.length; i++) {
+            var bitIndex = bitIndexes[i];
+            if (bitIndex < 0) {
+                continue;
+            }
+            var field = fields[i];
+            var value = StringUtils.format("(bitmap{} & {}) != 0", bitIndex >> 3, 1 << (bitIndex & 7));
+            if (Modifier.isPublic(field.getModifiers())) {
+                builder.append(StringUtils.format("packet.{}={};", field.getName(), value));
+            } else {
+                builder.append(StringUtils.format("packet.{}({});", ReflectionUtils.fieldToSetMethod(packetClazz, field), value));
+            }
+        }
+    }
+
+    // see: ProtocolRegistration.serializedSize()
+    private static String serializedSizeMethodBody(ProtocolRegistration registration) {
+        var constructor = registration.getConstructor();
+        var fields = registration.getFields();
+        var fieldRegistrations = registration.getFieldRegistrations();
+
+        var packetClazz = constructor.getDeclaringClass();
+
+        var builder = new StringBuilder();
+        builder.append("{").append("if($1==null){").append("return 1;}");
+        builder.append(packetClazz.getCanonicalName() + " packet = (" + packetClazz.getCanonicalName() + ")$1;");
+        builder.append(StringUtils.format("int {} = {};", packetSize, 1 + registration.getBitmapBytes()));
+        for (var i = 0; i < fields.length; i++) {
+            var field = fields[i];
+            var fieldRegistration = fieldRegistrations[i];
+            if (isBitPacked(registration, i)) {
+                continue;
+            }
+
+            if (Modifier.isPublic(field.getModifiers())) {
+                enhanceSerializer(fieldRegistration.serializer())
+                        .serializedSize(builder, StringUtils.format("packet.{}", field.getName()), field, fieldRegistration);
+            } else {
+                enhanceSerializer(fieldRegistration.serializer())
+                        .serializedSize(builder, StringUtils.format("packet.{}()", ReflectionUtils.fieldToGetMethod(packetClazz, field)), field, fieldRegistration);
+            }
+        }
+        builder.append(StringUtils.format("return {};}", packetSize));
+        return builder.toString();
+    }
+
     // see: ProtocolRegistration.read()
     private static String readMethodBody(ProtocolRegistration registration) {
         var constructor = registration.getConstructor();
@@ -227,16 +512,30 @@ public abstract class EnhanceUtils {
         var builder = new StringBuilder();
         builder.append("{").append("if(!" + EnhanceUtils.byteBufUtilsReadBoolean + "){").append("return null;}");
         var packetClazz = constructor.getDeclaringClass();
-        builder.append(packetClazz.getCanonicalName() + " packet=new " + packetClazz.getCanonicalName() + "();");
+        // 被Pooled标注的协议从对象池中获取，老版本的协议提前结束的时候需要重置后面的兼容字段
+        var pooled = packetClazz.isAnnotationPresent(Pooled.class);
+        if (pooled) {
+            builder.append(StringUtils.format("{} packet=({}){}.newPacket((short){});", packetClazz.getCanonicalName(), packetClazz.getCanonicalName(), PacketRecycler.class.getCanonicalName(), registration.protocolId()));
+        } else {
+            builder.append(packetClazz.getCanonicalName() + " packet=new " + packetClazz.getCanonicalName() + "();");
+        }
 
+        readBitmap(builder, registration);
         for (var i = 0; i < fields.length; i++) {
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
-            var readObject = enhanceSerializer(fieldRegistration.serializer()).readObject(builder, field, fieldRegistration);
-            // 协议向后兼容
+            if (isBitPacked(registration, i)) {
+                continue;
+            }
+            // 协议向后兼容，和反射的方式一样在读取兼容字段之前判断
             if (field.isAnnotationPresent(Compatible.class)) {
-                builder.append("if(!$1.isReadable()){ return packet; }");
+                if (pooled) {
+                    builder.append(StringUtils.format("if(!$1.isReadable()){ return {}.resetFields(packet, (short){}, {}); }", PacketRecycler.class.getCanonicalName(), registration.protocolId(), i));
+                } else {
+                    builder.append("if(!$1.isReadable()){ return packet; }");
+                }
             }
+            var readObject = enhanceSerializer(fieldRegistration.serializer()).readObject(builder, field, fieldRegistration);
 
             if (Modifier.isPublic(field.getModifiers())) {
                 builder.append(StringUtils.format("packet.{}={};", field.getName(), readObject));
@@ -249,6 +548,74 @@ public abstract class EnhanceUtils {
         return builder.toString();
     }
 
+    // see: ProtocolRegistration.copy()
+    private static String copyMethodBody(ProtocolRegistration registration) {
+        var constructor = registration.getConstructor();
+        var fields = registration.getFields();
+        var fieldRegistrations = registration.getFieldRegistrations();
+
+        var packetClazz = constructor.getDeclaringClass();
+
+        var builder = new StringBuilder();
+        builder.append("{").append("if($1==null){").append("return null;}");
+        builder.append(packetClazz.getCanonicalName() + " source = (" + packetClazz.getCanonicalName() + ")$1;");
+        builder.append(packetClazz.getCanonicalName() + " packet=new " + packetClazz.getCanonicalName() + "();");
+        for (var i = 0; i < fields.length; i++) {
+            var field = fields[i];
+            var fieldRegistration = fieldRegistrations[i];
+
+            if (Modifier.isPublic(field.getModifiers())) {
+                var copyObject = enhanceSerializer(fieldRegistration.serializer())
+                        .copyObject(builder, StringUtils.format("source.{}", field.getName()), field, fieldRegistration);
+                builder.append(StringUtils.format("packet.{}={};", field.getName(), copyObject));
+            } else {
+                var copyObject = enhanceSerializer(fieldRegistration.serializer())
+                        .copyObject(builder, StringUtils.format("source.{}()", ReflectionUtils.fieldToGetMethod(packetClazz, field)), field, fieldRegistration);
+                builder.append(StringUtils.format("packet.{}({});", ReflectionUtils.fieldToSetMethod(packetClazz, field), copyObject));
+            }
+        }
+        builder.append("return packet;}");
+        return builder.toString();
+    }
+
+    // see: ProtocolRegistration.writeJson()
+    private static String writeJsonMethodBody(ProtocolRegistration registration) {
+        var constructor = registration.getConstructor();
+        var fields = registration.getFields();
+        var fieldRegistrations = registration.getFieldRegistrations();
+
+        var packetClazz = constructor.getDeclaringClass();
+
+        var builder = new StringBuilder();
+        builder.append("{").append("if($2==null){JsonByteBufUtils.writeNull($1);").append("return;}");
+        builder.append(packetClazz.getCanonicalName() + " packet = (" + packetClazz.getCanonicalName() + ")$2;");
+        builder.append("JsonByteBufUtils.writeObjectStart($1);");
+        for (var i = 0; i < fields.length; i++) {
+            var field = fields[i];
+            var fieldRegistration = fieldRegistrations[i];
+            var type = field.getType();
+            var value = Modifier.isPublic(field.getModifiers())
+                    ? StringUtils.format("packet.{}", field.getName())
+                    : StringUtils.format("packet.{}()", ReflectionUtils.fieldToGetMethod(packetClazz, field));
+
+            // 和JsonUtils一样，为null的字段不输出
+            if (type.isPrimitive()) {
+                builder.append(StringUtils.format("JsonByteBufUtils.writeFieldName($1, \"{}\");", field.getName()));
+                JsonSerializer.getInstance().writeObject(builder, value, type, fieldRegistration);
+                builder.append("JsonByteBufUtils.writeComma($1);");
+            } else {
+                var fieldValue = "value" + GenerateProtocolFile.index.getAndIncrement();
+                builder.append(StringUtils.format("{} {} = {};", type.getCanonicalName(), fieldValue, value));
+                builder.append(StringUtils.format("if({} != null){", fieldValue));
+                builder.append(StringUtils.format("JsonByteBufUtils.writeFieldName($1, \"{}\");", field.getName()));
+                JsonSerializer.getInstance().writeObject(builder, fieldValue, type, fieldRegistration);
+                builder.append("JsonByteBufUtils.writeComma($1);}");
+            }
+        }
+        builder.append("JsonByteBufUtils.writeObjectEnd($1);}");
+        return builder.toString();
+    }
+
     public static String getProtocolRegistrationFieldNameByProtocolId(short id) {
         return StringUtils.format("{}{}", StringUtils.uncapitalize(ProtocolRegistration.class.getSimpleName()), id);
     }
@@ -45,4 +45,29 @@ public interface IProtocolRegistration {
      */
     Object read(ByteBuf buffer);
 
+    /**
+     * 序列化之后准确的字节数，包括协议是否为空的标识，和write写入的字节数一致
+     */
+    int serializedSize(IPacket packet);
+
+    /**
+     * 深拷贝，不可变的String和包装类型直接共享，基础类型数组使用System.arraycopy，集合和子协议逐个拷贝；packet为null则返回null
+     */
+    Object copy(IPacket packet);
+
+    /**
+     * 以json的格式直接把UTF-8字节写入buffer，没有中间的String，输出和JsonUtils.object2String(packet)一致
+     */
+    void writeJson(ByteBuf buffer, IPacket packet);
+
+    /**
+     * 以protobuf的编码格式写入，字段号为@Protobuf(order)，第三方的protobuf客户端可以直接解析；packet为null则什么都不写入
+     */
+    void writeProtobuf(ByteBuf buffer, IPacket packet);
+
+    /**
+     * 读取protobuf的编码格式，一直读到limit（buffer中的绝对位置）为止，不认识的字段号会被跳过
+     */
+    Object readProtobuf(ByteBuf buffer, int limit);
+
 }
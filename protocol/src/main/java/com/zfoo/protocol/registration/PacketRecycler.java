@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.zfoo.protocol.registration;
+
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.IPooledPacket;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.util.ReflectionUtils;
+import io.netty.util.Recycler;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+
+/**
+ * 被Pooled标注的协议的对象池，每个协议一个Recycler，反序列化的时候从对象池中获取对象，可以在其它线程回收
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public final class PacketRecycler extends Recycler<IPooledPacket> {
+
+    private static final PacketRecycler[] recyclers = new PacketRecycler[ProtocolManager.MAX_PROTOCOL_NUM];
+
+    private final Constructor<?> constructor;
+
+    /**
+     * 和ProtocolRegistration的序列化字段顺序一致，用来重置兼容字段
+     */
+    private final Field[] fields;
+
+    private PacketRecycler(Constructor<?> constructor, Field[] fields) {
+        this.constructor = constructor;
+        this.fields = fields;
+    }
+
+    @Override
+    protected IPooledPacket newObject(Handle<IPooledPacket> handle) {
+        var packet = (IPooledPacket) ReflectionUtils.newInstance(constructor);
+        packet.recyclerHandle(handle);
+        return packet;
+    }
+
+    public static void register(short protocolId, Constructor<?> constructor, Field[] fields) {
+        recyclers[protocolId] = new PacketRecycler(constructor, fields);
+    }
+
+    public static boolean isPooled(short protocolId) {
+        return recyclers[protocolId] != null;
+    }
+
+    /**
+     * 反序列化的时候调用，对象中的字段都会被反序列化覆盖
+     */
+    public static Object newPacket(short protocolId) {
+        return recyclers[protocolId].get();
+    }
+
+    /**
+     * 老版本的协议没有后面的兼容字段，反序列化提前结束的时候，从fieldIndex开始的字段重置为默认值，避免读到上一次使用的值
+     * <p>
+     * 只有协议版本不一致的时候才会调用，直接new一个对象获取默认值
+     */
+    public static Object resetFields(Object packet, short protocolId, int fieldIndex) {
+        var recycler = recyclers[protocolId];
+        var defaultPacket = ReflectionUtils.newInstance(recycler.constructor);
+        for (int i = fieldIndex, length = recycler.fields.length; i < length; i++) {
+            var field = recycler.fields[i];
+            ReflectionUtils.setField(field, packet, ReflectionUtils.getField(field, defaultPacket));
+        }
+        return packet;
+    }
+
+    /**
+     * 没有被Pooled标注的协议直接忽略，同一个对象只能回收一次
+     */
+    public static void recycle(IPacket packet) {
+        if (!(packet instanceof IPooledPacket)) {
+            return;
+        }
+        var pooledPacket = (IPooledPacket) packet;
+        var handle = pooledPacket.recyclerHandle();
+        if (handle != null) {
+            handle.recycle(pooledPacket);
+        }
+    }
+
+}
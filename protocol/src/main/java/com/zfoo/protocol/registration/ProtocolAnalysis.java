@@ -13,16 +13,22 @@
 package com.zfoo.protocol.registration;
 
 import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.IPooledPacket;
 import com.zfoo.protocol.ProtocolManager;
 import com.zfoo.protocol.collection.ArrayUtils;
 import com.zfoo.protocol.collection.CollectionUtils;
+import com.zfoo.protocol.collection.IntList;
+import com.zfoo.protocol.collection.LongList;
 import com.zfoo.protocol.exception.RunException;
 import com.zfoo.protocol.exception.UnknownException;
 import com.zfoo.protocol.generate.GenerateOperation;
 import com.zfoo.protocol.generate.GenerateProtocolDocument;
 import com.zfoo.protocol.generate.GenerateProtocolFile;
 import com.zfoo.protocol.generate.GenerateProtocolPath;
+import com.zfoo.protocol.registration.anno.BitPacked;
 import com.zfoo.protocol.registration.anno.Compatible;
+import com.zfoo.protocol.registration.anno.Packed;
+import com.zfoo.protocol.registration.anno.Pooled;
 import com.zfoo.protocol.registration.field.*;
 import com.zfoo.protocol.serializer.cpp.GenerateCppUtils;
 import com.zfoo.protocol.serializer.csharp.GenerateCsUtils;
@@ -35,6 +41,7 @@ import com.zfoo.protocol.serializer.typescript.GenerateTsUtils;
 import com.zfoo.protocol.util.AssertionUtils;
 import com.zfoo.protocol.util.ReflectionUtils;
 import com.zfoo.protocol.util.StringUtils;
+import com.zfoo.protocol.view.PacketView;
 import com.zfoo.protocol.xml.XmlProtocols;
 import javassist.CannotCompileException;
 import javassist.NotFoundException;
@@ -161,7 +168,7 @@ public class ProtocolAnalysis {
 
     private static void enhance(GenerateOperation generateOperation, List<IProtocolRegistration> enhanceList) throws IOException, ClassNotFoundException, NotFoundException, CannotCompileException, NoSuchFieldException, InvocationTargetException, NoSuchMethodException, IllegalAccessException, InstantiationException {
         enhanceProtocolBefore(generateOperation);
-        enhanceProtocolRegistration(enhanceList);
+        enhanceProtocolRegistration(generateOperation, enhanceList);
         enhanceProtocolAfter(generateOperation);
     }
 
@@ -174,11 +181,13 @@ public class ProtocolAnalysis {
         GenerateProtocolFile.generate(generateOperation);
     }
 
-    private static void enhanceProtocolRegistration(List<IProtocolRegistration> enhanceList) throws NoSuchMethodException, IllegalAccessException, InstantiationException, CannotCompileException, NotFoundException, InvocationTargetException, NoSuchFieldException {
-        // 字节码增强
+    private static void enhanceProtocolRegistration(GenerateOperation generateOperation, List<IProtocolRegistration> enhanceList) throws NoSuchMethodException, IllegalAccessException, InstantiationException, CannotCompileException, NotFoundException, InvocationTargetException, NoSuchFieldException, IOException {
+        // 字节码增强，优先使用编译期预先生成的协议注册类
+        EnhanceUtils.initPrecompiledIndex(generateOperation);
         for (var registration : enhanceList) {
             protocols[registration.protocolId()] = EnhanceUtils.createProtocolRegistration((ProtocolRegistration) registration);
         }
+        EnhanceUtils.writePrecompiledIndex();
 
         // 字节码增强过后，初始化各个子协议成员变量
         for (var registration : enhanceList) {
@@ -273,7 +282,12 @@ public class ProtocolAnalysis {
             protocol.setId(protocolId);
             protocol.setConstructor(constructor);
             protocol.setFields(ArrayUtils.listToArray(fields, Field.class));
+            if (clazz.isAnnotationPresent(Pooled.class)) {
+                PacketRecycler.register(protocolId, constructor, protocol.getFields());
+            }
             protocol.setFieldRegistrations(ArrayUtils.listToArray(registrationList, IFieldRegistration.class));
+            protocol.setBitIndexes(toBitIndexes(clazz, protocol.getFields()));
+            PacketView.register(protocolId, protocol.getFields(), protocol.getFieldRegistrations(), protocol.getBitIndexes());
             protocol.setModule(module.getId());
             return protocol;
         } catch (Exception e) {
@@ -281,9 +295,53 @@ public class ProtocolAnalysis {
         }
     }
 
+    /**
+     * 被BitPacked标注的协议中，没有被Compatible标注的boolean字段按照字段的顺序依次放到开头的位图中
+     */
+    private static int[] toBitIndexes(Class<?> clazz, Field[] fields) {
+        if (!clazz.isAnnotationPresent(BitPacked.class)) {
+            return null;
+        }
+        var bitIndexes = new int[fields.length];
+        var bitIndex = 0;
+        for (var i = 0; i < fields.length; i++) {
+            var field = fields[i];
+            bitIndexes[i] = (field.getType() == boolean.class && !field.isAnnotationPresent(Compatible.class)) ? bitIndex++ : -1;
+        }
+        return bitIndexes;
+    }
+
+    private static Packed.Type toPacked(Class<?> clazz, Field field) {
+        var packed = field.getAnnotation(Packed.class);
+        if (packed == null) {
+            return null;
+        }
+        var componentType = field.getType().getComponentType();
+        switch (packed.value()) {
+            case FIXED:
+                if (componentType == short.class || componentType == int.class || componentType == long.class
+                        || componentType == float.class || componentType == double.class) {
+                    return packed.value();
+                }
+                break;
+            case DELTA_VARINT:
+                if (componentType == int.class || componentType == long.class) {
+                    return packed.value();
+                }
+                break;
+            default:
+        }
+        throw new RunException("[class:{}]中[field:{}]的类型[{}]不支持[Packed:{}]，FIXED只支持short[]，int[]，long[]，float[]，double[]，DELTA_VARINT只支持int[]，long[]"
+                , clazz.getCanonicalName(), field.getName(), field.getType().getSimpleName(), packed.value());
+    }
+
     private static IFieldRegistration toRegistration(Class<?> clazz, Field field) {
         Class<?> fieldTypeClazz = field.getType();
 
+        if (field.isAnnotationPresent(Packed.class) && fieldTypeClazz.getComponentType() == null) {
+            throw new RunException("[class:{}]中[field:{}]不是数组，不能使用Packed注解", clazz.getCanonicalName(), field.getName());
+        }
+
         ISerializer serializer = baseSerializerMap.get(fieldTypeClazz);
 
         // 是一个基本类型变量
@@ -294,7 +352,15 @@ public class ProtocolAnalysis {
             Class<?> arrayClazz = fieldTypeClazz.getComponentType();
 
             IFieldRegistration registration = typeToRegistration(clazz, arrayClazz);
-            return ArrayField.valueOf(registration, field.getType().getComponentType());
+            return ArrayField.valueOf(registration, field.getType().getComponentType(), toPacked(clazz, field));
+        } else if (fieldTypeClazz.equals(IntList.class) || fieldTypeClazz.equals(LongList.class)) {
+            // 基础类型的List，泛型类型和List<Integer>，List<Long>一样，其它语言生成的协议也一样
+            Type type = Arrays.stream(fieldTypeClazz.getGenericInterfaces())
+                    .filter(it -> it instanceof ParameterizedType && ((ParameterizedType) it).getRawType().equals(List.class))
+                    .findFirst()
+                    .orElseThrow();
+            IFieldRegistration registration = typeToRegistration(clazz, ((ParameterizedType) type).getActualTypeArguments()[0]);
+            return ListField.valueOf(registration, type, fieldTypeClazz);
         } else if (Set.class.isAssignableFrom(fieldTypeClazz)) {
             if (!fieldTypeClazz.equals(Set.class)) {
                 throw new RunException("[class:{}]类型声明不正确，必须是Set接口类型", clazz.getCanonicalName());
@@ -472,6 +538,11 @@ public class ProtocolAnalysis {
         // 命名只能包含字母，数字，下划线
         AssertionUtils.isTrue(clazz.getSimpleName().matches("[a-zA-Z0-9_]*"), "[class:{}]的命名只能包含字母，数字，下划线", clazz.getCanonicalName(), PROTOCOL_ID);
 
+        // 对象池的句柄需要保存在协议对象中
+        if (clazz.isAnnotationPresent(Pooled.class)) {
+            AssertionUtils.isTrue(IPooledPacket.class.isAssignableFrom(clazz), "[class:{}]被[{}]标注，必须实现接口[{}]", clazz.getCanonicalName(), Pooled.class.getSimpleName(), IPooledPacket.class.getCanonicalName());
+        }
+
         // 必须要有一个空的构造器
         Constructor<?> constructor = ReflectionUtils.publicEmptyConstructor(clazz);
 
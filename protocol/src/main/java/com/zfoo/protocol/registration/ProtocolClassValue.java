@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.registration;
+
+import com.zfoo.protocol.ProtocolManager;
+
+/**
+ * 协议类到协议号，协议注册类和模块的缓存，使用ClassValue保存在Class上，读取的时候没有锁也没有hash查找
+ * <p>
+ * 主要给没有重写protocolId()的Response和Answer使用，第一次访问的时候通过反射读取PROTOCOL_ID
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public final class ProtocolClassValue {
+
+    private static final ClassValue<ProtocolClassValue> CLASS_VALUE = new ClassValue<>() {
+        @Override
+        protected ProtocolClassValue computeValue(Class<?> type) {
+            return new ProtocolClassValue(ProtocolAnalysis.getProtocolIdByClass(type));
+        }
+    };
+
+    private final short protocolId;
+
+    /**
+     * 协议号可能在协议初始化之前就被访问，所以协议注册类在第一次使用的时候才缓存
+     */
+    private IProtocolRegistration registration;
+
+    private ProtocolClassValue(short protocolId) {
+        this.protocolId = protocolId;
+    }
+
+    public static ProtocolClassValue of(Class<?> clazz) {
+        return CLASS_VALUE.get(clazz);
+    }
+
+    public short protocolId() {
+        return protocolId;
+    }
+
+    public IProtocolRegistration registration() {
+        var protocolRegistration = registration;
+        if (protocolRegistration == null) {
+            // 协议注册类是不可变的，多个线程同时赋值也没有关系
+            protocolRegistration = ProtocolManager.getProtocol(protocolId);
+            registration = protocolRegistration;
+        }
+        return protocolRegistration;
+    }
+
+    public ProtocolModule module() {
+        return ProtocolManager.moduleByModuleId(registration().module());
+    }
+
+}
@@ -15,8 +15,12 @@ package com.zfoo.protocol.registration;
 
 import com.zfoo.protocol.IPacket;
 import com.zfoo.protocol.buffer.ByteBufUtils;
+import com.zfoo.protocol.buffer.JsonByteBufUtils;
+import com.zfoo.protocol.exception.RunException;
 import com.zfoo.protocol.registration.anno.Compatible;
 import com.zfoo.protocol.registration.field.IFieldRegistration;
+import com.zfoo.protocol.serializer.JsonSerializer;
+import com.zfoo.protocol.serializer.protobuf.ProtobufSerializer;
 import com.zfoo.protocol.serializer.reflect.ISerializer;
 import com.zfoo.protocol.util.ReflectionUtils;
 import io.netty.buffer.ByteBuf;
@@ -48,6 +52,17 @@ public class ProtocolRegistration implements IProtocolRegistration {
      */
     private IFieldRegistration[] fieldRegistrations;
 
+    /**
+     * 被BitPacked标注的协议中每个字段在开头的位图中的位置，-1为不在位图中；没有被BitPacked标注则为null
+     */
+    private int[] bitIndexes;
+    private int bitmapBytes;
+
+    /**
+     * protobuf格式的字段读写顺序，第一次使用的时候才计算，see: ProtobufSerializer.fieldOrder()
+     */
+    private int[] protobufFieldOrder;
+
     public ProtocolRegistration() {
 
     }
@@ -82,7 +97,14 @@ public class ProtocolRegistration implements IProtocolRegistration {
 
         ByteBufUtils.writeBoolean(buffer, true);
 
+        if (bitIndexes != null) {
+            writeBitmap(buffer, packet);
+        }
+
         for (int i = 0, length = fields.length; i < length; i++) {
+            if (bitIndexes != null && bitIndexes[i] >= 0) {
+                continue;
+            }
             Field field = fields[i];
             IFieldRegistration packetFieldRegistration = fieldRegistrations[i];
             ISerializer serializer = packetFieldRegistration.serializer();
@@ -96,12 +118,24 @@ public class ProtocolRegistration implements IProtocolRegistration {
         if (!ByteBufUtils.readBoolean(buffer)) {
             return null;
         }
-        Object object = ReflectionUtils.newInstance(constructor);
+        // 被Pooled标注的协议从对象池中获取
+        var pooled = PacketRecycler.isPooled(id);
+        Object object = pooled ? PacketRecycler.newPacket(id) : ReflectionUtils.newInstance(constructor);
+
+        if (bitIndexes != null) {
+            readBitmap(buffer, object);
+        }
 
         for (int i = 0, length = fields.length; i < length; i++) {
+            if (bitIndexes != null && bitIndexes[i] >= 0) {
+                continue;
+            }
             Field field = fields[i];
             // 协议向后兼容
             if (field.isAnnotationPresent(Compatible.class) && !buffer.isReadable()) {
+                if (pooled) {
+                    PacketRecycler.resetFields(object, id, i);
+                }
                 break;
             }
             IFieldRegistration packetFieldRegistration = fieldRegistrations[i];
@@ -112,6 +146,109 @@ public class ProtocolRegistration implements IProtocolRegistration {
         return object;
     }
 
+    @Override
+    public int serializedSize(IPacket packet) {
+        if (packet == null) {
+            return 1;
+        }
+
+        int size = 1 + bitmapBytes;
+        for (int i = 0, length = fields.length; i < length; i++) {
+            if (bitIndexes != null && bitIndexes[i] >= 0) {
+                continue;
+            }
+            Field field = fields[i];
+            IFieldRegistration packetFieldRegistration = fieldRegistrations[i];
+            ISerializer serializer = packetFieldRegistration.serializer();
+            Object fieldValue = ReflectionUtils.getField(field, packet);
+            size += serializer.serializedSize(fieldValue, packetFieldRegistration);
+        }
+        return size;
+    }
+
+    @Override
+    public Object copy(IPacket packet) {
+        if (packet == null) {
+            return null;
+        }
+
+        Object object = ReflectionUtils.newInstance(constructor);
+        for (int i = 0, length = fields.length; i < length; i++) {
+            Field field = fields[i];
+            IFieldRegistration packetFieldRegistration = fieldRegistrations[i];
+            ISerializer serializer = packetFieldRegistration.serializer();
+            Object fieldValue = ReflectionUtils.getField(field, packet);
+            ReflectionUtils.setField(field, object, serializer.copyObject(fieldValue, packetFieldRegistration));
+        }
+        return object;
+    }
+
+    @Override
+    public void writeJson(ByteBuf buffer, IPacket packet) {
+        if (packet == null) {
+            JsonByteBufUtils.writeNull(buffer);
+            return;
+        }
+
+        JsonByteBufUtils.writeObjectStart(buffer);
+        for (int i = 0, length = fields.length; i < length; i++) {
+            Field field = fields[i];
+            Object fieldValue = ReflectionUtils.getField(field, packet);
+            // 和JsonUtils一样，为null的字段不输出
+            if (fieldValue == null) {
+                continue;
+            }
+            JsonByteBufUtils.writeFieldName(buffer, field.getName());
+            JsonSerializer.getInstance().writeObject(buffer, fieldValue, fieldRegistrations[i]);
+            JsonByteBufUtils.writeComma(buffer);
+        }
+        JsonByteBufUtils.writeObjectEnd(buffer);
+    }
+
+    @Override
+    public void writeProtobuf(ByteBuf buffer, IPacket packet) {
+        ProtobufSerializer.getInstance().write(buffer, packet, this, protobufFieldOrder());
+    }
+
+    @Override
+    public Object readProtobuf(ByteBuf buffer, int limit) {
+        return ProtobufSerializer.getInstance().read(buffer, limit, this, protobufFieldOrder());
+    }
+
+    private int[] protobufFieldOrder() {
+        if (protobufFieldOrder == null) {
+            var fieldOrder = ProtobufSerializer.getInstance().fieldOrder(this);
+            if (fieldOrder == null) {
+                throw new RunException("协议[{}]的字段没有全部使用Protobuf注解标注或者有嵌套的集合，不支持protobuf格式", constructor.getDeclaringClass().getSimpleName());
+            }
+            protobufFieldOrder = fieldOrder;
+        }
+        return protobufFieldOrder;
+    }
+
+    private void writeBitmap(ByteBuf buffer, IPacket packet) {
+        var bitmap = new byte[bitmapBytes];
+        for (int i = 0, length = fields.length; i < length; i++) {
+            var bitIndex = bitIndexes[i];
+            if (bitIndex >= 0 && (boolean) ReflectionUtils.getField(fields[i], packet)) {
+                bitmap[bitIndex >> 3] |= 1 << (bitIndex & 7);
+            }
+        }
+        buffer.writeBytes(bitmap);
+    }
+
+    private void readBitmap(ByteBuf buffer, Object object) {
+        var bitmapOffset = buffer.readerIndex();
+        for (int i = 0, length = fields.length; i < length; i++) {
+            var bitIndex = bitIndexes[i];
+            if (bitIndex >= 0) {
+                var value = (buffer.getByte(bitmapOffset + (bitIndex >> 3)) & (1 << (bitIndex & 7))) != 0;
+                ReflectionUtils.setField(fields[i], object, value);
+            }
+        }
+        buffer.skipBytes(bitmapBytes);
+    }
+
 
     public short getId() {
         return id;
@@ -145,6 +282,35 @@ public class ProtocolRegistration implements IProtocolRegistration {
         this.fieldRegistrations = fieldRegistrations;
     }
 
+    public int[] getBitIndexes() {
+        return bitIndexes;
+    }
+
+    /**
+     * @param bitIndexes 每个字段在位图中的位置，-1为不在位图中，null为不使用位图
+     */
+    public void setBitIndexes(int[] bitIndexes) {
+        this.bitIndexes = bitIndexes;
+        this.bitmapBytes = bitIndexes == null ? 0 : bitmapBytes(bitIndexes);
+    }
+
+    public int getBitmapBytes() {
+        return bitmapBytes;
+    }
+
+    /**
+     * 位图占用的字节数，每8个boolean字段占用一个字节
+     */
+    public static int bitmapBytes(int[] bitIndexes) {
+        var count = 0;
+        for (var bitIndex : bitIndexes) {
+            if (bitIndex >= 0) {
+                count++;
+            }
+        }
+        return (count + 7) >> 3;
+    }
+
     public Constructor<?> getConstructor() {
         return constructor;
     }
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.registration.anno;
+
+import java.lang.annotation.*;
+
+/**
+ * 被标注的协议把所有boolean字段压缩到协议开头的位图中，每个字段只占用一位，所有语言生成的协议都使用同样的编码
+ * <p>
+ * 只压缩基础类型boolean并且没有被Compatible标注的字段；兼容字段和Boolean仍然占用一个字节，保证新老协议可以互相兼容
+ * <p>
+ * 已经发布的协议加上或者去掉这个注解都会改变序列化格式，需要客户端和服务器同时更新
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface BitPacked {
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.registration.anno;
+
+import java.lang.annotation.*;
+
+/**
+ * 基础类型数组的打包编码方式，只能标注在数组字段上，所有语言生成的协议都使用同样的编码
+ * <p>
+ * FIXED：长度之后是小端的定长字节，可以整体拷贝，适用于short[]，int[]，long[]，float[]，double[]
+ * <p>
+ * DELTA_VARINT：长度之后是和前一个元素的差值的zigzag varint，适用于有序或者变化很小的int[]，long[]
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD})
+public @interface Packed {
+
+    Type value();
+
+    enum Type {
+        FIXED,
+        DELTA_VARINT
+    }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.zfoo.protocol.registration.anno;
+
+import java.lang.annotation.*;
+
+/**
+ * 协议对象池，被标注的协议反序列化的时候从Netty的Recycler中获取对象，不再每次都new一个新的对象
+ * <p>
+ * 被标注的协议必须实现IPooledPacket接口，用完之后通过ProtocolManager.recycle()回收；net中PacketReceiverTask执行完协议接收器之后会自动回收，
+ * 所以协议接收器执行完之后不能再持有这个协议对象，也不能把这个协议对象交给其它线程异步使用
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface Pooled {
+}
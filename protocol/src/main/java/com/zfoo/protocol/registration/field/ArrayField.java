@@ -13,6 +13,7 @@
 
 package com.zfoo.protocol.registration.field;
 
+import com.zfoo.protocol.registration.anno.Packed;
 import com.zfoo.protocol.serializer.reflect.ArraySerializer;
 import com.zfoo.protocol.serializer.reflect.ISerializer;
 
@@ -24,11 +25,20 @@ public class ArrayField implements IFieldRegistration {
 
     private IFieldRegistration arrayElementRegistration;
     private Class<?> type;
+    /**
+     * 基础类型数组的打包编码方式，没有被Packed标注则为null
+     */
+    private Packed.Type packed;
 
     public static ArrayField valueOf(IFieldRegistration arrayElementRegistration, Class<?> type) {
+        return valueOf(arrayElementRegistration, type, null);
+    }
+
+    public static ArrayField valueOf(IFieldRegistration arrayElementRegistration, Class<?> type, Packed.Type packed) {
         ArrayField arrayField = new ArrayField();
         arrayField.arrayElementRegistration = arrayElementRegistration;
         arrayField.type = type;
+        arrayField.packed = packed;
         return arrayField;
     }
 
@@ -44,5 +54,22 @@ public class ArrayField implements IFieldRegistration {
     public IFieldRegistration getArrayElementRegistration() {
         return arrayElementRegistration;
     }
+
+    public Packed.Type getPacked() {
+        return packed;
+    }
+
+    /**
+     * 打包编码的每个元素的定长字节数，FIXED才有意义
+     */
+    public int packedElementBytes() {
+        if (type == short.class) {
+            return 2;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else {
+            return 8;
+        }
+    }
 }
 
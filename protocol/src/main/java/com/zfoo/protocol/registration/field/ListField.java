@@ -27,6 +27,11 @@ public class ListField implements IFieldRegistration {
     private IFieldRegistration listElementRegistration;
     private Type type;
 
+    /**
+     * IntList或者LongList，为null则是普通的List；序列化格式和List<Integer>，List<Long>完全一样，只是没有装箱
+     */
+    private Class<?> primitiveListClazz;
+
     public static ListField valueOf(IFieldRegistration listElementRegistration, Type type) {
         ListField listField = new ListField();
         listField.listElementRegistration = listElementRegistration;
@@ -34,6 +39,12 @@ public class ListField implements IFieldRegistration {
         return listField;
     }
 
+    public static ListField valueOf(IFieldRegistration listElementRegistration, Type type, Class<?> primitiveListClazz) {
+        ListField listField = valueOf(listElementRegistration, type);
+        listField.primitiveListClazz = primitiveListClazz;
+        return listField;
+    }
+
     @Override
     public ISerializer serializer() {
         return ListSerializer.INSTANCE;
@@ -47,4 +58,8 @@ public class ListField implements IFieldRegistration {
         return this.type;
     }
 
+    public Class<?> getPrimitiveListClazz() {
+        return primitiveListClazz;
+    }
+
 }
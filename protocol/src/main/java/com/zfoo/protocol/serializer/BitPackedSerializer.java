@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.serializer;
+
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.registration.ProtocolRegistration;
+import com.zfoo.protocol.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.zfoo.protocol.util.FileUtils.LS;
+
+/**
+ * 生成BitPacked协议开头的位图的读写代码，和ProtocolRegistration.writeBitmap()，ProtocolRegistration.readBitmap()的格式一样
+ * <p>
+ * 第n个boolean字段在第n/8个字节的第n%8位，位图直接使用writeByte和readByte读写；C#的byte是无符号的，其它语言的byte是有符号的，所以最高位在C#中是128，其它语言中是-128
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class BitPackedSerializer {
+
+    private static final BitPackedSerializer INSTANCE = new BitPackedSerializer();
+
+    public static BitPackedSerializer getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isBitPacked(ProtocolRegistration registration, int fieldIndex) {
+        return registration.getBitIndexes() != null && registration.getBitIndexes()[fieldIndex] >= 0;
+    }
+
+    /**
+     * @param packetPrefix 访问协议字段的前缀，如packet.，message->
+     * @param indent       每一行的缩进
+     */
+    public void writeBitmap(StringBuilder builder, ProtocolRegistration registration, String packetPrefix, String indent, CodeLanguage language) {
+        for (var bitmap : bitmapFields(registration)) {
+            var terms = new ArrayList<String>();
+            for (var bit = 0; bit < bitmap.size(); bit++) {
+                var value = packetPrefix + bitmap.get(bit);
+                var mask = bit == 7 ? (language == CodeLanguage.CSharp ? "128" : "-128") : String.valueOf(1 << bit);
+                switch (language) {
+                    case Lua:
+                        terms.add(StringUtils.format("({} and {} or 0)", value, mask));
+                        break;
+                    case GdScript:
+                        terms.add(StringUtils.format("({} if {} else 0)", mask, value));
+                        break;
+                    default:
+                        terms.add(StringUtils.format("({} ? {} : 0)", value, mask));
+                }
+            }
+            var expression = StringUtils.joinWith(" | ", terms.toArray());
+            builder.append(indent);
+            switch (language) {
+                case JavaScript:
+                case TypeScript:
+                    builder.append(StringUtils.format("buffer.writeByte({});", expression));
+                    break;
+                case CSharp:
+                    builder.append(StringUtils.format("buffer.WriteByte((byte) ({}));", expression));
+                    break;
+                case Cpp:
+                    builder.append(StringUtils.format("buffer.writeByte((int8_t) ({}));", expression));
+                    break;
+                case Lua:
+                    builder.append(StringUtils.format("buffer:writeByte({})", expression));
+                    break;
+                case GdScript:
+                    builder.append(StringUtils.format("buffer.writeByte({})", expression));
+                    break;
+                default:
+                    throw new RunException("[{}]不支持BitPacked协议", language);
+            }
+            builder.append(LS);
+        }
+    }
+
+    public void readBitmap(StringBuilder builder, ProtocolRegistration registration, String packetPrefix, String indent, CodeLanguage language) {
+        var bitmaps = bitmapFields(registration);
+        for (var i = 0; i < bitmaps.size(); i++) {
+            var bitmapName = "bitmap" + i;
+            builder.append(indent);
+            switch (language) {
+                case JavaScript:
+                case TypeScript:
+                    builder.append(StringUtils.format("const {} = buffer.readByte();", bitmapName));
+                    break;
+                case CSharp:
+                    builder.append(StringUtils.format("var {} = buffer.ReadByte();", bitmapName));
+                    break;
+                case Cpp:
+                    builder.append(StringUtils.format("auto {} = buffer.readByte();", bitmapName));
+                    break;
+                case Lua:
+                    builder.append(StringUtils.format("local {} = buffer:readByte()", bitmapName));
+                    break;
+                case GdScript:
+                    builder.append(StringUtils.format("var {} = buffer.readByte()", bitmapName));
+                    break;
+                default:
+                    throw new RunException("[{}]不支持BitPacked协议", language);
+            }
+            builder.append(LS);
+
+            var bitmap = bitmaps.get(i);
+            for (var bit = 0; bit < bitmap.size(); bit++) {
+                var value = packetPrefix + bitmap.get(bit);
+                builder.append(indent);
+                switch (language) {
+                    case JavaScript:
+                    case TypeScript:
+                        builder.append(StringUtils.format("{} = ({} & {}) !== 0;", value, bitmapName, 1 << bit));
+                        break;
+                    case CSharp:
+                    case Cpp:
+                        builder.append(StringUtils.format("{} = ({} & {}) != 0;", value, bitmapName, 1 << bit));
+                        break;
+                    case Lua:
+                        builder.append(StringUtils.format("{} = ({} & {}) ~= 0", value, bitmapName, 1 << bit));
+                        break;
+                    default:
+                        builder.append(StringUtils.format("{} = ({} & {}) != 0", value, bitmapName, 1 << bit));
+                }
+                builder.append(LS);
+            }
+        }
+    }
+
+    /**
+     * 每个字节的位图中按照位的顺序排列的字段名称
+     */
+    private List<List<String>> bitmapFields(ProtocolRegistration registration) {
+        var bitmaps = new ArrayList<List<String>>();
+        var bitIndexes = registration.getBitIndexes();
+        if (bitIndexes == null) {
+            return bitmaps;
+        }
+        for (var i = 0; i < registration.getBitmapBytes(); i++) {
+            bitmaps.add(new ArrayList<>());
+        }
+        var fields = registration.getFields();
+        for (var i = 0; i < fields.length; i++) {
+            if (bitIndexes[i] >= 0) {
+                bitmaps.get(bitIndexes[i] >> 3).add(fields[i].getName());
+            }
+        }
+        return bitmaps;
+    }
+
+}
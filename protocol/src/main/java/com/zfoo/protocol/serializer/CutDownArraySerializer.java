@@ -12,8 +12,10 @@
 
 package com.zfoo.protocol.serializer;
 
+import com.zfoo.protocol.exception.RunException;
 import com.zfoo.protocol.generate.GenerateProtocolFile;
 import com.zfoo.protocol.registration.EnhanceUtils;
+import com.zfoo.protocol.registration.anno.Packed;
 import com.zfoo.protocol.registration.field.ArrayField;
 import com.zfoo.protocol.registration.field.BaseField;
 import com.zfoo.protocol.registration.field.IFieldRegistration;
@@ -44,6 +46,32 @@ public class CutDownArraySerializer implements ICutDownSerializer {
         var arrayName = getArrayClassName(arrayField);
         var flag = true;
 
+        // Packed的数组在所有语言中都必须使用同样的编码，不能回退到逐个元素的写法
+        if (arrayField.getPacked() != null) {
+            var method = packedMethodName(arrayField, arrayName, language);
+            switch (language) {
+                case Enhance:
+                    builder.append(StringUtils.format("{}.write{}($1, {});", EnhanceUtils.byteBufUtils, method, objectStr));
+                    break;
+                case GdScript:
+                    builder.append(StringUtils.format("buffer.write{}({})", method, objectStr)).append(LS);
+                    break;
+                case Lua:
+                    builder.append(StringUtils.format("buffer:write{}({})", method, objectStr)).append(LS);
+                    break;
+                case CSharp:
+                    builder.append(StringUtils.format("buffer.Write{}({});", method, objectStr)).append(LS);
+                    break;
+                case Cpp:
+                case JavaScript:
+                case TypeScript:
+                    builder.append(StringUtils.format("buffer.write{}({});", method, objectStr)).append(LS);
+                    break;
+                default:
+            }
+            return true;
+        }
+
         // 直接在字节码里调用方法是为了减小生成字节码的体积，下面的代码去掉也不会有任何影响
         switch (arrayName) {
             case "boolean":
@@ -478,6 +506,33 @@ public class CutDownArraySerializer implements ICutDownSerializer {
 
         var array = "array" + GenerateProtocolFile.index.getAndIncrement();
 
+        if (arrayField.getPacked() != null) {
+            var method = packedMethodName(arrayField, arrayName, language);
+            switch (language) {
+                case Enhance:
+                    builder.append(StringUtils.format("{}[] {} = {}.read{}($1);", arrayName, array, EnhanceUtils.byteBufUtils, method));
+                    break;
+                case GdScript:
+                    builder.append(StringUtils.format("var {} = buffer.read{}()", array, method)).append(LS);
+                    break;
+                case Lua:
+                    builder.append(StringUtils.format("local {} = buffer:read{}()", array, method)).append(LS);
+                    break;
+                case CSharp:
+                    builder.append(StringUtils.format("var {} = buffer.Read{}();", array, method)).append(LS);
+                    break;
+                case Cpp:
+                    builder.append(StringUtils.format("auto {} = buffer.read{}();", array, method)).append(LS);
+                    break;
+                case JavaScript:
+                case TypeScript:
+                    builder.append(StringUtils.format("const {} = buffer.read{}();", array, method)).append(LS);
+                    break;
+                default:
+            }
+            return array;
+        }
+
         var flag = true;
         switch (arrayName) {
             case "boolean":
@@ -942,6 +997,26 @@ public class CutDownArraySerializer implements ICutDownSerializer {
         }
     }
 
+    /**
+     * Packed数组在ByteBuffer中的方法名称，如FixedIntArray，DeltaLongArray
+     */
+    private String packedMethodName(ArrayField arrayField, String arrayName, CodeLanguage language) {
+        switch (language) {
+            case Enhance:
+            case GdScript:
+            case Lua:
+            case CSharp:
+            case Cpp:
+            case JavaScript:
+            case TypeScript:
+                break;
+            default:
+                throw new RunException("[{}]不支持Packed数组，Packed数组目前只支持Java，C++，Javascript，TypeScript，Lua，C#，GDScript", language);
+        }
+        var prefix = arrayField.getPacked() == Packed.Type.FIXED ? "Fixed" : "Delta";
+        return StringUtils.format("{}{}Array", prefix, StringUtils.capitalize(arrayName));
+    }
+
     public String getArrayClassName(ArrayField arrayField) {
         if (arrayField.getArrayElementRegistration() instanceof BaseField) {
             return arrayField.getType().getSimpleName();
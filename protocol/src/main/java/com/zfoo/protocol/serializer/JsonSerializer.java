@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.serializer;
+
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.buffer.JsonByteBufUtils;
+import com.zfoo.protocol.collection.IntList;
+import com.zfoo.protocol.collection.LongList;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.generate.GenerateProtocolFile;
+import com.zfoo.protocol.registration.EnhanceUtils;
+import com.zfoo.protocol.registration.field.*;
+import com.zfoo.protocol.serializer.reflect.*;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 根据协议字段的注册信息把协议写成json，字节码增强生成的代码和反射的方式输出完全一样
+ * <p>
+ * 和JsonUtils（jackson）的默认输出一致：为null的字段不输出，byte[]为base64的字符串，char[]和char为字符串，map的key为字符串
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class JsonSerializer {
+
+    private static final JsonSerializer INSTANCE = new JsonSerializer();
+
+    private static final String jsonByteBufUtils = JsonByteBufUtils.class.getSimpleName();
+
+    public static JsonSerializer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 生成IProtocolRegistration.writeJson(ByteBuf buffer, IPacket packet)中写一个值的代码
+     *
+     * @param objectStr 值的表达式
+     * @param type      表达式的静态类型，基础类型直接写入，其它的类型需要先强制转换
+     */
+    public void writeObject(StringBuilder builder, String objectStr, Class<?> type, IFieldRegistration fieldRegistration) {
+        if (fieldRegistration instanceof BaseField) {
+            var name = baseName(fieldRegistration.serializer());
+            if (type.isPrimitive()) {
+                builder.append(StringUtils.format("{}.write{}($1, {});", jsonByteBufUtils, name, objectStr));
+            } else if (fieldRegistration.serializer() == StringSerializer.INSTANCE) {
+                builder.append(StringUtils.format("{}.writeString($1, (String){});", jsonByteBufUtils, objectStr));
+            } else {
+                builder.append(StringUtils.format("{}.write{}Box($1, ({}){});", jsonByteBufUtils, name, boxClazz(fieldRegistration.serializer()).getCanonicalName(), objectStr));
+            }
+        } else if (fieldRegistration instanceof ArrayField) {
+            writeArray(builder, objectStr, (ArrayField) fieldRegistration);
+        } else if (fieldRegistration instanceof ListField && ((ListField) fieldRegistration).getPrimitiveListClazz() != null) {
+            writePrimitiveList(builder, objectStr, ((ListField) fieldRegistration).getPrimitiveListClazz());
+        } else if (fieldRegistration instanceof ListField) {
+            writeCollection(builder, objectStr, ((ListField) fieldRegistration).getListElementRegistration());
+        } else if (fieldRegistration instanceof SetField) {
+            writeCollection(builder, objectStr, ((SetField) fieldRegistration).getSetElementRegistration());
+        } else if (fieldRegistration instanceof MapField) {
+            writeMap(builder, objectStr, (MapField) fieldRegistration);
+        } else if (fieldRegistration instanceof ObjectProtocolField) {
+            var protocolId = ((ObjectProtocolField) fieldRegistration).getProtocolId();
+            builder.append(StringUtils.format("{}.writeJson($1, (IPacket){});", EnhanceUtils.getProtocolRegistrationFieldNameByProtocolId(protocolId), objectStr));
+        } else {
+            throw new RunException("json不支持的字段类型[{}]", fieldRegistration.getClass().getSimpleName());
+        }
+    }
+
+    private void writeArray(StringBuilder builder, String objectStr, ArrayField arrayField) {
+        var type = arrayField.getType();
+        // jackson把byte[]写成base64，把char[]写成字符串
+        if (type == byte.class) {
+            builder.append(StringUtils.format("{}.writeByteArray($1, (byte[]){});", jsonByteBufUtils, objectStr));
+            return;
+        } else if (type == char.class) {
+            builder.append(StringUtils.format("{}.writeCharArray($1, (char[]){});", jsonByteBufUtils, objectStr));
+            return;
+        }
+
+        var arrayName = type.getCanonicalName();
+        var array = "array" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("{}[] {} = ({}[]){};", arrayName, array, arrayName, objectStr));
+        builder.append(StringUtils.format("if({} == null){{}.writeNull($1);}else{", array, jsonByteBufUtils));
+        builder.append(StringUtils.format("{}.writeArrayStart($1);", jsonByteBufUtils));
+        var i = "i" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("for(int {}=0; {}<{}.length; {}++){", i, i, array, i));
+        writeObject(builder, StringUtils.format("{}[{}]", array, i), type, arrayField.getArrayElementRegistration());
+        builder.append(StringUtils.format("{}.writeComma($1);}", jsonByteBufUtils));
+        builder.append(StringUtils.format("{}.writeArrayEnd($1);}", jsonByteBufUtils));
+    }
+
+    private void writePrimitiveList(StringBuilder builder, String objectStr, Class<?> primitiveListClazz) {
+        var name = primitiveListClazz == IntList.class ? "Int" : "Long";
+        var list = "list" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("{} {} = ({}){};", primitiveListClazz.getCanonicalName(), list, primitiveListClazz.getCanonicalName(), objectStr));
+        builder.append(StringUtils.format("if({} == null){{}.writeNull($1);}else{", list, jsonByteBufUtils));
+        builder.append(StringUtils.format("{}.writeArrayStart($1);", jsonByteBufUtils));
+        var i = "i" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("for(int {}=0; {}<{}.size(); {}++){", i, i, list, i));
+        builder.append(StringUtils.format("{}.write{}($1, {}.get{}({}));", jsonByteBufUtils, name, list, name, i));
+        builder.append(StringUtils.format("{}.writeComma($1);}", jsonByteBufUtils));
+        builder.append(StringUtils.format("{}.writeArrayEnd($1);}", jsonByteBufUtils));
+    }
+
+    private void writeCollection(StringBuilder builder, String objectStr, IFieldRegistration elementRegistration) {
+        var collection = "collection" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("{} {} = ({}){};", Collection.class.getCanonicalName(), collection, Collection.class.getCanonicalName(), objectStr));
+        builder.append(StringUtils.format("if({} == null){{}.writeNull($1);}else{", collection, jsonByteBufUtils));
+        builder.append(StringUtils.format("{}.writeArrayStart($1);", jsonByteBufUtils));
+        var iterator = "iterator" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Iterator {} = {}.iterator();", iterator, collection));
+        builder.append(StringUtils.format("while({}.hasNext()){", iterator));
+        var element = "element" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Object {}={}.next();", element, iterator));
+        writeObject(builder, element, Object.class, elementRegistration);
+        builder.append(StringUtils.format("{}.writeComma($1);}", jsonByteBufUtils));
+        builder.append(StringUtils.format("{}.writeArrayEnd($1);}", jsonByteBufUtils));
+    }
+
+    private void writeMap(StringBuilder builder, String objectStr, MapField mapField) {
+        var map = "map" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Map {} = (Map){};", map, objectStr));
+        builder.append(StringUtils.format("if({} == null){{}.writeNull($1);}else{", map, jsonByteBufUtils));
+        builder.append(StringUtils.format("{}.writeObjectStart($1);", jsonByteBufUtils));
+        var iterator = "iterator" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Iterator {} = {}.entrySet().iterator();", iterator, map));
+        builder.append(StringUtils.format("while({}.hasNext()){", iterator));
+        var entry = "entry" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("{} {}=({}){}.next();", Map.Entry.class.getCanonicalName(), entry, Map.Entry.class.getCanonicalName(), iterator));
+        builder.append(StringUtils.format("{}.writeMapKey($1, {}.getKey());", jsonByteBufUtils, entry));
+        writeObject(builder, StringUtils.format("{}.getValue()", entry), Object.class, mapField.getMapValueRegistration());
+        builder.append(StringUtils.format("{}.writeComma($1);}", jsonByteBufUtils));
+        builder.append(StringUtils.format("{}.writeObjectEnd($1);}", jsonByteBufUtils));
+    }
+
+    /**
+     * 反射的方式写一个值，see: writeObject(StringBuilder builder, String objectStr, Class<?> type, IFieldRegistration fieldRegistration)
+     */
+    public void writeObject(ByteBuf buffer, Object object, IFieldRegistration fieldRegistration) {
+        if (object == null) {
+            JsonByteBufUtils.writeNull(buffer);
+            return;
+        }
+
+        if (fieldRegistration instanceof BaseField) {
+            writeBase(buffer, object, fieldRegistration.serializer());
+        } else if (fieldRegistration instanceof ArrayField) {
+            var arrayField = (ArrayField) fieldRegistration;
+            if (arrayField.getType() == byte.class) {
+                JsonByteBufUtils.writeByteArray(buffer, (byte[]) object);
+                return;
+            } else if (arrayField.getType() == char.class) {
+                JsonByteBufUtils.writeCharArray(buffer, (char[]) object);
+                return;
+            }
+            JsonByteBufUtils.writeArrayStart(buffer);
+            for (int i = 0, length = Array.getLength(object); i < length; i++) {
+                writeObject(buffer, Array.get(object, i), arrayField.getArrayElementRegistration());
+                JsonByteBufUtils.writeComma(buffer);
+            }
+            JsonByteBufUtils.writeArrayEnd(buffer);
+        } else if (object instanceof IntList) {
+            var list = (IntList) object;
+            JsonByteBufUtils.writeArrayStart(buffer);
+            for (int i = 0, size = list.size(); i < size; i++) {
+                JsonByteBufUtils.writeInt(buffer, list.getInt(i));
+                JsonByteBufUtils.writeComma(buffer);
+            }
+            JsonByteBufUtils.writeArrayEnd(buffer);
+        } else if (object instanceof LongList) {
+            var list = (LongList) object;
+            JsonByteBufUtils.writeArrayStart(buffer);
+            for (int i = 0, size = list.size(); i < size; i++) {
+                JsonByteBufUtils.writeLong(buffer, list.getLong(i));
+                JsonByteBufUtils.writeComma(buffer);
+            }
+            JsonByteBufUtils.writeArrayEnd(buffer);
+        } else if (fieldRegistration instanceof ListField || fieldRegistration instanceof SetField) {
+            var elementRegistration = fieldRegistration instanceof ListField
+                    ? ((ListField) fieldRegistration).getListElementRegistration()
+                    : ((SetField) fieldRegistration).getSetElementRegistration();
+            JsonByteBufUtils.writeArrayStart(buffer);
+            for (var element : (Collection<?>) object) {
+                writeObject(buffer, element, elementRegistration);
+                JsonByteBufUtils.writeComma(buffer);
+            }
+            JsonByteBufUtils.writeArrayEnd(buffer);
+        } else if (fieldRegistration instanceof MapField) {
+            var valueRegistration = ((MapField) fieldRegistration).getMapValueRegistration();
+            JsonByteBufUtils.writeObjectStart(buffer);
+            for (var entry : ((Map<?, ?>) object).entrySet()) {
+                JsonByteBufUtils.writeMapKey(buffer, entry.getKey());
+                writeObject(buffer, entry.getValue(), valueRegistration);
+                JsonByteBufUtils.writeComma(buffer);
+            }
+            JsonByteBufUtils.writeObjectEnd(buffer);
+        } else if (fieldRegistration instanceof ObjectProtocolField) {
+            ProtocolManager.getProtocol(((ObjectProtocolField) fieldRegistration).getProtocolId()).writeJson(buffer, (IPacket) object);
+        } else {
+            throw new RunException("json不支持的字段类型[{}]", fieldRegistration.getClass().getSimpleName());
+        }
+    }
+
+    private void writeBase(ByteBuf buffer, Object object, ISerializer serializer) {
+        if (serializer == BooleanSerializer.INSTANCE) {
+            JsonByteBufUtils.writeBoolean(buffer, (Boolean) object);
+        } else if (serializer == ByteSerializer.INSTANCE || serializer == ShortSerializer.INSTANCE
+                || serializer == IntSerializer.INSTANCE || serializer == LongSerializer.INSTANCE) {
+            JsonByteBufUtils.writeLong(buffer, ((Number) object).longValue());
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            JsonByteBufUtils.writeFloat(buffer, (Float) object);
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            JsonByteBufUtils.writeDouble(buffer, (Double) object);
+        } else if (serializer == CharSerializer.INSTANCE) {
+            JsonByteBufUtils.writeChar(buffer, (Character) object);
+        } else {
+            JsonByteBufUtils.writeString(buffer, (String) object);
+        }
+    }
+
+    private String baseName(ISerializer serializer) {
+        if (serializer == BooleanSerializer.INSTANCE) {
+            return "Boolean";
+        } else if (serializer == ByteSerializer.INSTANCE) {
+            return "Byte";
+        } else if (serializer == ShortSerializer.INSTANCE) {
+            return "Short";
+        } else if (serializer == IntSerializer.INSTANCE) {
+            return "Int";
+        } else if (serializer == LongSerializer.INSTANCE) {
+            return "Long";
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            return "Float";
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            return "Double";
+        } else if (serializer == CharSerializer.INSTANCE) {
+            return "Char";
+        } else {
+            return "String";
+        }
+    }
+
+    private Class<?> boxClazz(ISerializer serializer) {
+        if (serializer == BooleanSerializer.INSTANCE) {
+            return Boolean.class;
+        } else if (serializer == ByteSerializer.INSTANCE) {
+            return Byte.class;
+        } else if (serializer == ShortSerializer.INSTANCE) {
+            return Short.class;
+        } else if (serializer == IntSerializer.INSTANCE) {
+            return Integer.class;
+        } else if (serializer == LongSerializer.INSTANCE) {
+            return Long.class;
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            return Float.class;
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            return Double.class;
+        } else {
+            return Character.class;
+        }
+    }
+
+}
@@ -25,6 +25,8 @@ import com.zfoo.protocol.registration.ProtocolAnalysis;
 import com.zfoo.protocol.registration.ProtocolRegistration;
 import com.zfoo.protocol.registration.anno.Compatible;
 import com.zfoo.protocol.registration.field.IFieldRegistration;
+import com.zfoo.protocol.serializer.BitPackedSerializer;
+import com.zfoo.protocol.serializer.CodeLanguage;
 import com.zfoo.protocol.serializer.enhance.EnhanceObjectProtocolSerializer;
 import com.zfoo.protocol.serializer.reflect.*;
 import com.zfoo.protocol.util.ClassUtils;
@@ -269,7 +271,11 @@ public abstract class GenerateCppUtils {
         var fieldRegistrations = registration.getFieldRegistrations();
 
         var cppBuilder = new StringBuilder();
+        BitPackedSerializer.getInstance().writeBitmap(cppBuilder, registration, "message->", TAB + TAB + TAB, CodeLanguage.Cpp);
         for (int i = 0; i < fields.length; i++) {
+            if (BitPackedSerializer.getInstance().isBitPacked(registration, i)) {
+                continue;
+            }
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
             var serializer = cppSerializer(fieldRegistration.serializer());
@@ -288,7 +294,11 @@ public abstract class GenerateCppUtils {
         var fieldRegistrations = registration.getFieldRegistrations();
 
         var cppBuilder = new StringBuilder();
+        BitPackedSerializer.getInstance().readBitmap(cppBuilder, registration, "packet->", TAB + TAB + TAB, CodeLanguage.Cpp);
         for (int i = 0; i < fields.length; i++) {
+            if (BitPackedSerializer.getInstance().isBitPacked(registration, i)) {
+                continue;
+            }
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
 
@@ -311,6 +321,7 @@ public abstract class GenerateCppUtils {
 
 
     public static String toCppClassName(String typeName) {
+        typeName = GenerateProtocolFile.toGenericTypeName(typeName);
         typeName = typeName.replaceAll("java.util.|java.lang.", StringUtils.EMPTY);
         typeName = typeName.replaceAll("com\\.[a-zA-Z0-9_.]*\\.", StringUtils.EMPTY);
 
@@ -20,6 +20,8 @@ import com.zfoo.protocol.generate.GenerateProtocolPath;
 import com.zfoo.protocol.model.Pair;
 import com.zfoo.protocol.registration.ProtocolRegistration;
 import com.zfoo.protocol.registration.anno.Compatible;
+import com.zfoo.protocol.serializer.BitPackedSerializer;
+import com.zfoo.protocol.serializer.CodeLanguage;
 import com.zfoo.protocol.serializer.reflect.*;
 import com.zfoo.protocol.util.ClassUtils;
 import com.zfoo.protocol.util.FileUtils;
@@ -179,7 +181,11 @@ public abstract class GenerateCsUtils {
         var fields = registration.getFields();
         var fieldRegistrations = registration.getFieldRegistrations();
         var csBuilder = new StringBuilder();
+        BitPackedSerializer.getInstance().writeBitmap(csBuilder, registration, "message.", TAB + TAB + TAB, CodeLanguage.CSharp);
         for (var i = 0; i < fields.length; i++) {
+            if (BitPackedSerializer.getInstance().isBitPacked(registration, i)) {
+                continue;
+            }
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
             csSerializer(fieldRegistration.serializer()).writeObject(csBuilder, "message." + field.getName(), 3, field, fieldRegistration);
@@ -192,7 +198,11 @@ public abstract class GenerateCsUtils {
         var fields = registration.getFields();
         var fieldRegistrations = registration.getFieldRegistrations();
         var csBuilder = new StringBuilder();
+        BitPackedSerializer.getInstance().readBitmap(csBuilder, registration, "packet.", TAB + TAB + TAB, CodeLanguage.CSharp);
         for (var i = 0; i < fields.length; i++) {
+            if (BitPackedSerializer.getInstance().isBitPacked(registration, i)) {
+                continue;
+            }
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
             if (field.isAnnotationPresent(Compatible.class)) {
@@ -208,6 +218,7 @@ public abstract class GenerateCsUtils {
     }
 
     public static String toCsClassName(String typeName) {
+        typeName = GenerateProtocolFile.toGenericTypeName(typeName);
         typeName = typeName.replaceAll("java.util.|java.lang.", StringUtils.EMPTY);
         typeName = typeName.replaceAll("com\\.[a-zA-Z0-9_.]*\\.", StringUtils.EMPTY);
 
@@ -15,7 +15,9 @@ package com.zfoo.protocol.serializer.enhance;
 
 import com.zfoo.protocol.generate.GenerateProtocolFile;
 import com.zfoo.protocol.registration.EnhanceUtils;
+import com.zfoo.protocol.registration.anno.Packed;
 import com.zfoo.protocol.registration.field.ArrayField;
+import com.zfoo.protocol.registration.field.BaseField;
 import com.zfoo.protocol.registration.field.IFieldRegistration;
 import com.zfoo.protocol.serializer.CodeLanguage;
 import com.zfoo.protocol.serializer.CutDownArraySerializer;
@@ -56,6 +58,66 @@ public class EnhanceArraySerializer implements IEnhanceSerializer {
         builder.append("}");
     }
 
+    @Override
+    public void serializedSize(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        var arrayField = (ArrayField) fieldRegistration;
+        var arrayName = CutDownArraySerializer.getInstance().getArrayClassName(arrayField);
+
+        var array = "array" + GenerateProtocolFile.index.getAndIncrement();
+        var length = "length" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("{}[] {} = {};", arrayName, array, objectStr));
+        builder.append(StringUtils.format("int {} = ArrayUtils.length({});", length, array));
+
+        // Packed的数组，FIXED为定长，DELTA_VARINT调用ByteBufUtils计算差值的长度
+        if (arrayField.getPacked() == Packed.Type.FIXED) {
+            builder.append(StringUtils.format("{} += {}.writeFixedArrayCount({}, {});", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, length, arrayField.packedElementBytes()));
+            return;
+        } else if (arrayField.getPacked() == Packed.Type.DELTA_VARINT) {
+            builder.append(StringUtils.format("{} += {}.writeDelta{}ArrayCount({});", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, StringUtils.capitalize(arrayName), array));
+            return;
+        }
+
+        // 基础类型的数组不能装箱，定长的直接计算，变长的调用ByteBufUtils
+        switch (arrayName) {
+            case "boolean":
+            case "byte":
+                builder.append(StringUtils.format("{} += {}.writeIntCount({}) + {};", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, length, length));
+                return;
+            case "short":
+                builder.append(StringUtils.format("{} += {}.writeIntCount({}) + {} * 2;", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, length, length));
+                return;
+            case "float":
+                builder.append(StringUtils.format("{} += {}.writeIntCount({}) + {} * 4;", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, length, length));
+                return;
+            case "double":
+                builder.append(StringUtils.format("{} += {}.writeIntCount({}) + {} * 8;", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, length, length));
+                return;
+            case "int":
+                builder.append(StringUtils.format("{} += {}.writeIntArrayCount({});", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, array));
+                return;
+            case "long":
+                builder.append(StringUtils.format("{} += {}.writeLongArrayCount({});", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, array));
+                return;
+            case "char":
+                builder.append(StringUtils.format("{} += {}.writeCharArrayCount({});", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, array));
+                return;
+            default:
+        }
+
+        builder.append(StringUtils.format("{} += {}.writeIntCount({});", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, length));
+
+        var i = "i" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("for(int {}=0; {}<{}; {}++){", i, i, length, i));
+
+        var element = "element" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("{} {} = {}[{}];", arrayName, element, array, i));
+
+        EnhanceUtils.enhanceSerializer(arrayField.getArrayElementRegistration().serializer())
+                .serializedSize(builder, element, field, arrayField.getArrayElementRegistration());
+
+        builder.append("}");
+    }
+
     @Override
     public String readObject(StringBuilder builder, Field field, IFieldRegistration fieldRegistration) {
         var cutDown = CutDownArraySerializer.getInstance().readObject(builder, field, fieldRegistration, CodeLanguage.Enhance);
@@ -80,4 +142,30 @@ public class EnhanceArraySerializer implements IEnhanceSerializer {
         return array;
     }
 
+    @Override
+    public String copyObject(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        var arrayField = (ArrayField) fieldRegistration;
+        var arrayName = CutDownArraySerializer.getInstance().getArrayClassName(arrayField);
+
+        var array = "array" + GenerateProtocolFile.index.getAndIncrement();
+        var result = "result" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("{}[] {} = {};", arrayName, array, objectStr));
+        builder.append(StringUtils.format("{}[] {} = null;", arrayName, result));
+        builder.append(StringUtils.format("if({} != null){", array));
+        builder.append(StringUtils.format("{} = new {}[{}.length];", result, arrayName, array));
+
+        // 基础类型和不可变的包装类型直接整体拷贝，只有协议对象需要逐个深拷贝
+        if (arrayField.getArrayElementRegistration() instanceof BaseField) {
+            builder.append(StringUtils.format("System.arraycopy({}, 0, {}, 0, {}.length);}", array, result, array));
+            return result;
+        }
+
+        var i = "i" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("for(int {}=0; {}<{}.length; {}++){", i, i, array, i));
+        var copyObject = EnhanceUtils.enhanceSerializer(arrayField.getArrayElementRegistration().serializer())
+                .copyObject(builder, StringUtils.format("{}[{}]", array, i), field, arrayField.getArrayElementRegistration());
+        builder.append(StringUtils.format("{}[{}] = {};}}", result, i, copyObject));
+        return result;
+    }
+
 }
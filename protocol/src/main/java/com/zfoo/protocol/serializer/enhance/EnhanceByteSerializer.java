@@ -35,6 +35,11 @@ public class EnhanceByteSerializer implements IEnhanceSerializer {
         }
     }
 
+    @Override
+    public void serializedSize(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        builder.append(StringUtils.format("{} += 1;", EnhanceUtils.packetSize));
+    }
+
     @Override
     public String readObject(StringBuilder builder, Field field, IFieldRegistration fieldRegistration) {
         var result = "result" + GenerateProtocolFile.index.getAndIncrement();
@@ -47,4 +52,9 @@ public class EnhanceByteSerializer implements IEnhanceSerializer {
         return result;
     }
 
+    @Override
+    public String copyObject(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        return objectStr;
+    }
+
 }
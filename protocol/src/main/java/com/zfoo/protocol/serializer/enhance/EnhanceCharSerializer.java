@@ -35,6 +35,15 @@ public class EnhanceCharSerializer implements IEnhanceSerializer {
         }
     }
 
+    @Override
+    public void serializedSize(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        if (field.getType().isPrimitive()) {
+            builder.append(StringUtils.format("{} += {}.writeCharCount({});", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, objectStr));
+        } else {
+            builder.append(StringUtils.format("{} += {}.writeCharBoxCount((Character){});", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, objectStr));
+        }
+    }
+
     @Override
     public String readObject(StringBuilder builder, Field field, IFieldRegistration fieldRegistration) {
         var result = "result" + GenerateProtocolFile.index.getAndIncrement();
@@ -47,4 +56,9 @@ public class EnhanceCharSerializer implements IEnhanceSerializer {
         return result;
     }
 
+    @Override
+    public String copyObject(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        return objectStr;
+    }
+
 }
@@ -13,8 +13,10 @@
 
 package com.zfoo.protocol.serializer.enhance;
 
+import com.zfoo.protocol.collection.IntList;
 import com.zfoo.protocol.generate.GenerateProtocolFile;
 import com.zfoo.protocol.registration.EnhanceUtils;
+import com.zfoo.protocol.registration.field.BaseField;
 import com.zfoo.protocol.registration.field.IFieldRegistration;
 import com.zfoo.protocol.registration.field.ListField;
 import com.zfoo.protocol.serializer.CodeLanguage;
@@ -31,6 +33,12 @@ public class EnhanceListSerializer implements IEnhanceSerializer {
 
     @Override
     public void writeObject(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        var primitiveListClazz = ((ListField) fieldRegistration).getPrimitiveListClazz();
+        if (primitiveListClazz != null) {
+            builder.append(StringUtils.format("{}.write{}PrimitiveList($1, ({}){});", EnhanceUtils.byteBufUtils, primitiveName(primitiveListClazz), primitiveListClazz.getCanonicalName(), objectStr));
+            return;
+        }
+
         if (CutDownListSerializer.getInstance().writeObject(builder, objectStr, field, fieldRegistration, CodeLanguage.Enhance)) {
             return;
         }
@@ -54,8 +62,39 @@ public class EnhanceListSerializer implements IEnhanceSerializer {
 
     }
 
+    @Override
+    public void serializedSize(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        var listField = (ListField) fieldRegistration;
+        var primitiveListClazz = listField.getPrimitiveListClazz();
+        if (primitiveListClazz != null) {
+            builder.append(StringUtils.format("{} += {}.write{}PrimitiveListCount(({}){});", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, primitiveName(primitiveListClazz), primitiveListClazz.getCanonicalName(), objectStr));
+            return;
+        }
+
+        var list = "list" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("List {} = (List){};", list, objectStr));
+        builder.append(StringUtils.format("{} += {}.writeIntCount(CollectionUtils.size({}));", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, list));
+
+        var iterator = "iterator" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Iterator {} = CollectionUtils.iterator({});", iterator, list));
+        builder.append(StringUtils.format("while({}.hasNext()){", iterator));
+
+        var element = "element" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Object {}={}.next();", element, iterator));
+        EnhanceUtils.enhanceSerializer(listField.getListElementRegistration().serializer())
+                .serializedSize(builder, element, field, listField.getListElementRegistration());
+        builder.append("}");
+    }
+
     @Override
     public String readObject(StringBuilder builder, Field field, IFieldRegistration fieldRegistration) {
+        var primitiveListClazz = ((ListField) fieldRegistration).getPrimitiveListClazz();
+        if (primitiveListClazz != null) {
+            var list = "list" + GenerateProtocolFile.index.getAndIncrement();
+            builder.append(StringUtils.format("{} {} = {}.read{}PrimitiveList($1);", primitiveListClazz.getCanonicalName(), list, EnhanceUtils.byteBufUtils, primitiveName(primitiveListClazz)));
+            return list;
+        }
+
         var cutDown = CutDownListSerializer.getInstance().readObject(builder, field, fieldRegistration, CodeLanguage.Enhance);
         if (cutDown != null) {
             return cutDown;
@@ -77,4 +116,47 @@ public class EnhanceListSerializer implements IEnhanceSerializer {
         return list;
     }
 
+    /**
+     * IntList和LongList直接读写基础类型，没有装箱
+     */
+    private String primitiveName(Class<?> primitiveListClazz) {
+        return primitiveListClazz == IntList.class ? "Int" : "Long";
+    }
+
+    @Override
+    public String copyObject(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        var listField = (ListField) fieldRegistration;
+        var primitiveListClazz = listField.getPrimitiveListClazz();
+        var list = "list" + GenerateProtocolFile.index.getAndIncrement();
+        var result = "result" + GenerateProtocolFile.index.getAndIncrement();
+        if (primitiveListClazz != null) {
+            builder.append(StringUtils.format("{} {} = ({}){};", primitiveListClazz.getCanonicalName(), list, primitiveListClazz.getCanonicalName(), objectStr));
+            builder.append(StringUtils.format("{} {} = null;", primitiveListClazz.getCanonicalName(), result));
+            builder.append(StringUtils.format("if({} != null){{} = new {}({}.to{}Array());}", list, result, primitiveListClazz.getCanonicalName(), list, primitiveName(primitiveListClazz)));
+            return result;
+        }
+
+        builder.append(StringUtils.format("List {} = (List){};", list, objectStr));
+        builder.append(StringUtils.format("List {} = null;", result));
+        builder.append(StringUtils.format("if({} != null){", list));
+
+        // 不可变的元素直接共享
+        if (listField.getListElementRegistration() instanceof BaseField) {
+            builder.append(StringUtils.format("{} = new ArrayList({});}", result, list));
+            return result;
+        }
+
+        builder.append(StringUtils.format("{} = new ArrayList({}.size());", result, list));
+        var iterator = "iterator" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Iterator {} = {}.iterator();", iterator, list));
+        builder.append(StringUtils.format("while({}.hasNext()){", iterator));
+
+        var element = "element" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Object {}={}.next();", element, iterator));
+        var copyObject = EnhanceUtils.enhanceSerializer(listField.getListElementRegistration().serializer())
+                .copyObject(builder, element, field, listField.getListElementRegistration());
+        builder.append(StringUtils.format("{}.add({});}}", result, copyObject));
+        return result;
+    }
+
 }
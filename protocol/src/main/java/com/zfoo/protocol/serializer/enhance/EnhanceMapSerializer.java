@@ -65,6 +65,34 @@ public class EnhanceMapSerializer implements IEnhanceSerializer {
         builder.append("}");
     }
 
+    @Override
+    public void serializedSize(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        var mapField = (MapField) fieldRegistration;
+        var keyRegistration = mapField.getMapKeyRegistration();
+        var valueRegistration = mapField.getMapValueRegistration();
+
+        var map = "map" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Map {} = (Map){};", map, objectStr));
+        builder.append(StringUtils.format("{} += {}.writeIntCount(CollectionUtils.size({}));", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, map));
+
+        var iterator = "iterator" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Iterator {} = CollectionUtils.iterator({});", iterator, map));
+        builder.append(StringUtils.format("while({}.hasNext()) {", iterator));
+
+        var entry = "entry" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("{} {}=({}){}.next();", Map.Entry.class.getCanonicalName(), entry, Map.Entry.class.getCanonicalName(), iterator));
+
+        var key = "key" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Object {} = {}.getKey();", key, entry));
+
+        var value = "value" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Object {} = {}.getValue();", value, entry));
+
+        EnhanceUtils.enhanceSerializer(keyRegistration.serializer()).serializedSize(builder, key, field, keyRegistration);
+        EnhanceUtils.enhanceSerializer(valueRegistration.serializer()).serializedSize(builder, value, field, valueRegistration);
+        builder.append("}");
+    }
+
     @Override
     public String readObject(StringBuilder builder, Field field, IFieldRegistration fieldRegistration) {
         var cutDown = CutDownMapSerializer.getInstance().readObject(builder, field, fieldRegistration, CodeLanguage.Enhance);
@@ -92,4 +120,36 @@ public class EnhanceMapSerializer implements IEnhanceSerializer {
         return map;
     }
 
+    @Override
+    public String copyObject(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        var mapField = (MapField) fieldRegistration;
+        var keyRegistration = mapField.getMapKeyRegistration();
+        var valueRegistration = mapField.getMapValueRegistration();
+
+        var map = "map" + GenerateProtocolFile.index.getAndIncrement();
+        var result = "result" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Map {} = (Map){};", map, objectStr));
+        builder.append(StringUtils.format("Map {} = null;", result));
+        builder.append(StringUtils.format("if({} != null){", map));
+        builder.append(StringUtils.format("{} = new HashMap(CollectionUtils.comfortableCapacity({}.size()));", result, map));
+
+        var iterator = "iterator" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Iterator {} = {}.entrySet().iterator();", iterator, map));
+        builder.append(StringUtils.format("while({}.hasNext()){", iterator));
+
+        var entry = "entry" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("{} {}=({}){}.next();", Map.Entry.class.getCanonicalName(), entry, Map.Entry.class.getCanonicalName(), iterator));
+
+        var key = "key" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Object {} = {}.getKey();", key, entry));
+
+        var value = "value" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Object {} = {}.getValue();", value, entry));
+
+        var keyObject = EnhanceUtils.enhanceSerializer(keyRegistration.serializer()).copyObject(builder, key, field, keyRegistration);
+        var valueObject = EnhanceUtils.enhanceSerializer(valueRegistration.serializer()).copyObject(builder, value, field, valueRegistration);
+        builder.append(StringUtils.format("{}.put({},{});}}", result, keyObject, valueObject));
+        return result;
+    }
+
 }
@@ -36,6 +36,12 @@ public class EnhanceObjectProtocolSerializer implements IEnhanceSerializer {
         builder.append(StringUtils.format("{}.write($1, (IPacket){});", EnhanceUtils.getProtocolRegistrationFieldNameByProtocolId(objectProtocolField.getProtocolId()), objectStr));
     }
 
+    @Override
+    public void serializedSize(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        var objectProtocolField = (ObjectProtocolField) fieldRegistration;
+        builder.append(StringUtils.format("{} += {}.serializedSize((IPacket){});", EnhanceUtils.packetSize, EnhanceUtils.getProtocolRegistrationFieldNameByProtocolId(objectProtocolField.getProtocolId()), objectStr));
+    }
+
     @Override
     public String readObject(StringBuilder builder, Field field, IFieldRegistration fieldRegistration) {
         var objectProtocolField = (ObjectProtocolField) fieldRegistration;
@@ -53,4 +59,13 @@ public class EnhanceObjectProtocolSerializer implements IEnhanceSerializer {
         return ProtocolManager.getProtocol(protocolId).protocolConstructor().getDeclaringClass().getCanonicalName();
     }
 
+    @Override
+    public String copyObject(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        var objectProtocolField = (ObjectProtocolField) fieldRegistration;
+        var result = "result" + GenerateProtocolFile.index.getAndIncrement();
+        var protocolName = getProtocolClassCanonicalName(objectProtocolField.getProtocolId());
+        builder.append(StringUtils.format("{} {} = ({}){}.copy((IPacket){});", protocolName, result, protocolName, EnhanceUtils.getProtocolRegistrationFieldNameByProtocolId(objectProtocolField.getProtocolId()), objectStr));
+        return result;
+    }
+
 }
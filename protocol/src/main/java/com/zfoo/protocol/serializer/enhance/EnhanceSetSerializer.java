@@ -53,6 +53,25 @@ public class EnhanceSetSerializer implements IEnhanceSerializer {
 
     }
 
+    @Override
+    public void serializedSize(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        var setField = (SetField) fieldRegistration;
+
+        var set = "set" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Set {} = (Set){};", set, objectStr));
+        builder.append(StringUtils.format("{} += {}.writeIntCount(CollectionUtils.size({}));", EnhanceUtils.packetSize, EnhanceUtils.byteBufUtils, set));
+
+        var iterator = "iterator" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Iterator {} = CollectionUtils.iterator({});", iterator, set));
+        builder.append(StringUtils.format("while({}.hasNext()) {", iterator));
+
+        var element = "element" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Object {}={}.next();", element, iterator));
+        EnhanceUtils.enhanceSerializer(setField.getSetElementRegistration().serializer())
+                .serializedSize(builder, element, field, setField.getSetElementRegistration());
+        builder.append("}");
+    }
+
     @Override
     public String readObject(StringBuilder builder, Field field, IFieldRegistration fieldRegistration) {
         var cutDown = CutDownSetSerializer.getInstance().readObject(builder, field, fieldRegistration, CodeLanguage.Enhance);
@@ -75,4 +94,26 @@ public class EnhanceSetSerializer implements IEnhanceSerializer {
         return set;
     }
 
+    @Override
+    public String copyObject(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration) {
+        var setField = (SetField) fieldRegistration;
+        var set = "set" + GenerateProtocolFile.index.getAndIncrement();
+        var result = "result" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Set {} = (Set){};", set, objectStr));
+        builder.append(StringUtils.format("Set {} = null;", result));
+        builder.append(StringUtils.format("if({} != null){", set));
+        builder.append(StringUtils.format("{} = new HashSet(CollectionUtils.comfortableCapacity({}.size()));", result, set));
+
+        var iterator = "iterator" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Iterator {} = {}.iterator();", iterator, set));
+        builder.append(StringUtils.format("while({}.hasNext()){", iterator));
+
+        var element = "element" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("Object {}={}.next();", element, iterator));
+        var copyObject = EnhanceUtils.enhanceSerializer(setField.getSetElementRegistration().serializer())
+                .copyObject(builder, element, field, setField.getSetElementRegistration());
+        builder.append(StringUtils.format("{}.add({});}}", result, copyObject));
+        return result;
+    }
+
 }
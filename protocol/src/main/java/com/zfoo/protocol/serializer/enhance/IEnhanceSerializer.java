@@ -30,10 +30,22 @@ public interface IEnhanceSerializer {
      */
     void writeObject(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration);
 
+    /**
+     * IProtocolRegistration.int serializedSize(IPacket packet);
+     * 把序列化的字节数累加到EnhanceUtils.packetSize变量中
+     */
+    void serializedSize(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration);
+
     /**
      * IProtocolRegistration.Object read(ByteBuf buffer);
      * $1=buffer
      */
     String readObject(StringBuilder builder, Field field, IFieldRegistration fieldRegistration);
 
+    /**
+     * IProtocolRegistration.Object copy(IPacket packet);
+     * 返回深拷贝之后的变量名或者表达式，不可变的类型直接返回objectStr
+     */
+    String copyObject(StringBuilder builder, String objectStr, Field field, IFieldRegistration fieldRegistration);
+
 }
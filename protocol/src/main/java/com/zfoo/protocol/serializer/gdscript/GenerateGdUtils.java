@@ -20,6 +20,8 @@ import com.zfoo.protocol.generate.GenerateProtocolPath;
 import com.zfoo.protocol.registration.IProtocolRegistration;
 import com.zfoo.protocol.registration.ProtocolRegistration;
 import com.zfoo.protocol.registration.anno.Compatible;
+import com.zfoo.protocol.serializer.BitPackedSerializer;
+import com.zfoo.protocol.serializer.CodeLanguage;
 import com.zfoo.protocol.serializer.reflect.*;
 import com.zfoo.protocol.util.ClassUtils;
 import com.zfoo.protocol.util.FileUtils;
@@ -156,7 +158,11 @@ public abstract class GenerateGdUtils {
         var fields = registration.getFields();
         var fieldRegistrations = registration.getFieldRegistrations();
         var gdBuilder = new StringBuilder();
+        BitPackedSerializer.getInstance().writeBitmap(gdBuilder, registration, "packet.", TAB_ASCII, CodeLanguage.GdScript);
         for (var i = 0; i < fields.length; i++) {
+            if (BitPackedSerializer.getInstance().isBitPacked(registration, i)) {
+                continue;
+            }
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
             gdSerializer(fieldRegistration.serializer()).writeObject(gdBuilder, "packet." + field.getName(), 1, field, fieldRegistration);
@@ -168,7 +174,11 @@ public abstract class GenerateGdUtils {
         var fields = registration.getFields();
         var fieldRegistrations = registration.getFieldRegistrations();
         var gdBuilder = new StringBuilder();
+        BitPackedSerializer.getInstance().readBitmap(gdBuilder, registration, "packet.", TAB_ASCII, CodeLanguage.GdScript);
         for (var i = 0; i < fields.length; i++) {
+            if (BitPackedSerializer.getInstance().isBitPacked(registration, i)) {
+                continue;
+            }
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
             if (field.isAnnotationPresent(Compatible.class)) {
@@ -21,6 +21,8 @@ import com.zfoo.protocol.model.Pair;
 import com.zfoo.protocol.registration.IProtocolRegistration;
 import com.zfoo.protocol.registration.ProtocolRegistration;
 import com.zfoo.protocol.registration.anno.Compatible;
+import com.zfoo.protocol.serializer.BitPackedSerializer;
+import com.zfoo.protocol.serializer.CodeLanguage;
 import com.zfoo.protocol.serializer.reflect.*;
 import com.zfoo.protocol.util.ClassUtils;
 import com.zfoo.protocol.util.FileUtils;
@@ -170,7 +172,11 @@ public abstract class GenerateJsUtils {
         var fields = registration.getFields();
         var fieldRegistrations = registration.getFieldRegistrations();
         var jsBuilder = new StringBuilder();
+        BitPackedSerializer.getInstance().writeBitmap(jsBuilder, registration, "packet.", TAB, CodeLanguage.JavaScript);
         for (var i = 0; i < fields.length; i++) {
+            if (BitPackedSerializer.getInstance().isBitPacked(registration, i)) {
+                continue;
+            }
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
             jsSerializer(fieldRegistration.serializer()).writeObject(jsBuilder, "packet." + field.getName(), 1, field, fieldRegistration);
@@ -182,7 +188,11 @@ public abstract class GenerateJsUtils {
         var fields = registration.getFields();
         var fieldRegistrations = registration.getFieldRegistrations();
         var jsBuilder = new StringBuilder();
+        BitPackedSerializer.getInstance().readBitmap(jsBuilder, registration, "packet.", TAB, CodeLanguage.JavaScript);
         for (var i = 0; i < fields.length; i++) {
+            if (BitPackedSerializer.getInstance().isBitPacked(registration, i)) {
+                continue;
+            }
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
             if (field.isAnnotationPresent(Compatible.class)) {
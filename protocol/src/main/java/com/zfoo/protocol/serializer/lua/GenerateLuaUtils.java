@@ -21,6 +21,8 @@ import com.zfoo.protocol.model.Pair;
 import com.zfoo.protocol.registration.IProtocolRegistration;
 import com.zfoo.protocol.registration.ProtocolRegistration;
 import com.zfoo.protocol.registration.anno.Compatible;
+import com.zfoo.protocol.serializer.BitPackedSerializer;
+import com.zfoo.protocol.serializer.CodeLanguage;
 import com.zfoo.protocol.serializer.reflect.*;
 import com.zfoo.protocol.util.ClassUtils;
 import com.zfoo.protocol.util.FileUtils;
@@ -178,7 +180,11 @@ public abstract class GenerateLuaUtils {
         var fields = registration.getFields();
         var fieldRegistrations = registration.getFieldRegistrations();
         var luaBuilder = new StringBuilder();
+        BitPackedSerializer.getInstance().writeBitmap(luaBuilder, registration, "packet.", TAB, CodeLanguage.Lua);
         for (var i = 0; i < fields.length; i++) {
+            if (BitPackedSerializer.getInstance().isBitPacked(registration, i)) {
+                continue;
+            }
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
 
@@ -191,7 +197,11 @@ public abstract class GenerateLuaUtils {
         var fields = registration.getFields();
         var fieldRegistrations = registration.getFieldRegistrations();
         var luaBuilder = new StringBuilder();
+        BitPackedSerializer.getInstance().readBitmap(luaBuilder, registration, "packet.", TAB, CodeLanguage.Lua);
         for (int i = 0; i < fields.length; i++) {
+            if (BitPackedSerializer.getInstance().isBitPacked(registration, i)) {
+                continue;
+            }
             var field = fields[i];
             var fieldRegistration = fieldRegistrations[i];
             if (field.isAnnotationPresent(Compatible.class)) {
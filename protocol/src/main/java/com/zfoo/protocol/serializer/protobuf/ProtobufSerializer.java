@@ -0,0 +1,796 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.serializer.protobuf;
+
+import com.baidu.bjf.remoting.protobuf.annotation.Protobuf;
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.buffer.ProtobufByteBufUtils;
+import com.zfoo.protocol.collection.IntList;
+import com.zfoo.protocol.collection.LongList;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.generate.GenerateProtocolFile;
+import com.zfoo.protocol.registration.EnhanceUtils;
+import com.zfoo.protocol.registration.ProtocolRegistration;
+import com.zfoo.protocol.registration.field.*;
+import com.zfoo.protocol.serializer.enhance.EnhanceObjectProtocolSerializer;
+import com.zfoo.protocol.serializer.reflect.*;
+import com.zfoo.protocol.util.ReflectionUtils;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static com.zfoo.protocol.buffer.ProtobufByteBufUtils.*;
+
+/**
+ * 根据字段注册信息读写protobuf的编码格式，字段号为jprotobuf的@Protobuf(order)，和GenerateProtobufUtils生成的proto文件一致
+ * <p>
+ * 标量：bool，int32（byte，short，char也使用int32），int64，float，double，string，proto3中默认值不写入；
+ * 数组，List，Set为repeated，数字类型使用packed；Map为map；子协议为嵌套的message
+ * <p>
+ * protobuf不支持嵌套的集合，也不能表示集合中的null，null的message写成空的message，null的数字写成0，null的字符串写成空字符串
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ProtobufSerializer {
+
+    private static final ProtobufSerializer INSTANCE = new ProtobufSerializer();
+
+    private static final String protobufByteBufUtils = ProtobufByteBufUtils.class.getCanonicalName();
+
+    public static ProtobufSerializer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 按照protobuf字段号从小到大排列的字段下标；协议的字段没有全部使用@Protobuf标注，字段号重复，或者有嵌套的集合则返回null，表示不支持protobuf格式
+     */
+    public int[] fieldOrder(ProtocolRegistration registration) {
+        var fields = registration.getFields();
+        var fieldRegistrations = registration.getFieldRegistrations();
+
+        var numbers = new HashSet<Integer>();
+        for (var i = 0; i < fields.length; i++) {
+            if (!fields[i].isAnnotationPresent(Protobuf.class)) {
+                return null;
+            }
+            var number = fieldNumber(fields[i]);
+            if (number <= 0 || !numbers.add(number) || !isSupported(fieldRegistrations[i])) {
+                return null;
+            }
+        }
+
+        return IntStream.range(0, fields.length)
+                .boxed()
+                .sorted(Comparator.comparingInt(it -> fieldNumber(fields[it])))
+                .mapToInt(it -> it)
+                .toArray();
+    }
+
+    public int fieldNumber(Field field) {
+        return field.getAnnotation(Protobuf.class).order();
+    }
+
+    /**
+     * protobuf不支持嵌套的集合，map的key只能是基础类型
+     */
+    private boolean isSupported(IFieldRegistration fieldRegistration) {
+        if (fieldRegistration instanceof BaseField || fieldRegistration instanceof ObjectProtocolField) {
+            return true;
+        } else if (fieldRegistration instanceof MapField) {
+            var mapField = (MapField) fieldRegistration;
+            return mapField.getMapKeyRegistration() instanceof BaseField && isElement(mapField.getMapValueRegistration());
+        }
+        return isElement(elementRegistration(fieldRegistration));
+    }
+
+    private boolean isElement(IFieldRegistration elementRegistration) {
+        return elementRegistration instanceof BaseField || elementRegistration instanceof ObjectProtocolField;
+    }
+
+    //---------------------------------字节码增强--------------------------------------
+
+    /**
+     * IProtocolRegistration.writeProtobuf(ByteBuf buffer, IPacket packet)
+     */
+    public String writeMethodBody(ProtocolRegistration registration) {
+        var fieldOrder = fieldOrder(registration);
+        var packetClazz = registration.getConstructor().getDeclaringClass();
+        if (fieldOrder == null) {
+            return unsupportedMethodBody(packetClazz);
+        }
+
+        var fields = registration.getFields();
+        var fieldRegistrations = registration.getFieldRegistrations();
+
+        var builder = new StringBuilder();
+        builder.append("{").append("if($2==null){").append("return;}");
+        builder.append(StringUtils.format("{} packet = ({})$2;", packetClazz.getCanonicalName(), packetClazz.getCanonicalName()));
+        for (var i : fieldOrder) {
+            var field = fields[i];
+            var fieldRegistration = fieldRegistrations[i];
+            var number = fieldNumber(field);
+            var type = field.getType();
+
+            var value = "value" + GenerateProtocolFile.index.getAndIncrement();
+            var getter = Modifier.isPublic(field.getModifiers())
+                    ? StringUtils.format("packet.{}", field.getName())
+                    : StringUtils.format("packet.{}()", ReflectionUtils.fieldToGetMethod(packetClazz, field));
+            builder.append(StringUtils.format("{} {} = {};", type.getCanonicalName(), value, getter));
+
+            if (fieldRegistration instanceof BaseField) {
+                // proto3中默认值不写入
+                builder.append(StringUtils.format("if({}){", nonDefault(fieldRegistration.serializer(), value, type)));
+                writeElement(builder, number, value, type, fieldRegistration);
+                builder.append("}");
+            } else if (fieldRegistration instanceof ObjectProtocolField) {
+                builder.append(StringUtils.format("if({} != null){", value));
+                writeElement(builder, number, value, type, fieldRegistration);
+                builder.append("}");
+            } else if (fieldRegistration instanceof ArrayField) {
+                var arrayField = (ArrayField) fieldRegistration;
+                var elementType = arrayField.getType();
+                builder.append(StringUtils.format("if({} != null && {}.length > 0){", value, value));
+                var i2 = "i" + GenerateProtocolFile.index.getAndIncrement();
+                writeRepeated(builder, number, arrayField.getArrayElementRegistration(), elementType
+                        , StringUtils.format("for(int {}=0; {}<{}.length; {}++){", i2, i2, value, i2)
+                        , StringUtils.format("{}[{}]", value, i2));
+                builder.append("}");
+            } else if (fieldRegistration instanceof ListField && ((ListField) fieldRegistration).getPrimitiveListClazz() != null) {
+                var primitiveListClazz = ((ListField) fieldRegistration).getPrimitiveListClazz();
+                var primitive = primitiveListClazz == IntList.class ? "Int" : "Long";
+                builder.append(StringUtils.format("if({} != null && !{}.isEmpty()){", value, value));
+                var i2 = "i" + GenerateProtocolFile.index.getAndIncrement();
+                writeRepeated(builder, number, ((ListField) fieldRegistration).getListElementRegistration(), primitiveListClazz == IntList.class ? int.class : long.class
+                        , StringUtils.format("for(int {}=0; {}<{}.size(); {}++){", i2, i2, value, i2)
+                        , StringUtils.format("{}.get{}({})", value, primitive, i2));
+                builder.append("}");
+            } else if (fieldRegistration instanceof ListField || fieldRegistration instanceof SetField) {
+                var elementRegistration = fieldRegistration instanceof ListField
+                        ? ((ListField) fieldRegistration).getListElementRegistration()
+                        : ((SetField) fieldRegistration).getSetElementRegistration();
+                builder.append(StringUtils.format("if({} != null && !{}.isEmpty()){", value, value));
+                var iterator = "iterator" + GenerateProtocolFile.index.getAndIncrement();
+                builder.append(StringUtils.format("Iterator {} = {}.iterator();", iterator, value));
+                writeRepeated(builder, number, elementRegistration, Object.class
+                        , StringUtils.format("while({}.hasNext()){", iterator)
+                        , StringUtils.format("{}.next()", iterator));
+                builder.append("}");
+            } else if (fieldRegistration instanceof MapField) {
+                var mapField = (MapField) fieldRegistration;
+                builder.append(StringUtils.format("if({} != null){", value));
+                var iterator = "iterator" + GenerateProtocolFile.index.getAndIncrement();
+                builder.append(StringUtils.format("Iterator {} = {}.entrySet().iterator();", iterator, value));
+                builder.append(StringUtils.format("while({}.hasNext()){", iterator));
+                var entry = "entry" + GenerateProtocolFile.index.getAndIncrement();
+                builder.append(StringUtils.format("{} {}=({}){}.next();", Map.Entry.class.getCanonicalName(), entry, Map.Entry.class.getCanonicalName(), iterator));
+                // map的每一个entry都是一个key为1，value为2的message，key和value总是写入
+                var length = "length" + GenerateProtocolFile.index.getAndIncrement();
+                builder.append(StringUtils.format("{}.writeRawVarint32($1, {});", protobufByteBufUtils, tag(number, WIRETYPE_LENGTH_DELIMITED)));
+                builder.append(StringUtils.format("int {} = {}.writeLengthStart($1);", length, protobufByteBufUtils));
+                writeElement(builder, 1, StringUtils.format("{}.getKey()", entry), Object.class, mapField.getMapKeyRegistration());
+                writeElement(builder, 2, StringUtils.format("{}.getValue()", entry), Object.class, mapField.getMapValueRegistration());
+                builder.append(StringUtils.format("{}.writeLengthEnd($1, {});", protobufByteBufUtils, length));
+                builder.append("}}");
+            }
+        }
+        builder.append("}");
+        return builder.toString();
+    }
+
+    /**
+     * 数字类型的repeated使用packed的格式，字符串和message每一个元素都写入tag
+     */
+    private void writeRepeated(StringBuilder builder, int number, IFieldRegistration elementRegistration, Class<?> elementType, String loop, String element) {
+        if (isPackable(elementRegistration)) {
+            var length = "length" + GenerateProtocolFile.index.getAndIncrement();
+            builder.append(StringUtils.format("{}.writeRawVarint32($1, {});", protobufByteBufUtils, tag(number, WIRETYPE_LENGTH_DELIMITED)));
+            builder.append(StringUtils.format("int {} = {}.writeLengthStart($1);", length, protobufByteBufUtils));
+            builder.append(loop);
+            writeValue(builder, element, elementType, elementRegistration);
+            builder.append("}");
+            builder.append(StringUtils.format("{}.writeLengthEnd($1, {});", protobufByteBufUtils, length));
+        } else {
+            builder.append(loop);
+            writeElement(builder, number, element, elementType, elementRegistration);
+            builder.append("}");
+        }
+    }
+
+    private void writeElement(StringBuilder builder, int number, String objectStr, Class<?> type, IFieldRegistration fieldRegistration) {
+        builder.append(StringUtils.format("{}.writeRawVarint32($1, {});", protobufByteBufUtils, tag(number, wireType(fieldRegistration))));
+        if (fieldRegistration instanceof ObjectProtocolField) {
+            var length = "length" + GenerateProtocolFile.index.getAndIncrement();
+            builder.append(StringUtils.format("int {} = {}.writeLengthStart($1);", length, protobufByteBufUtils));
+            builder.append(StringUtils.format("{}.writeProtobuf($1, (IPacket){});", EnhanceUtils.getProtocolRegistrationFieldNameByProtocolId(((ObjectProtocolField) fieldRegistration).getProtocolId()), objectStr));
+            builder.append(StringUtils.format("{}.writeLengthEnd($1, {});", protobufByteBufUtils, length));
+        } else {
+            writeValue(builder, objectStr, type, fieldRegistration);
+        }
+    }
+
+    private void writeValue(StringBuilder builder, String objectStr, Class<?> type, IFieldRegistration fieldRegistration) {
+        var serializer = fieldRegistration.serializer();
+        if (type.isPrimitive()) {
+            builder.append(StringUtils.format("{}.{}($1, {});", protobufByteBufUtils, writeMethod(serializer, true), objectStr));
+        } else {
+            builder.append(StringUtils.format("{}.{}($1, ({}){});", protobufByteBufUtils, writeMethod(serializer, false), boxClazz(serializer).getCanonicalName(), objectStr));
+        }
+    }
+
+    /**
+     * IProtocolRegistration.readProtobuf(ByteBuf buffer, int limit)
+     */
+    public String readMethodBody(ProtocolRegistration registration) {
+        var fieldOrder = fieldOrder(registration);
+        var packetClazz = registration.getConstructor().getDeclaringClass();
+        if (fieldOrder == null) {
+            return unsupportedMethodBody(packetClazz);
+        }
+
+        var fields = registration.getFields();
+        var fieldRegistrations = registration.getFieldRegistrations();
+
+        var builder = new StringBuilder();
+        builder.append("{");
+        builder.append(StringUtils.format("{} packet = new {}();", packetClazz.getCanonicalName(), packetClazz.getCanonicalName()));
+
+        // 和protobuf一样，没有写入的字符串和包装类型为默认值；repeated和map字段先放到临时的集合中，读完之后再设置到协议中
+        var collections = new String[fields.length];
+        for (var i : fieldOrder) {
+            var field = fields[i];
+            var fieldRegistration = fieldRegistrations[i];
+            if (fieldRegistration instanceof BaseField && !field.getType().isPrimitive()) {
+                if (Modifier.isPublic(field.getModifiers())) {
+                    builder.append(StringUtils.format("packet.{}={};", field.getName(), defaultValue(fieldRegistration)));
+                } else {
+                    builder.append(StringUtils.format("packet.{}({});", ReflectionUtils.fieldToSetMethod(packetClazz, field), defaultValue(fieldRegistration)));
+                }
+                continue;
+            }
+            if (fieldRegistration instanceof BaseField || fieldRegistration instanceof ObjectProtocolField) {
+                continue;
+            }
+            collections[i] = "collection" + GenerateProtocolFile.index.getAndIncrement();
+            builder.append(StringUtils.format("{} {} = new {}();", collectionClazz(fieldRegistration).getCanonicalName(), collections[i], collectionClazz(fieldRegistration).getCanonicalName()));
+        }
+
+        var tag = "tag" + GenerateProtocolFile.index.getAndIncrement();
+        builder.append(StringUtils.format("while($1.readerIndex() < $2){int {} = {}.readRawVarint32($1);", tag, protobufByteBufUtils));
+        for (var i : fieldOrder) {
+            var field = fields[i];
+            var fieldRegistration = fieldRegistrations[i];
+            builder.append(StringUtils.format("if(({} >>> 3) == {}){", tag, fieldNumber(field)));
+            if (fieldRegistration instanceof BaseField || fieldRegistration instanceof ObjectProtocolField) {
+                var value = readValue(fieldRegistration, field.getType());
+                if (Modifier.isPublic(field.getModifiers())) {
+                    builder.append(StringUtils.format("packet.{}={};", field.getName(), value));
+                } else {
+                    builder.append(StringUtils.format("packet.{}({});", ReflectionUtils.fieldToSetMethod(packetClazz, field), value));
+                }
+            } else if (fieldRegistration instanceof MapField) {
+                var mapField = (MapField) fieldRegistration;
+                var limit = "limit" + GenerateProtocolFile.index.getAndIncrement();
+                var key = "key" + GenerateProtocolFile.index.getAndIncrement();
+                var value = "value" + GenerateProtocolFile.index.getAndIncrement();
+                var entryTag = "tag" + GenerateProtocolFile.index.getAndIncrement();
+                builder.append(StringUtils.format("int {} = {}.readLimit($1);", limit, protobufByteBufUtils));
+                builder.append(StringUtils.format("Object {} = {};", key, defaultValue(mapField.getMapKeyRegistration())));
+                builder.append(StringUtils.format("Object {} = {};", value, defaultValue(mapField.getMapValueRegistration())));
+                builder.append(StringUtils.format("while($1.readerIndex() < {}){int {} = {}.readRawVarint32($1);", limit, entryTag, protobufByteBufUtils));
+                builder.append(StringUtils.format("if(({} >>> 3) == 1){{} = {};}", entryTag, key, readValue(mapField.getMapKeyRegistration(), Object.class)));
+                builder.append(StringUtils.format("else if(({} >>> 3) == 2){{} = {};}", entryTag, value, readValue(mapField.getMapValueRegistration(), Object.class)));
+                builder.append(StringUtils.format("else{{}.skipField($1, {});}}", protobufByteBufUtils, entryTag));
+                builder.append(StringUtils.format("{}.put({}, {});", collections[i], key, value));
+            } else {
+                var elementRegistration = elementRegistration(fieldRegistration);
+                var add = collectionClazz(fieldRegistration) == IntList.class ? "addInt" : (collectionClazz(fieldRegistration) == LongList.class ? "addLong" : "add");
+                var elementType = add.equals("add") ? Object.class : (add.equals("addInt") ? int.class : long.class);
+                var element = readValue(elementRegistration, elementType);
+                if (isPackable(elementRegistration)) {
+                    // 兼容packed和没有packed两种格式
+                    var limit = "limit" + GenerateProtocolFile.index.getAndIncrement();
+                    builder.append(StringUtils.format("if(({} & 7) == {}){", tag, WIRETYPE_LENGTH_DELIMITED));
+                    builder.append(StringUtils.format("int {} = {}.readLimit($1);", limit, protobufByteBufUtils));
+                    builder.append(StringUtils.format("while($1.readerIndex() < {}){{}.{}({});}", limit, collections[i], add, element));
+                    builder.append(StringUtils.format("}else{{}.{}({});}", collections[i], add, element));
+                } else {
+                    builder.append(StringUtils.format("{}.{}({});", collections[i], add, element));
+                }
+            }
+            builder.append("}else ");
+        }
+        builder.append(StringUtils.format("{{}.skipField($1, {});}}", protobufByteBufUtils, tag));
+
+        for (var i : fieldOrder) {
+            if (collections[i] == null) {
+                continue;
+            }
+            var field = fields[i];
+            var value = collectionToField(builder, collections[i], field.getType(), fieldRegistrations[i]);
+            if (Modifier.isPublic(field.getModifiers())) {
+                builder.append(StringUtils.format("packet.{}={};", field.getName(), value));
+            } else {
+                builder.append(StringUtils.format("packet.{}({});", ReflectionUtils.fieldToSetMethod(packetClazz, field), value));
+            }
+        }
+
+        builder.append("return packet;}");
+        return builder.toString();
+    }
+
+    private String collectionToField(StringBuilder builder, String collection, Class<?> type, IFieldRegistration fieldRegistration) {
+        if (fieldRegistration instanceof SetField) {
+            return StringUtils.format("new HashSet({})", collection);
+        }
+        if (!(fieldRegistration instanceof ArrayField)) {
+            return collection;
+        }
+
+        var elementType = ((ArrayField) fieldRegistration).getType();
+        if (elementType == int.class) {
+            return StringUtils.format("{}.toIntArray()", collection);
+        } else if (elementType == long.class) {
+            return StringUtils.format("{}.toLongArray()", collection);
+        } else if (!elementType.isPrimitive()) {
+            return StringUtils.format("({}[]){}.toArray(new {}[{}.size()])", elementType.getCanonicalName(), collection, elementType.getCanonicalName(), collection);
+        }
+
+        // 其它的基础类型数组逐个拆箱
+        var array = "array" + GenerateProtocolFile.index.getAndIncrement();
+        var i = "i" + GenerateProtocolFile.index.getAndIncrement();
+        var boxClazz = boxClazz(((ArrayField) fieldRegistration).getArrayElementRegistration().serializer());
+        builder.append(StringUtils.format("{}[] {} = new {}[{}.size()];", elementType.getCanonicalName(), array, elementType.getCanonicalName(), collection));
+        builder.append(StringUtils.format("for(int {}=0; {}<{}.length; {}++){{}[{}] = (({}){}.get({})).{}Value();}", i, i, array, i, array, i, boxClazz.getCanonicalName(), collection, i, elementType.getSimpleName()));
+        return array;
+    }
+
+    private String readValue(IFieldRegistration fieldRegistration, Class<?> type) {
+        if (fieldRegistration instanceof ObjectProtocolField) {
+            var protocolId = ((ObjectProtocolField) fieldRegistration).getProtocolId();
+            var protocolName = EnhanceObjectProtocolSerializer.getProtocolClassCanonicalName(protocolId);
+            return StringUtils.format("({}){}.readProtobuf($1, {}.readLimit($1))", protocolName, EnhanceUtils.getProtocolRegistrationFieldNameByProtocolId(protocolId), protobufByteBufUtils);
+        }
+
+        var serializer = fieldRegistration.serializer();
+        String value;
+        if (serializer == BooleanSerializer.INSTANCE) {
+            value = StringUtils.format("{}.readBool($1)", protobufByteBufUtils);
+        } else if (serializer == LongSerializer.INSTANCE) {
+            value = StringUtils.format("{}.readInt64($1)", protobufByteBufUtils);
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            value = StringUtils.format("{}.readFloat($1)", protobufByteBufUtils);
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            value = StringUtils.format("{}.readDouble($1)", protobufByteBufUtils);
+        } else if (serializer == StringSerializer.INSTANCE) {
+            return StringUtils.format("{}.readString($1)", protobufByteBufUtils);
+        } else if (serializer == IntSerializer.INSTANCE) {
+            value = StringUtils.format("{}.readInt32($1)", protobufByteBufUtils);
+        } else {
+            // byte，short，char在protobuf中为int32
+            value = StringUtils.format("({}){}.readInt32($1)", primitiveClazz(serializer).getName(), protobufByteBufUtils);
+        }
+        if (type.isPrimitive()) {
+            return value;
+        }
+        return StringUtils.format("{}.valueOf({})", boxClazz(serializer).getCanonicalName(), value);
+    }
+
+    private String defaultValue(IFieldRegistration fieldRegistration) {
+        if (fieldRegistration instanceof ObjectProtocolField) {
+            return "null";
+        }
+        var serializer = fieldRegistration.serializer();
+        if (serializer == StringSerializer.INSTANCE) {
+            return "\"\"";
+        } else if (serializer == BooleanSerializer.INSTANCE) {
+            return "Boolean.FALSE";
+        }
+        return StringUtils.format("{}.valueOf(({})0)", boxClazz(serializer).getCanonicalName(), primitiveClazz(serializer).getName());
+    }
+
+    private String nonDefault(ISerializer serializer, String value, Class<?> type) {
+        if (serializer == StringSerializer.INSTANCE) {
+            return StringUtils.format("{} != null && {}.length() > 0", value, value);
+        }
+        var primitiveValue = type.isPrimitive() ? value : StringUtils.format("{}.{}Value()", value, primitiveClazz(serializer).getName());
+        String check;
+        if (serializer == BooleanSerializer.INSTANCE) {
+            check = primitiveValue;
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            check = StringUtils.format("Float.floatToRawIntBits({}) != 0", primitiveValue);
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            check = StringUtils.format("Double.doubleToRawLongBits({}) != 0L", primitiveValue);
+        } else if (serializer == LongSerializer.INSTANCE) {
+            check = StringUtils.format("{} != 0L", primitiveValue);
+        } else {
+            check = StringUtils.format("{} != 0", primitiveValue);
+        }
+        return type.isPrimitive() ? check : StringUtils.format("{} != null && {}", value, check);
+    }
+
+    private String unsupportedMethodBody(Class<?> packetClazz) {
+        return StringUtils.format("{throw new {}(\"协议[{}]的字段没有全部使用{}注解标注或者有嵌套的集合，不支持protobuf格式\");}", RunException.class.getCanonicalName(), packetClazz.getSimpleName(), Protobuf.class.getSimpleName());
+    }
+
+    //---------------------------------反射--------------------------------------
+
+    /**
+     * 反射的方式写入protobuf格式，see: writeMethodBody
+     */
+    public void write(ByteBuf buffer, IPacket packet, ProtocolRegistration registration, int[] fieldOrder) {
+        if (packet == null) {
+            return;
+        }
+        var fields = registration.getFields();
+        var fieldRegistrations = registration.getFieldRegistrations();
+        for (var i : fieldOrder) {
+            var fieldRegistration = fieldRegistrations[i];
+            var number = fieldNumber(fields[i]);
+            var value = ReflectionUtils.getField(fields[i], packet);
+            if (value == null) {
+                continue;
+            }
+
+            if (fieldRegistration instanceof BaseField) {
+                if (!isDefault(value)) {
+                    writeElement(buffer, number, value, fieldRegistration);
+                }
+            } else if (fieldRegistration instanceof ObjectProtocolField) {
+                writeElement(buffer, number, value, fieldRegistration);
+            } else if (fieldRegistration instanceof MapField) {
+                var mapField = (MapField) fieldRegistration;
+                for (var entry : ((Map<?, ?>) value).entrySet()) {
+                    writeRawVarint32(buffer, tag(number, WIRETYPE_LENGTH_DELIMITED));
+                    var length = writeLengthStart(buffer);
+                    writeElement(buffer, 1, entry.getKey(), mapField.getMapKeyRegistration());
+                    writeElement(buffer, 2, entry.getValue(), mapField.getMapValueRegistration());
+                    writeLengthEnd(buffer, length);
+                }
+            } else {
+                var elementRegistration = elementRegistration(fieldRegistration);
+                var elements = new ArrayList<>();
+                if (value.getClass().isArray()) {
+                    for (int j = 0, length = Array.getLength(value); j < length; j++) {
+                        elements.add(Array.get(value, j));
+                    }
+                } else {
+                    elements.addAll((Collection<?>) value);
+                }
+                if (elements.isEmpty()) {
+                    continue;
+                }
+                if (isPackable(elementRegistration)) {
+                    writeRawVarint32(buffer, tag(number, WIRETYPE_LENGTH_DELIMITED));
+                    var length = writeLengthStart(buffer);
+                    for (var element : elements) {
+                        writeValue(buffer, element, elementRegistration.serializer());
+                    }
+                    writeLengthEnd(buffer, length);
+                } else {
+                    for (var element : elements) {
+                        writeElement(buffer, number, element, elementRegistration);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeElement(ByteBuf buffer, int number, Object value, IFieldRegistration fieldRegistration) {
+        writeRawVarint32(buffer, tag(number, wireType(fieldRegistration)));
+        if (fieldRegistration instanceof ObjectProtocolField) {
+            var length = writeLengthStart(buffer);
+            ProtocolManager.getProtocol(((ObjectProtocolField) fieldRegistration).getProtocolId()).writeProtobuf(buffer, (IPacket) value);
+            writeLengthEnd(buffer, length);
+        } else {
+            writeValue(buffer, value, fieldRegistration.serializer());
+        }
+    }
+
+    private void writeValue(ByteBuf buffer, Object value, ISerializer serializer) {
+        if (serializer == BooleanSerializer.INSTANCE) {
+            writeBoolBox(buffer, (Boolean) value);
+        } else if (serializer == LongSerializer.INSTANCE) {
+            writeInt64Box(buffer, (Long) value);
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            writeFloatBox(buffer, (Float) value);
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            writeDoubleBox(buffer, (Double) value);
+        } else if (serializer == StringSerializer.INSTANCE) {
+            ProtobufByteBufUtils.writeString(buffer, (String) value);
+        } else if (serializer == CharSerializer.INSTANCE) {
+            writeCharBox(buffer, (Character) value);
+        } else {
+            writeInt32(buffer, value == null ? 0 : ((Number) value).intValue());
+        }
+    }
+
+    private boolean isDefault(Object value) {
+        if (value instanceof Boolean) {
+            return !((Boolean) value);
+        } else if (value instanceof Float) {
+            return Float.floatToRawIntBits((Float) value) == 0;
+        } else if (value instanceof Double) {
+            return Double.doubleToRawLongBits((Double) value) == 0L;
+        } else if (value instanceof Number) {
+            return ((Number) value).longValue() == 0L;
+        } else if (value instanceof Character) {
+            return (Character) value == 0;
+        } else {
+            return ((String) value).isEmpty();
+        }
+    }
+
+    /**
+     * 反射的方式读取protobuf格式，see: readMethodBody
+     */
+    @SuppressWarnings("unchecked")
+    public Object read(ByteBuf buffer, int limit, ProtocolRegistration registration, int[] fieldOrder) {
+        var fields = registration.getFields();
+        var fieldRegistrations = registration.getFieldRegistrations();
+        var packet = ReflectionUtils.newInstance(registration.getConstructor());
+
+        var numberMap = new HashMap<Integer, Integer>();
+        var collections = new Object[fields.length];
+        for (var i : fieldOrder) {
+            numberMap.put(fieldNumber(fields[i]), i);
+            if (fieldRegistrations[i] instanceof BaseField && !fields[i].getType().isPrimitive()) {
+                ReflectionUtils.setField(fields[i], packet, defaultValue(fieldRegistrations[i].serializer()));
+            } else if (fieldRegistrations[i] instanceof MapField) {
+                collections[i] = new HashMap<>();
+            } else if (!(fieldRegistrations[i] instanceof BaseField) && !(fieldRegistrations[i] instanceof ObjectProtocolField)) {
+                collections[i] = new ArrayList<>();
+            }
+        }
+
+        while (buffer.readerIndex() < limit) {
+            var tag = readRawVarint32(buffer);
+            var i = numberMap.get(tag >>> 3);
+            if (i == null) {
+                skipField(buffer, tag);
+                continue;
+            }
+
+            var fieldRegistration = fieldRegistrations[i];
+            if (fieldRegistration instanceof BaseField || fieldRegistration instanceof ObjectProtocolField) {
+                ReflectionUtils.setField(fields[i], packet, readValue(buffer, fieldRegistration));
+            } else if (fieldRegistration instanceof MapField) {
+                var mapField = (MapField) fieldRegistration;
+                var entryLimit = readLimit(buffer);
+                Object key = null;
+                Object value = null;
+                while (buffer.readerIndex() < entryLimit) {
+                    var entryTag = readRawVarint32(buffer);
+                    if ((entryTag >>> 3) == 1) {
+                        key = readValue(buffer, mapField.getMapKeyRegistration());
+                    } else if ((entryTag >>> 3) == 2) {
+                        value = readValue(buffer, mapField.getMapValueRegistration());
+                    } else {
+                        skipField(buffer, entryTag);
+                    }
+                }
+                ((Map<Object, Object>) collections[i]).put(key == null ? defaultValue(mapField.getMapKeyRegistration().serializer()) : key
+                        , value == null && mapField.getMapValueRegistration() instanceof BaseField ? defaultValue(mapField.getMapValueRegistration().serializer()) : value);
+            } else {
+                var elementRegistration = elementRegistration(fieldRegistration);
+                var list = (List<Object>) collections[i];
+                if (isPackable(elementRegistration) && (tag & 7) == WIRETYPE_LENGTH_DELIMITED) {
+                    var packedLimit = readLimit(buffer);
+                    while (buffer.readerIndex() < packedLimit) {
+                        list.add(readValue(buffer, elementRegistration));
+                    }
+                } else {
+                    list.add(readValue(buffer, elementRegistration));
+                }
+            }
+        }
+
+        for (var i : fieldOrder) {
+            if (collections[i] != null) {
+                ReflectionUtils.setField(fields[i], packet, collectionToField(collections[i], fields[i].getType(), fieldRegistrations[i]));
+            }
+        }
+        return packet;
+    }
+
+    private Object collectionToField(Object collection, Class<?> type, IFieldRegistration fieldRegistration) {
+        if (fieldRegistration instanceof MapField) {
+            return collection;
+        }
+        var list = (List<?>) collection;
+        if (fieldRegistration instanceof SetField) {
+            return new HashSet<>(list);
+        } else if (fieldRegistration instanceof ArrayField) {
+            var array = Array.newInstance(((ArrayField) fieldRegistration).getType(), list.size());
+            for (var i = 0; i < list.size(); i++) {
+                Array.set(array, i, list.get(i));
+            }
+            return array;
+        }
+
+        var primitiveListClazz = ((ListField) fieldRegistration).getPrimitiveListClazz();
+        if (primitiveListClazz == IntList.class) {
+            var intList = new IntList(list.size());
+            list.forEach(it -> intList.addInt((Integer) it));
+            return intList;
+        } else if (primitiveListClazz == LongList.class) {
+            var longList = new LongList(list.size());
+            list.forEach(it -> longList.addLong((Long) it));
+            return longList;
+        }
+        return list;
+    }
+
+    private Object readValue(ByteBuf buffer, IFieldRegistration fieldRegistration) {
+        if (fieldRegistration instanceof ObjectProtocolField) {
+            var limit = readLimit(buffer);
+            return ProtocolManager.getProtocol(((ObjectProtocolField) fieldRegistration).getProtocolId()).readProtobuf(buffer, limit);
+        }
+        var serializer = fieldRegistration.serializer();
+        if (serializer == BooleanSerializer.INSTANCE) {
+            return readBool(buffer);
+        } else if (serializer == ByteSerializer.INSTANCE) {
+            return (byte) readInt32(buffer);
+        } else if (serializer == ShortSerializer.INSTANCE) {
+            return (short) readInt32(buffer);
+        } else if (serializer == IntSerializer.INSTANCE) {
+            return readInt32(buffer);
+        } else if (serializer == LongSerializer.INSTANCE) {
+            return readInt64(buffer);
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            return readFloat(buffer);
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            return readDouble(buffer);
+        } else if (serializer == CharSerializer.INSTANCE) {
+            return (char) readInt32(buffer);
+        } else {
+            return ProtobufByteBufUtils.readString(buffer);
+        }
+    }
+
+    private Object defaultValue(ISerializer serializer) {
+        if (serializer == BooleanSerializer.INSTANCE) {
+            return Boolean.FALSE;
+        } else if (serializer == ByteSerializer.INSTANCE) {
+            return (byte) 0;
+        } else if (serializer == ShortSerializer.INSTANCE) {
+            return (short) 0;
+        } else if (serializer == IntSerializer.INSTANCE) {
+            return 0;
+        } else if (serializer == LongSerializer.INSTANCE) {
+            return 0L;
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            return 0F;
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            return 0D;
+        } else if (serializer == CharSerializer.INSTANCE) {
+            return (char) 0;
+        } else {
+            return StringUtils.EMPTY;
+        }
+    }
+
+    //---------------------------------类型--------------------------------------
+    private boolean isPackable(IFieldRegistration elementRegistration) {
+        return elementRegistration instanceof BaseField && elementRegistration.serializer() != StringSerializer.INSTANCE;
+    }
+
+    private int wireType(IFieldRegistration fieldRegistration) {
+        if (fieldRegistration instanceof ObjectProtocolField) {
+            return WIRETYPE_LENGTH_DELIMITED;
+        }
+        var serializer = fieldRegistration.serializer();
+        if (serializer == StringSerializer.INSTANCE) {
+            return WIRETYPE_LENGTH_DELIMITED;
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            return WIRETYPE_FIXED32;
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            return WIRETYPE_FIXED64;
+        }
+        return WIRETYPE_VARINT;
+    }
+
+    private IFieldRegistration elementRegistration(IFieldRegistration fieldRegistration) {
+        if (fieldRegistration instanceof ArrayField) {
+            return ((ArrayField) fieldRegistration).getArrayElementRegistration();
+        } else if (fieldRegistration instanceof ListField) {
+            return ((ListField) fieldRegistration).getListElementRegistration();
+        }
+        return ((SetField) fieldRegistration).getSetElementRegistration();
+    }
+
+    /**
+     * 生成的代码中读取repeated和map字段时使用的临时集合
+     */
+    private Class<?> collectionClazz(IFieldRegistration fieldRegistration) {
+        if (fieldRegistration instanceof MapField) {
+            return HashMap.class;
+        } else if (fieldRegistration instanceof ListField && ((ListField) fieldRegistration).getPrimitiveListClazz() != null) {
+            return ((ListField) fieldRegistration).getPrimitiveListClazz();
+        } else if (fieldRegistration instanceof ArrayField && ((ArrayField) fieldRegistration).getType() == int.class) {
+            return IntList.class;
+        } else if (fieldRegistration instanceof ArrayField && ((ArrayField) fieldRegistration).getType() == long.class) {
+            return LongList.class;
+        }
+        return ArrayList.class;
+    }
+
+    private String writeMethod(ISerializer serializer, boolean primitive) {
+        if (serializer == BooleanSerializer.INSTANCE) {
+            return primitive ? "writeBool" : "writeBoolBox";
+        } else if (serializer == ByteSerializer.INSTANCE) {
+            return primitive ? "writeInt32" : "writeByteBox";
+        } else if (serializer == ShortSerializer.INSTANCE) {
+            return primitive ? "writeInt32" : "writeShortBox";
+        } else if (serializer == IntSerializer.INSTANCE) {
+            return primitive ? "writeInt32" : "writeInt32Box";
+        } else if (serializer == LongSerializer.INSTANCE) {
+            return primitive ? "writeInt64" : "writeInt64Box";
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            return primitive ? "writeFloat" : "writeFloatBox";
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            return primitive ? "writeDouble" : "writeDoubleBox";
+        } else if (serializer == CharSerializer.INSTANCE) {
+            return primitive ? "writeInt32" : "writeCharBox";
+        }
+        return "writeString";
+    }
+
+    private Class<?> primitiveClazz(ISerializer serializer) {
+        if (serializer == BooleanSerializer.INSTANCE) {
+            return boolean.class;
+        } else if (serializer == ByteSerializer.INSTANCE) {
+            return byte.class;
+        } else if (serializer == ShortSerializer.INSTANCE) {
+            return short.class;
+        } else if (serializer == IntSerializer.INSTANCE) {
+            return int.class;
+        } else if (serializer == LongSerializer.INSTANCE) {
+            return long.class;
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            return float.class;
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            return double.class;
+        }
+        return char.class;
+    }
+
+    private Class<?> boxClazz(ISerializer serializer) {
+        if (serializer == BooleanSerializer.INSTANCE) {
+            return Boolean.class;
+        } else if (serializer == ByteSerializer.INSTANCE) {
+            return Byte.class;
+        } else if (serializer == ShortSerializer.INSTANCE) {
+            return Short.class;
+        } else if (serializer == IntSerializer.INSTANCE) {
+            return Integer.class;
+        } else if (serializer == LongSerializer.INSTANCE) {
+            return Long.class;
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            return Float.class;
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            return Double.class;
+        } else if (serializer == CharSerializer.INSTANCE) {
+            return Character.class;
+        }
+        return String.class;
+    }
+
+}
@@ -14,7 +14,9 @@
 package com.zfoo.protocol.serializer.reflect;
 
 import com.zfoo.protocol.buffer.ByteBufUtils;
+import com.zfoo.protocol.registration.anno.Packed;
 import com.zfoo.protocol.registration.field.ArrayField;
+import com.zfoo.protocol.registration.field.BaseField;
 import com.zfoo.protocol.registration.field.IFieldRegistration;
 import io.netty.buffer.ByteBuf;
 
@@ -36,6 +38,10 @@ public class ArraySerializer implements ISerializer {
         }
 
         ArrayField arrayField = (ArrayField) fieldRegistration;
+        if (arrayField.getPacked() != null) {
+            writePacked(buffer, object, arrayField);
+            return;
+        }
 
         int length = Array.getLength(object);
         if (length == 0) {
@@ -51,10 +57,39 @@ public class ArraySerializer implements ISerializer {
         }
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        if (object == null) {
+            return 1;
+        }
+
+        ArrayField arrayField = (ArrayField) fieldRegistration;
+
+        int length = Array.getLength(object);
+        if (arrayField.getPacked() == Packed.Type.FIXED) {
+            return ByteBufUtils.writeFixedArrayCount(length, arrayField.packedElementBytes());
+        } else if (arrayField.getPacked() == Packed.Type.DELTA_VARINT) {
+            return arrayField.getType() == int.class
+                    ? ByteBufUtils.writeDeltaIntArrayCount((int[]) object)
+                    : ByteBufUtils.writeDeltaLongArrayCount((long[]) object);
+        }
+
+        int count = ByteBufUtils.writeIntCount(length);
+        for (int i = 0; i < length; i++) {
+            Object element = Array.get(object, i);
+            count += arrayField.getArrayElementRegistration().serializer().serializedSize(element, arrayField.getArrayElementRegistration());
+        }
+        return count;
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
-        var length = ByteBufUtils.readInt(buffer);
         ArrayField arrayField = (ArrayField) fieldRegistration;
+        if (arrayField.getPacked() != null) {
+            return readPacked(buffer, arrayField);
+        }
+
+        var length = ByteBufUtils.readInt(buffer);
         if (length <= 0) {
             return Array.newInstance(arrayField.getType(), 0);
         }
@@ -69,4 +104,65 @@ public class ArraySerializer implements ISerializer {
         return array;
     }
 
+    private void writePacked(ByteBuf buffer, Object object, ArrayField arrayField) {
+        var type = arrayField.getType();
+        if (arrayField.getPacked() == Packed.Type.DELTA_VARINT) {
+            if (type == int.class) {
+                ByteBufUtils.writeDeltaIntArray(buffer, (int[]) object);
+            } else {
+                ByteBufUtils.writeDeltaLongArray(buffer, (long[]) object);
+            }
+        } else if (type == short.class) {
+            ByteBufUtils.writeFixedShortArray(buffer, (short[]) object);
+        } else if (type == int.class) {
+            ByteBufUtils.writeFixedIntArray(buffer, (int[]) object);
+        } else if (type == long.class) {
+            ByteBufUtils.writeFixedLongArray(buffer, (long[]) object);
+        } else if (type == float.class) {
+            ByteBufUtils.writeFixedFloatArray(buffer, (float[]) object);
+        } else {
+            ByteBufUtils.writeFixedDoubleArray(buffer, (double[]) object);
+        }
+    }
+
+    private Object readPacked(ByteBuf buffer, ArrayField arrayField) {
+        var type = arrayField.getType();
+        if (arrayField.getPacked() == Packed.Type.DELTA_VARINT) {
+            return type == int.class ? ByteBufUtils.readDeltaIntArray(buffer) : ByteBufUtils.readDeltaLongArray(buffer);
+        } else if (type == short.class) {
+            return ByteBufUtils.readFixedShortArray(buffer);
+        } else if (type == int.class) {
+            return ByteBufUtils.readFixedIntArray(buffer);
+        } else if (type == long.class) {
+            return ByteBufUtils.readFixedLongArray(buffer);
+        } else if (type == float.class) {
+            return ByteBufUtils.readFixedFloatArray(buffer);
+        } else {
+            return ByteBufUtils.readFixedDoubleArray(buffer);
+        }
+    }
+
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        if (object == null) {
+            return null;
+        }
+
+        ArrayField arrayField = (ArrayField) fieldRegistration;
+        int length = Array.getLength(object);
+        Object array = Array.newInstance(arrayField.getType(), length);
+
+        // 基础类型和不可变的包装类型直接整体拷贝，只有协议对象需要逐个深拷贝
+        if (arrayField.getArrayElementRegistration() instanceof BaseField) {
+            System.arraycopy(object, 0, array, 0, length);
+            return array;
+        }
+
+        for (int i = 0; i < length; i++) {
+            Object element = Array.get(object, i);
+            Array.set(array, i, arrayField.getArrayElementRegistration().serializer().copyObject(element, arrayField.getArrayElementRegistration()));
+        }
+        return array;
+    }
+
 }
@@ -30,8 +30,18 @@ public class BooleanSerializer implements ISerializer {
         ByteBufUtils.writeBooleanBox(buffer, (Boolean) object);
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        return 1;
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
         return ByteBufUtils.readBooleanBox(buffer);
     }
+
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        return object;
+    }
 }
@@ -30,9 +30,19 @@ public class ByteSerializer implements ISerializer {
         ByteBufUtils.writeByteBox(buffer, (Byte) object);
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        return 1;
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
         return ByteBufUtils.readByteBox(buffer);
     }
 
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        return object;
+    }
+
 }
@@ -30,8 +30,18 @@ public class CharSerializer implements ISerializer {
         ByteBufUtils.writeCharBox(buffer, (Character) object);
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        return ByteBufUtils.writeCharBoxCount((Character) object);
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
         return ByteBufUtils.readCharBox(buffer);
     }
+
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        return object;
+    }
 }
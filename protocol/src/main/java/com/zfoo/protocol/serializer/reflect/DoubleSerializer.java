@@ -30,8 +30,18 @@ public class DoubleSerializer implements ISerializer {
         ByteBufUtils.writeDoubleBox(buffer, (Double) object);
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        return 8;
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
         return ByteBufUtils.readDoubleBox(buffer);
     }
+
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        return object;
+    }
 }
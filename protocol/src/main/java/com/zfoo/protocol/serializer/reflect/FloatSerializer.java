@@ -30,8 +30,18 @@ public class FloatSerializer implements ISerializer {
         ByteBufUtils.writeFloatBox(buffer, (Float) object);
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        return 4;
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
         return ByteBufUtils.readFloatBox(buffer);
     }
+
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        return object;
+    }
 }
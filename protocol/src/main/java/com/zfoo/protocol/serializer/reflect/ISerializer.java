@@ -26,4 +26,14 @@ public interface ISerializer {
 
     Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration);
 
+    /**
+     * 序列化之后准确的字节数，和writeObject写入的字节数一致
+     */
+    int serializedSize(Object object, IFieldRegistration fieldRegistration);
+
+    /**
+     * 深拷贝，不可变的类型直接返回原对象
+     */
+    Object copyObject(Object object, IFieldRegistration fieldRegistration);
+
 }
@@ -30,8 +30,18 @@ public class IntSerializer implements ISerializer {
         ByteBufUtils.writeIntBox(buffer, (Integer) object);
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        return ByteBufUtils.writeIntBoxCount((Integer) object);
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
         return ByteBufUtils.readIntBox(buffer);
     }
+
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        return object;
+    }
 }
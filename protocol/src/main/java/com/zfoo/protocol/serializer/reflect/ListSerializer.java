@@ -14,6 +14,9 @@
 package com.zfoo.protocol.serializer.reflect;
 
 import com.zfoo.protocol.buffer.ByteBufUtils;
+import com.zfoo.protocol.collection.IntList;
+import com.zfoo.protocol.collection.LongList;
+import com.zfoo.protocol.registration.field.BaseField;
 import com.zfoo.protocol.registration.field.IFieldRegistration;
 import com.zfoo.protocol.registration.field.ListField;
 import io.netty.buffer.ByteBuf;
@@ -37,6 +40,15 @@ public class ListSerializer implements ISerializer {
             return;
         }
 
+        if (object instanceof IntList) {
+            ByteBufUtils.writeIntPrimitiveList(buffer, (IntList) object);
+            return;
+        }
+        if (object instanceof LongList) {
+            ByteBufUtils.writeLongPrimitiveList(buffer, (LongList) object);
+            return;
+        }
+
         List<?> list = (List<?>) object;
         ListField listField = (ListField) fieldRegistration;
 
@@ -52,13 +64,43 @@ public class ListSerializer implements ISerializer {
         }
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        if (object == null) {
+            return 1;
+        }
+
+        if (object instanceof IntList) {
+            return ByteBufUtils.writeIntPrimitiveListCount((IntList) object);
+        }
+        if (object instanceof LongList) {
+            return ByteBufUtils.writeLongPrimitiveListCount((LongList) object);
+        }
+
+        List<?> list = (List<?>) object;
+        ListField listField = (ListField) fieldRegistration;
+
+        int count = ByteBufUtils.writeIntCount(list.size());
+        for (Object element : list) {
+            count += listField.getListElementRegistration().serializer().serializedSize(element, listField.getListElementRegistration());
+        }
+        return count;
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
+        ListField listField = (ListField) fieldRegistration;
+        if (listField.getPrimitiveListClazz() == IntList.class) {
+            return ByteBufUtils.readIntPrimitiveList(buffer);
+        }
+        if (listField.getPrimitiveListClazz() == LongList.class) {
+            return ByteBufUtils.readLongPrimitiveList(buffer);
+        }
+
         int size = ByteBufUtils.readInt(buffer);
         if (size <= 0) {
             return Collections.EMPTY_LIST;
         }
-        ListField listField = (ListField) fieldRegistration;
         List<Object> list = new ArrayList<>(size);
 
         for (int i = 0; i < size; i++) {
@@ -68,4 +110,31 @@ public class ListSerializer implements ISerializer {
 
         return list;
     }
+
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        if (object == null) {
+            return null;
+        }
+
+        if (object instanceof IntList) {
+            return new IntList(((IntList) object).toIntArray());
+        }
+        if (object instanceof LongList) {
+            return new LongList(((LongList) object).toLongArray());
+        }
+
+        List<?> list = (List<?>) object;
+        ListField listField = (ListField) fieldRegistration;
+
+        if (listField.getListElementRegistration() instanceof BaseField) {
+            return new ArrayList<>(list);
+        }
+
+        List<Object> copy = new ArrayList<>(list.size());
+        for (Object element : list) {
+            copy.add(listField.getListElementRegistration().serializer().copyObject(element, listField.getListElementRegistration()));
+        }
+        return copy;
+    }
 }
@@ -30,8 +30,18 @@ public class LongSerializer implements ISerializer {
         ByteBufUtils.writeLongBox(buffer, (Long) object);
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        return ByteBufUtils.writeLongBoxCount((Long) object);
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
         return ByteBufUtils.readLongBox(buffer);
     }
+
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        return object;
+    }
 }
@@ -55,6 +55,23 @@ public class MapSerializer implements ISerializer {
         }
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        if (object == null) {
+            return 1;
+        }
+
+        Map<?, ?> map = (Map<?, ?>) object;
+        MapField mapField = (MapField) fieldRegistration;
+
+        int count = ByteBufUtils.writeIntCount(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            count += mapField.getMapKeyRegistration().serializer().serializedSize(entry.getKey(), mapField.getMapKeyRegistration());
+            count += mapField.getMapValueRegistration().serializer().serializedSize(entry.getValue(), mapField.getMapValueRegistration());
+        }
+        return count;
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
         int size = ByteBufUtils.readInt(buffer);
@@ -74,4 +91,22 @@ public class MapSerializer implements ISerializer {
         }
         return map;
     }
+
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        if (object == null) {
+            return null;
+        }
+
+        Map<?, ?> map = (Map<?, ?>) object;
+        MapField mapField = (MapField) fieldRegistration;
+
+        Map<Object, Object> copy = new HashMap<>(CollectionUtils.comfortableCapacity(map.size()));
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object key = mapField.getMapKeyRegistration().serializer().copyObject(entry.getKey(), mapField.getMapKeyRegistration());
+            Object value = mapField.getMapValueRegistration().serializer().copyObject(entry.getValue(), mapField.getMapValueRegistration());
+            copy.put(key, value);
+        }
+        return copy;
+    }
 }
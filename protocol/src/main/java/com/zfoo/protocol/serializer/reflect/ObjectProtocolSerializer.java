@@ -41,10 +41,24 @@ public class ObjectProtocolSerializer implements ISerializer {
         protocol.write(buffer, (IPacket) object);
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        ObjectProtocolField objectProtocolField = (ObjectProtocolField) fieldRegistration;
+        IProtocolRegistration protocol = ProtocolManager.getProtocol(objectProtocolField.getProtocolId());
+        return protocol.serializedSize((IPacket) object);
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
         ObjectProtocolField objectProtocolField = (ObjectProtocolField) fieldRegistration;
         IProtocolRegistration protocol = ProtocolManager.getProtocol(objectProtocolField.getProtocolId());
         return protocol.read(buffer);
     }
+
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        ObjectProtocolField objectProtocolField = (ObjectProtocolField) fieldRegistration;
+        IProtocolRegistration protocol = ProtocolManager.getProtocol(objectProtocolField.getProtocolId());
+        return protocol.copy((IPacket) object);
+    }
 }
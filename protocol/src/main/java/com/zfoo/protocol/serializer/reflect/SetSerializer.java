@@ -53,6 +53,22 @@ public class SetSerializer implements ISerializer {
         }
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        if (object == null) {
+            return 1;
+        }
+
+        Set<?> set = (Set<?>) object;
+        SetField setField = (SetField) fieldRegistration;
+
+        int count = ByteBufUtils.writeIntCount(set.size());
+        for (Object element : set) {
+            count += setField.getSetElementRegistration().serializer().serializedSize(element, setField.getSetElementRegistration());
+        }
+        return count;
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
         int size = ByteBufUtils.readInt(buffer);
@@ -71,4 +87,20 @@ public class SetSerializer implements ISerializer {
         return set;
     }
 
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        if (object == null) {
+            return null;
+        }
+
+        Set<?> set = (Set<?>) object;
+        SetField setField = (SetField) fieldRegistration;
+
+        Set<Object> copy = new HashSet<>(CollectionUtils.comfortableCapacity(set.size()));
+        for (Object element : set) {
+            copy.add(setField.getSetElementRegistration().serializer().copyObject(element, setField.getSetElementRegistration()));
+        }
+        return copy;
+    }
+
 }
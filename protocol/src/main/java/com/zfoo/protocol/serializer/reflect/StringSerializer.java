@@ -30,8 +30,18 @@ public class StringSerializer implements ISerializer {
         ByteBufUtils.writeString(buffer, (String) object);
     }
 
+    @Override
+    public int serializedSize(Object object, IFieldRegistration fieldRegistration) {
+        return ByteBufUtils.writeStringCount((String) object);
+    }
+
     @Override
     public Object readObject(ByteBuf buffer, IFieldRegistration fieldRegistration) {
         return ByteBufUtils.readString(buffer);
     }
+
+    @Override
+    public Object copyObject(Object object, IFieldRegistration fieldRegistration) {
+        return object;
+    }
 }
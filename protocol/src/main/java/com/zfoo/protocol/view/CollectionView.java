@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.zfoo.protocol.view;
+
+import com.zfoo.protocol.buffer.ByteBufUtils;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.registration.anno.Packed;
+import com.zfoo.protocol.registration.field.ArrayField;
+import com.zfoo.protocol.registration.field.IFieldRegistration;
+import com.zfoo.protocol.registration.field.ObjectProtocolField;
+import com.zfoo.protocol.serializer.reflect.*;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * List，Set，数组字段的只读视图，通过PacketView.getCollection()获取
+ * <p>
+ * 定长的元素直接计算位置；变长的元素从上一次访问的位置开始往后跳，所以按顺序遍历的总开销和反序列化一样是O(n)，但是不会为每个元素创建对象
+ * <p>
+ * getObject()返回的元素视图会被复用，遍历的时候每次都指向新的元素
+ * <p>
+ * Packed.Type.FIXED的数组按照小端读取；Packed.Type.DELTA_VARINT的数组在往后跳的时候累加差值
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public final class CollectionView {
+
+    private ByteBuf buffer;
+    private IFieldRegistration elementRegistration;
+    private int size;
+    private int start;
+    private int fixedLength;
+    private Packed.Type packed;
+
+    /**
+     * 上一次访问的元素的下标和位置
+     */
+    private int cursorIndex;
+    private int cursorOffset;
+    /**
+     * DELTA_VARINT数组中上一次访问的元素之前的所有差值的和
+     */
+    private long cursorValue;
+
+    private PacketView element;
+
+
+    CollectionView wrap(ByteBuf buffer, ArrayField arrayField, int offset) {
+        var packed = arrayField.getPacked();
+        var fixedLength = packed == Packed.Type.FIXED ? arrayField.packedElementBytes() : PacketView.fixedLength(arrayField.getArrayElementRegistration());
+        return wrap(buffer, arrayField.getArrayElementRegistration(), packed, fixedLength, offset);
+    }
+
+    CollectionView wrap(ByteBuf buffer, IFieldRegistration elementRegistration, int offset) {
+        return wrap(buffer, elementRegistration, null, PacketView.fixedLength(elementRegistration), offset);
+    }
+
+    private CollectionView wrap(ByteBuf buffer, IFieldRegistration elementRegistration, Packed.Type packed, int fixedLength, int offset) {
+        this.buffer = buffer;
+        this.elementRegistration = elementRegistration;
+        this.packed = packed;
+        this.fixedLength = fixedLength;
+        if (offset < 0) {
+            // 老版本的协议中没有这个兼容字段
+            this.size = 0;
+            this.start = 0;
+        } else {
+            buffer.readerIndex(offset);
+            this.size = Math.max(ByteBufUtils.readInt(buffer), 0);
+            this.start = buffer.readerIndex();
+        }
+        this.cursorIndex = 0;
+        this.cursorOffset = start;
+        this.cursorValue = 0;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean getBoolean(int index) {
+        return buffer.getBoolean(offset(index, BooleanSerializer.INSTANCE));
+    }
+
+    public byte getByte(int index) {
+        return buffer.getByte(offset(index, ByteSerializer.INSTANCE));
+    }
+
+    public short getShort(int index) {
+        var offset = offset(index, ShortSerializer.INSTANCE);
+        return packed == Packed.Type.FIXED ? buffer.getShortLE(offset) : buffer.getShort(offset);
+    }
+
+    public int getInt(int index) {
+        var offset = offset(index, IntSerializer.INSTANCE);
+        if (packed == Packed.Type.FIXED) {
+            return buffer.getIntLE(offset);
+        }
+        var value = PacketView.readInt(buffer, offset);
+        return packed == Packed.Type.DELTA_VARINT ? (int) (cursorValue + value) : value;
+    }
+
+    public long getLong(int index) {
+        var offset = offset(index, LongSerializer.INSTANCE);
+        if (packed == Packed.Type.FIXED) {
+            return buffer.getLongLE(offset);
+        }
+        var value = PacketView.readLong(buffer, offset);
+        return packed == Packed.Type.DELTA_VARINT ? cursorValue + value : value;
+    }
+
+    public float getFloat(int index) {
+        var offset = offset(index, FloatSerializer.INSTANCE);
+        return packed == Packed.Type.FIXED ? buffer.getFloatLE(offset) : buffer.getFloat(offset);
+    }
+
+    public double getDouble(int index) {
+        var offset = offset(index, DoubleSerializer.INSTANCE);
+        return packed == Packed.Type.FIXED ? buffer.getDoubleLE(offset) : buffer.getDouble(offset);
+    }
+
+    public char getChar(int index) {
+        return PacketView.readChar(buffer, offset(index, CharSerializer.INSTANCE));
+    }
+
+    public String getString(int index) {
+        return PacketView.readString(buffer, offset(index, StringSerializer.INSTANCE));
+    }
+
+    /**
+     * 序列化之前为null的元素返回null，返回的视图会被下一次getObject()复用
+     */
+    public PacketView getObject(int index) {
+        var offset = offset(index, ObjectProtocolSerializer.INSTANCE);
+        if (!buffer.getBoolean(offset)) {
+            return null;
+        }
+        if (element == null) {
+            element = new PacketView();
+        }
+        return element.wrap(buffer, ((ObjectProtocolField) elementRegistration).getProtocolId(), offset);
+    }
+
+    private int offset(int index, ISerializer serializer) {
+        if (index < 0 || index >= size) {
+            throw new RunException("集合视图的下标[index:{}]越界[size:{}]", index, size);
+        }
+        PacketView.checkSerializer(elementRegistration, serializer);
+        if (fixedLength > 0) {
+            return start + index * fixedLength;
+        }
+
+        // 往回访问的时候从头开始跳
+        if (index < cursorIndex) {
+            cursorIndex = 0;
+            cursorOffset = start;
+            cursorValue = 0;
+        }
+        buffer.readerIndex(cursorOffset);
+        for (; cursorIndex < index; cursorIndex++) {
+            if (packed == Packed.Type.DELTA_VARINT) {
+                cursorValue += elementRegistration.serializer() == IntSerializer.INSTANCE ? ByteBufUtils.readInt(buffer) : ByteBufUtils.readLong(buffer);
+            } else {
+                PacketView.skip(buffer, elementRegistration);
+            }
+        }
+        cursorOffset = buffer.readerIndex();
+        return cursorOffset;
+    }
+
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+
+package com.zfoo.protocol.view;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.buffer.ByteBufUtils;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.registration.ProtocolAnalysis;
+import com.zfoo.protocol.registration.ProtocolRegistration;
+import com.zfoo.protocol.registration.anno.Compatible;
+import com.zfoo.protocol.registration.anno.Packed;
+import com.zfoo.protocol.registration.field.*;
+import com.zfoo.protocol.serializer.reflect.*;
+import io.netty.buffer.ByteBuf;
+
+import java.lang.reflect.Field;
+
+/**
+ * 协议的只读视图，直接在序列化之后的ByteBuf上按照字段的位置读取，不需要反序列化整个协议，适合只需要遍历的很大的协议
+ * <p>
+ * 字段的位置在第一次访问的时候按顺序跳过前面的字段计算出来并且缓存；字段通过fieldIndex()预先得到的下标访问，
+ * 嵌套的协议和集合返回的视图会被复用（flyweight），再次调用getObject()或者getCollection()之后前一次返回的视图就会指向新的位置
+ * <p>
+ * 视图不持有ByteBuf的引用计数，只能在ByteBuf被释放之前使用，一般只在协议接收器的调用期间使用；视图不是线程安全的
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public final class PacketView {
+
+    /**
+     * 和ProtocolRegistration的序列化字段顺序一致，初始化协议的时候注册
+     */
+    private static final Field[][] protocolFields = new Field[ProtocolManager.MAX_PROTOCOL_NUM][];
+    private static final IFieldRegistration[][] protocolFieldRegistrations = new IFieldRegistration[ProtocolManager.MAX_PROTOCOL_NUM][];
+    private static final boolean[][] protocolCompatibles = new boolean[ProtocolManager.MAX_PROTOCOL_NUM][];
+    /**
+     * 被BitPacked标注的协议中boolean字段在开头的位图中的位置，没有被BitPacked标注则为null
+     */
+    private static final int[][] protocolBitIndexes = new int[ProtocolManager.MAX_PROTOCOL_NUM][];
+    private static final int[] protocolBitmapBytes = new int[ProtocolManager.MAX_PROTOCOL_NUM];
+
+    /**
+     * 整个视图树共享的ByteBuf的duplicate，可以随意移动readerIndex
+     */
+    private ByteBuf buffer;
+    private short protocolId;
+    private Field[] fields;
+    private IFieldRegistration[] fieldRegistrations;
+    private boolean[] compatibles;
+    private int[] bitIndexes;
+    private int bitmapOffset;
+    private boolean present;
+
+    /**
+     * 已经计算出来的字段的位置，-1为老版本的协议中没有这个兼容字段
+     */
+    private int[] fieldOffsets;
+    private int resolvedCount;
+    private int nextOffset;
+
+    private PacketView child;
+    private CollectionView collection;
+
+
+    /**
+     * 初始化协议的时候调用
+     */
+    public static void register(short protocolId, Field[] fields, IFieldRegistration[] fieldRegistrations, int[] bitIndexes) {
+        protocolFields[protocolId] = fields;
+        protocolBitIndexes[protocolId] = bitIndexes;
+        protocolBitmapBytes[protocolId] = bitIndexes == null ? 0 : ProtocolRegistration.bitmapBytes(bitIndexes);
+        protocolFieldRegistrations[protocolId] = fieldRegistrations;
+        var compatibles = new boolean[fields.length];
+        for (var i = 0; i < fields.length; i++) {
+            compatibles[i] = fields[i].isAnnotationPresent(Compatible.class);
+        }
+        protocolCompatibles[protocolId] = compatibles;
+    }
+
+    /**
+     * 字段在视图中的下标，一般在静态变量中预先计算好
+     */
+    public static int fieldIndex(Class<?> protocolClass, String fieldName) {
+        var protocolId = ProtocolAnalysis.getProtocolIdByClass(protocolClass);
+        var fields = protocolFields[protocolId];
+        if (fields == null) {
+            throw new RunException("协议[class:{}][protocolId:{}]没有注册", protocolClass.getCanonicalName(), protocolId);
+        }
+        for (var i = 0; i < fields.length; i++) {
+            if (fields[i].getName().equals(fieldName)) {
+                return i;
+            }
+        }
+        throw new RunException("协议[class:{}]中没有需要序列化的字段[field:{}]", protocolClass.getCanonicalName(), fieldName);
+    }
+
+    /**
+     * buffer从协议号开始，和ProtocolManager.read()读取的格式一样，不会改变buffer的readerIndex
+     */
+    public static PacketView of(ByteBuf buffer) {
+        return new PacketView().wrap(buffer);
+    }
+
+    /**
+     * 复用这个视图去读取另外一个协议
+     */
+    public PacketView wrap(ByteBuf buffer) {
+        var duplicate = buffer.duplicate();
+        var id = duplicate.readShort();
+        return wrap(duplicate, id, duplicate.readerIndex());
+    }
+
+    PacketView wrap(ByteBuf buffer, short protocolId, int offset) {
+        var registrations = protocolFieldRegistrations[protocolId];
+        if (registrations == null) {
+            throw new RunException("协议[protocolId:{}]没有注册", protocolId);
+        }
+        this.buffer = buffer;
+        this.protocolId = protocolId;
+        this.fields = protocolFields[protocolId];
+        this.fieldRegistrations = registrations;
+        this.compatibles = protocolCompatibles[protocolId];
+        this.bitIndexes = protocolBitIndexes[protocolId];
+        this.bitmapOffset = offset + 1;
+        this.present = buffer.getBoolean(offset);
+        if (fieldOffsets == null || fieldOffsets.length < registrations.length) {
+            fieldOffsets = new int[registrations.length];
+        }
+        this.resolvedCount = 0;
+        this.nextOffset = offset + 1 + protocolBitmapBytes[protocolId];
+        return this;
+    }
+
+    public short protocolId() {
+        return protocolId;
+    }
+
+    public int fieldIndex(String fieldName) {
+        for (var i = 0; i < fields.length; i++) {
+            if (fields[i].getName().equals(fieldName)) {
+                return i;
+            }
+        }
+        throw new RunException("协议[protocolId:{}]中没有需要序列化的字段[field:{}]", protocolId, fieldName);
+    }
+
+    /**
+     * 序列化之前协议对象为null
+     */
+    public boolean isNull() {
+        return !present;
+    }
+
+    /**
+     * 老版本的协议中没有的兼容字段返回类型的默认值，如0，false，null
+     */
+    public boolean getBoolean(int fieldIndex) {
+        checkFieldIndex(fieldIndex);
+        if (bitIndexes != null && bitIndexes[fieldIndex] >= 0) {
+            var bitIndex = bitIndexes[fieldIndex];
+            return (buffer.getByte(bitmapOffset + (bitIndex >> 3)) & (1 << (bitIndex & 7))) != 0;
+        }
+        var offset = offset(fieldIndex, BooleanSerializer.INSTANCE);
+        return offset >= 0 && buffer.getBoolean(offset);
+    }
+
+    public byte getByte(int fieldIndex) {
+        var offset = offset(fieldIndex, ByteSerializer.INSTANCE);
+        return offset < 0 ? 0 : buffer.getByte(offset);
+    }
+
+    public short getShort(int fieldIndex) {
+        var offset = offset(fieldIndex, ShortSerializer.INSTANCE);
+        return offset < 0 ? 0 : buffer.getShort(offset);
+    }
+
+    public int getInt(int fieldIndex) {
+        var offset = offset(fieldIndex, IntSerializer.INSTANCE);
+        return offset < 0 ? 0 : readInt(buffer, offset);
+    }
+
+    public long getLong(int fieldIndex) {
+        var offset = offset(fieldIndex, LongSerializer.INSTANCE);
+        return offset < 0 ? 0L : readLong(buffer, offset);
+    }
+
+    public float getFloat(int fieldIndex) {
+        var offset = offset(fieldIndex, FloatSerializer.INSTANCE);
+        return offset < 0 ? 0F : buffer.getFloat(offset);
+    }
+
+    public double getDouble(int fieldIndex) {
+        var offset = offset(fieldIndex, DoubleSerializer.INSTANCE);
+        return offset < 0 ? 0D : buffer.getDouble(offset);
+    }
+
+    public char getChar(int fieldIndex) {
+        var offset = offset(fieldIndex, CharSerializer.INSTANCE);
+        return offset < 0 ? Character.MIN_VALUE : readChar(buffer, offset);
+    }
+
+    public String getString(int fieldIndex) {
+        var offset = offset(fieldIndex, StringSerializer.INSTANCE);
+        return offset < 0 ? null : readString(buffer, offset);
+    }
+
+    /**
+     * 序列化之前为null的协议对象返回null，返回的视图会被下一次getObject()复用
+     */
+    public PacketView getObject(int fieldIndex) {
+        var offset = offset(fieldIndex, ObjectProtocolSerializer.INSTANCE);
+        if (offset < 0 || !buffer.getBoolean(offset)) {
+            return null;
+        }
+        if (child == null) {
+            child = new PacketView();
+        }
+        return child.wrap(buffer, ((ObjectProtocolField) fieldRegistrations[fieldIndex]).getProtocolId(), offset);
+    }
+
+    /**
+     * List，Set，数组字段的视图，Set的遍历顺序为序列化时的顺序，返回的视图会被下一次getCollection()复用
+     */
+    public CollectionView getCollection(int fieldIndex) {
+        checkFieldIndex(fieldIndex);
+        var fieldRegistration = fieldRegistrations[fieldIndex];
+        if (collection == null) {
+            collection = new CollectionView();
+        }
+        IFieldRegistration elementRegistration;
+        if (fieldRegistration instanceof ListField) {
+            elementRegistration = ((ListField) fieldRegistration).getListElementRegistration();
+        } else if (fieldRegistration instanceof SetField) {
+            elementRegistration = ((SetField) fieldRegistration).getSetElementRegistration();
+        } else if (fieldRegistration instanceof ArrayField) {
+            return collection.wrap(buffer, (ArrayField) fieldRegistration, resolve(fieldIndex));
+        } else {
+            throw new RunException("协议[protocolId:{}]的字段[field:{}]不是List，Set或者数组", protocolId, fields[fieldIndex].getName());
+        }
+        return collection.wrap(buffer, elementRegistration, resolve(fieldIndex));
+    }
+
+    private int offset(int fieldIndex, ISerializer serializer) {
+        checkFieldIndex(fieldIndex);
+        checkSerializer(fieldRegistrations[fieldIndex], serializer);
+        return resolve(fieldIndex);
+    }
+
+    private void checkFieldIndex(int fieldIndex) {
+        if (fieldIndex < 0 || fieldIndex >= fieldRegistrations.length) {
+            throw new RunException("协议[protocolId:{}]的字段下标[fieldIndex:{}]越界", protocolId, fieldIndex);
+        }
+        if (!present) {
+            throw new RunException("协议[protocolId:{}]序列化之前为null", protocolId);
+        }
+    }
+
+    /**
+     * 按顺序跳过前面的字段计算字段的位置，和反射的反序列化一样，buffer读完之后剩下的兼容字段都不存在
+     */
+    private int resolve(int fieldIndex) {
+        while (resolvedCount <= fieldIndex) {
+            var offset = nextOffset;
+            if (bitIndexes != null && bitIndexes[resolvedCount] >= 0) {
+                // 在开头的位图中，不占用后面的字节
+                fieldOffsets[resolvedCount++] = offset;
+                continue;
+            }
+            if (offset < 0 || (compatibles[resolvedCount] && offset >= buffer.writerIndex())) {
+                fieldOffsets[resolvedCount++] = -1;
+                nextOffset = -1;
+                continue;
+            }
+            fieldOffsets[resolvedCount] = offset;
+            buffer.readerIndex(offset);
+            skip(buffer, fieldRegistrations[resolvedCount]);
+            nextOffset = buffer.readerIndex();
+            resolvedCount++;
+        }
+        return fieldOffsets[fieldIndex];
+    }
+
+
+    //---------------------------------------------按照序列化的格式读取和跳过字段-------------------------------------------------
+    static void checkSerializer(IFieldRegistration fieldRegistration, ISerializer serializer) {
+        if (fieldRegistration.serializer() != serializer) {
+            throw new RunException("字段的序列化类型为[{}]，不能按照[{}]读取", fieldRegistration.serializer().getClass().getSimpleName(), serializer.getClass().getSimpleName());
+        }
+    }
+
+    static int readInt(ByteBuf buffer, int offset) {
+        buffer.readerIndex(offset);
+        return ByteBufUtils.readInt(buffer);
+    }
+
+    static long readLong(ByteBuf buffer, int offset) {
+        buffer.readerIndex(offset);
+        return ByteBufUtils.readLong(buffer);
+    }
+
+    static char readChar(ByteBuf buffer, int offset) {
+        buffer.readerIndex(offset);
+        return ByteBufUtils.readChar(buffer);
+    }
+
+    static String readString(ByteBuf buffer, int offset) {
+        buffer.readerIndex(offset);
+        return ByteBufUtils.readString(buffer);
+    }
+
+    /**
+     * 定长的基础类型的字节数，变长的类型返回-1
+     */
+    static int fixedLength(IFieldRegistration fieldRegistration) {
+        var serializer = fieldRegistration.serializer();
+        if (serializer == BooleanSerializer.INSTANCE || serializer == ByteSerializer.INSTANCE) {
+            return 1;
+        } else if (serializer == ShortSerializer.INSTANCE) {
+            return 2;
+        } else if (serializer == FloatSerializer.INSTANCE) {
+            return 4;
+        } else if (serializer == DoubleSerializer.INSTANCE) {
+            return 8;
+        }
+        return -1;
+    }
+
+    /**
+     * 从buffer的readerIndex开始跳过一个字段，不会创建任何对象
+     */
+    static void skip(ByteBuf buffer, IFieldRegistration fieldRegistration) {
+        var fixedLength = fixedLength(fieldRegistration);
+        if (fixedLength > 0) {
+            buffer.skipBytes(fixedLength);
+            return;
+        }
+
+        var serializer = fieldRegistration.serializer();
+        if (serializer == IntSerializer.INSTANCE) {
+            ByteBufUtils.readInt(buffer);
+        } else if (serializer == LongSerializer.INSTANCE) {
+            ByteBufUtils.readLong(buffer);
+        } else if (serializer == StringSerializer.INSTANCE || serializer == CharSerializer.INSTANCE) {
+            var length = ByteBufUtils.readInt(buffer);
+            if (length > 0) {
+                buffer.skipBytes(length);
+            }
+        } else if (fieldRegistration instanceof ListField) {
+            skipElements(buffer, ((ListField) fieldRegistration).getListElementRegistration());
+        } else if (fieldRegistration instanceof SetField) {
+            skipElements(buffer, ((SetField) fieldRegistration).getSetElementRegistration());
+        } else if (fieldRegistration instanceof ArrayField) {
+            var arrayField = (ArrayField) fieldRegistration;
+            if (arrayField.getPacked() == Packed.Type.FIXED) {
+                var size = ByteBufUtils.readInt(buffer);
+                buffer.skipBytes(Math.max(size, 0) * arrayField.packedElementBytes());
+            } else {
+                // DELTA_VARINT的每个差值和普通的int，long一样都是varint
+                skipElements(buffer, arrayField.getArrayElementRegistration());
+            }
+        } else if (fieldRegistration instanceof MapField) {
+            var mapField = (MapField) fieldRegistration;
+            var size = ByteBufUtils.readInt(buffer);
+            for (var i = 0; i < size; i++) {
+                skip(buffer, mapField.getMapKeyRegistration());
+                skip(buffer, mapField.getMapValueRegistration());
+            }
+        } else if (fieldRegistration instanceof ObjectProtocolField) {
+            if (!buffer.readBoolean()) {
+                return;
+            }
+            var objectProtocolId = ((ObjectProtocolField) fieldRegistration).getProtocolId();
+            var compatibles = protocolCompatibles[objectProtocolId];
+            var fieldRegistrations = protocolFieldRegistrations[objectProtocolId];
+            var bitIndexes = protocolBitIndexes[objectProtocolId];
+            buffer.skipBytes(protocolBitmapBytes[objectProtocolId]);
+            for (var i = 0; i < fieldRegistrations.length; i++) {
+                if (bitIndexes != null && bitIndexes[i] >= 0) {
+                    continue;
+                }
+                if (compatibles[i] && !buffer.isReadable()) {
+                    break;
+                }
+                skip(buffer, fieldRegistrations[i]);
+            }
+        } else {
+            throw new RunException("未知的序列化类型[{}]", serializer.getClass().getSimpleName());
+        }
+    }
+
+    private static void skipElements(ByteBuf buffer, IFieldRegistration elementRegistration) {
+        var size = ByteBufUtils.readInt(buffer);
+        if (size <= 0) {
+            return;
+        }
+        var fixedLength = fixedLength(elementRegistration);
+        if (fixedLength > 0) {
+            buffer.skipBytes(size * fixedLength);
+            return;
+        }
+        for (var i = 0; i < size; i++) {
+            skip(buffer, elementRegistration);
+        }
+    }
+
+}
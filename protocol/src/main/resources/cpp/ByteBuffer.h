@@ -1353,7 +1353,137 @@ namespace zfoo {
             return set;
         }
 
+        //---------------------------------packed array--------------------------------------
+        // Packed.Type.FIXED的数组，长度之后是小端的定长字节，小端的机器直接整块拷贝
+        inline void writeFixedShortArray(const vector<int16_t> &array) {
+            writeFixedArray(array);
+        }
+
+        inline vector<int16_t> readFixedShortArray() {
+            return readFixedArray<int16_t>();
+        }
+
+        inline void writeFixedIntArray(const vector<int32_t> &array) {
+            writeFixedArray(array);
+        }
+
+        inline vector<int32_t> readFixedIntArray() {
+            return readFixedArray<int32_t>();
+        }
+
+        inline void writeFixedLongArray(const vector<int64_t> &array) {
+            writeFixedArray(array);
+        }
+
+        inline vector<int64_t> readFixedLongArray() {
+            return readFixedArray<int64_t>();
+        }
+
+        inline void writeFixedFloatArray(const vector<float> &array) {
+            writeFixedArray(array);
+        }
+
+        inline vector<float> readFixedFloatArray() {
+            return readFixedArray<float>();
+        }
+
+        inline void writeFixedDoubleArray(const vector<double> &array) {
+            writeFixedArray(array);
+        }
+
+        inline vector<double> readFixedDoubleArray() {
+            return readFixedArray<double>();
+        }
+
+        // Packed.Type.DELTA_VARINT的数组，长度之后是和前一个元素的差值，使用无符号数计算避免有符号数溢出
+        inline void writeDeltaIntArray(const vector<int32_t> &array) {
+            if (array.empty()) {
+                writeByte(0);
+                return;
+            }
+            int32_t length = array.size();
+            writeInt(length);
+            uint32_t previous = 0;
+            for (auto value : array) {
+                writeInt(static_cast<int32_t>(static_cast<uint32_t>(value) - previous));
+                previous = static_cast<uint32_t>(value);
+            }
+        }
+
+        inline vector<int32_t> readDeltaIntArray() {
+            int32_t length = readInt();
+            vector<int32_t> array;
+            uint32_t previous = 0;
+            for (auto i = 0; i < length; i++) {
+                previous += static_cast<uint32_t>(readInt());
+                array.emplace_back(static_cast<int32_t>(previous));
+            }
+            return array;
+        }
+
+        // Packed.Type.DELTA_VARINT的数组，长度之后是和前一个元素的差值，使用无符号数计算避免有符号数溢出
+        inline void writeDeltaLongArray(const vector<int64_t> &array) {
+            if (array.empty()) {
+                writeByte(0);
+                return;
+            }
+            int32_t length = array.size();
+            writeInt(length);
+            uint64_t previous = 0;
+            for (auto value : array) {
+                writeLong(static_cast<int64_t>(static_cast<uint64_t>(value) - previous));
+                previous = static_cast<uint64_t>(value);
+            }
+        }
+
+        inline vector<int64_t> readDeltaLongArray() {
+            int32_t length = readInt();
+            vector<int64_t> array;
+            uint64_t previous = 0;
+            for (auto i = 0; i < length; i++) {
+                previous += static_cast<uint64_t>(readLong());
+                array.emplace_back(static_cast<int64_t>(previous));
+            }
+            return array;
+        }
+
     private:
+        template<class T>
+        inline void writeFixedArray(const vector<T> &array) {
+            if (array.empty()) {
+                writeByte(0);
+                return;
+            }
+            int32_t length = array.size();
+            writeInt(length);
+            int32_t byteLength = length * sizeof(T);
+            ensureCapacity(byteLength);
+            memcpy(&m_buffer[m_writerIndex], array.data(), byteLength);
+            if (!IS_LITTLE_ENDIAN) {
+                for (auto i = 0; i < length; i++) {
+                    swap_bytes<sizeof(T)>(reinterpret_cast<int8_t *>(&m_buffer[m_writerIndex + i * sizeof(T)]));
+                }
+            }
+            m_writerIndex += byteLength;
+        }
+
+        template<class T>
+        inline vector<T> readFixedArray() {
+            int32_t length = readInt();
+            vector<T> array(length > 0 ? length : 0);
+            if (length <= 0) {
+                return array;
+            }
+            memcpy(array.data(), &m_buffer[m_readerIndex], length * sizeof(T));
+            if (!IS_LITTLE_ENDIAN) {
+                for (auto &value : array) {
+                    swap_bytes<sizeof(T)>(reinterpret_cast<int8_t *>(&value));
+                }
+            }
+            m_readerIndex += length * sizeof(T);
+            return array;
+        }
+
         template<class T>
         inline void write(T value) {
             ensureCapacity(sizeof(T));
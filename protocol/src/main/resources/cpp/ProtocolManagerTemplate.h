@@ -8,6 +8,12 @@ namespace zfoo {
     const int16_t MAX_PROTOCOL_NUM = 32767;
     const IProtocolRegistration *protocols[MAX_PROTOCOL_NUM];
 
+    // 服务器压缩过的包体的协议号，压缩格式为：COMPRESSED_PROTOCOL_ID + 解压之后的长度 + 压缩之后的长度 + zlib(protocolId + packet)
+    const int16_t COMPRESSED_PROTOCOL_ID = -32768;
+
+    // zlib解压函数，返回解压之后的长度，服务器开启了压缩需要设置，如直接使用zlib的uncompress
+    int32_t (*inflatePacket)(const int8_t *source, int32_t sourceLength, int8_t *dest, int32_t destLength) = nullptr;
+
     void initProtocol() {
         {}
     }
@@ -24,8 +30,32 @@ namespace zfoo {
         getProtocol(protocolId)->write(buffer, packet);
     }
 
+    IPacket *read(ByteBuffer &buffer);
+
+    IPacket *readCompressed(ByteBuffer &buffer) {
+        if (inflatePacket == nullptr) {
+            string errorMessage = "received compressed packet, inflatePacket must be set";
+            throw errorMessage;
+        }
+        auto rawLength = buffer.readInt();
+        auto compressedLength = buffer.readInt();
+        auto compressedBytes = buffer.readBytes(compressedLength);
+        unique_ptr<int8_t[]> bytes(new int8_t[rawLength]);
+        auto length = inflatePacket(compressedBytes, compressedLength, bytes.get(), rawLength);
+        if (length != rawLength) {
+            string errorMessage = "inflated length[" + std::to_string(length) + "] is not equal to rawLength[" + std::to_string(rawLength) + "]";
+            throw errorMessage;
+        }
+        ByteBuffer packetBuffer(rawLength);
+        packetBuffer.writeBytes(bytes.get(), rawLength);
+        return read(packetBuffer);
+    }
+
     IPacket *read(ByteBuffer &buffer) {
         auto protocolId = buffer.readShort();
+        if (protocolId == COMPRESSED_PROTOCOL_ID) {
+            return readCompressed(buffer);
+        }
         return getProtocol(protocolId)->read(buffer);
     }
 
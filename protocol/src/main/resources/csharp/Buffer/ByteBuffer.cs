@@ -794,6 +794,186 @@ namespace CsProtocol.Buffer
             return array;
         }
 
+        // Packed.Type.FIXED的数组，长度之后是小端的定长字节，小端的系统直接整块拷贝
+        private void WriteFixedArray(Array array, int length, int elementBytes)
+        {
+            WriteInt(length);
+            var byteLength = length * elementBytes;
+            if (byteLength == 0)
+            {
+                return;
+            }
+
+            EnsureCapacity(byteLength);
+            System.Buffer.BlockCopy(array, 0, buffer, writeOffset, byteLength);
+            if (!BitConverter.IsLittleEndian)
+            {
+                ReverseElements(buffer, writeOffset, byteLength, elementBytes);
+            }
+
+            writeOffset += byteLength;
+        }
+
+        private void ReadFixedArray(Array array, int length, int elementBytes)
+        {
+            var byteLength = length * elementBytes;
+            if (byteLength == 0)
+            {
+                return;
+            }
+
+            if (BitConverter.IsLittleEndian)
+            {
+                System.Buffer.BlockCopy(buffer, readOffset, array, 0, byteLength);
+            }
+            else
+            {
+                var bytes = ReadBytes(byteLength);
+                readOffset -= byteLength;
+                ReverseElements(bytes, 0, byteLength, elementBytes);
+                System.Buffer.BlockCopy(bytes, 0, array, 0, byteLength);
+            }
+
+            readOffset += byteLength;
+        }
+
+        private static void ReverseElements(byte[] bytes, int offset, int byteLength, int elementBytes)
+        {
+            for (int index = offset; index < offset + byteLength; index += elementBytes)
+            {
+                Array.Reverse(bytes, index, elementBytes);
+            }
+        }
+
+        public void WriteFixedShortArray(short[] array)
+        {
+            WriteFixedArray(array, array == null ? 0 : array.Length, 2);
+        }
+
+        public short[] ReadFixedShortArray()
+        {
+            int size = ReadInt();
+            short[] array = new short[size];
+            ReadFixedArray(array, size, 2);
+            return array;
+        }
+
+        public void WriteFixedIntArray(int[] array)
+        {
+            WriteFixedArray(array, array == null ? 0 : array.Length, 4);
+        }
+
+        public int[] ReadFixedIntArray()
+        {
+            int size = ReadInt();
+            int[] array = new int[size];
+            ReadFixedArray(array, size, 4);
+            return array;
+        }
+
+        public void WriteFixedLongArray(long[] array)
+        {
+            WriteFixedArray(array, array == null ? 0 : array.Length, 8);
+        }
+
+        public long[] ReadFixedLongArray()
+        {
+            int size = ReadInt();
+            long[] array = new long[size];
+            ReadFixedArray(array, size, 8);
+            return array;
+        }
+
+        public void WriteFixedFloatArray(float[] array)
+        {
+            WriteFixedArray(array, array == null ? 0 : array.Length, 4);
+        }
+
+        public float[] ReadFixedFloatArray()
+        {
+            int size = ReadInt();
+            float[] array = new float[size];
+            ReadFixedArray(array, size, 4);
+            return array;
+        }
+
+        public void WriteFixedDoubleArray(double[] array)
+        {
+            WriteFixedArray(array, array == null ? 0 : array.Length, 8);
+        }
+
+        public double[] ReadFixedDoubleArray()
+        {
+            int size = ReadInt();
+            double[] array = new double[size];
+            ReadFixedArray(array, size, 8);
+            return array;
+        }
+
+        // Packed.Type.DELTA_VARINT的数组，长度之后是和前一个元素的差值
+        public void WriteDeltaIntArray(int[] array)
+        {
+            if ((array == null) || (array.Length == 0))
+            {
+                WriteInt(0);
+                return;
+            }
+
+            WriteInt(array.Length);
+            int previous = 0;
+            for (int index = 0; index < array.Length; index++)
+            {
+                WriteInt(unchecked(array[index] - previous));
+                previous = array[index];
+            }
+        }
+
+        public int[] ReadDeltaIntArray()
+        {
+            int size = ReadInt();
+            int[] array = new int[size];
+            int previous = 0;
+            for (int index = 0; index < size; index++)
+            {
+                previous = unchecked(previous + ReadInt());
+                array[index] = previous;
+            }
+
+            return array;
+        }
+
+        // Packed.Type.DELTA_VARINT的数组，长度之后是和前一个元素的差值
+        public void WriteDeltaLongArray(long[] array)
+        {
+            if ((array == null) || (array.Length == 0))
+            {
+                WriteInt(0);
+                return;
+            }
+
+            WriteInt(array.Length);
+            long previous = 0;
+            for (int index = 0; index < array.Length; index++)
+            {
+                WriteLong(unchecked(array[index] - previous));
+                previous = array[index];
+            }
+        }
+
+        public long[] ReadDeltaLongArray()
+        {
+            int size = ReadInt();
+            long[] array = new long[size];
+            long previous = 0;
+            for (int index = 0; index < size; index++)
+            {
+                previous = unchecked(previous + ReadLong());
+                array[index] = previous;
+            }
+
+            return array;
+        }
+
         public void WriteCharArray(char[] array)
         {
             if ((array == null) || (array.Length == 0))
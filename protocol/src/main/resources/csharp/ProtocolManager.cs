@@ -1,5 +1,7 @@
 using System;
 using System.Collections.Generic;
+using System.IO;
+using System.IO.Compression;
 using CsProtocol.Buffer;
 
 namespace CsProtocol
@@ -8,6 +10,9 @@ namespace CsProtocol
     {
         public static readonly short MAX_PROTOCOL_NUM = short.MaxValue;
 
+        // 服务器压缩过的包体的协议号，压缩格式为：COMPRESSED_PROTOCOL_ID + 解压之后的长度 + 压缩之后的长度 + zlib(protocolId + packet)
+        public static readonly short COMPRESSED_PROTOCOL_ID = short.MinValue;
+
 
         private static readonly IProtocolRegistration[] protocolList = new IProtocolRegistration[MAX_PROTOCOL_NUM];
 
@@ -63,7 +68,47 @@ namespace CsProtocol
         public static IPacket Read(ByteBuffer buffer)
         {
             var protocolId = buffer.ReadShort();
+            if (protocolId == COMPRESSED_PROTOCOL_ID)
+            {
+                return ReadCompressed(buffer);
+            }
+
             return GetProtocol(protocolId).Read(buffer);
         }
+
+        private static IPacket ReadCompressed(ByteBuffer buffer)
+        {
+            var rawLength = buffer.ReadInt();
+            var compressedLength = buffer.ReadInt();
+            var compressedBytes = buffer.ReadBytes(compressedLength);
+
+            // zlib格式的前2个字节为头部，最后4个字节为adler32校验，DeflateStream只需要中间的deflate数据
+            var bytes = new byte[rawLength];
+            using (var deflateStream = new DeflateStream(new MemoryStream(compressedBytes, 2, compressedLength - 2), CompressionMode.Decompress))
+            {
+                var length = 0;
+                while (length < rawLength)
+                {
+                    var count = deflateStream.Read(bytes, length, rawLength - length);
+                    if (count <= 0)
+                    {
+                        throw new Exception("压缩包体解压之后的长度[" + length + "]和[rawLength:" + rawLength + "]不一致");
+                    }
+
+                    length += count;
+                }
+            }
+
+            var packetBuffer = ByteBuffer.ValueOf();
+            try
+            {
+                packetBuffer.WriteBytes(bytes);
+                return Read(packetBuffer);
+            }
+            finally
+            {
+                packetBuffer.Clear();
+            }
+        }
     }
 }
\ No newline at end of file
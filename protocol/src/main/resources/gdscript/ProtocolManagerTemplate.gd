@@ -15,11 +15,28 @@ static func write(buffer, packet):
 	var protocol = protocols[protocolId]
 	protocol.write(buffer, packet)
 
+# 服务器压缩过的包体的协议号，压缩格式为：COMPRESSED_PROTOCOL_ID + 解压之后的长度 + 压缩之后的长度 + zlib(protocolId + packet)
+const COMPRESSED_PROTOCOL_ID: int = -32768
+
 static func read(buffer):
     var protocolId = buffer.readShort();
+    if (protocolId == COMPRESSED_PROTOCOL_ID):
+        return readCompressed(buffer)
     var protocol = protocols[protocolId]
     var packet = protocol.read(buffer);
     return packet;
 
+static func readCompressed(buffer):
+    var rawLength: int = buffer.readInt()
+    var compressedLength: int = buffer.readInt()
+    var readOffset: int = buffer.getReadOffset()
+    var compressedBytes: PoolByteArray = buffer.buffer.data_array.subarray(readOffset, readOffset + compressedLength - 1)
+    buffer.setReadOffset(readOffset + compressedLength)
+    # Godot的COMPRESSION_DEFLATE就是zlib格式
+    var bytes: PoolByteArray = compressedBytes.decompress(rawLength, File.COMPRESSION_DEFLATE)
+    var packetBuffer = buffer.get_script().new()
+    packetBuffer.writePoolByteArray(bytes)
+    return read(packetBuffer)
+
 static func initProtocol():
 	{}
@@ -373,6 +373,171 @@ func readDoubleArray():
 			array.append(readDouble())
 	return array
 	
+# Packed.Type.FIXED的数组，长度之后是小端的定长字节
+func writeFixedShortArray(array):
+	if (array == null):
+		writeInt(0)
+	else:
+		writeInt(array.size());
+		buffer.big_endian = false
+		buffer.seek(writeOffset)
+		for element in array:
+			buffer.put_16(element)
+		buffer.big_endian = true
+		writeOffset += array.size() * 2
+			
+func readFixedShortArray():
+	var array = []
+	var size = readInt()
+	if (size > 0):
+		buffer.big_endian = false
+		buffer.seek(readOffset)
+		for index in range(size):
+			array.append(buffer.get_16())
+		buffer.big_endian = true
+		readOffset += size * 2
+	return array
+	
+func writeFixedIntArray(array):
+	if (array == null):
+		writeInt(0)
+	else:
+		writeInt(array.size());
+		buffer.big_endian = false
+		buffer.seek(writeOffset)
+		for element in array:
+			buffer.put_32(element)
+		buffer.big_endian = true
+		writeOffset += array.size() * 4
+			
+func readFixedIntArray():
+	var array = []
+	var size = readInt()
+	if (size > 0):
+		buffer.big_endian = false
+		buffer.seek(readOffset)
+		for index in range(size):
+			array.append(buffer.get_32())
+		buffer.big_endian = true
+		readOffset += size * 4
+	return array
+	
+func writeFixedLongArray(array):
+	if (array == null):
+		writeInt(0)
+	else:
+		writeInt(array.size());
+		buffer.big_endian = false
+		buffer.seek(writeOffset)
+		for element in array:
+			buffer.put_64(element)
+		buffer.big_endian = true
+		writeOffset += array.size() * 8
+			
+func readFixedLongArray():
+	var array = []
+	var size = readInt()
+	if (size > 0):
+		buffer.big_endian = false
+		buffer.seek(readOffset)
+		for index in range(size):
+			array.append(buffer.get_64())
+		buffer.big_endian = true
+		readOffset += size * 8
+	return array
+	
+func writeFixedFloatArray(array):
+	if (array == null):
+		writeInt(0)
+	else:
+		writeInt(array.size());
+		buffer.big_endian = false
+		buffer.seek(writeOffset)
+		for element in array:
+			buffer.put_float(element)
+		buffer.big_endian = true
+		writeOffset += array.size() * 4
+			
+func readFixedFloatArray():
+	var array = []
+	var size = readInt()
+	if (size > 0):
+		buffer.big_endian = false
+		buffer.seek(readOffset)
+		for index in range(size):
+			array.append(buffer.get_float())
+		buffer.big_endian = true
+		readOffset += size * 4
+	return array
+	
+func writeFixedDoubleArray(array):
+	if (array == null):
+		writeInt(0)
+	else:
+		writeInt(array.size());
+		buffer.big_endian = false
+		buffer.seek(writeOffset)
+		for element in array:
+			buffer.put_double(element)
+		buffer.big_endian = true
+		writeOffset += array.size() * 8
+			
+func readFixedDoubleArray():
+	var array = []
+	var size = readInt()
+	if (size > 0):
+		buffer.big_endian = false
+		buffer.seek(readOffset)
+		for index in range(size):
+			array.append(buffer.get_double())
+		buffer.big_endian = true
+		readOffset += size * 8
+	return array
+	
+# Packed.Type.DELTA_VARINT的数组，长度之后是和前一个元素的差值，int的差值按照32位溢出
+func toInt32(value: int) -> int:
+	return ((value + 0x80000000) & 0xFFFFFFFF) - 0x80000000
+
+func writeDeltaIntArray(array):
+	if (array == null):
+		writeInt(0)
+	else:
+		writeInt(array.size());
+		var previous = 0
+		for element in array:
+			writeInt(toInt32(element - previous))
+			previous = element
+			
+func readDeltaIntArray():
+	var array = []
+	var size = readInt()
+	var previous = 0
+	if (size > 0):
+		for index in range(size):
+			previous = toInt32(previous + readInt())
+			array.append(previous)
+	return array
+	
+func writeDeltaLongArray(array):
+	if (array == null):
+		writeInt(0)
+	else:
+		writeInt(array.size());
+		var previous = 0
+		for element in array:
+			writeLong(element - previous)
+			previous = element
+			
+func readDeltaLongArray():
+	var array = []
+	var size = readInt()
+	var previous = 0
+	if (size > 0):
+		for index in range(size):
+			previous = previous + readLong()
+			array.append(previous)
+	return array
+	
 func writeCharArray(array):
 	if (array == null):
 		writeInt(0)
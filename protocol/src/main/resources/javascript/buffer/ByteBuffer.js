@@ -512,6 +512,120 @@ const ByteBuffer = function() {
         return array;
     };
 
+    // Packed.Type.FIXED的数组，长度之后是小端的定长字节
+    this.writeFixedArray = function(array, elementBytes, setter) {
+        if (array === null || array === undefined) {
+            this.writeInt(0);
+            return;
+        }
+        this.writeInt(array.length);
+        this.ensureCapacity(array.length * elementBytes);
+        array.forEach(element => {
+            setter(this.writeOffset, element);
+            this.writeOffset += elementBytes;
+        });
+    };
+
+    this.readFixedArray = function(elementBytes, getter) {
+        const array = [];
+        const length = this.readInt();
+        for (let index = 0; index < length; index++) {
+            array.push(getter(this.readOffset));
+            this.readOffset += elementBytes;
+        }
+        return array;
+    };
+
+    this.writeFixedShortArray = function(array) {
+        this.writeFixedArray(array, 2, (offset, value) => this.bufferView.setInt16(offset, value, true));
+    };
+
+    this.readFixedShortArray = function() {
+        return this.readFixedArray(2, offset => this.bufferView.getInt16(offset, true));
+    };
+
+    this.writeFixedIntArray = function(array) {
+        this.writeFixedArray(array, 4, (offset, value) => this.bufferView.setInt32(offset, value, true));
+    };
+
+    this.readFixedIntArray = function() {
+        return this.readFixedArray(4, offset => this.bufferView.getInt32(offset, true));
+    };
+
+    this.writeFixedLongArray = function(array) {
+        this.writeFixedArray(array, 8, (offset, value) => this.bufferView.setBigInt64(offset, BigInt(value), true));
+    };
+
+    this.readFixedLongArray = function() {
+        return this.readFixedArray(8, offset => this.bufferView.getBigInt64(offset, true).toString());
+    };
+
+    this.writeFixedFloatArray = function(array) {
+        this.writeFixedArray(array, 4, (offset, value) => this.bufferView.setFloat32(offset, value, true));
+    };
+
+    this.readFixedFloatArray = function() {
+        return this.readFixedArray(4, offset => this.bufferView.getFloat32(offset, true));
+    };
+
+    this.writeFixedDoubleArray = function(array) {
+        this.writeFixedArray(array, 8, (offset, value) => this.bufferView.setFloat64(offset, value, true));
+    };
+
+    this.readFixedDoubleArray = function() {
+        return this.readFixedArray(8, offset => this.bufferView.getFloat64(offset, true));
+    };
+
+    // Packed.Type.DELTA_VARINT的数组，长度之后是和前一个元素的差值
+    this.writeDeltaIntArray = function(array) {
+        if (array === null || array === undefined) {
+            this.writeInt(0);
+            return;
+        }
+        this.writeInt(array.length);
+        let previous = 0;
+        array.forEach(element => {
+            this.writeInt((element - previous) | 0);
+            previous = element;
+        });
+    };
+
+    this.readDeltaIntArray = function() {
+        const array = [];
+        const length = this.readInt();
+        let previous = 0;
+        for (let index = 0; index < length; index++) {
+            previous = (previous + this.readInt()) | 0;
+            array.push(previous);
+        }
+        return array;
+    };
+
+    this.writeDeltaLongArray = function(array) {
+        if (array === null || array === undefined) {
+            this.writeInt(0);
+            return;
+        }
+        this.writeInt(array.length);
+        let previous = BigInt(0);
+        array.forEach(element => {
+            const value = BigInt(element);
+            this.writeLong(BigInt.asIntN(64, value - previous).toString());
+            previous = value;
+        });
+    };
+
+    this.readDeltaLongArray = function() {
+        const array = [];
+        const length = this.readInt();
+        let previous = BigInt(0);
+        for (let index = 0; index < length; index++) {
+            previous = BigInt.asIntN(64, previous + BigInt(this.readLong()));
+            array.push(previous.toString());
+        }
+        return array;
+    };
+
     this.writeStringArray = function(array) {
         if (array === null) {
             this.writeInt(0);
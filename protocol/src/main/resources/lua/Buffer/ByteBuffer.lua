@@ -641,6 +641,129 @@ function ByteBuffer:readDoubleArray()
     return array
 end
 
+-- Packed.Type.FIXED的数组，长度之后是小端的定长字节
+function ByteBuffer:writeFixedArray(array, format)
+    if array == null then
+        self:writeInt(0)
+    else
+        self:writeInt(#array);
+        for index, element in pairs(array) do
+            self:writeBuffer(string.pack(format, element))
+        end
+    end
+    return self
+end
+
+function ByteBuffer:readFixedArray(format, elementBytes)
+    local array = {}
+    local size = self:readInt()
+    if size > 0 then
+        for index = 1, size do
+            table.insert(array, (string.unpack(format, self:readBuffer(elementBytes))))
+        end
+    end
+    return array
+end
+
+function ByteBuffer:writeFixedShortArray(array)
+    return self:writeFixedArray(array, "<i2")
+end
+
+function ByteBuffer:readFixedShortArray()
+    return self:readFixedArray("<i2", 2)
+end
+
+function ByteBuffer:writeFixedIntArray(array)
+    return self:writeFixedArray(array, "<i4")
+end
+
+function ByteBuffer:readFixedIntArray()
+    return self:readFixedArray("<i4", 4)
+end
+
+function ByteBuffer:writeFixedLongArray(array)
+    return self:writeFixedArray(array, "<i8")
+end
+
+function ByteBuffer:readFixedLongArray()
+    return self:readFixedArray("<i8", 8)
+end
+
+function ByteBuffer:writeFixedFloatArray(array)
+    return self:writeFixedArray(array, "<f")
+end
+
+function ByteBuffer:readFixedFloatArray()
+    return self:readFixedArray("<f", 4)
+end
+
+function ByteBuffer:writeFixedDoubleArray(array)
+    return self:writeFixedArray(array, "<d")
+end
+
+function ByteBuffer:readFixedDoubleArray()
+    return self:readFixedArray("<d", 8)
+end
+
+-- Packed.Type.DELTA_VARINT的数组，长度之后是和前一个元素的差值，int的差值按照32位溢出
+local function toInt32(value)
+    return ((value + 0x80000000) & 0xFFFFFFFF) - 0x80000000
+end
+
+function ByteBuffer:writeDeltaIntArray(array)
+    if array == null then
+        self:writeInt(0)
+    else
+        self:writeInt(#array);
+        local previous = 0
+        for index, element in pairs(array) do
+            self:writeInt(toInt32(element - previous))
+            previous = element
+        end
+    end
+    return self
+end
+
+function ByteBuffer:readDeltaIntArray()
+    local array = {}
+    local size = self:readInt()
+    local previous = 0
+    if size > 0 then
+        for index = 1, size do
+            previous = toInt32(previous + self:readInt())
+            table.insert(array, previous)
+        end
+    end
+    return array
+end
+
+function ByteBuffer:writeDeltaLongArray(array)
+    if array == null then
+        self:writeInt(0)
+    else
+        self:writeInt(#array);
+        local previous = 0
+        for index, element in pairs(array) do
+            self:writeLong(element - previous)
+            previous = element
+        end
+    end
+    return self
+end
+
+function ByteBuffer:readDeltaLongArray()
+    local array = {}
+    local size = self:readInt()
+    local previous = 0
+    if size > 0 then
+        for index = 1, size do
+            previous = previous + self:readLong()
+            table.insert(array, previous)
+        end
+    end
+    return array
+end
+
 function ByteBuffer:writeCharArray(array)
     if array == null then
         self:writeInt(0)
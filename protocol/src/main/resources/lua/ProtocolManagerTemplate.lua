@@ -27,11 +27,36 @@ function ProtocolManager.write(buffer, packet)
     ProtocolManager.getProtocol(protocolId):write(buffer, packet)
 end
 
+-- 服务器压缩过的包体的协议号，压缩格式为：COMPRESSED_PROTOCOL_ID + 解压之后的长度 + 压缩之后的长度 + zlib(protocolId + packet)
+local COMPRESSED_PROTOCOL_ID = -32768
+
+-- zlib解压函数，参数和返回值都为字符串，服务器开启了压缩需要设置，如使用lua-zlib：ProtocolManager.inflate = function(str) return zlib.inflate()(str) end
+ProtocolManager.inflate = nil
+
 function ProtocolManager.read(buffer)
     local protocolId = buffer:readShort()
+    if protocolId == COMPRESSED_PROTOCOL_ID then
+        return ProtocolManager.readCompressed(buffer)
+    end
     return ProtocolManager.getProtocol(protocolId):read(buffer)
 end
 
+function ProtocolManager.readCompressed(buffer)
+    if ProtocolManager.inflate == nil then
+        error("收到了压缩的包，需要设置ProtocolManager.inflate")
+    end
+    local rawLength = buffer:readInt()
+    local compressedLength = buffer:readInt()
+    local bytes = ProtocolManager.inflate(buffer:readBuffer(compressedLength))
+    if #bytes ~= rawLength then
+        error("压缩包体解压之后的长度[" .. #bytes .. "]和[rawLength:" .. rawLength .. "]不一致")
+    end
+    -- ByteBuffer的元表就是ByteBuffer
+    local packetBuffer = getmetatable(buffer):new()
+    packetBuffer:writeBuffer(bytes)
+    return ProtocolManager.read(packetBuffer)
+end
+
 function initProtocol()
     {}
     {}
@@ -2,10 +2,16 @@
 
 const protocols = new Map<number, any>();
 
+// 服务器压缩过的包体的协议号，压缩格式为：COMPRESSED_PROTOCOL_ID + 解压之后的长度 + 压缩之后的长度 + zlib(protocolId + packet)
+const COMPRESSED_PROTOCOL_ID = -32768;
+
 // initProtocol
 {}
 
 class ProtocolManager {
+    // zlib解压函数，服务器开启了压缩需要设置，如：ProtocolManager.inflate = pako.inflate;
+    static inflate: ((bytes: Uint8Array) => Uint8Array) | null = null;
+
     static getProtocol(protocolId: number): any {
         const protocol = protocols.get(protocolId);
         if (protocol === null) {
@@ -23,10 +29,30 @@ class ProtocolManager {
 
     static read(buffer: any): any {
         const protocolId = buffer.readShort();
+        if (protocolId === COMPRESSED_PROTOCOL_ID) {
+            return ProtocolManager.readCompressed(buffer);
+        }
         const protocol = ProtocolManager.getProtocol(protocolId);
         const packet = protocol.read(buffer);
         return packet;
     }
+
+    static readCompressed(buffer: any): any {
+        if (ProtocolManager.inflate === null) {
+            throw new Error('收到了压缩的包，需要设置ProtocolManager.inflate');
+        }
+        const rawLength = buffer.readInt();
+        const compressedLength = buffer.readInt();
+        const readOffset = buffer.readOffset;
+        const bytes = ProtocolManager.inflate(new Uint8Array(buffer.buffer, readOffset, compressedLength));
+        buffer.setReadOffset(readOffset + compressedLength);
+        if (bytes.byteLength !== rawLength) {
+            throw new Error('压缩包体解压之后的长度[' + bytes.byteLength + ']和[rawLength:' + rawLength + ']不一致');
+        }
+        const packetBuffer = new buffer.constructor();
+        packetBuffer.writeBytes(bytes);
+        return ProtocolManager.read(packetBuffer);
+    }
 }
 
 export default ProtocolManager;
@@ -520,6 +520,120 @@ class ByteBuffer {
         return array;
     };
 
+    // Packed.Type.FIXED的数组，长度之后是小端的定长字节
+    writeFixedArray(array: Array<any> | null, elementBytes: number, setter: (offset: number, value: any) => void) {
+        if (array === null || array === undefined) {
+            this.writeInt(0);
+            return;
+        }
+        this.writeInt(array.length);
+        this.ensureCapacity(array.length * elementBytes);
+        array.forEach(element => {
+            setter(this.writeOffset, element);
+            this.writeOffset += elementBytes;
+        });
+    };
+
+    readFixedArray(elementBytes: number, getter: (offset: number) => any): any {
+        const array = [];
+        const length = this.readInt();
+        for (let index = 0; index < length; index++) {
+            array.push(getter(this.readOffset));
+            this.readOffset += elementBytes;
+        }
+        return array;
+    };
+
+    writeFixedShortArray(array: Array<number> | null) {
+        this.writeFixedArray(array, 2, (offset, value) => this.bufferView.setInt16(offset, value, true));
+    };
+
+    readFixedShortArray(): any {
+        return this.readFixedArray(2, offset => this.bufferView.getInt16(offset, true));
+    };
+
+    writeFixedIntArray(array: Array<number> | null) {
+        this.writeFixedArray(array, 4, (offset, value) => this.bufferView.setInt32(offset, value, true));
+    };
+
+    readFixedIntArray(): any {
+        return this.readFixedArray(4, offset => this.bufferView.getInt32(offset, true));
+    };
+
+    writeFixedLongArray(array: Array<any> | null) {
+        this.writeFixedArray(array, 8, (offset, value) => this.bufferView.setBigInt64(offset, BigInt(value), true));
+    };
+
+    readFixedLongArray(): any {
+        return this.readFixedArray(8, offset => this.bufferView.getBigInt64(offset, true).toString());
+    };
+
+    writeFixedFloatArray(array: Array<number> | null) {
+        this.writeFixedArray(array, 4, (offset, value) => this.bufferView.setFloat32(offset, value, true));
+    };
+
+    readFixedFloatArray(): any {
+        return this.readFixedArray(4, offset => this.bufferView.getFloat32(offset, true));
+    };
+
+    writeFixedDoubleArray(array: Array<number> | null) {
+        this.writeFixedArray(array, 8, (offset, value) => this.bufferView.setFloat64(offset, value, true));
+    };
+
+    readFixedDoubleArray(): any {
+        return this.readFixedArray(8, offset => this.bufferView.getFloat64(offset, true));
+    };
+
+    // Packed.Type.DELTA_VARINT的数组，长度之后是和前一个元素的差值
+    writeDeltaIntArray(array: Array<number> | null) {
+        if (array === null || array === undefined) {
+            this.writeInt(0);
+            return;
+        }
+        this.writeInt(array.length);
+        let previous = 0;
+        array.forEach(element => {
+            this.writeInt((element - previous) | 0);
+            previous = element;
+        });
+    };
+
+    readDeltaIntArray(): any {
+        const array = [];
+        const length = this.readInt();
+        let previous = 0;
+        for (let index = 0; index < length; index++) {
+            previous = (previous + this.readInt()) | 0;
+            array.push(previous);
+        }
+        return array;
+    };
+
+    writeDeltaLongArray(array: Array<any> | null) {
+        if (array === null || array === undefined) {
+            this.writeInt(0);
+            return;
+        }
+        this.writeInt(array.length);
+        let previous = BigInt(0);
+        array.forEach(element => {
+            const value = BigInt(element);
+            this.writeLong(BigInt.asIntN(64, value - previous).toString() as any);
+            previous = value;
+        });
+    };
+
+    readDeltaLongArray(): any {
+        const array = [];
+        const length = this.readInt();
+        let previous = BigInt(0);
+        for (let index = 0; index < length; index++) {
+            previous = BigInt.asIntN(64, previous + BigInt(this.readLong()));
+            array.push(previous.toString());
+        }
+        return array;
+    };
+
     writeStringArray(array: Array<string> | null) {
         if (array === null) {
             this.writeInt(0);
@@ -20,8 +20,6 @@ import com.esotericsoftware.kryo.unsafe.UnsafeOutput;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.CodedOutputStream;
-import com.zfoo.protocol.collection.ArrayUtils;
-import com.zfoo.protocol.generate.GenerateOperation;
 import com.zfoo.protocol.packet.*;
 import com.zfoo.protocol.util.StringUtils;
 import io.netty.buffer.ByteBuf;
@@ -36,6 +34,8 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import static com.zfoo.protocol.packet.TestPackets.*;
+
 /**
  * @author jaysunxiao
  * @version 3.0
@@ -297,10 +297,8 @@ public class SpeedTest {
     };
 
     static {
-        var op = GenerateOperation.NO_OPERATION;
-//        op.getGenerateLanguages().add(CodeLanguage.JavaScript);
         // zfoo协议注册
-        ProtocolManager.initProtocol(Set.of(ComplexObject.class, NormalObject.class, SimpleObject.class, ObjectA.class, ObjectB.class), op);
+        TestPackets.initProtocol();
 
         for (int i = 0; i < executors.length; i++) {
             executors[i] = Executors.newSingleThreadExecutor();
@@ -308,157 +306,11 @@ public class SpeedTest {
     }
 
     // -------------------------------------------以下为测试用例---------------------------------------------------------------
-    private static final byte byteValue = 99;
-    private static final short shortValue = 9999;
-    private static final int intValue = 99999999;
-    private static final long longValue = 9999999999999999L;
-    private static final float floatValue = 99999999.9F;
-    private static final double doubleValue = 99999999.9D;
-    private static final char charValue = 'c';
-    private static final String charValueString = "c";
-    private static final String stringValue = "hello";
-
-
-    private static final boolean[] booleanArray = new boolean[]{true, false, true, false, true};
-    private static final byte[] byteArray = new byte[]{Byte.MIN_VALUE, -99, 0, 99, Byte.MAX_VALUE};
-    private static final short[] shortArray = new short[]{Short.MIN_VALUE, -99, 0, 99, Short.MAX_VALUE};
-    private static final int[] intArray = new int[]{Integer.MIN_VALUE, -99999999, -99, 0, 99, 99999999, Integer.MAX_VALUE};
-    private static final int[] intArray1 = new int[]{Integer.MIN_VALUE, -99999999, -99, 0, 99, 99999999, Integer.MAX_VALUE - 1};
-    private static final int[] intArray2 = new int[]{Integer.MIN_VALUE, -99999999, -99, 0, 99, 99999999, Integer.MAX_VALUE - 2};
-    private static final long[] longArray = new long[]{Long.MIN_VALUE, -9999999999999999L, -99999999L, -99L, 0L, 99L, 99999999L, 9999999999999999L, Long.MAX_VALUE};
-    private static final float[] floatArray = new float[]{Float.MIN_VALUE, -99999999.9F, -99.9F, 0F, 99.9F, 99999999.9F, Float.MAX_VALUE};
-    private static final double[] doubleArray = new double[]{Double.MIN_VALUE, -99999999.9F, -99.9D, 0D, 99.9D, 99999999.9F, Double.MAX_VALUE};
-    private static final char[] charArray = new char[]{'a', 'b', 'c', 'd', 'e'};
-    private static final String[] stringArray = new String[]{"a", "b", "c", "d", "e"};
-
-    private static final ObjectA objectA = new ObjectA();
-    private static final ObjectB objectB = new ObjectB();
-    private static final Map<Integer, String> mapWithInteger = new HashMap<>(Map.of(Integer.MIN_VALUE, "a", -99, "b", 0, "c", 99, "d", Integer.MAX_VALUE, "e"));
-    private static final List<Integer> listWithInteger = new ArrayList<>(ArrayUtils.toList(intArray));
-    private static final List<Integer> listWithInteger1 = new ArrayList<>(ArrayUtils.toList(intArray1));
-    private static final List<Integer> listWithInteger2 = new ArrayList<>(ArrayUtils.toList(intArray2));
-    private static final List<ObjectA> listWithObject = new ArrayList<>(List.of(objectA, objectA, objectA));
-    private static final List<List<ObjectA>> listListWithObject = new ArrayList<>(List.of(listWithObject, listWithObject, listWithObject));
-    private static final List<List<Integer>> listListWithInteger = new ArrayList<>(List.of(listWithInteger, listWithInteger, listWithInteger));
-    private static final List<List<List<Integer>>> listListListWithInteger = new ArrayList<>(List.of(listListWithInteger, listListWithInteger, listListWithInteger));
-    private static final List<String> listWithString = new ArrayList<>(ArrayUtils.toList(stringArray));
-    private static final Set<Integer> setWithInteger = new HashSet<>(ArrayUtils.toList(intArray));
-    private static final Set<Set<List<Integer>>> setSetListWithInteger = new HashSet<>(Set.of(new HashSet<>(Set.of(listWithInteger)), new HashSet<>(Set.of(listWithInteger1)), new HashSet<>(Set.of(listWithInteger2))));
-    private static final Set<Set<ObjectA>> setSetWithObject = new HashSet<>(Set.of(new HashSet<>(Set.of(objectA))));
-    private static final Set<String> setWithString = new HashSet<>(ArrayUtils.toList(stringArray));
-    private static final Map<Integer, ObjectA> mapWithObject = new HashMap<>(Map.of(1, objectA, 2, objectA, 3, objectA));
-    private static final Map<ObjectA, List<Integer>> mapWithList = new HashMap<>(Map.of(objectA, listWithInteger));
-    private static final Map<List<List<ObjectA>>, List<List<List<Integer>>>> mapWithListList = new HashMap<>(Map.of(new ArrayList<>(List.of(listWithObject, listWithObject, listWithObject)), listListListWithInteger));
-    private static final List<Map<Integer, String>> listMap = new ArrayList<>(List.of(mapWithInteger, mapWithInteger, mapWithInteger));
-    private static final Set<Map<Integer, String>> setMapWithInteger = new HashSet<>(Set.of(mapWithInteger));
-    private static final Map<List<Map<Integer, String>>, Set<Map<Integer, String>>> mapListSet = new HashMap<>(Map.of(listMap, setMapWithInteger));
-    private static final Byte[] byteBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(byteArray), Byte.class);
-    private static final Short[] shortBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(shortArray), Short.class);
-    private static final Integer[] integerArray = ArrayUtils.listToArray(ArrayUtils.toList(intArray), Integer.class);
-    private static final Long[] longBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(longArray), Long.class);
-    private static final List<Long> listWithLong = ArrayUtils.toList(longArray);
-    private static final Float[] floatBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(floatArray), Float.class);
-    private static final List<Float> listWithFloat = ArrayUtils.toList(floatArray);
-    private static final Double[] doubleBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(doubleArray), Double.class);
-    private static final List<Double> listWithDouble = ArrayUtils.toList(doubleArray);
-    private static final Boolean[] booleanBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(booleanArray), Boolean.class);
-    private static final List<Boolean> listWithBoolean = ArrayUtils.toList(booleanArray);
-    private static final Character[] charBoxArray = ArrayUtils.listToArray(ArrayUtils.toList(charArray), Character.class);
-    private static final ComplexObject complexObject = new ComplexObject();
-    private static final NormalObject normalObject = new NormalObject();
-    private static final SimpleObject simpleObject = new SimpleObject();
     private static ProtobufObject.ProtobufComplexObject protobufComplexObject = null;
     private static ProtobufObject.ProtobufNormalObject protobufNormalObject = null;
     private static ProtobufObject.ProtobufSimpleObject protobufSimpleObject = null;
 
     static {
-        objectA.setA(Integer.MAX_VALUE);
-        objectA.setM(mapWithInteger);
-        objectA.setObjectB(objectB);
-        objectB.setFlag(false);
-    }
-
-    static {
-        complexObject.setA(byteValue);
-        complexObject.setAa(byteValue);
-        complexObject.setAaa(byteArray);
-        complexObject.setAaaa(byteBoxArray);
-        complexObject.setB(shortValue);
-        complexObject.setBb(shortValue);
-        complexObject.setBbb(shortArray);
-        complexObject.setBbbb(shortBoxArray);
-        complexObject.setC(intValue);
-        complexObject.setCc(intValue);
-        complexObject.setCcc(intArray);
-        complexObject.setCccc(integerArray);
-        complexObject.setD(longValue);
-        complexObject.setDd(longValue);
-        complexObject.setDdd(longArray);
-        complexObject.setDddd(longBoxArray);
-        complexObject.setE(floatValue);
-        complexObject.setEe(floatValue);
-        complexObject.setEee(floatArray);
-        complexObject.setEeee(floatBoxArray);
-        complexObject.setF(doubleValue);
-        complexObject.setFf(doubleValue);
-        complexObject.setFff(doubleArray);
-        complexObject.setFfff(doubleBoxArray);
-        complexObject.setG(true);
-        complexObject.setGg(true);
-        complexObject.setGgg(booleanArray);
-        complexObject.setGggg(booleanBoxArray);
-        complexObject.setH(charValue);
-        complexObject.setHh(charValue);
-        complexObject.setHhh(charArray);
-        complexObject.setHhhh(charBoxArray);
-        complexObject.setJj(stringValue);
-        complexObject.setJjj(stringArray);
-        complexObject.setKk(objectA);
-        complexObject.setKkk(new ObjectA[]{objectA, objectA});
-
-        complexObject.setL(listWithInteger);
-        complexObject.setLl(listListListWithInteger);
-        complexObject.setLll(listListWithObject);
-        complexObject.setLlll(listWithString);
-        complexObject.setLllll(listMap);
-
-        complexObject.setM(mapWithInteger);
-        complexObject.setMm(mapWithObject);
-        complexObject.setMmm(mapWithList);
-        complexObject.setMmmm(mapWithListList);
-        complexObject.setMmmmm(mapListSet);
-
-        complexObject.setS(setWithInteger);
-        complexObject.setSs(setSetListWithInteger);
-        complexObject.setSss(setSetWithObject);
-        complexObject.setSsss(setWithString);
-        complexObject.setSssss(setMapWithInteger);
-
-        normalObject.setA(byteValue);
-        normalObject.setAaa(byteArray);
-        normalObject.setB(shortValue);
-        normalObject.setC(intValue);
-        normalObject.setD(longValue);
-        normalObject.setE(floatValue);
-        normalObject.setF(doubleValue);
-        normalObject.setG(true);
-        normalObject.setJj(stringValue);
-        normalObject.setKk(objectA);
-
-        normalObject.setL(listWithInteger);
-        normalObject.setLl(listWithLong);
-        normalObject.setLll(listWithObject);
-        normalObject.setLlll(listWithString);
-
-        normalObject.setM(mapWithInteger);
-        normalObject.setMm(mapWithObject);
-
-        normalObject.setS(setWithInteger);
-        normalObject.setSsss(setWithString);
-
-        simpleObject.setC(intValue);
-        simpleObject.setG(true);
-
         // protobuf相关
         var protobufObjectB = ProtobufObject.ObjectB.newBuilder().setFlag(false).build();
         var protobufObjectA = ProtobufObject.ObjectA.newBuilder()
@@ -13,6 +13,8 @@
 
 package com.zfoo.protocol.buffer;
 
+import com.zfoo.protocol.collection.IntList;
+import com.zfoo.protocol.collection.LongList;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
@@ -21,6 +23,9 @@ import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
 /**
  * @author jaysunxiao
  * @version 3.0
@@ -117,6 +122,61 @@ public class ByteBufUtilsTest {
         Assert.assertEquals(ByteBufUtils.readCharBox(byteBuf), Character.valueOf(Character.MIN_VALUE));
     }
 
+    @Test
+    public void countTest() {
+        ByteBuf byteBuf = Unpooled.buffer();
+
+        int[] intValues = new int[]{Integer.MIN_VALUE, -99999999, -9999, -100, -2, -1, 0, 1, 2, 63, 64, 100, 8191, 8192, 9999, 99999999, Integer.MAX_VALUE};
+        for (int value : intValues) {
+            byteBuf.clear();
+            ByteBufUtils.writeInt(byteBuf, value);
+            Assert.assertEquals(byteBuf.writerIndex(), ByteBufUtils.writeIntCount(value));
+        }
+
+        long[] longValues = new long[]{Long.MIN_VALUE, -9999999999999999L, -99999999, -100, -1, 0, 1, 63, 64, 99999999, 9999999999999999L, Long.MAX_VALUE};
+        for (long value : longValues) {
+            byteBuf.clear();
+            ByteBufUtils.writeLong(byteBuf, value);
+            Assert.assertEquals(byteBuf.writerIndex(), ByteBufUtils.writeLongCount(value));
+        }
+
+        String[] stringValues = new String[]{null, "", "hello", "你好，世界", "a\uD83D\uDE00b", "\uD83D", "\u00e9\u07ff\u0800"};
+        for (String value : stringValues) {
+            byteBuf.clear();
+            ByteBufUtils.writeString(byteBuf, value);
+            Assert.assertEquals(byteBuf.writerIndex(), ByteBufUtils.writeStringCount(value));
+            Assert.assertEquals(value == null ? "" : value.replace('\uD83D', '?'), ByteBufUtils.readString(byteBuf).replace('\uD83D', '?'));
+        }
+
+        char[] charValues = new char[]{Character.MIN_VALUE, 'a', '\u00e9', '\u07ff', '\u0800', '中', '\uD83D', Character.MAX_VALUE};
+        for (char value : charValues) {
+            byteBuf.clear();
+            ByteBufUtils.writeChar(byteBuf, value);
+            Assert.assertEquals(byteBuf.writerIndex(), ByteBufUtils.writeCharCount(value));
+        }
+    }
+
+    @Test
+    public void primitiveListTest() {
+        var intValues = new int[]{Integer.MIN_VALUE, -99999999, -1, 0, 1, 99999999, Integer.MAX_VALUE};
+        var boxBuf = Unpooled.buffer();
+        var primitiveBuf = Unpooled.buffer();
+        ByteBufUtils.writeIntList(boxBuf, Arrays.stream(intValues).boxed().collect(Collectors.toList()));
+        ByteBufUtils.writeIntPrimitiveList(primitiveBuf, new IntList(intValues));
+        Assert.assertEquals(boxBuf, primitiveBuf);
+        Assert.assertEquals(primitiveBuf.readableBytes(), ByteBufUtils.writeIntPrimitiveListCount(new IntList(intValues)));
+        Assert.assertArrayEquals(intValues, ByteBufUtils.readIntPrimitiveList(boxBuf).toIntArray());
+
+        var longValues = new long[]{Long.MIN_VALUE, -9999999999999999L, -1, 0, 1, 9999999999999999L, Long.MAX_VALUE};
+        boxBuf.clear();
+        primitiveBuf.clear();
+        ByteBufUtils.writeLongList(boxBuf, Arrays.stream(longValues).boxed().collect(Collectors.toList()));
+        ByteBufUtils.writeLongPrimitiveList(primitiveBuf, new LongList(longValues));
+        Assert.assertEquals(boxBuf, primitiveBuf);
+        Assert.assertEquals(primitiveBuf.readableBytes(), ByteBufUtils.writeLongPrimitiveListCount(new LongList(longValues)));
+        Assert.assertArrayEquals(longValues, ByteBufUtils.readLongPrimitiveList(boxBuf).toLongArray());
+    }
+
     @Ignore
     @Test
     public void readLongSpeedTest() {
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.collection;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.packet.PrimitiveObject;
+import com.zfoo.protocol.packet.TestPackets;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledUnsafeHeapByteBuf;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.zfoo.protocol.packet.TestPackets.*;
+
+/**
+ * IntList和LongList作为协议字段的序列化
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class PrimitiveListTest {
+
+    static {
+        TestPackets.initProtocol();
+    }
+
+    @Test
+    public void primitiveListTest() {
+        ByteBuf buffer = new UnpooledUnsafeHeapByteBuf(ByteBufAllocator.DEFAULT, 100, 1_0000);
+        var packet = new PrimitiveObject();
+        packet.setA(new IntList(intArray));
+        packet.setB(new LongList(longArray));
+        ProtocolManager.write(buffer, packet);
+        Assert.assertEquals(buffer.writerIndex(), ProtocolManager.serializedSize(packet));
+
+        var result = (PrimitiveObject) ProtocolManager.read(buffer);
+        Assert.assertArrayEquals(intArray, result.getA().toIntArray());
+        Assert.assertArrayEquals(longArray, result.getB().toLongArray());
+
+        // null的时候反序列化为大小为0的List
+        buffer.clear();
+        ProtocolManager.write(buffer, new PrimitiveObject());
+        result = (PrimitiveObject) ProtocolManager.read(buffer);
+        Assert.assertTrue(result.getA().isEmpty());
+        Assert.assertTrue(result.getB().isEmpty());
+    }
+
+}
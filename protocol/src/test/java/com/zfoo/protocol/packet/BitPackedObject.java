@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.packet;
+
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.registration.anno.BitPacked;
+import com.zfoo.protocol.registration.anno.Compatible;
+
+/**
+ * boolean字段压缩到开头的位图中
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+@BitPacked
+public class BitPackedObject implements IPacket {
+
+    public static final transient short PROTOCOL_ID = 107;
+
+    private boolean a;
+
+    private boolean b;
+
+    private boolean c;
+
+    private boolean d;
+
+    private boolean e;
+
+    private boolean f;
+
+    private boolean g;
+
+    private boolean h;
+
+    private boolean i;
+
+    private boolean j;
+
+    private int k;
+
+    private Boolean l;
+
+    @Compatible(order = 1)
+    private boolean m;
+
+    @Override
+    public short protocolId() {
+        return PROTOCOL_ID;
+    }
+
+    public boolean isA() {
+        return a;
+    }
+
+    public void setA(boolean a) {
+        this.a = a;
+    }
+
+    public boolean isB() {
+        return b;
+    }
+
+    public void setB(boolean b) {
+        this.b = b;
+    }
+
+    public boolean isC() {
+        return c;
+    }
+
+    public void setC(boolean c) {
+        this.c = c;
+    }
+
+    public boolean isD() {
+        return d;
+    }
+
+    public void setD(boolean d) {
+        this.d = d;
+    }
+
+    public boolean isE() {
+        return e;
+    }
+
+    public void setE(boolean e) {
+        this.e = e;
+    }
+
+    public boolean isF() {
+        return f;
+    }
+
+    public void setF(boolean f) {
+        this.f = f;
+    }
+
+    public boolean isG() {
+        return g;
+    }
+
+    public void setG(boolean g) {
+        this.g = g;
+    }
+
+    public boolean isH() {
+        return h;
+    }
+
+    public void setH(boolean h) {
+        this.h = h;
+    }
+
+    public boolean isI() {
+        return i;
+    }
+
+    public void setI(boolean i) {
+        this.i = i;
+    }
+
+    public boolean isJ() {
+        return j;
+    }
+
+    public void setJ(boolean j) {
+        this.j = j;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public void setK(int k) {
+        this.k = k;
+    }
+
+    public Boolean getL() {
+        return l;
+    }
+
+    public void setL(Boolean l) {
+        this.l = l;
+    }
+
+    public boolean isM() {
+        return m;
+    }
+
+    public void setM(boolean m) {
+        this.m = m;
+    }
+}
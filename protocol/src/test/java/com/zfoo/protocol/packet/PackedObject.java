@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.packet;
+
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.registration.anno.Packed;
+
+/**
+ * 打包编码的基础类型数组
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class PackedObject implements IPacket {
+
+    public static final transient short PROTOCOL_ID = 106;
+
+    @Packed(Packed.Type.FIXED)
+    private short[] a;
+
+    @Packed(Packed.Type.FIXED)
+    private int[] b;
+
+    @Packed(Packed.Type.FIXED)
+    private long[] c;
+
+    @Packed(Packed.Type.FIXED)
+    private float[] d;
+
+    @Packed(Packed.Type.FIXED)
+    private double[] e;
+
+    @Packed(Packed.Type.DELTA_VARINT)
+    private int[] f;
+
+    @Packed(Packed.Type.DELTA_VARINT)
+    private long[] g;
+
+    private int h;
+
+    @Override
+    public short protocolId() {
+        return PROTOCOL_ID;
+    }
+
+    public short[] getA() {
+        return a;
+    }
+
+    public void setA(short[] a) {
+        this.a = a;
+    }
+
+    public int[] getB() {
+        return b;
+    }
+
+    public void setB(int[] b) {
+        this.b = b;
+    }
+
+    public long[] getC() {
+        return c;
+    }
+
+    public void setC(long[] c) {
+        this.c = c;
+    }
+
+    public float[] getD() {
+        return d;
+    }
+
+    public void setD(float[] d) {
+        this.d = d;
+    }
+
+    public double[] getE() {
+        return e;
+    }
+
+    public void setE(double[] e) {
+        this.e = e;
+    }
+
+    public int[] getF() {
+        return f;
+    }
+
+    public void setF(int[] f) {
+        this.f = f;
+    }
+
+    public long[] getG() {
+        return g;
+    }
+
+    public void setG(long[] g) {
+        this.g = g;
+    }
+
+    public int getH() {
+        return h;
+    }
+
+    public void setH(int h) {
+        this.h = h;
+    }
+}
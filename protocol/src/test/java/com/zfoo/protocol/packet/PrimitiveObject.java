@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.packet;
+
+import com.zfoo.protocol.IPacket;
+import com.zfoo.protocol.collection.IntList;
+import com.zfoo.protocol.collection.LongList;
+
+/**
+ * 基础类型的List，序列化格式和List<Integer>，List<Long>一样
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class PrimitiveObject implements IPacket {
+
+    public static final transient short PROTOCOL_ID = 105;
+
+    private IntList a;
+
+    private LongList b;
+
+    @Override
+    public short protocolId() {
+        return PROTOCOL_ID;
+    }
+
+    public IntList getA() {
+        return a;
+    }
+
+    public void setA(IntList a) {
+        this.a = a;
+    }
+
+    public LongList getB() {
+        return b;
+    }
+
+    public void setB(LongList b) {
+        this.b = b;
+    }
+}
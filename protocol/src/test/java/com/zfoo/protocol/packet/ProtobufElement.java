@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.packet;
+
+import com.baidu.bjf.remoting.protobuf.annotation.Protobuf;
+import com.zfoo.protocol.IPacket;
+
+/**
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ProtobufElement implements IPacket {
+
+    public static final transient short PROTOCOL_ID = 109;
+
+    @Protobuf(order = 1)
+    public int id;
+
+    @Protobuf(order = 2)
+    public String name;
+
+    public static ProtobufElement valueOf(int id, String name) {
+        var element = new ProtobufElement();
+        element.id = id;
+        element.name = name;
+        return element;
+    }
+
+    @Override
+    public short protocolId() {
+        return PROTOCOL_ID;
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.packet;
+
+import com.baidu.bjf.remoting.protobuf.annotation.Protobuf;
+import com.zfoo.protocol.IPacket;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * protobuf编码格式的测试类型，字段号和字段名称的顺序故意不一致
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ProtobufMessage implements IPacket {
+
+    public static final transient short PROTOCOL_ID = 108;
+
+    @Protobuf(order = 13)
+    public int a;
+
+    @Protobuf(order = 12)
+    public long b;
+
+    @Protobuf(order = 11)
+    public boolean c;
+
+    @Protobuf(order = 10)
+    public float d;
+
+    @Protobuf(order = 9)
+    public double e;
+
+    @Protobuf(order = 8)
+    public String f;
+
+    @Protobuf(order = 7)
+    public Integer g;
+
+    @Protobuf(order = 6)
+    public List<Integer> h;
+
+    @Protobuf(order = 5)
+    public List<String> i;
+
+    @Protobuf(order = 4)
+    public ProtobufElement j;
+
+    @Protobuf(order = 3)
+    public List<ProtobufElement> k;
+
+    @Protobuf(order = 2)
+    public Map<Integer, String> l;
+
+    @Protobuf(order = 1)
+    public Map<String, ProtobufElement> m;
+
+    @Override
+    public short protocolId() {
+        return PROTOCOL_ID;
+    }
+
+}
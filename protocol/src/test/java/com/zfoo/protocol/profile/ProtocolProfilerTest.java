@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.profile;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.packet.NormalObject;
+import com.zfoo.protocol.packet.TestPackets;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledUnsafeHeapByteBuf;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static com.zfoo.protocol.packet.TestPackets.*;
+
+/**
+ * 按照协议号统计序列化的次数，字节数和包大小的直方图
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ProtocolProfilerTest {
+
+    static {
+        TestPackets.initProtocol();
+    }
+
+    @Test
+    public void protocolProfilerTest() throws Exception {
+        ByteBuf buffer = new UnpooledUnsafeHeapByteBuf(ByteBufAllocator.DEFAULT, 100, 1_0000);
+        ProtocolProfiler.reset();
+        ProtocolProfiler.setEnable(true);
+        try {
+            for (var i = 0; i < 10; i++) {
+                buffer.clear();
+                ProtocolManager.write(buffer, normalObject);
+                ProtocolManager.read(buffer);
+            }
+        } finally {
+            ProtocolProfiler.setEnable(false);
+        }
+        var size = ProtocolManager.serializedSize(normalObject);
+        var profile = ProtocolProfiler.profile(NormalObject.PROTOCOL_ID);
+        Assert.assertEquals(profile.getWriteCount(), 10);
+        Assert.assertEquals(profile.getReadCount(), 10);
+        Assert.assertEquals(profile.getWriteBytes(), 10L * size);
+        Assert.assertEquals(profile.getReadBytes(), 10L * size);
+        Assert.assertEquals(profile.getMaxSize(), size);
+        Assert.assertEquals(profile.getSizeHistogram()[ProtocolProfile.histogramBucket(size)], 20);
+        Assert.assertTrue(ProtocolProfiler.dump().contains(NormalObject.class.getSimpleName()));
+
+        // 关闭之后不再统计
+        ProtocolManager.write(buffer, normalObject);
+        Assert.assertEquals(profile.getWriteCount(), 10);
+
+        // JMX
+        ProtocolProfiler.registerMBean();
+        var objectName = new ObjectName(ProtocolProfiler.class.getPackageName() + ":type=" + ProtocolProfiler.class.getSimpleName());
+        Assert.assertEquals(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "Enable"), false);
+        Assert.assertTrue(((String) ManagementFactory.getPlatformMBeanServer().invoke(objectName, "dump", null, null)).contains(NormalObject.class.getSimpleName()));
+        ProtocolProfiler.reset();
+        Assert.assertEquals(profile.getWriteCount(), 0);
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.registration;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.collection.IntList;
+import com.zfoo.protocol.packet.ComplexObject;
+import com.zfoo.protocol.packet.ObjectA;
+import com.zfoo.protocol.packet.PrimitiveObject;
+import com.zfoo.protocol.packet.TestPackets;
+import com.zfoo.protocol.registration.field.ArrayField;
+import com.zfoo.protocol.registration.field.ObjectProtocolField;
+import com.zfoo.protocol.serializer.reflect.ArraySerializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.UnpooledUnsafeHeapByteBuf;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.zfoo.protocol.packet.TestPackets.*;
+
+/**
+ * 协议对象的深拷贝
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class CopyTest {
+
+    static {
+        TestPackets.initProtocol();
+    }
+
+    @Test
+    public void copyTest() throws Exception {
+        // 字节码增强生成的copy，序列化的结果和原对象一样，但是可变的字段都不是同一个对象
+        // objectA放进map之后又被修改过，hashCode已经变了，所以这里比较序列化之后的字节而不是equals
+        var copy = ProtocolManager.copy(complexObject);
+        ByteBuf buffer = new UnpooledUnsafeHeapByteBuf(ByteBufAllocator.DEFAULT, 100, 1_0000);
+        ProtocolManager.write(buffer, complexObject);
+        var bytes = ByteBufUtil.getBytes(buffer);
+        buffer.clear();
+        ProtocolManager.write(buffer, copy);
+        Assert.assertArrayEquals(ByteBufUtil.getBytes(buffer), bytes);
+        Assert.assertNotSame(copy.getKk(), complexObject.getKk());
+        Assert.assertNotSame(copy.getKkk()[0], complexObject.getKkk()[0]);
+        Assert.assertNotSame(copy.getLll().get(0), complexObject.getLll().get(0));
+        Assert.assertNotSame(copy.getMm(), complexObject.getMm());
+        Assert.assertSame(copy.getJj(), complexObject.getJj());
+        copy.getCcc()[0] = copy.getCcc()[0] + 1;
+        Assert.assertNotEquals(copy.getCcc()[0], complexObject.getCcc()[0]);
+        Assert.assertNull(ProtocolManager.copy(new ComplexObject()).getKk());
+
+        var primitiveObject = new PrimitiveObject();
+        primitiveObject.setA(new IntList(intArray));
+        var primitiveCopy = ProtocolManager.copy(primitiveObject);
+        Assert.assertArrayEquals(primitiveCopy.getA().toIntArray(), intArray);
+        Assert.assertNotSame(primitiveCopy.getA(), primitiveObject.getA());
+        Assert.assertNull(primitiveCopy.getB());
+
+        // 反射的copy和字节码增强的结果一致
+        var registration = reflectObjectA();
+        var kk = complexObject.getKk();
+        var reflectCopy = (ObjectA) registration.copy(kk);
+        Assert.assertEquals(reflectCopy, kk);
+        Assert.assertNotSame(reflectCopy.getM(), kk.getM());
+        Assert.assertNotSame(reflectCopy.getObjectB(), kk.getObjectB());
+
+        var arrayCopy = (ObjectA[]) ArraySerializer.INSTANCE.copyObject(complexObject.getKkk(), ArrayField.valueOf(ObjectProtocolField.valueOf(ObjectA.PROTOCOL_ID), ObjectA.class));
+        Assert.assertArrayEquals(arrayCopy, complexObject.getKkk());
+        Assert.assertNotSame(arrayCopy[0], complexObject.getKkk()[0]);
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.registration;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.packet.ComplexObject;
+import com.zfoo.protocol.packet.NormalObject;
+import com.zfoo.protocol.packet.ObjectA;
+import com.zfoo.protocol.packet.ObjectB;
+import com.zfoo.protocol.packet.SimpleObject;
+import com.zfoo.protocol.packet.TestPackets;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按照类缓存的协议号，协议注册和模块
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ProtocolClassValueTest {
+
+    static {
+        TestPackets.initProtocol();
+    }
+
+    @Test
+    public void protocolClassValueTest() {
+        // 多条线程同时第一次访问，拿到的都是同一个缓存
+        var protocols = List.of(ComplexObject.class, NormalObject.class, SimpleObject.class, ObjectA.class, ObjectB.class).parallelStream()
+                .flatMap(it -> Collections.nCopies(100, it).parallelStream())
+                .map(ProtocolManager::getProtocol)
+                .distinct()
+                .count();
+        Assert.assertEquals(protocols, 5);
+        Assert.assertEquals(ProtocolManager.protocolId(NormalObject.class), NormalObject.PROTOCOL_ID);
+        Assert.assertSame(ProtocolManager.getProtocol(NormalObject.class), ProtocolManager.getProtocol(NormalObject.PROTOCOL_ID));
+        Assert.assertSame(ProtocolManager.moduleByClass(NormalObject.class), ProtocolManager.moduleByProtocolId(NormalObject.PROTOCOL_ID));
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.registration;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.packet.ComplexObject;
+import com.zfoo.protocol.packet.NormalObject;
+import com.zfoo.protocol.packet.SimpleObject;
+import com.zfoo.protocol.packet.TestPackets;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledUnsafeHeapByteBuf;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.zfoo.protocol.packet.TestPackets.*;
+
+/**
+ * 预先计算的包体大小和实际序列化的字节数一致
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class SerializedSizeTest {
+
+    static {
+        TestPackets.initProtocol();
+    }
+
+    @Test
+    public void serializedSizeTest() {
+        ByteBuf buffer = new UnpooledUnsafeHeapByteBuf(ByteBufAllocator.DEFAULT, 100, 1_0000);
+        var packets = List.of(simpleObject, normalObject, complexObject, new SimpleObject(), new NormalObject(), new ComplexObject());
+        for (var packet : packets) {
+            buffer.clear();
+            ProtocolManager.write(buffer, packet);
+            Assert.assertEquals(buffer.writerIndex(), ProtocolManager.serializedSize(packet));
+        }
+    }
+
+}
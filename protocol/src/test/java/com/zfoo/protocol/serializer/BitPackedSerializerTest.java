@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.serializer;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.packet.BitPackedObject;
+import com.zfoo.protocol.packet.TestPackets;
+import com.zfoo.protocol.registration.ProtocolRegistration;
+import com.zfoo.protocol.registration.field.BaseField;
+import com.zfoo.protocol.registration.field.IFieldRegistration;
+import com.zfoo.protocol.serializer.reflect.BooleanSerializer;
+import com.zfoo.protocol.serializer.reflect.IntSerializer;
+import com.zfoo.protocol.view.PacketView;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.UnpooledUnsafeHeapByteBuf;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 使用@BitPacked标注的协议，boolean字段压缩到协议开头的位图中
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class BitPackedSerializerTest {
+
+    static {
+        TestPackets.initProtocol();
+    }
+
+    @Test
+    public void bitPackedTest() throws Exception {
+        ByteBuf buffer = new UnpooledUnsafeHeapByteBuf(ByteBufAllocator.DEFAULT, 100, 1_0000);
+        var packet = new BitPackedObject();
+        packet.setA(true);
+        packet.setC(true);
+        packet.setH(true);
+        packet.setJ(true);
+        packet.setK(99);
+        packet.setL(true);
+        packet.setM(true);
+        ProtocolManager.write(buffer, packet);
+        Assert.assertEquals(buffer.writerIndex(), ProtocolManager.serializedSize(packet));
+        // 协议号2，对象标识1，10个boolean的位图2，zigzag的int 2，Boolean 1，兼容的boolean 1
+        Assert.assertEquals(buffer.writerIndex(), 9);
+        var bytes = ByteBufUtil.getBytes(buffer);
+
+        var result = (BitPackedObject) ProtocolManager.read(buffer);
+        Assert.assertTrue(result.isA() && result.isC() && result.isH() && result.isJ() && result.isM());
+        Assert.assertFalse(result.isB() || result.isD() || result.isE() || result.isF() || result.isG() || result.isI());
+        Assert.assertEquals(result.getK(), 99);
+        Assert.assertEquals(result.getL(), Boolean.TRUE);
+
+        // 反射的序列化和字节码增强的序列化一样
+        var names = List.of("a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m");
+        var fields = new Field[names.size()];
+        var fieldRegistrations = new IFieldRegistration[names.size()];
+        var bitIndexes = new int[names.size()];
+        for (var i = 0; i < names.size(); i++) {
+            fields[i] = BitPackedObject.class.getDeclaredField(names.get(i));
+            fields[i].setAccessible(true);
+            fieldRegistrations[i] = BaseField.valueOf(fields[i].getType() == int.class ? IntSerializer.INSTANCE : BooleanSerializer.INSTANCE);
+            bitIndexes[i] = i < 10 ? i : -1;
+        }
+        var registration = new ProtocolRegistration();
+        registration.setId(BitPackedObject.PROTOCOL_ID);
+        registration.setConstructor(BitPackedObject.class.getDeclaredConstructor());
+        registration.setFields(fields);
+        registration.setFieldRegistrations(fieldRegistrations);
+        registration.setBitIndexes(bitIndexes);
+        buffer.clear();
+        registration.write(buffer, packet);
+        Assert.assertArrayEquals(ByteBufUtil.getBytes(buffer), Arrays.copyOfRange(bytes, 2, bytes.length));
+        Assert.assertEquals(registration.serializedSize(packet), buffer.writerIndex());
+        var reflectResult = (BitPackedObject) registration.read(buffer);
+        Assert.assertTrue(reflectResult.isJ() && !reflectResult.isI());
+
+        // 视图
+        buffer.clear();
+        ProtocolManager.write(buffer, packet);
+        var view = PacketView.of(buffer);
+        Assert.assertEquals(view.getInt(view.fieldIndex("k")), 99);
+        Assert.assertTrue(view.getBoolean(view.fieldIndex("h")));
+        Assert.assertFalse(view.getBoolean(view.fieldIndex("i")));
+        Assert.assertTrue(view.getBoolean(view.fieldIndex("m")));
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.serializer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.packet.ComplexObject;
+import com.zfoo.protocol.packet.NormalObject;
+import com.zfoo.protocol.packet.ObjectA;
+import com.zfoo.protocol.packet.SimpleObject;
+import com.zfoo.protocol.packet.TestPackets;
+import com.zfoo.protocol.util.JsonUtils;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledUnsafeHeapByteBuf;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.zfoo.protocol.packet.TestPackets.*;
+
+/**
+ * 直接写入UTF-8字节的json序列化，输出和JsonUtils.object2String()一致
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class JsonSerializerTest {
+
+    static {
+        TestPackets.initProtocol();
+    }
+
+    @Test
+    public void writeJsonTest() throws Exception {
+        // 字段的顺序和jackson不一样，所以解析成JsonNode之后再比较
+        ByteBuf buffer = new UnpooledUnsafeHeapByteBuf(ByteBufAllocator.DEFAULT, 100, 1_0000);
+        var packets = List.of(simpleObject, normalObject, complexObject, new SimpleObject(), new NormalObject(), new ComplexObject());
+        for (var packet : packets) {
+            buffer.clear();
+            ProtocolManager.writeJson(buffer, packet);
+            var json = buffer.toString(StringUtils.DEFAULT_CHARSET);
+            Assert.assertEquals(JsonUtils.string2Object(json, JsonNode.class), JsonUtils.string2Object(JsonUtils.object2String(packet), JsonNode.class));
+        }
+
+        // 转义，多字节字符和四字节的emoji
+        var escapeObject = new ObjectA();
+        escapeObject.setM(Map.of(1, "\"引号\"\\\n\t\u0001中文\uD83D\uDE00"));
+        buffer.clear();
+        ProtocolManager.writeJson(buffer, escapeObject);
+        Assert.assertEquals(buffer.toString(StringUtils.DEFAULT_CHARSET), JsonUtils.object2String(escapeObject));
+
+        // 反射的方式和字节码增强的输出一样
+        buffer.clear();
+        ProtocolManager.writeJson(buffer, complexObject.getKk());
+        var enhanceJson = buffer.toString(StringUtils.DEFAULT_CHARSET);
+        buffer.clear();
+        reflectObjectA().writeJson(buffer, complexObject.getKk());
+        Assert.assertEquals(buffer.toString(StringUtils.DEFAULT_CHARSET), enhanceJson);
+    }
+
+}
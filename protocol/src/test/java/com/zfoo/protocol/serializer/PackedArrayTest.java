@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.serializer;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.buffer.ByteBufUtils;
+import com.zfoo.protocol.packet.PackedObject;
+import com.zfoo.protocol.packet.TestPackets;
+import com.zfoo.protocol.registration.anno.Packed;
+import com.zfoo.protocol.registration.field.ArrayField;
+import com.zfoo.protocol.registration.field.BaseField;
+import com.zfoo.protocol.serializer.reflect.ArraySerializer;
+import com.zfoo.protocol.serializer.reflect.LongSerializer;
+import com.zfoo.protocol.view.PacketView;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledUnsafeHeapByteBuf;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.zfoo.protocol.packet.TestPackets.*;
+
+/**
+ * 使用@Packed标注的基础类型数组的序列化
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class PackedArrayTest {
+
+    static {
+        TestPackets.initProtocol();
+    }
+
+    @Test
+    public void packedArrayTest() {
+        ByteBuf buffer = new UnpooledUnsafeHeapByteBuf(ByteBufAllocator.DEFAULT, 100, 1_0000);
+        var packet = new PackedObject();
+        packet.setA(shortArray);
+        packet.setB(intArray);
+        packet.setC(longArray);
+        packet.setD(floatArray);
+        packet.setE(doubleArray);
+        packet.setF(intArray);
+        packet.setG(longArray);
+        packet.setH(99);
+        ProtocolManager.write(buffer, packet);
+        Assert.assertEquals(buffer.writerIndex(), ProtocolManager.serializedSize(packet));
+
+        var result = (PackedObject) ProtocolManager.read(buffer);
+        Assert.assertArrayEquals(result.getA(), shortArray);
+        Assert.assertArrayEquals(result.getB(), intArray);
+        Assert.assertArrayEquals(result.getC(), longArray);
+        Assert.assertArrayEquals(result.getD(), floatArray, 0);
+        Assert.assertArrayEquals(result.getE(), doubleArray, 0);
+        Assert.assertArrayEquals(result.getF(), intArray);
+        Assert.assertArrayEquals(result.getG(), longArray);
+        Assert.assertEquals(result.getH(), 99);
+
+        // FIXED是小端的定长字节，和ByteBufUtils写入的一样
+        buffer.clear();
+        ByteBufUtils.writeFixedIntArray(buffer, new int[]{1, 256});
+        Assert.assertArrayEquals(ByteBufUtil.getBytes(buffer), new byte[]{4, 1, 0, 0, 0, 0, 1, 0, 0});
+
+        // 有序的数组使用DELTA_VARINT更小
+        var sorted = new long[100];
+        for (var i = 0; i < sorted.length; i++) {
+            sorted[i] = 1_600_000_000_000L + i * 10;
+        }
+        buffer.clear();
+        ByteBufUtils.writeDeltaLongArray(buffer, sorted);
+        Assert.assertEquals(buffer.writerIndex(), ByteBufUtils.writeDeltaLongArrayCount(sorted));
+        Assert.assertTrue(buffer.writerIndex() < ByteBufUtils.writeLongArrayCount(sorted));
+        Assert.assertArrayEquals(ByteBufUtils.readDeltaLongArray(buffer), sorted);
+
+        // 不连续的ByteBuf逐个元素写入
+        var composite = Unpooled.compositeBuffer();
+        composite.addComponent(true, Unpooled.buffer(3));
+        composite.addComponent(true, Unpooled.buffer(3));
+        ByteBufUtils.writeFixedDoubleArray(composite, doubleArray);
+        Assert.assertArrayEquals(ByteBufUtils.readFixedDoubleArray(composite), doubleArray, 0);
+        composite.release();
+
+        // 反射的序列化和字节码增强的序列化一样
+        var arrayField = ArrayField.valueOf(BaseField.valueOf(LongSerializer.INSTANCE), long.class, Packed.Type.FIXED);
+        buffer.clear();
+        ArraySerializer.INSTANCE.writeObject(buffer, longArray, arrayField);
+        Assert.assertEquals(buffer.writerIndex(), ArraySerializer.INSTANCE.serializedSize(longArray, arrayField));
+        Assert.assertArrayEquals((long[]) ArraySerializer.INSTANCE.readObject(buffer, arrayField), longArray);
+
+        // 视图
+        buffer.clear();
+        ProtocolManager.write(buffer, packet);
+        var view = PacketView.of(buffer);
+        Assert.assertEquals(view.getInt(view.fieldIndex("h")), 99);
+        var b = view.getCollection(view.fieldIndex("b"));
+        for (var i = intArray.length - 1; i >= 0; i--) {
+            Assert.assertEquals(b.getInt(i), intArray[i]);
+        }
+        // 往回访问DELTA_VARINT的数组会从头开始累加
+        var g = view.getCollection(view.fieldIndex("g"));
+        Assert.assertEquals(g.getLong(longArray.length - 1), longArray[longArray.length - 1]);
+        for (var i = 0; i < longArray.length; i++) {
+            Assert.assertEquals(g.getLong(i), longArray[i]);
+        }
+        var d = view.getCollection(view.fieldIndex("d"));
+        Assert.assertEquals(d.getFloat(2), floatArray[2], 0);
+
+        // null的时候反序列化为长度为0的数组
+        buffer.clear();
+        ProtocolManager.write(buffer, new PackedObject());
+        result = (PackedObject) ProtocolManager.read(buffer);
+        Assert.assertEquals(result.getB().length, 0);
+        Assert.assertEquals(result.getG().length, 0);
+    }
+
+}
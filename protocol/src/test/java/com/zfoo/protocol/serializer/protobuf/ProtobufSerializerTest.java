@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.serializer.protobuf;
+
+import com.baidu.bjf.remoting.protobuf.ProtobufProxy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.exception.RunException;
+import com.zfoo.protocol.packet.ProtobufElement;
+import com.zfoo.protocol.packet.ProtobufMessage;
+import com.zfoo.protocol.packet.TestPackets;
+import com.zfoo.protocol.registration.ProtocolRegistration;
+import com.zfoo.protocol.registration.field.BaseField;
+import com.zfoo.protocol.registration.field.IFieldRegistration;
+import com.zfoo.protocol.serializer.reflect.IntSerializer;
+import com.zfoo.protocol.serializer.reflect.StringSerializer;
+import com.zfoo.protocol.util.JsonUtils;
+import com.zfoo.protocol.util.StringUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledUnsafeHeapByteBuf;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+
+import static com.zfoo.protocol.packet.TestPackets.*;
+
+/**
+ * protobuf编码格式的序列化，和jprotobuf互相兼容
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class ProtobufSerializerTest {
+
+    static {
+        TestPackets.initProtocol();
+    }
+
+    @Test
+    public void protobufWireTest() throws Exception {
+        ByteBuf buffer = new UnpooledUnsafeHeapByteBuf(ByteBufAllocator.DEFAULT, 100, 1_0000);
+        var packet = new ProtobufMessage();
+        packet.a = -1;
+        packet.b = Long.MIN_VALUE;
+        packet.c = true;
+        packet.d = 1.5F;
+        packet.e = -2.25D;
+        packet.f = "protobuf中文\uD83D\uDE00";
+        packet.g = 99;
+        packet.h = List.of(1, -1, 300);
+        packet.i = List.of("a", StringUtils.EMPTY, "c");
+        packet.j = ProtobufElement.valueOf(1, "j");
+        packet.k = List.of(ProtobufElement.valueOf(2, "k"), ProtobufElement.valueOf(300, "kk"));
+        packet.l = Map.of(1, "a", -1, "b");
+        packet.m = Map.of("m", ProtobufElement.valueOf(3, "m".repeat(200)));
+        var codec = ProtobufProxy.create(ProtobufMessage.class);
+        var json = JsonUtils.string2Object(JsonUtils.object2String(packet), JsonNode.class);
+
+        // zfoo写入的包体可以被jprotobuf解析
+        ProtocolManager.writeProtobuf(buffer, packet);
+        var bytes = ByteBufUtil.getBytes(buffer, 2, buffer.writerIndex() - 2);
+        Assert.assertEquals(JsonUtils.string2Object(JsonUtils.object2String(codec.decode(bytes)), JsonNode.class), json);
+
+        // jprotobuf写入的包体可以被zfoo解析，jprotobuf的repeated没有使用packed
+        var result = (ProtobufMessage) ProtocolManager.getProtocol(ProtobufMessage.PROTOCOL_ID).readProtobuf(Unpooled.wrappedBuffer(codec.encode(packet)), codec.encode(packet).length);
+        Assert.assertEquals(JsonUtils.string2Object(JsonUtils.object2String(result), JsonNode.class), json);
+        result = (ProtobufMessage) ProtocolManager.readProtobuf(buffer);
+        Assert.assertEquals(JsonUtils.string2Object(JsonUtils.object2String(result), JsonNode.class), json);
+
+        // 默认值不写入，集合读取之后为空集合
+        buffer.clear();
+        ProtocolManager.writeProtobuf(buffer, new ProtobufMessage());
+        Assert.assertEquals(buffer.writerIndex(), 2);
+        result = (ProtobufMessage) ProtocolManager.readProtobuf(buffer);
+        Assert.assertTrue(result.h.isEmpty() && result.k.isEmpty() && result.m.isEmpty());
+        Assert.assertNull(result.j);
+
+        // 反射的方式和字节码增强的字节一样
+        var fields = new Field[]{ProtobufElement.class.getDeclaredField("id"), ProtobufElement.class.getDeclaredField("name")};
+        var registration = new ProtocolRegistration();
+        registration.setId(ProtobufElement.PROTOCOL_ID);
+        registration.setConstructor(ProtobufElement.class.getDeclaredConstructor());
+        registration.setFields(fields);
+        registration.setFieldRegistrations(new IFieldRegistration[]{BaseField.valueOf(IntSerializer.INSTANCE), BaseField.valueOf(StringSerializer.INSTANCE)});
+        buffer.clear();
+        registration.writeProtobuf(buffer, packet.m.get("m"));
+        bytes = ByteBufUtil.getBytes(buffer);
+        buffer.clear();
+        ProtocolManager.getProtocol(ProtobufElement.PROTOCOL_ID).writeProtobuf(buffer, packet.m.get("m"));
+        Assert.assertArrayEquals(ByteBufUtil.getBytes(buffer), bytes);
+        var element = (ProtobufElement) registration.readProtobuf(buffer, buffer.writerIndex());
+        Assert.assertEquals(element.name, packet.m.get("m").name);
+
+        // 没有使用@Protobuf标注的协议不支持protobuf格式
+        try {
+            ProtocolManager.writeProtobuf(buffer, simpleObject);
+            Assert.fail();
+        } catch (RunException e) {
+        }
+    }
+
+}
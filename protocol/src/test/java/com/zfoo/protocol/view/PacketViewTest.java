@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020 The zfoo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.zfoo.protocol.view;
+
+import com.zfoo.protocol.ProtocolManager;
+import com.zfoo.protocol.packet.NormalObject;
+import com.zfoo.protocol.packet.TestPackets;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledUnsafeHeapByteBuf;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+import static com.zfoo.protocol.packet.TestPackets.*;
+
+/**
+ * 不反序列化，直接在序列化的字节上读取字段的只读视图
+ *
+ * @author jaysunxiao
+ * @version 3.0
+ */
+public class PacketViewTest {
+
+    static {
+        TestPackets.initProtocol();
+    }
+
+    @Test
+    public void packetViewTest() {
+        ByteBuf buffer = new UnpooledUnsafeHeapByteBuf(ByteBufAllocator.DEFAULT, 100, 1_0000);
+        ProtocolManager.write(buffer, normalObject);
+        var readerIndex = buffer.readerIndex();
+
+        // 先访问后面的字段，再访问前面的字段
+        var view = PacketView.of(buffer);
+        Assert.assertEquals(view.protocolId(), normalObject.protocolId());
+        Assert.assertEquals(view.getString(view.fieldIndex("jj")), normalObject.getJj());
+        Assert.assertEquals(view.getByte(view.fieldIndex("a")), normalObject.getA());
+        Assert.assertEquals(view.getShort(view.fieldIndex("b")), normalObject.getB());
+        Assert.assertEquals(view.getInt(view.fieldIndex("c")), normalObject.getC());
+        Assert.assertEquals(view.getLong(view.fieldIndex("d")), normalObject.getD());
+        Assert.assertEquals(view.getFloat(view.fieldIndex("e")), normalObject.getE(), 0);
+        Assert.assertEquals(view.getDouble(view.fieldIndex("f")), normalObject.getF(), 0);
+        Assert.assertEquals(view.getBoolean(view.fieldIndex("g")), normalObject.isG());
+        Assert.assertEquals(buffer.readerIndex(), readerIndex);
+
+        var kk = view.getObject(PacketView.fieldIndex(NormalObject.class, "kk"));
+        Assert.assertEquals(kk.getInt(kk.fieldIndex("a")), normalObject.getKk().getA());
+        Assert.assertEquals(kk.getObject(kk.fieldIndex("objectB")).getBoolean(0), normalObject.getKk().getObjectB().isFlag());
+
+        var aaa = view.getCollection(view.fieldIndex("aaa"));
+        Assert.assertEquals(aaa.size(), normalObject.getAaa().length);
+        for (var i = 0; i < aaa.size(); i++) {
+            Assert.assertEquals(aaa.getByte(i), normalObject.getAaa()[i]);
+        }
+
+        // 集合中的元素视图被复用，遍历的时候不会为每个元素创建对象
+        var lll = view.getCollection(view.fieldIndex("lll"));
+        Assert.assertEquals(lll.size(), normalObject.getLll().size());
+        for (var i = 0; i < lll.size(); i++) {
+            var element = lll.getObject(i);
+            Assert.assertSame(element, lll.getObject(i));
+            Assert.assertEquals(element.getInt(element.fieldIndex("a")), normalObject.getLll().get(i).getA());
+        }
+
+        var llll = view.getCollection(view.fieldIndex("llll"));
+        for (var i = llll.size() - 1; i >= 0; i--) {
+            Assert.assertEquals(llll.getString(i), normalObject.getLlll().get(i));
+        }
+
+        var ssss = view.getCollection(view.fieldIndex("ssss"));
+        var set = new HashSet<String>();
+        for (var i = 0; i < ssss.size(); i++) {
+            set.add(ssss.getString(i));
+        }
+        Assert.assertEquals(set, normalObject.getSsss());
+
+        // 空对象
+        buffer.clear();
+        ProtocolManager.write(buffer, new NormalObject());
+        view.wrap(buffer);
+        Assert.assertNull(view.getObject(view.fieldIndex("kk")));
+        Assert.assertTrue(view.getCollection(view.fieldIndex("l")).isEmpty());
+        Assert.assertEquals(view.getInt(view.fieldIndex("c")), 0);
+    }
+
+}
@@ -15,62 +15,186 @@ package com.zfoo.util.math;
 
 import com.zfoo.protocol.model.Pair;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.TreeMap;
 
 /**
  * 带虚拟节点的一致性Hash算法，参考：http://www.zsythink.net/archives/1182
+ * <p>
+ * 哈希环使用两个平行的有序数组存储，hashes为虚拟节点的hash值，nodeIndexes为虚拟节点对应的真实节点在realNodes中的下标，查找使用二分查找；
+ * 每个真实节点只计算一次fnvHash，虚拟节点的hash值由真实节点的hash值和虚拟节点的编号混合得到，不需要拼接字符串。
+ * <p>
+ * 节点的增加和删除只会合并或者过滤有序数组，不需要重新构建整个哈希环；修改的时候复制一个新的哈希环，读取不需要加锁。
+ * 不需要虚拟节点的场景可以使用{@link HashUtils#jumpConsistentHash(long, int)}和{@link HashUtils#rendezvousHash(int, int[])}
  *
  * @author jaysunxiao
  * @version 3.0
  */
-
 public class ConsistentHash<K, V> {
 
-    // 真实结点列表,考虑到服务器上线、下线的场景，即添加、删除的场景会比较频繁，这里使用LinkedList会更好
-    private List<Pair<K, V>> realNodes = new LinkedList<>();
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private static class Ring<K, V> {
+        // 真实结点列表
+        private final List<Pair<K, V>> realNodes;
+        // 虚拟节点的hash值，从小到大排序
+        private final int[] hashes;
+        // 虚拟节点对应的真实节点在realNodes中的下标
+        private final int[] nodeIndexes;
 
-    // 虚拟节点，key表示虚拟节点的hash值，value表示虚拟节点的名称
-    private TreeMap<Integer, Pair<K, V>> virtualNodeTreeMap = new TreeMap<>();
+        private Ring(List<Pair<K, V>> realNodes, int[] hashes, int[] nodeIndexes) {
+            this.realNodes = realNodes;
+            this.hashes = hashes;
+            this.nodeIndexes = nodeIndexes;
+        }
+    }
 
     // 虚拟节点的数目，数量越大约均匀，经验值150
-    private int virtualNodes = 0;
+    private final int virtualNodes;
+
+    private volatile Ring<K, V> ring;
 
     public ConsistentHash(List<Pair<K, V>> realNodes, int virtualNodes) {
-        // 先把原始的服务器添加到真实结点列表中
-        this.realNodes.addAll(realNodes);
         this.virtualNodes = virtualNodes;
 
-        // 初始化
-        // 再添加虚拟节点，遍历LinkedList使用foreach循环效率会比较高
+        var nodes = new ArrayList<Pair<K, V>>(realNodes.size());
+        var virtualNodeArray = new long[realNodes.size() * virtualNodes];
         for (var realNode : realNodes) {
-            addNode(realNode);
+            virtualNodes(realNode, nodes.size(), virtualNodeArray, nodes.size() * virtualNodes);
+            nodes.add(realNode);
         }
+        Arrays.sort(virtualNodeArray);
+        this.ring = toRing(nodes, virtualNodeArray);
     }
 
-    public void addNode(Pair<K, V> realNode) {
-        for (var i = 0; i < this.virtualNodes; i++) {
-            var virtualNode = realNode.getKey().toString() + "&&VN" + i;
-            var hash = HashUtils.fnvHash(virtualNode);
-            virtualNodeTreeMap.put(hash, realNode);
+    /**
+     * 增加一个真实节点，如果已经存在相同key的节点则替换，时间复杂度为O(n + v*log(v))，n为哈希环上虚拟节点的数量，v为每个真实节点的虚拟节点数量
+     */
+    public synchronized void addNode(Pair<K, V> realNode) {
+        removeNode(realNode.getKey());
+
+        var oldRing = ring;
+        var nodes = new ArrayList<>(oldRing.realNodes);
+        var addVirtualNodes = new long[virtualNodes];
+        virtualNodes(realNode, nodes.size(), addVirtualNodes, 0);
+        nodes.add(realNode);
+        Arrays.sort(addVirtualNodes);
+
+        // 合并两个有序数组
+        var oldHashes = oldRing.hashes;
+        var oldNodeIndexes = oldRing.nodeIndexes;
+        var length = oldHashes.length + addVirtualNodes.length;
+        var hashes = new int[length];
+        var nodeIndexes = new int[length];
+        for (int i = 0, j = 0, k = 0; k < length; k++) {
+            if (j >= addVirtualNodes.length || (i < oldHashes.length && oldHashes[i] <= (int) (addVirtualNodes[j] >> 32))) {
+                hashes[k] = oldHashes[i];
+                nodeIndexes[k] = oldNodeIndexes[i];
+                i++;
+            } else {
+                hashes[k] = (int) (addVirtualNodes[j] >> 32);
+                nodeIndexes[k] = (int) addVirtualNodes[j];
+                j++;
+            }
         }
+        this.ring = new Ring<>(Collections.unmodifiableList(nodes), hashes, nodeIndexes);
     }
 
+    /**
+     * 删除一个真实节点，只会移动这个节点上的key，时间复杂度为O(n)
+     *
+     * @return 是否删除成功
+     */
+    public synchronized boolean removeNode(K key) {
+        var oldRing = ring;
+        var removeIndex = -1;
+        for (var i = 0; i < oldRing.realNodes.size(); i++) {
+            if (Objects.equals(oldRing.realNodes.get(i).getKey(), key)) {
+                removeIndex = i;
+                break;
+            }
+        }
+        if (removeIndex < 0) {
+            return false;
+        }
+
+        var nodes = new ArrayList<>(oldRing.realNodes);
+        nodes.remove(removeIndex);
 
-    // 得到应当路由到的结点
+        var oldHashes = oldRing.hashes;
+        var oldNodeIndexes = oldRing.nodeIndexes;
+        var length = oldHashes.length - virtualNodes;
+        var hashes = new int[length];
+        var nodeIndexes = new int[length];
+        for (int i = 0, k = 0; i < oldHashes.length; i++) {
+            var nodeIndex = oldNodeIndexes[i];
+            if (nodeIndex == removeIndex) {
+                continue;
+            }
+            hashes[k] = oldHashes[i];
+            nodeIndexes[k] = nodeIndex > removeIndex ? nodeIndex - 1 : nodeIndex;
+            k++;
+        }
+        this.ring = new Ring<>(Collections.unmodifiableList(nodes), hashes, nodeIndexes);
+        return true;
+    }
+
+    /**
+     * 得到应当路由到的结点，没有任何节点的时候返回null
+     */
     public Pair<K, V> getRealNode(Object key) {
-        // 得到该key的hash值
+        var currentRing = ring;
+        var hashes = currentRing.hashes;
+        if (hashes.length == 0) {
+            return null;
+        }
+
+        // 得到该key的hash值，二分查找第一个大于等于该hash值的虚拟节点，就是顺时针过去离key最近的那个结点
         var hash = HashUtils.fnvHash(key);
-        // 第一个Key就是顺时针过去离node最近的那个结点
-        var entry = virtualNodeTreeMap.ceilingEntry(hash);
-        if (Objects.isNull(entry)) {
-            // 如果没有比该key的hash值大的，则从第一个node开始
-            return virtualNodeTreeMap.firstEntry().getValue();
+        var low = 0;
+        var high = hashes.length;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (hashes[mid] < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
-        return entry.getValue();
+        // 如果没有比该key的hash值大的，则从第一个node开始
+        if (low == hashes.length) {
+            low = 0;
+        }
+        return currentRing.realNodes.get(currentRing.nodeIndexes[low]);
+    }
+
+    public List<Pair<K, V>> getRealNodes() {
+        return ring.realNodes;
     }
 
+    /**
+     * 虚拟节点编码为long，高32位为hash值，低32位为真实节点的下标，直接排序就是按照hash值排序
+     */
+    private void virtualNodes(Pair<K, V> realNode, int nodeIndex, long[] array, int offset) {
+        var realNodeHash = HashUtils.fnvHash(realNode.getKey());
+        for (var i = 0; i < virtualNodes; i++) {
+            // 和fnvHash一样只使用非负数
+            var hash = HashUtils.mix(realNodeHash + i * GOLDEN_RATIO) & Integer.MAX_VALUE;
+            array[offset + i] = ((long) hash << 32) | nodeIndex;
+        }
+    }
+
+    private Ring<K, V> toRing(List<Pair<K, V>> nodes, long[] virtualNodeArray) {
+        var hashes = new int[virtualNodeArray.length];
+        var nodeIndexes = new int[virtualNodeArray.length];
+        for (var i = 0; i < virtualNodeArray.length; i++) {
+            hashes[i] = (int) (virtualNodeArray[i] >> 32);
+            nodeIndexes[i] = (int) virtualNodeArray[i];
+        }
+        return new Ring<>(Collections.unmodifiableList(nodes), hashes, nodeIndexes);
+    }
 
 }
@@ -51,7 +51,11 @@ public abstract class HashUtils {
      * @return hash结果
      */
     public static int fnvHash(Object object) {
-        var hash = object.toString().chars().reduce(INIT_HASH, (left, right) -> (left ^ right) * P);
+        var str = object.toString();
+        var hash = INIT_HASH;
+        for (int i = 0, length = str.length(); i < length; i++) {
+            hash = (hash ^ str.charAt(i)) * P;
+        }
         hash += hash << 13;
         hash ^= hash >> 7;
         hash += hash << 3;
@@ -60,4 +64,62 @@ public abstract class HashUtils {
         return Math.abs(hash);
     }
 
+    /**
+     * murmur3的32位finalizer，把相近的整数打散到整个int空间
+     */
+    public static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * Google的Jump Consistent Hash，参考：https://arxiv.org/abs/1406.2294
+     * <p>
+     * 不需要虚拟节点和额外的内存，分布非常均匀，桶的数量从n变为n+1的时候只有1/(n+1)的key会移动；
+     * 但是只能在末尾增加或者删除桶，适合编号连续的分片，不适合任意节点上下线的服务提供者
+     *
+     * @param key     计算hash的key
+     * @param buckets 桶的数量
+     * @return [0, buckets)
+     */
+    public static int jumpConsistentHash(long key, int buckets) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("buckets必须大于0");
+        }
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    /**
+     * 最高随机权重hash（Rendezvous Hash），选择和key混合之后hash值最大的节点
+     * <p>
+     * 不需要虚拟节点，任意节点上下线只会移动这个节点上的key，每次选择的时间复杂度为O(n)，适合节点数量不多的场景
+     *
+     * @param keyHash    key的hash值
+     * @param nodeHashes 所有节点的hash值，如节点名称的fnvHash
+     * @return 选中节点在nodeHashes中的下标，nodeHashes为空返回-1
+     */
+    public static int rendezvousHash(int keyHash, int[] nodeHashes) {
+        var index = -1;
+        var max = Integer.MIN_VALUE;
+        for (var i = 0; i < nodeHashes.length; i++) {
+            var weight = mix(keyHash ^ mix(nodeHashes[i]));
+            if (index < 0 || weight > max) {
+                max = weight;
+                index = i;
+            }
+        }
+        return index;
+    }
+
 }
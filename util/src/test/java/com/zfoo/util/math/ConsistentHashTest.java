@@ -20,6 +20,7 @@ import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.TreeMap;
@@ -28,7 +29,6 @@ import java.util.TreeMap;
  * @author jaysunxiao
  * @version 3.0
  */
-@Ignore
 public class ConsistentHashTest {
 
     //待添加入Hash环的服务器列表
@@ -40,6 +40,7 @@ public class ConsistentHashTest {
     private static List<Pair<String, String>> chars = List.of(new Pair<>("a", "a"), new Pair<>("b", "b"), new Pair<>("c", "c"));
 
 
+    @Ignore
     @Test
     public void consistentHashTest() {
         test(servers);
@@ -77,6 +78,7 @@ public class ConsistentHashTest {
     }
 
 
+    @Ignore
     @Test
     public void testTreeMap() {
         var treeMap = new TreeMap<Integer, String>();
@@ -89,4 +91,93 @@ public class ConsistentHashTest {
 
     }
 
+    @Test
+    public void incrementalTest() {
+        var nodes = new ArrayList<Pair<String, String>>();
+        for (var i = 0; i < 10; i++) {
+            nodes.add(new Pair<>("192.168.0." + i + ":111", "node" + i));
+        }
+        var consistentHash = new ConsistentHash<>(nodes.subList(0, 9), 200);
+
+        var before = new HashMap<Integer, String>();
+        for (var i = 0; i < 100000; i++) {
+            before.put(i, consistentHash.getRealNode(i).getValue());
+        }
+
+        // 增加一个节点，只有移动到新节点上的key发生变化，结果和重新构建的哈希环一致
+        consistentHash.addNode(nodes.get(9));
+        var rebuild = new ConsistentHash<>(nodes, 200);
+        var moved = 0;
+        for (var i = 0; i < 100000; i++) {
+            var node = consistentHash.getRealNode(i).getValue();
+            Assert.assertEquals(node, rebuild.getRealNode(i).getValue());
+            if (!node.equals(before.get(i))) {
+                Assert.assertEquals(node, "node9");
+                moved++;
+            }
+        }
+        Assert.assertTrue(moved > 5000 && moved < 15000);
+
+        // 删除一个节点，只有这个节点上的key发生变化
+        Assert.assertTrue(consistentHash.removeNode(nodes.get(9).getKey()));
+        Assert.assertFalse(consistentHash.removeNode(nodes.get(9).getKey()));
+        Assert.assertEquals(consistentHash.getRealNodes().size(), 9);
+        for (var i = 0; i < 100000; i++) {
+            Assert.assertEquals(consistentHash.getRealNode(i).getValue(), before.get(i));
+        }
+
+        Assert.assertTrue(consistentHash.removeNode(nodes.get(0).getKey()));
+        for (var i = 0; i < 100000; i++) {
+            var node = consistentHash.getRealNode(i).getValue();
+            Assert.assertNotEquals(node, "node0");
+            if (!before.get(i).equals("node0")) {
+                Assert.assertEquals(node, before.get(i));
+            }
+        }
+
+        var empty = new ConsistentHash<String, String>(List.of(), 200);
+        Assert.assertNull(empty.getRealNode(1));
+    }
+
+    @Test
+    public void jumpConsistentHashTest() {
+        var counts = new int[10];
+        for (var i = 0; i < 100000; i++) {
+            var bucket = HashUtils.jumpConsistentHash(i, 10);
+            counts[bucket]++;
+            // 桶的数量增加的时候，key要么不动，要么移动到新的桶
+            var newBucket = HashUtils.jumpConsistentHash(i, 11);
+            Assert.assertTrue(newBucket == bucket || newBucket == 10);
+        }
+        for (var count : counts) {
+            Assert.assertTrue(count > 9000 && count < 11000);
+        }
+        Assert.assertEquals(HashUtils.jumpConsistentHash(123456789L, 1), 0);
+    }
+
+    @Test
+    public void rendezvousHashTest() {
+        var nodeHashes = new int[10];
+        for (var i = 0; i < nodeHashes.length; i++) {
+            nodeHashes[i] = HashUtils.fnvHash("192.168.0." + i + ":111");
+        }
+        // 删除最后一个节点，只有这个节点上的key发生变化
+        var removedNodeHashes = new int[9];
+        System.arraycopy(nodeHashes, 0, removedNodeHashes, 0, 9);
+
+        var counts = new int[10];
+        for (var i = 0; i < 100000; i++) {
+            var keyHash = HashUtils.fnvHash(i);
+            var index = HashUtils.rendezvousHash(keyHash, nodeHashes);
+            counts[index]++;
+            if (index != 9) {
+                Assert.assertEquals(HashUtils.rendezvousHash(keyHash, removedNodeHashes), index);
+            }
+        }
+        for (var count : counts) {
+            Assert.assertTrue(count > 8000 && count < 12000);
+        }
+        Assert.assertEquals(HashUtils.rendezvousHash(1, new int[0]), -1);
+    }
+
 }